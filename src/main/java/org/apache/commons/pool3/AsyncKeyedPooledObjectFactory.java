@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool3;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * A {@link KeyedPooledObjectFactory} whose life-cycle methods complete
+ * asynchronously, for objects managed through non-blocking drivers.
+ * <p>
+ * {@link org.apache.commons.pool3.impl.GenericKeyedObjectPool} calls the
+ * asynchronous methods without blocking a thread while they are in flight
+ * when the evictor validates idle objects and when it destroys objects.
+ * Elsewhere, pools call the blocking methods, which by default wait for the
+ * asynchronous ones.
+ * </p>
+ * <p>
+ * A stage completed exceptionally is treated as the matching blocking method
+ * throwing the exception, which the blocking methods rethrow as is.
+ * </p>
+ *
+ * @param <K> The type of keys managed by this factory.
+ * @param <V> Type of element managed by this factory.
+ * @param <E> Type of exception thrown by this factory.
+ * @see AsyncPooledObjectFactory
+ * @since 3.0.0
+ */
+public interface AsyncKeyedPooledObjectFactory<K, V, E extends Exception> extends KeyedPooledObjectFactory<K, V, E> {
+
+    /**
+     * Waits for {@link #activateObjectAsync(Object, PooledObject)}.
+     *
+     * @param key the key used when selecting the object
+     * @param p a {@code PooledObject} wrapping the instance to be activated
+     * @throws E if there is a problem activating {@code obj}
+     */
+    @Override
+    default void activateObject(final K key, final PooledObject<V> p) throws E {
+        PoolUtils.join(activateObjectAsync(key, p));
+    }
+
+    /**
+     * Reinitializes an instance to be returned by the pool, see
+     * {@link #activateObject(Object, PooledObject)}.
+     *
+     * @param key the key used when selecting the object
+     * @param p a {@code PooledObject} wrapping the instance to be activated
+     * @return A stage completed once the instance is activated.
+     */
+    CompletionStage<Void> activateObjectAsync(K key, PooledObject<V> p);
+
+    /**
+     * Waits for {@link #destroyObjectAsync(Object, PooledObject, DestroyMode)}
+     * with {@link DestroyMode#NORMAL}.
+     *
+     * @param key the key used when selecting the instance
+     * @param p a {@code PooledObject} wrapping the instance to be destroyed
+     * @throws E if there is a problem destroying {@code obj}
+     */
+    @Override
+    default void destroyObject(final K key, final PooledObject<V> p) throws E {
+        destroyObject(key, p, DestroyMode.NORMAL);
+    }
+
+    /**
+     * Waits for {@link #destroyObjectAsync(Object, PooledObject, DestroyMode)}.
+     *
+     * @param key the key used when selecting the instance
+     * @param p a {@code PooledObject} wrapping the instance to be destroyed
+     * @param destroyMode DestroyMode providing context to the factory
+     * @throws E if there is a problem destroying {@code obj}
+     */
+    @Override
+    default void destroyObject(final K key, final PooledObject<V> p, final DestroyMode destroyMode) throws E {
+        PoolUtils.join(destroyObjectAsync(key, p, destroyMode));
+    }
+
+    /**
+     * Destroys an instance no longer needed by the pool, see
+     * {@link #destroyObject(Object, PooledObject, DestroyMode)}.
+     *
+     * @param key the key used when selecting the instance
+     * @param p a {@code PooledObject} wrapping the instance to be destroyed
+     * @param destroyMode DestroyMode providing context to the factory
+     * @return A stage completed once the instance is destroyed.
+     */
+    CompletionStage<Void> destroyObjectAsync(K key, PooledObject<V> p, DestroyMode destroyMode);
+
+    /**
+     * Waits for {@link #makeObjectAsync(Object)}.
+     *
+     * @param key the key used when constructing the object
+     * @return a {@code PooledObject} wrapping an instance that can be served by the pool, not null.
+     * @throws E if there is a problem creating a new instance
+     */
+    @Override
+    default PooledObject<V> makeObject(final K key) throws E {
+        return PoolUtils.join(makeObjectAsync(key));
+    }
+
+    /**
+     * Creates an instance that can be served by the pool, see
+     * {@link #makeObject(Object)}.
+     *
+     * @param key the key used when constructing the object
+     * @return A stage completed with a {@code PooledObject} wrapping the new instance, not null.
+     */
+    CompletionStage<PooledObject<V>> makeObjectAsync(K key);
+
+    /**
+     * Waits for {@link #passivateObjectAsync(Object, PooledObject)}.
+     *
+     * @param key the key used when selecting the object
+     * @param p a {@code PooledObject} wrapping the instance to be passivated
+     * @throws E if there is a problem passivating {@code obj}
+     */
+    @Override
+    default void passivateObject(final K key, final PooledObject<V> p) throws E {
+        PoolUtils.join(passivateObjectAsync(key, p));
+    }
+
+    /**
+     * Uninitializes an instance to be returned to the idle object pool, see
+     * {@link #passivateObject(Object, PooledObject)}.
+     *
+     * @param key the key used when selecting the object
+     * @param p a {@code PooledObject} wrapping the instance to be passivated
+     * @return A stage completed once the instance is passivated.
+     */
+    CompletionStage<Void> passivateObjectAsync(K key, PooledObject<V> p);
+
+    /**
+     * Waits for {@link #validateObjectAsync(Object, PooledObject)}.
+     *
+     * @param key the key used when selecting the object
+     * @param p a {@code PooledObject} wrapping the instance to be validated
+     * @return {@code false} if {@code obj} is not valid and should
+     *         be dropped from the pool, {@code true} otherwise.
+     */
+    @Override
+    default boolean validateObject(final K key, final PooledObject<V> p) {
+        return Boolean.TRUE.equals(PoolUtils.<Boolean, RuntimeException>join(validateObjectAsync(key, p)));
+    }
+
+    /**
+     * Ensures that the instance is safe to be returned by the pool, see
+     * {@link #validateObject(Object, PooledObject)}.
+     *
+     * @param key the key used when selecting the object
+     * @param p a {@code PooledObject} wrapping the instance to be validated
+     * @return A stage completed with {@code false} if {@code obj} is not valid
+     *         and should be dropped from the pool, {@code true} otherwise.
+     */
+    CompletionStage<Boolean> validateObjectAsync(K key, PooledObject<V> p);
+}
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool3;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * A {@link PooledObjectFactory} whose life-cycle methods complete
+ * asynchronously, for objects managed through non-blocking drivers.
+ * <p>
+ * {@link org.apache.commons.pool3.impl.GenericObjectPool} calls the
+ * asynchronous methods without blocking a thread while they are in flight
+ * when it serves {@link org.apache.commons.pool3.impl.GenericObjectPool#borrowObjectAsync()},
+ * when the evictor validates idle objects or tops them up to the minimum, and
+ * when it destroys objects. Elsewhere, pools call the blocking methods, which
+ * by default wait for the asynchronous ones.
+ * </p>
+ * <p>
+ * A stage completed exceptionally is treated as the matching blocking method
+ * throwing the exception, which the blocking methods rethrow as is.
+ * </p>
+ *
+ * @param <T> Type of element managed in this factory.
+ * @param <E> Type of exception thrown in this factory.
+ * @see AsyncKeyedPooledObjectFactory
+ * @since 3.0.0
+ */
+public interface AsyncPooledObjectFactory<T, E extends Exception> extends PooledObjectFactory<T, E> {
+
+    /**
+     * Waits for {@link #activateObjectAsync(PooledObject)}.
+     *
+     * @param p A {@code PooledObject} wrapping the instance to be activated
+     * @throws E if there is a problem activating {@code obj}
+     */
+    @Override
+    default void activateObject(final PooledObject<T> p) throws E {
+        PoolUtils.join(activateObjectAsync(p));
+    }
+
+    /**
+     * Reinitializes an instance to be returned by the pool, see
+     * {@link #activateObject(PooledObject)}.
+     *
+     * @param p A {@code PooledObject} wrapping the instance to be activated
+     * @return A stage completed once the instance is activated.
+     */
+    CompletionStage<Void> activateObjectAsync(PooledObject<T> p);
+
+    /**
+     * Waits for {@link #destroyObjectAsync(PooledObject, DestroyMode)} with
+     * {@link DestroyMode#NORMAL}.
+     *
+     * @param p A {@code PooledObject} wrapping the instance to be destroyed
+     * @throws E if there is a problem destroying {@code obj}
+     */
+    @Override
+    default void destroyObject(final PooledObject<T> p) throws E {
+        destroyObject(p, DestroyMode.NORMAL);
+    }
+
+    /**
+     * Waits for {@link #destroyObjectAsync(PooledObject, DestroyMode)}.
+     *
+     * @param p A {@code PooledObject} wrapping the instance to be destroyed
+     * @param destroyMode DestroyMode providing context to the factory
+     * @throws E if there is a problem destroying {@code obj}
+     */
+    @Override
+    default void destroyObject(final PooledObject<T> p, final DestroyMode destroyMode) throws E {
+        PoolUtils.join(destroyObjectAsync(p, destroyMode));
+    }
+
+    /**
+     * Destroys an instance no longer needed by the pool, see
+     * {@link #destroyObject(PooledObject, DestroyMode)}.
+     *
+     * @param p A {@code PooledObject} wrapping the instance to be destroyed
+     * @param destroyMode DestroyMode providing context to the factory
+     * @return A stage completed once the instance is destroyed.
+     */
+    CompletionStage<Void> destroyObjectAsync(PooledObject<T> p, DestroyMode destroyMode);
+
+    /**
+     * Waits for {@link #makeObjectAsync()}.
+     *
+     * @return A {@code PooledObject} wrapping an instance that can be served by the pool, not null.
+     * @throws E if there is a problem creating a new instance
+     */
+    @Override
+    default PooledObject<T> makeObject() throws E {
+        return PoolUtils.join(makeObjectAsync());
+    }
+
+    /**
+     * Creates an instance that can be served by the pool, see
+     * {@link #makeObject()}.
+     *
+     * @return A stage completed with a {@code PooledObject} wrapping the new instance, not null.
+     */
+    CompletionStage<PooledObject<T>> makeObjectAsync();
+
+    /**
+     * Waits for {@link #passivateObjectAsync(PooledObject)}.
+     *
+     * @param p A {@code PooledObject} wrapping the instance to be passivated
+     * @throws E if there is a problem passivating {@code obj}
+     */
+    @Override
+    default void passivateObject(final PooledObject<T> p) throws E {
+        PoolUtils.join(passivateObjectAsync(p));
+    }
+
+    /**
+     * Uninitializes an instance to be returned to the idle object pool, see
+     * {@link #passivateObject(PooledObject)}.
+     *
+     * @param p A {@code PooledObject} wrapping the instance to be passivated
+     * @return A stage completed once the instance is passivated.
+     */
+    CompletionStage<Void> passivateObjectAsync(PooledObject<T> p);
+
+    /**
+     * Waits for {@link #validateObjectAsync(PooledObject)}.
+     *
+     * @param p A {@code PooledObject} wrapping the instance to be validated
+     * @return {@code false} if {@code obj} is not valid and should
+     *         be dropped from the pool, {@code true} otherwise.
+     */
+    @Override
+    default boolean validateObject(final PooledObject<T> p) {
+        return Boolean.TRUE.equals(PoolUtils.<Boolean, RuntimeException>join(validateObjectAsync(p)));
+    }
+
+    /**
+     * Ensures that the instance is safe to be returned by the pool, see
+     * {@link #validateObject(PooledObject)}.
+     *
+     * @param p A {@code PooledObject} wrapping the instance to be validated
+     * @return A stage completed with {@code false} if {@code obj} is not valid
+     *         and should be dropped from the pool, {@code true} otherwise.
+     */
+    CompletionStage<Boolean> validateObjectAsync(PooledObject<T> p);
+}
@@ -16,6 +16,9 @@
  */
 package org.apache.commons.pool3;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * An interface defining life-cycle methods for
  * instances to be served by a {@link KeyedObjectPool}.
@@ -128,6 +131,26 @@ public interface KeyedPooledObjectFactory<K, V, E extends Exception> {
         destroyObject(key, p);
     }
 
+    /**
+     * Keeps an idle instance alive, for example by sending a lightweight ping
+     * over a connection that would otherwise be closed by a firewall for being
+     * idle. Called by pools that support keepalives, see
+     * {@link org.apache.commons.pool3.impl.GenericKeyedObjectPool#getKeepAliveInterval()},
+     * on passivated instances that have not been used for a while. Should be
+     * cheaper than {@link #validateObject}. The default implementation does
+     * nothing and returns {@code true}, as validations may expect an activated
+     * instance.
+     *
+     * @param key The key used when selecting the instance
+     * @param p A {@code PooledObject} wrapping the idle instance to keep alive
+     * @return {@code false} if {@code obj} is no longer alive and should
+     *         be dropped from the pool, {@code true} otherwise.
+     * @since 3.0.0
+     */
+    default boolean keepAliveObject(final K key, final PooledObject<V> p) {
+        return true;
+    }
+
     /**
      * Creates an instance that can be served by the pool and
      * wrap it in a {@link PooledObject} to be managed by the pool.
@@ -141,6 +164,47 @@ public interface KeyedPooledObjectFactory<K, V, E extends Exception> {
      */
     PooledObject<V> makeObject(K key) throws E;
 
+    /**
+     * Creates up to {@code count} instances that can be served by the pool
+     * for a key and wraps each of them in a {@link PooledObject} to be managed
+     * by the pool. Called by pools that support it, see
+     * {@link org.apache.commons.pool3.impl.GenericKeyedObjectPool#preparePool(Object)},
+     * when several idle instances are needed at once for a key, so that
+     * factories for backends able to open many instances in one round trip
+     * can do so.
+     * <p>
+     * The pool reserves capacity for {@code count} instances before calling
+     * this method. Returning fewer instances releases the capacity left over;
+     * instances returned beyond {@code count} are destroyed.
+     * </p>
+     * <p>
+     * The default implementation calls {@link #makeObject(Object)}
+     * {@code count} times. If a call fails after the first one, the instances
+     * made so far are returned and the exception is dropped.
+     * </p>
+     *
+     * @param key The key used when constructing the objects
+     * @param count The number of instances to create, at least 1.
+     * @return The {@code PooledObject}s wrapping the new instances, not null
+     *         and without null elements.
+     * @throws E if there is a problem creating the instances,
+     *    this will be propagated to the code requesting them.
+     * @since 3.0.0
+     */
+    default List<PooledObject<V>> makeObjects(final K key, final int count) throws E {
+        final List<PooledObject<V>> list = new ArrayList<>(count);
+        try {
+            for (int i = 0; i < count; i++) {
+                list.add(makeObject(key));
+            }
+        } catch (final Exception e) {
+            if (list.isEmpty()) {
+                throw e;
+            }
+        }
+        return list;
+    }
+
     /**
      * Uninitializes an instance to be returned to the idle object pool.
      *
@@ -153,6 +217,33 @@ public interface KeyedPooledObjectFactory<K, V, E extends Exception> {
      */
     void passivateObject(K key, PooledObject<V> p) throws E;
 
+    /**
+     * Converts an idle instance of one key into an instance of another key,
+     * for example by switching the schema or tenant of a connection, so that
+     * a pool at its total capacity can move an idle instance to the key that
+     * needs one rather than destroy it and make a new one. Called by pools
+     * that support it, see
+     * {@link org.apache.commons.pool3.impl.GenericKeyedObjectPool#getMaxTotal()},
+     * on passivated instances, which are then activated under the new key
+     * when borrowed and may first be passivated again under the new key.
+     * <p>
+     * The default implementation returns {@code false}, the instance is then
+     * destroyed as it is when it cannot be converted.
+     * </p>
+     *
+     * @param fromKey The key the instance belongs to
+     * @param toKey The key the instance is needed for
+     * @param p A {@code PooledObject} wrapping the idle instance to convert
+     * @return {@code true} if the instance now belongs to {@code toKey},
+     *         {@code false} if it cannot be converted and should be destroyed.
+     * @throws E if there is a problem converting the instance, which
+     *    is then destroyed, this exception may be swallowed by the pool.
+     * @since 3.0.0
+     */
+    default boolean rekeyObject(final K fromKey, final K toKey, final PooledObject<V> p) throws E {
+        return false;
+    }
+
     /**
      * Ensures that the instance is safe to be returned by the pool.
      *
@@ -162,5 +253,36 @@ public interface KeyedPooledObjectFactory<K, V, E extends Exception> {
      *         be dropped from the pool, {@code true} otherwise.
      */
     boolean validateObject(K key, PooledObject<V> p);
+
+    /**
+     * Ensures that several instances of a key are safe to be returned by the
+     * pool, for example by pipelining pings over a shared channel. Called by
+     * pools that support it, see
+     * {@link org.apache.commons.pool3.impl.GenericKeyedObjectPool#evict()},
+     * when they validate several instances of a key at once, with the same
+     * expectations on the state of the instances as {@link #validateObject}.
+     * <p>
+     * If this method throws an exception, every instance of the list is
+     * considered invalid.
+     * </p>
+     * <p>
+     * The default implementation calls {@link #validateObject} for each
+     * instance in turn.
+     * </p>
+     *
+     * @param key The key used when selecting the objects
+     * @param list The {@code PooledObject}s wrapping the instances to be validated
+     * @return One element per instance, in the order of {@code list}, which is
+     *         {@code false} if the instance is not valid and should be dropped
+     *         from the pool, {@code true} otherwise.
+     * @since 3.0.0
+     */
+    default boolean[] validateObjects(final K key, final List<PooledObject<V>> list) {
+        final boolean[] valid = new boolean[list.size()];
+        for (int i = 0; i < valid.length; i++) {
+            valid[i] = validateObject(key, list.get(i));
+        }
+        return valid;
+    }
 }
 
@@ -24,6 +24,8 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock.ReadLock;
@@ -974,6 +976,19 @@ public final class PoolUtils {
             }
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean keepAliveObject(final K key, final PooledObject<V> p) {
+            writeLock.lock();
+            try {
+                return keyedFactory.keepAliveObject(key, p);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -987,6 +1002,19 @@ public final class PoolUtils {
             }
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public List<PooledObject<V>> makeObjects(final K key, final int count) throws E {
+            writeLock.lock();
+            try {
+                return keyedFactory.makeObjects(key, count);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -1000,6 +1028,19 @@ public final class PoolUtils {
             }
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean rekeyObject(final K fromKey, final K toKey, final PooledObject<V> p) throws E {
+            writeLock.lock();
+            try {
+                return keyedFactory.rekeyObject(fromKey, toKey, p);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -1024,6 +1065,19 @@ public final class PoolUtils {
                 writeLock.unlock();
             }
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean[] validateObjects(final K key, final List<PooledObject<V>> list) {
+            writeLock.lock();
+            try {
+                return keyedFactory.validateObjects(key, list);
+            } finally {
+                writeLock.unlock();
+            }
+        }
     }
 
     /**
@@ -1265,6 +1319,19 @@ public final class PoolUtils {
             }
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean keepAliveObject(final PooledObject<T> p) {
+            writeLock.lock();
+            try {
+                return factory.keepAliveObject(p);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -1278,6 +1345,19 @@ public final class PoolUtils {
             }
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public List<PooledObject<T>> makeObjects(final int count) throws E {
+            writeLock.lock();
+            try {
+                return factory.makeObjects(count);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -1315,6 +1395,19 @@ public final class PoolUtils {
                 writeLock.unlock();
             }
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean[] validateObjects(final List<PooledObject<T>> list) {
+            writeLock.lock();
+            try {
+                return factory.validateObjects(list);
+            } finally {
+                writeLock.unlock();
+            }
+        }
     }
 
     /**
@@ -1479,6 +1572,30 @@ public final class PoolUtils {
         // All other instances of Throwable will be silently swallowed
     }
 
+    /**
+     * Waits for a stage to complete and gets its result, rethrowing the
+     * exception the stage completed with as is. Used by the blocking methods
+     * of the asynchronous factories.
+     *
+     * @param <V> The type of the result.
+     * @param <X> The type of exception the stage may complete with.
+     * @param stage The stage to wait for.
+     * @return The result of the stage.
+     * @throws X The exception the stage completed with.
+     */
+    @SuppressWarnings("unchecked")
+    static <V, X extends Exception> V join(final CompletionStage<V> stage) throws X {
+        try {
+            return stage.toCompletableFuture().join();
+        } catch (final CompletionException e) {
+            final Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (X) cause;
+        }
+    }
+
     /**
      * Returns a pool that adaptively decreases its size when idle objects are
      * no longer needed. This is intended as an always thread-safe alternative
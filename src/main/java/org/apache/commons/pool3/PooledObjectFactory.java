@@ -16,6 +16,9 @@
  */
 package org.apache.commons.pool3;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * An interface defining life-cycle methods for instances to be served by an
  * {@link ObjectPool}.
@@ -123,6 +126,25 @@ public interface PooledObjectFactory<T, E extends Exception> {
       destroyObject(p);
   }
 
+  /**
+   * Keeps an idle instance alive, for example by sending a lightweight ping
+   * over a connection that would otherwise be closed by a firewall for being
+   * idle. Called by pools that support keepalives, see
+   * {@link org.apache.commons.pool3.impl.GenericObjectPool#getKeepAliveInterval()},
+   * on passivated instances that have not been used for a while. Should be
+   * cheaper than {@link #validateObject}. The default implementation does
+   * nothing and returns {@code true}, as validations may expect an activated
+   * instance.
+   *
+   * @param p A {@code PooledObject} wrapping the idle instance to keep alive
+   * @return {@code false} if {@code obj} is no longer alive and should
+   *         be dropped from the pool, {@code true} otherwise.
+   * @since 3.0.0
+   */
+  default boolean keepAliveObject(final PooledObject<T> p) {
+      return true;
+  }
+
   /**
    * Creates an instance that can be served by the pool and wrap it in a
    * {@link PooledObject} to be managed by the pool.
@@ -133,6 +155,44 @@ public interface PooledObjectFactory<T, E extends Exception> {
    */
   PooledObject<T> makeObject() throws E;
 
+  /**
+   * Creates up to {@code count} instances that can be served by the pool and
+   * wraps each of them in a {@link PooledObject} to be managed by the pool.
+   * Called by pools that support it, see
+   * {@link org.apache.commons.pool3.impl.GenericObjectPool#preparePool()},
+   * when several idle instances are needed at once, so that factories for
+   * backends able to open many instances in one round trip can do so.
+   * <p>
+   * The pool reserves capacity for {@code count} instances before calling this
+   * method. Returning fewer instances releases the capacity left over;
+   * instances returned beyond {@code count} are destroyed.
+   * </p>
+   * <p>
+   * The default implementation calls {@link #makeObject()} {@code count}
+   * times. If a call fails after the first one, the instances made so far are
+   * returned and the exception is dropped.
+   * </p>
+   *
+   * @param count The number of instances to create, at least 1.
+   * @return The {@code PooledObject}s wrapping the new instances, not null and without null elements.
+   * @throws E if there is a problem creating the instances,
+   *    this will be propagated to the code requesting them.
+   * @since 3.0.0
+   */
+  default List<PooledObject<T>> makeObjects(final int count) throws E {
+      final List<PooledObject<T>> list = new ArrayList<>(count);
+      try {
+          for (int i = 0; i < count; i++) {
+              list.add(makeObject());
+          }
+      } catch (final Exception e) {
+          if (list.isEmpty()) {
+              throw e;
+          }
+      }
+      return list;
+  }
+
   /**
    * Uninitializes an instance to be returned to the idle object pool.
    *
@@ -152,4 +212,34 @@ public interface PooledObjectFactory<T, E extends Exception> {
    *         be dropped from the pool, {@code true} otherwise.
    */
   boolean validateObject(PooledObject<T> p);
+
+  /**
+   * Ensures that several instances are safe to be returned by the pool, for
+   * example by pipelining pings over a shared channel. Called by pools that
+   * support it, see
+   * {@link org.apache.commons.pool3.impl.GenericObjectPool#evict()}, when
+   * they validate several instances at once, with the same expectations on
+   * the state of the instances as {@link #validateObject}.
+   * <p>
+   * If this method throws an exception, every instance of the list is
+   * considered invalid.
+   * </p>
+   * <p>
+   * The default implementation calls {@link #validateObject} for each
+   * instance in turn.
+   * </p>
+   *
+   * @param list The {@code PooledObject}s wrapping the instances to be validated
+   * @return One element per instance, in the order of {@code list}, which is
+   *         {@code false} if the instance is not valid and should be dropped
+   *         from the pool, {@code true} otherwise.
+   * @since 3.0.0
+   */
+  default boolean[] validateObjects(final List<PooledObject<T>> list) {
+      final boolean[] valid = new boolean[list.size()];
+      for (int i = 0; i < valid.length; i++) {
+          valid[i] = validateObject(list.get(i));
+      }
+      return valid;
+  }
 }
@@ -38,6 +38,14 @@ public class AbandonedConfig {
      */
     public static final Duration DEFAULT_REMOVE_ABANDONED_TIMEOUT_DURATION = Duration.ofMinutes(5);
 
+    /**
+     * The default maximum number of borrow call sites tracked when borrow site
+     * sampling is enabled.
+     *
+     * @since 3.0.0
+     */
+    public static final int DEFAULT_MAX_BORROW_SITES = 64;
+
     /**
      * Creates a new instance with values from the given instance.
      *
@@ -93,6 +101,16 @@ public class AbandonedConfig {
      */
     private boolean useUsageTracking;
 
+    /**
+     * Sample the borrow call site of one in this many borrows, zero to disable.
+     */
+    private int borrowSiteSamplingInterval;
+
+    /**
+     * The maximum number of distinct borrow call sites to track.
+     */
+    private int maxBorrowSites = DEFAULT_MAX_BORROW_SITES;
+
     /**
      * Creates a new instance.
      */
@@ -114,6 +132,30 @@ public class AbandonedConfig {
         this.setRemoveAbandonedTimeout(abandonedConfig.getRemoveAbandonedTimeoutDuration());
         this.setUseUsageTracking(abandonedConfig.getUseUsageTracking());
         this.setRequireFullStackTrace(abandonedConfig.getRequireFullStackTrace());
+        this.setBorrowSiteSamplingInterval(abandonedConfig.getBorrowSiteSamplingInterval());
+        this.setMaxBorrowSites(abandonedConfig.getMaxBorrowSites());
+    }
+
+    /**
+     * Gets the borrow site sampling interval. When positive, the pool captures
+     * the call stack of one in this many borrows, chosen at random, and
+     * aggregates the samples by call site with hold time statistics. See
+     * {@link GenericObjectPool#listBorrowSites()}.
+     * <p>
+     * Unlike {@link #getLogAbandoned() logAbandoned}, which captures a stack
+     * trace on every borrow, the cost of sampling is proportional to the
+     * sampling rate, so it can be left on in production to find the code that
+     * holds pooled objects longest.
+     * </p>
+     * <p>
+     * The default value is 0, sampling is disabled.
+     * </p>
+     *
+     * @return The borrow site sampling interval, 0 if disabled.
+     * @since 3.0.0
+     */
+    public int getBorrowSiteSamplingInterval() {
+        return borrowSiteSamplingInterval;
     }
 
     /**
@@ -142,6 +184,21 @@ public class AbandonedConfig {
         return logWriter;
     }
 
+    /**
+     * Gets the maximum number of distinct borrow call sites tracked when
+     * {@link #getBorrowSiteSamplingInterval() borrow site sampling} is enabled.
+     * Samples from further call sites are aggregated into a single entry.
+     * <p>
+     * The default value is {@value #DEFAULT_MAX_BORROW_SITES}.
+     * </p>
+     *
+     * @return The maximum number of distinct borrow call sites.
+     * @since 3.0.0
+     */
+    public int getMaxBorrowSites() {
+        return maxBorrowSites;
+    }
+
     /**
      * <p>Flag to remove abandoned objects if they exceed the
      * removeAbandonedTimeout when borrowObject is invoked.</p>
@@ -219,6 +276,18 @@ public class AbandonedConfig {
         return useUsageTracking;
     }
 
+    /**
+     * Sets the borrow site sampling interval.
+     *
+     * @param borrowSiteSamplingInterval Sample one in this many borrows, 0 or
+     *        less disables sampling.
+     * @see #getBorrowSiteSamplingInterval()
+     * @since 3.0.0
+     */
+    public void setBorrowSiteSamplingInterval(final int borrowSiteSamplingInterval) {
+        this.borrowSiteSamplingInterval = Math.max(0, borrowSiteSamplingInterval);
+    }
+
     /**
      * Sets the flag to log stack traces for application code which abandoned
      * an object.
@@ -240,6 +309,19 @@ public class AbandonedConfig {
         this.logWriter = logWriter;
     }
 
+    /**
+     * Sets the maximum number of distinct borrow call sites tracked when
+     * borrow site sampling is enabled.
+     *
+     * @param maxBorrowSites The maximum number of distinct borrow call sites,
+     *        values less than 1 reset the default.
+     * @see #getMaxBorrowSites()
+     * @since 3.0.0
+     */
+    public void setMaxBorrowSites(final int maxBorrowSites) {
+        this.maxBorrowSites = maxBorrowSites > 0 ? maxBorrowSites : DEFAULT_MAX_BORROW_SITES;
+    }
+
     /**
      * Flag to remove abandoned objects if they exceed the
      * removeAbandonedTimeout when borrowObject is invoked.
@@ -326,6 +408,10 @@ public class AbandonedConfig {
         builder.append(logWriter);
         builder.append(", useUsageTracking=");
         builder.append(useUsageTracking);
+        builder.append(", borrowSiteSamplingInterval=");
+        builder.append(borrowSiteSamplingInterval);
+        builder.append(", maxBorrowSites=");
+        builder.append(maxBorrowSites);
         builder.append("]");
         return builder.toString();
     }
@@ -26,12 +26,26 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.TimerTask;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
@@ -115,6 +129,84 @@ public abstract class BaseGenericObjectPool<T, E extends Exception> extends Base
 
     }
 
+    /**
+     * Tracks the time budget and the coverage of one call to
+     * {@link BaseGenericObjectPool#evict()}. Must be used holding the eviction
+     * lock.
+     */
+    final class EvictionRun {
+
+        private final long deadlineNanos;
+        private final boolean budgeted;
+        private final int idleCount;
+        private int examinedCount;
+        private boolean timeLimited;
+
+        /**
+         * Starts an eviction run with a budget of
+         * {@link BaseGenericObjectPool#getMaxEvictionRunDuration()}.
+         *
+         * @param idleCount The number of idle objects when the run starts.
+         */
+        EvictionRun(final int idleCount) {
+            final long budgetNanos = toBudgetNanos(maxEvictionRunDuration);
+            this.deadlineNanos = System.nanoTime() + budgetNanos;
+            this.budgeted = budgetNanos != UNLIMITED_BUDGET_NANOS;
+            this.idleCount = idleCount;
+        }
+
+        /**
+         * Records the end of the run in the statistics of the pool.
+         */
+        void end() {
+            if (idleCount > 0) {
+                evictionRunCoverage.add(Math.min(1000L, examinedCount * 1000L / idleCount));
+            }
+            if (timeLimited) {
+                timeLimitedEvictionRunCount.incrementAndGet();
+            }
+        }
+
+        /**
+         * Records that an object has been examined by the run.
+         */
+        void examined() {
+            examinedCount++;
+        }
+
+        /**
+         * Tests whether the run has a time budget, in which case objects are
+         * validated one at a time so that the budget is checked between them.
+         *
+         * @return Whether the run has a time budget.
+         */
+        boolean isBudgeted() {
+            return budgeted;
+        }
+
+        /**
+         * Tests whether the time budget of the run is spent. A run always
+         * examines at least one object so that successive runs make progress.
+         *
+         * @return Whether the run must stop examining objects.
+         */
+        boolean isOver() {
+            if (!timeLimited && examinedCount > 0 && System.nanoTime() - deadlineNanos >= 0) {
+                timeLimited = true;
+            }
+            return timeLimited;
+        }
+
+        /**
+         * Gets the time left in the budget of the run.
+         *
+         * @return The time left in nanoseconds, negative once the budget is spent.
+         */
+        long remainingNanos() {
+            return deadlineNanos - System.nanoTime();
+        }
+    }
+
     /**
      * The idle object evictor {@link TimerTask}.
      *
@@ -122,7 +214,10 @@ public abstract class BaseGenericObjectPool<T, E extends Exception> extends Base
      */
     final class Evictor implements Runnable {
 
-        private ScheduledFuture<?> scheduledFuture;
+        private volatile ScheduledFuture<?> scheduledFuture;
+
+        /** Whether a run handed to the evictor executor has not completed yet. */
+        private final AtomicBoolean running = new AtomicBoolean();
 
         /**
          * Cancels the scheduled future.
@@ -135,6 +230,42 @@ public abstract class BaseGenericObjectPool<T, E extends Exception> extends Base
             return BaseGenericObjectPool.this;
         }
 
+        /**
+         * Runs pool maintenance on the thread of the shared timer, or hands it
+         * to the evictor executor of the pool if there is one. A run is skipped
+         * if the previous run handed to the executor has not completed, so that
+         * a slow pool cannot queue up runs in an executor shared with other
+         * pools.
+         */
+        @Override
+        public void run() {
+            // The future keeps the time this run was due until the run completes.
+            final ScheduledFuture<?> future = scheduledFuture;
+            final long dueNanos = System.nanoTime() + (future != null ? Math.min(0, future.getDelay(TimeUnit.NANOSECONDS)) : 0);
+            final Executor executor = evictorExecutor;
+            if (executor == null) {
+                runMaintenance(dueNanos);
+                return;
+            }
+            if (!running.compareAndSet(false, true)) {
+                skippedEvictionRunCount.incrementAndGet();
+                return;
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        runMaintenance(dueNanos);
+                    } finally {
+                        running.set(false);
+                    }
+                });
+            } catch (final RejectedExecutionException e) {
+                running.set(false);
+                skippedEvictionRunCount.incrementAndGet();
+                swallowException(e);
+            }
+        }
+
         /**
          * Run pool maintenance.  Evict objects qualifying for eviction and then
          * ensure that the minimum number of idle instances are available.
@@ -142,9 +273,12 @@ public abstract class BaseGenericObjectPool<T, E extends Exception> extends Base
          * pools may exist in different class loaders, the Evictor ensures that
          * any actions taken are under the class loader of the factory
          * associated with the pool.
+         *
+         * @param dueNanos The {@link System#nanoTime()} this run was due at.
          */
-        @Override
-        public void run() {
+        private void runMaintenance(final long dueNanos) {
+            final long startNanos = System.nanoTime();
+            evictionRunDelays.add(TimeUnit.NANOSECONDS.toMillis(startNanos - dueNanos));
             final ClassLoader savedClassLoader = Thread.currentThread().getContextClassLoader();
             try {
                 if (factoryClassLoader != null) {
@@ -179,6 +313,8 @@ public abstract class BaseGenericObjectPool<T, E extends Exception> extends Base
             } finally {
                 // Restore the previous CCL
                 Thread.currentThread().setContextClassLoader(savedClassLoader);
+                evictionRunTimes.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+                evictionRunCount.incrementAndGet();
             }
         }
 
@@ -359,6 +495,11 @@ public abstract class BaseGenericObjectPool<T, E extends Exception> extends Base
     public static final int MEAN_TIMING_STATS_CACHE_SIZE = 100;
     private static final String EVICTION_POLICY_TYPE_NAME = EvictionPolicy.class.getName();
     private static final Duration DEFAULT_REMOVE_ABANDONED_TIMEOUT = Duration.ofSeconds(Integer.MAX_VALUE);
+    /**
+     * A time budget in nanoseconds that is treated as unlimited, small enough
+     * for deadlines computed from {@link System#nanoTime()} not to overflow.
+     */
+    private static final long UNLIMITED_BUDGET_NANOS = Long.MAX_VALUE / 4;
     // Configuration attributes
     private volatile int maxTotal = GenericKeyedObjectPoolConfig.DEFAULT_MAX_TOTAL;
     private volatile boolean blockWhenExhausted = BaseObjectPoolConfig.DEFAULT_BLOCK_WHEN_EXHAUSTED;
@@ -369,13 +510,21 @@ public abstract class BaseGenericObjectPool<T, E extends Exception> extends Base
     private volatile boolean testOnBorrow = BaseObjectPoolConfig.DEFAULT_TEST_ON_BORROW;
     private volatile boolean testOnReturn = BaseObjectPoolConfig.DEFAULT_TEST_ON_RETURN;
     private volatile boolean testWhileIdle = BaseObjectPoolConfig.DEFAULT_TEST_WHILE_IDLE;
+    private volatile int testWhileIdleParallelism = BaseObjectPoolConfig.DEFAULT_TEST_WHILE_IDLE_PARALLELISM;
+    private volatile Duration testWhileIdleTimeout = BaseObjectPoolConfig.DEFAULT_TEST_WHILE_IDLE_TIMEOUT;
     private volatile Duration durationBetweenEvictionRuns = BaseObjectPoolConfig.DEFAULT_DURATION_BETWEEN_EVICTION_RUNS;
     private volatile int numTestsPerEvictionRun = BaseObjectPoolConfig.DEFAULT_NUM_TESTS_PER_EVICTION_RUN;
+    private volatile Duration maxEvictionRunDuration = BaseObjectPoolConfig.DEFAULT_MAX_EVICTION_RUN_DURATION;
+    private volatile Duration maxLifetime = BaseObjectPoolConfig.DEFAULT_MAX_LIFETIME;
+    private volatile Duration maxLifetimeJitter = BaseObjectPoolConfig.DEFAULT_MAX_LIFETIME_JITTER;
+    private volatile Duration keepAliveInterval = BaseObjectPoolConfig.DEFAULT_KEEP_ALIVE_INTERVAL;
 
     private volatile Duration minEvictableIdleDuration = BaseObjectPoolConfig.DEFAULT_MIN_EVICTABLE_IDLE_DURATION;
     private volatile Duration softMinEvictableIdleDuration = BaseObjectPoolConfig.DEFAULT_SOFT_MIN_EVICTABLE_IDLE_DURATION;
     private volatile EvictionPolicy<T> evictionPolicy;
     private volatile Duration evictorShutdownTimeoutDuration = BaseObjectPoolConfig.DEFAULT_EVICTOR_SHUTDOWN_TIMEOUT;
+    private volatile Executor evictorExecutor;
+    private volatile Duration evictorJitter = BaseObjectPoolConfig.DEFAULT_EVICTOR_JITTER;
     // Internal (primarily state) attributes
     final Object closeLock = new Object();
     volatile boolean closed;
@@ -383,6 +532,7 @@ public abstract class BaseGenericObjectPool<T, E extends Exception> extends Base
     final Object evictionLock = new Object();
     private Evictor evictor; // @GuardedBy("evictionLock")
     EvictionIterator evictionIterator; // @GuardedBy("evictionLock")
+    private ThreadPoolExecutor testWhileIdleExecutor; // @GuardedBy("evictionLock")
 
     /**
      * Class loader for evictor thread to use since, in a JavaEE or similar
@@ -400,20 +550,48 @@ public abstract class BaseGenericObjectPool<T, E extends Exception> extends Base
     final AtomicLong destroyedCount = new AtomicLong();
     final AtomicLong destroyedByEvictorCount = new AtomicLong();
     final AtomicLong destroyedByBorrowValidationCount = new AtomicLong();
+    final AtomicLong destroyedByMaxLifetimeCount = new AtomicLong();
+    final AtomicLong keepAliveCount = new AtomicLong();
 
     private final StatsStore activeTimes = new StatsStore(MEAN_TIMING_STATS_CACHE_SIZE);
     private final StatsStore idleTimes = new StatsStore(MEAN_TIMING_STATS_CACHE_SIZE);
     private final StatsStore waitTimes = new StatsStore(MEAN_TIMING_STATS_CACHE_SIZE);
+    private final StatsStore evictionRunTimes = new StatsStore(MEAN_TIMING_STATS_CACHE_SIZE);
+    private final StatsStore evictionRunDelays = new StatsStore(MEAN_TIMING_STATS_CACHE_SIZE);
+    private final AtomicLong evictionRunCount = new AtomicLong();
+    private final AtomicLong skippedEvictionRunCount = new AtomicLong();
+    private final StatsStore evictionRunCoverage = new StatsStore(MEAN_TIMING_STATS_CACHE_SIZE);
+    private final AtomicLong timeLimitedEvictionRunCount = new AtomicLong();
+
+    private final SlidingWindowRates borrowedRates = new SlidingWindowRates();
+    private final SlidingWindowRates returnedRates = new SlidingWindowRates();
+    private final SlidingWindowRates createdRates = new SlidingWindowRates();
+    private final SlidingWindowRates destroyedRates = new SlidingWindowRates();
+    private final SlidingWindowRates validationFailureRates = new SlidingWindowRates();
+    private final SlidingWindowRates timeoutRates = new SlidingWindowRates();
 
     private final AtomicReference<Duration> maxBorrowWaitDuration = new AtomicReference<>(Duration.ZERO);
 
     private volatile SwallowedExceptionListener swallowedExceptionListener;
     private volatile boolean messageStatistics;
     private volatile boolean collectDetailedStatistics = BaseObjectPoolConfig.DEFAULT_COLLECT_DETAILED_STATISTICS;
+    private volatile boolean indexedEviction = BaseObjectPoolConfig.DEFAULT_INDEXED_EVICTION;
+
+    /** Incremented when indexed eviction is enabled so that idle indexes are refilled. */
+    private volatile int idleIndexGeneration = 1;
+
+    /** Incremented when the keepalive interval changes so that keepalive schedules are refilled. */
+    private volatile int keepAliveGeneration = 1;
 
     /** Additional configuration properties for abandoned object tracking. */
     protected volatile AbandonedConfig abandonedConfig;
 
+    /** Incremented when the abandoned configuration changes so that timing wheels are refilled. */
+    private volatile int abandonedConfigGeneration = 1;
+
+    /** Samples borrow call sites, null unless enabled by the abandoned configuration. */
+    private volatile BorrowSiteProfiler borrowSiteProfiler;
+
     /**
      * Handles JMX registration (if required) and the initialization required for
      * monitoring.
@@ -493,18 +671,37 @@ public abstract class BaseGenericObjectPool<T, E extends Exception> extends Base
      * Creates a list of pooled objects to remove based on their state.
      *
      * @param abandonedConfig The abandoned configuration.
-     * @param allObjects PooledObject instances to consider.
+     * @param abandonedWheel The borrowed objects scheduled by last use time.
+     * @param allObjects All PooledObject instances, only scanned when the wheel must be refilled.
      * @return A list of pooled objects to remove based on their state.
      */
-    ArrayList<PooledObject<T>> createRemoveList(final AbandonedConfig abandonedConfig, final Map<IdentityWrapper<T>, PooledObject<T>> allObjects) {
+    ArrayList<PooledObject<T>> createRemoveList(final AbandonedConfig abandonedConfig, final TimingWheel<T> abandonedWheel,
+            final Map<IdentityWrapper<T>, PooledObject<T>> allObjects) {
         final Instant timeout = Instant.now().minus(abandonedConfig.getRemoveAbandonedTimeoutDuration());
+        final int generation = abandonedConfigGeneration;
+        if (abandonedWheel.getGeneration() != generation) {
+            // The configuration changed since the wheel was filled, start over from all objects
+            abandonedWheel.reset(generation, timeout.toEpochMilli());
+            allObjects.values().forEach(pooledObject -> {
+                synchronized (pooledObject) {
+                    if (pooledObject.getState() == PooledObjectState.ALLOCATED) {
+                        abandonedWheel.schedule(pooledObject, pooledObject.getLastUsedInstant().toEpochMilli());
+                    }
+                }
+            });
+        }
         final ArrayList<PooledObject<T>> remove = new ArrayList<>();
-        allObjects.values().forEach(pooledObject -> {
+        abandonedWheel.expire(timeout.toEpochMilli()).forEach(pooledObject -> {
             synchronized (pooledObject) {
-                if (pooledObject.getState() == PooledObjectState.ALLOCATED &&
-                        pooledObject.getLastUsedInstant().compareTo(timeout) <= 0) {
-                    pooledObject.markAbandoned();
-                    remove.add(pooledObject);
+                if (pooledObject.getState() == PooledObjectState.ALLOCATED) {
+                    final Instant lastUsedInstant = pooledObject.getLastUsedInstant();
+                    if (lastUsedInstant.compareTo(timeout) <= 0) {
+                        pooledObject.markAbandoned();
+                        remove.add(pooledObject);
+                    } else {
+                        // Used since it was scheduled
+                        abandonedWheel.schedule(pooledObject, lastUsedInstant.toEpochMilli());
+                    }
                 }
             }
         });
@@ -555,6 +752,18 @@ public abstract class BaseGenericObjectPool<T, E extends Exception> extends Base
         return borrowedCount.get();
     }
 
+    /**
+     * Gets the number of objects borrowed per second from this pool over the
+     * last second, minute and five minutes, keyed by {@code "1s"}, {@code "1m"}
+     * and {@code "5m"}.
+     *
+     * @return The borrow rates.
+     * @since 3.0.0
+     */
+    public final Map<String, Double> getBorrowedRates() {
+        return borrowedRates.getRates();
+    }
+
     /**
      * Gets the total number of objects created for this pool over the lifetime of
      * the pool.
@@ -565,6 +774,18 @@ public abstract class BaseGenericObjectPool<T, E extends Exception> extends Base
         return createdCount.get();
     }
 
+    /**
+     * Gets the number of objects created per second for this pool over the
+     * last second, minute and five minutes, keyed by {@code "1s"}, {@code "1m"}
+     * and {@code "5m"}.
+     *
+     * @return The creation rates.
+     * @since 3.0.0
+     */
+    public final Map<String, Double> getCreatedRates() {
+        return createdRates.getRates();
+    }
+
     /**
      * Gets the stack trace for the call that created this pool. JMX
      * registration may trigger a memory leak so it is important that pools are
@@ -599,6 +820,18 @@ public abstract class BaseGenericObjectPool<T, E extends Exception> extends Base
         return destroyedByEvictorCount.get();
     }
 
+    /**
+     * Gets the total number of objects destroyed because they had reached
+     * their {@link #getMaxLifetime() maximum lifetime}, on borrow, on return or
+     * by the evictor, over the lifetime of the pool.
+     *
+     * @return The count of objects destroyed at the end of their lifetime
+     * @since 3.0.0
+     */
+    public final long getDestroyedByMaxLifetimeCount() {
+        return destroyedByMaxLifetimeCount.get();
+    }
+
     /**
      * Gets the total number of objects destroyed by this pool over the lifetime of
      * the pool.
@@ -609,6 +842,18 @@ public abstract class BaseGenericObjectPool<T, E extends Exception> extends Base
         return destroyedCount.get();
     }
 
+    /**
+     * Gets the number of objects destroyed per second by this pool over the
+     * last second, minute and five minutes, keyed by {@code "1s"}, {@code "1m"}
+     * and {@code "5m"}.
+     *
+     * @return The destruction rates.
+     * @since 3.0.0
+     */
+    public final Map<String, Double> getDestroyedRates() {
+        return destroyedRates.getRates();
+    }
+
     /**
      * Gets the duration to sleep between runs of the idle
      * object evictor thread. When non-positive, no idle object evictor thread
@@ -644,6 +889,43 @@ public abstract class BaseGenericObjectPool<T, E extends Exception> extends Base
         return evictionPolicy.getClass().getName();
     }
 
+    /**
+     * Gets the number of eviction runs the evictor of this pool has completed.
+     *
+     * @return the number of completed eviction runs
+     * @since 3.0.0
+     */
+    public final long getEvictionRunCount() {
+        return evictionRunCount.get();
+    }
+
+    /**
+     * Gets the executor that runs the evictor of this pool, if any.
+     *
+     * @return the executor that runs the evictor of this pool, or {@code null}
+     *         if the evictor runs on the thread of the timer shared by all
+     *         pools
+     * @see #setEvictorExecutor(Executor)
+     * @since 3.0.0
+     */
+    public final Executor getEvictorExecutor() {
+        return evictorExecutor;
+    }
+
+    /**
+     * Gets the maximum random delay added to the first run of the evictor of
+     * this pool, so that the evictors of pools created at the same time with
+     * the same {@link #getDurationBetweenEvictionRuns()} do not all run at
+     * once.
+     *
+     * @return the maximum random delay added to the first eviction run
+     * @see #setEvictorJitter(Duration)
+     * @since 3.0.0
+     */
+    public final Duration getEvictorJitter() {
+        return evictorJitter;
+    }
+
     /**
      * Gets the timeout that will be used when waiting for the Evictor to
      * shutdown if this pool is closed and it is the only pool still using the
@@ -679,6 +961,69 @@ public abstract class BaseGenericObjectPool<T, E extends Exception> extends Base
         return objectName;
     }
 
+    /**
+     * Gets whether the evictor finds the objects to evict with an index of the
+     * idle objects ordered by idle time rather than by examining
+     * {@link #getNumTestsPerEvictionRun()} objects in turn.
+     * <p>
+     * When enabled, each eviction run passes exactly the objects that have been
+     * idle for at least the smaller of {@link #getMinEvictableIdleDuration()} and
+     * {@link #getSoftMinEvictableIdleDuration()} to the eviction policy, oldest
+     * first, however many idle objects the pool holds. Objects idle for less than
+     * both durations are not examined, so a custom {@link EvictionPolicy} must not
+     * expect to evict them. If {@link #getTestWhileIdle()} is {@code true},
+     * {@link #getNumTestsPerEvictionRun()} objects are still validated in turn
+     * after the indexed pass.
+     * </p>
+     *
+     * @return {@code true} if eviction is indexed by idle time
+     * @see #setIndexedEviction(boolean)
+     * @since 3.0.0
+     */
+    public final boolean getIndexedEviction() {
+        return indexedEviction;
+    }
+
+    /**
+     * Gets the number of times the factory was asked to keep an idle object
+     * alive.
+     *
+     * @return the number of keepalives
+     * @see #getKeepAliveInterval()
+     * @since 3.0.0
+     */
+    public final long getKeepAliveCount() {
+        return keepAliveCount.get();
+    }
+
+    /**
+     * Gets the maximum duration an idle object goes without being used or kept
+     * alive. On each run, the evictor passes the idle objects that have reached
+     * this duration since their last use or keepalive to the keepalive method
+     * of the factory, which is meant to be cheaper than a validation, and
+     * destroys the ones reported dead. Objects used recently are skipped. A
+     * negative or zero value disables keepalives.
+     * <p>
+     * Each object is kept alive up to half the interval early, by a
+     * pseudo-random amount fixed for the object, so that objects returned or
+     * created together are kept alive at different times rather than all in the
+     * same run. Keepalives only run with the evictor, after the eviction
+     * tests and within the time budget of the run, see
+     * {@link #getMaxEvictionRunDuration()}, so
+     * {@link #getDurationBetweenEvictionRuns()} should be well below this
+     * interval.
+     * </p>
+     *
+     * @return the keepalive interval
+     * @see #setKeepAliveInterval(Duration)
+     * @see org.apache.commons.pool3.PooledObjectFactory#keepAliveObject(PooledObject)
+     * @see org.apache.commons.pool3.KeyedPooledObjectFactory#keepAliveObject(Object, PooledObject)
+     * @since 3.0.0
+     */
+    public final Duration getKeepAliveInterval() {
+        return keepAliveInterval;
+    }
+
     /**
      * Gets whether the pool has LIFO (last in, first out) behavior with
      * respect to idle objects - always returning the most recently used object
@@ -718,6 +1063,65 @@ public abstract class BaseGenericObjectPool<T, E extends Exception> extends Base
         return maxBorrowWaitDuration.get().toMillis();
     }
 
+    /**
+     * Gets the time budget of each eviction run. A run stops examining idle
+     * objects once the budget is spent, even if it has not examined
+     * {@link #getNumTestsPerEvictionRun()} objects yet, and the next run
+     * resumes where it stopped. A run always examines at least one object. A
+     * negative or zero value means eviction runs are only bounded by
+     * {@link #getNumTestsPerEvictionRun()}.
+     * <p>
+     * With a budget, {@link #getNumTestsPerEvictionRun()} can be raised so
+     * that runs are bounded by time rather than by object count, which suits
+     * pools whose validation cost varies widely. Use
+     * {@link #getMeanEvictionRunCoverage()} to check how much of the idle
+     * objects each run gets through.
+     * </p>
+     *
+     * @return the time budget of each eviction run
+     * @see #setMaxEvictionRunDuration(Duration)
+     * @since 3.0.0
+     */
+    public final Duration getMaxEvictionRunDuration() {
+        return maxEvictionRunDuration;
+    }
+
+    /**
+     * Gets the maximum duration an object is kept by the pool after it was
+     * created. An object that has reached its lifetime is destroyed instead of
+     * being borrowed or returned to the idle objects, and the evictor replaces
+     * idle objects that would reach it before its next run, creating the
+     * replacement first if destroying the object would leave fewer than the
+     * minimum number of idle objects. A negative or zero value means objects
+     * do not expire.
+     * <p>
+     * To keep objects created together from expiring together, the lifetime
+     * of each object is shortened by a pseudo-random amount, fixed for the
+     * object, of up to {@link #getMaxLifetimeJitter()}.
+     * </p>
+     *
+     * @return the maximum lifetime of pooled objects
+     * @see #setMaxLifetime(Duration)
+     * @see #getDestroyedByMaxLifetimeCount()
+     * @since 3.0.0
+     */
+    public final Duration getMaxLifetime() {
+        return maxLifetime;
+    }
+
+    /**
+     * Gets the maximum amount by which the lifetime of each object is shortened
+     * to spread the expiry of objects created together.
+     *
+     * @return the maximum lifetime jitter
+     * @see #getMaxLifetime()
+     * @see #setMaxLifetimeJitter(Duration)
+     * @since 3.0.0
+     */
+    public final Duration getMaxLifetimeJitter() {
+        return maxLifetimeJitter;
+    }
+
     /**
      * Gets the maximum number of objects that can be allocated by the pool
      * (checked out to clients, or idle awaiting checkout) at a given time. When
@@ -814,6 +1218,69 @@ public abstract class BaseGenericObjectPool<T, E extends Exception> extends Base
         return waitTimes.getMean();
     }
 
+    /**
+     * Gets how late the evictor of this pool started, on average, over its
+     * last {@link #MEAN_TIMING_STATS_CACHE_SIZE} runs. A growing delay means
+     * that the timer shared by all pools or the evictor executor of this pool
+     * cannot keep up.
+     *
+     * @return mean delay between the time eviction runs were due and the time they started
+     * @since 3.0.0
+     */
+    public final Duration getMeanEvictionRunDelay() {
+        return evictionRunDelays.getMeanDuration();
+    }
+
+    /**
+     * Gets how late the evictor of this pool started, in milliseconds, on
+     * average over its last {@link #MEAN_TIMING_STATS_CACHE_SIZE} runs.
+     *
+     * @return mean delay in milliseconds between the time eviction runs were due and the time they started
+     * @see #getMeanEvictionRunDelay()
+     * @since 3.0.0
+     */
+    public final long getMeanEvictionRunDelayMillis() {
+        return evictionRunDelays.getMean();
+    }
+
+    /**
+     * Gets the mean fraction of the idle objects examined by the last
+     * {@link #MEAN_TIMING_STATS_CACHE_SIZE} eviction runs of this pool, between
+     * 0 and 1. A run that examines as many objects as were idle when it started
+     * counts as 1.
+     *
+     * @return mean fraction of the idle objects examined by recent eviction runs
+     * @see #getMaxEvictionRunDuration()
+     * @since 3.0.0
+     */
+    public final double getMeanEvictionRunCoverage() {
+        return evictionRunCoverage.getMean() / 1000d;
+    }
+
+    /**
+     * Gets the mean duration of the last {@link #MEAN_TIMING_STATS_CACHE_SIZE}
+     * runs of the evictor of this pool, including {@link #getMinIdle()}
+     * replenishment.
+     *
+     * @return mean duration of recent eviction runs
+     * @since 3.0.0
+     */
+    public final Duration getMeanEvictionRunDuration() {
+        return evictionRunTimes.getMeanDuration();
+    }
+
+    /**
+     * Gets the mean duration in milliseconds of the last
+     * {@link #MEAN_TIMING_STATS_CACHE_SIZE} runs of the evictor of this pool.
+     *
+     * @return mean duration in milliseconds of recent eviction runs
+     * @see #getMeanEvictionRunDuration()
+     * @since 3.0.0
+     */
+    public final long getMeanEvictionRunTimeMillis() {
+        return evictionRunTimes.getMean();
+    }
+
     /**
      * Gets the mean time objects are idle for based on the last {@link
      * #MEAN_TIMING_STATS_CACHE_SIZE} objects borrowed from the pool.
@@ -998,6 +1465,30 @@ public abstract class BaseGenericObjectPool<T, E extends Exception> extends Base
         return returnedCount.get();
     }
 
+    /**
+     * Gets the number of objects returned per second to this pool over the
+     * last second, minute and five minutes, keyed by {@code "1s"}, {@code "1m"}
+     * and {@code "5m"}.
+     *
+     * @return The return rates.
+     * @since 3.0.0
+     */
+    public final Map<String, Double> getReturnedRates() {
+        return returnedRates.getRates();
+    }
+
+    /**
+     * Gets the number of eviction runs skipped because the previous run of the
+     * evictor of this pool, handed to its {@link #getEvictorExecutor()
+     * evictor executor}, had not completed when the next one was due.
+     *
+     * @return the number of skipped eviction runs
+     * @since 3.0.0
+     */
+    public final long getSkippedEvictionRunCount() {
+        return skippedEvictionRunCount.get();
+    }
+
     /**
      * Gets the minimum amount of time an object may sit idle in the pool
      * before it is eligible for eviction by the idle object evictor (if any -
@@ -1129,6 +1620,115 @@ public abstract class BaseGenericObjectPool<T, E extends Exception> extends Base
         return testWhileIdle;
     }
 
+    /**
+     * Creates or resizes an executor of daemon threads running work on behalf
+     * of the pool.
+     *
+     * @param executor The executor to resize, may be null.
+     * @param parallelism The number of threads.
+     * @param threadName The name of the threads. Threads named as the evictor
+     *        make {@link EvictionConfig#isEvictionThread()} hold while they run.
+     * @return The executor.
+     */
+    static ThreadPoolExecutor evictorExecutor(final ThreadPoolExecutor executor, final int parallelism, final String threadName) {
+        if (executor == null) {
+            final ThreadPoolExecutor newExecutor = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                    runnable -> {
+                        final Thread thread = new Thread(runnable, threadName);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            newExecutor.allowCoreThreadTimeOut(true);
+            return newExecutor;
+        }
+        if (parallelism > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(parallelism);
+            executor.setCorePoolSize(parallelism);
+        } else if (parallelism < executor.getMaximumPoolSize()) {
+            executor.setCorePoolSize(parallelism);
+            executor.setMaximumPoolSize(parallelism);
+        }
+        return executor;
+    }
+
+    /**
+     * Gets the executor that validates idle objects for the evictor, creating
+     * or resizing it to match {@link #getTestWhileIdleParallelism()}. Must be
+     * called holding the eviction lock.
+     *
+     * @return The executor, or {@code null} if idle objects are validated on
+     *         the thread running the evictor.
+     */
+    final ExecutorService getTestWhileIdleExecutor() {
+        final int parallelism = testWhileIdleParallelism;
+        if (parallelism <= 1) {
+            shutdownTestWhileIdleExecutor();
+            return null;
+        }
+        testWhileIdleExecutor = evictorExecutor(testWhileIdleExecutor, parallelism, EvictionConfig.THREAD_NAME);
+        return testWhileIdleExecutor;
+    }
+
+    /**
+     * Gets the maximum number of idle objects the evictor validates
+     * concurrently when {@link #getTestWhileIdle()} is {@code true}. With a
+     * value of one or less, objects are validated one after the other on the
+     * thread running the evictor. Otherwise, the objects examined by an
+     * eviction run are validated on a dedicated executor with this many
+     * threads, and the run waits for the results for up to
+     * {@link #getTestWhileIdleTimeout()}.
+     * <p>
+     * Objects stay in the pool while they are validated. Borrowers skip the
+     * objects under test and can borrow any other idle object.
+     * </p>
+     *
+     * @return the maximum number of idle objects validated concurrently
+     * @see #setTestWhileIdleParallelism(int)
+     * @since 3.0.0
+     */
+    public final int getTestWhileIdleParallelism() {
+        return testWhileIdleParallelism;
+    }
+
+    /**
+     * Gets how long an eviction run waits for the idle objects it validates in
+     * parallel. Validations that have not completed by then carry on in the
+     * background, and their objects remain unavailable to borrowers until they
+     * complete. A negative or zero value means the run waits for every
+     * validation.
+     *
+     * @return the maximum duration an eviction run waits for parallel validations
+     * @see #setTestWhileIdleTimeout(Duration)
+     * @see #getTestWhileIdleParallelism()
+     * @since 3.0.0
+     */
+    public final Duration getTestWhileIdleTimeout() {
+        return testWhileIdleTimeout;
+    }
+
+    /**
+     * Gets the number of eviction runs that stopped because they had spent
+     * their {@link #getMaxEvictionRunDuration() time budget}.
+     *
+     * @return the number of eviction runs cut short by their time budget
+     * @since 3.0.0
+     */
+    public final long getTimeLimitedEvictionRunCount() {
+        return timeLimitedEvictionRunCount.get();
+    }
+
+    /**
+     * Gets the number of borrow attempts per second that timed out waiting for
+     * an idle object over the last second, minute and five minutes, keyed by
+     * {@code "1s"}, {@code "1m"} and {@code "5m"}.
+     *
+     * @return The borrow timeout rates.
+     * @since 3.0.0
+     */
+    public final Map<String, Double> getTimeoutRates() {
+        return timeoutRates.getRates();
+    }
+
     /**
      * Gets the number of milliseconds to sleep between runs of the idle
      * object evictor thread. When non-positive, no idle object evictor thread
@@ -1143,6 +1743,18 @@ public abstract class BaseGenericObjectPool<T, E extends Exception> extends Base
         return durationBetweenEvictionRuns.toMillis();
     }
 
+    /**
+     * Gets the number of objects per second that failed validation on create,
+     * borrow, return or while idle over the last second, minute and five
+     * minutes, keyed by {@code "1s"}, {@code "1m"} and {@code "5m"}.
+     *
+     * @return The validation failure rates.
+     * @since 3.0.0
+     */
+    public final Map<String, Double> getValidationFailureRates() {
+        return validationFailureRates.getRates();
+    }
+
     /**
      * Tests whether or not abandoned object removal is configured for this pool.
      *
@@ -1163,6 +1775,67 @@ public abstract class BaseGenericObjectPool<T, E extends Exception> extends Base
         return closed;
     }
 
+    /**
+     * Tests whether an object has reached its maximum lifetime.
+     *
+     * @param p The object to test.
+     * @return Whether the object has reached its maximum lifetime.
+     * @see #getMaxLifetime()
+     */
+    final boolean isExpired(final PooledObject<T> p) {
+        return isExpiredAt(p, System.currentTimeMillis());
+    }
+
+    /**
+     * Tests whether an object will have reached its maximum lifetime at a given
+     * time. The lifetime of each object is shortened by a pseudo-random amount
+     * of up to {@link #getMaxLifetimeJitter()} derived from its identity, so
+     * that it stays the same for the object.
+     *
+     * @param p The object to test.
+     * @param timeMillis The time in milliseconds.
+     * @return Whether the object will have reached its maximum lifetime.
+     */
+    final boolean isExpiredAt(final PooledObject<T> p, final long timeMillis) {
+        final Duration lifetime = maxLifetime;
+        if (!PoolImplUtils.isPositive(lifetime)) {
+            return false;
+        }
+        final long lifetimeMillis = lifetime.toMillis();
+        final long jitterMillis = Math.min(maxLifetimeJitter.toMillis(), lifetimeMillis);
+        return timeMillis - p.getCreateInstant().toEpochMilli() >= lifetimeMillis - jitter(p, jitterMillis);
+    }
+
+    /**
+     * Tests whether an idle object will have reached its maximum lifetime by
+     * the next run of the evictor, so the evictor should replace it now.
+     *
+     * @param p The idle object to test.
+     * @return Whether the object should be replaced by the current eviction run.
+     */
+    final boolean isExpiringBeforeNextEvictionRun(final PooledObject<T> p) {
+        final Duration period = durationBetweenEvictionRuns;
+        return isExpiredAt(p, System.currentTimeMillis() + (PoolImplUtils.isPositive(period) ? period.toMillis() : 0));
+    }
+
+    /**
+     * Gets a pseudo-random amount of time for an object, between zero and a
+     * maximum, derived from the identity of the object so that it stays the
+     * same for the object.
+     *
+     * @param p The object.
+     * @param maxMillis The maximum in milliseconds.
+     * @return The amount of time in milliseconds.
+     */
+    private static long jitter(final PooledObject<?> p, final long maxMillis) {
+        if (maxMillis <= 0) {
+            return 0;
+        }
+        // A fraction in [0, 1) from the mixed bits of the identity hash code.
+        final double fraction = (System.identityHashCode(p) * 0x9E3779B97F4A7C15L >>> 11) * 0x1.0p-53;
+        return (long) (maxMillis * fraction);
+    }
+
     /**
      * Registers the pool with the platform MBean server.
      * The registered name will be
@@ -1239,6 +1912,26 @@ public abstract class BaseGenericObjectPool<T, E extends Exception> extends Base
         }
     }
 
+    /**
+     * Lists the sampled borrow call sites of this pool, longest total hold time
+     * first. The list is empty unless
+     * {@link AbandonedConfig#getBorrowSiteSamplingInterval() borrow site sampling}
+     * is enabled.
+     * <p>
+     * Note: This is named listBorrowSites so it is presented as an operation via
+     * JMX. That means it won't be invoked unless explicitly requested whereas
+     * all attributes will be automatically requested when viewing the
+     * attributes for an object in a tool like JConsole.
+     * </p>
+     *
+     * @return The sampled borrow call sites.
+     * @since 3.0.0
+     */
+    public final List<BorrowSiteInfo> listBorrowSites() {
+        final BorrowSiteProfiler profiler = borrowSiteProfiler;
+        return profiler == null ? new ArrayList<>() : profiler.listBorrowSites();
+    }
+
     /**
      * Marks the object as returning to the pool.
      *
@@ -1262,6 +1955,10 @@ public abstract class BaseGenericObjectPool<T, E extends Exception> extends Base
      */
     public void setAbandonedConfig(final AbandonedConfig abandonedConfig) {
         this.abandonedConfig = AbandonedConfig.copy(abandonedConfig);
+        this.abandonedConfigGeneration++;
+        this.borrowSiteProfiler = abandonedConfig != null && abandonedConfig.getBorrowSiteSamplingInterval() > 0
+                ? new BorrowSiteProfiler(abandonedConfig.getBorrowSiteSamplingInterval(), abandonedConfig.getMaxBorrowSites())
+                : null;
     }
 
     /**
@@ -1292,8 +1989,16 @@ public abstract class BaseGenericObjectPool<T, E extends Exception> extends Base
         setTestOnBorrow(config.getTestOnBorrow());
         setTestOnReturn(config.getTestOnReturn());
         setTestWhileIdle(config.getTestWhileIdle());
+        setTestWhileIdleParallelism(config.getTestWhileIdleParallelism());
+        setTestWhileIdleTimeout(config.getTestWhileIdleTimeout());
         setNumTestsPerEvictionRun(config.getNumTestsPerEvictionRun());
+        setMaxEvictionRunDuration(config.getMaxEvictionRunDuration());
+        setMaxLifetime(config.getMaxLifetime());
+        setMaxLifetimeJitter(config.getMaxLifetimeJitter());
+        setKeepAliveInterval(config.getKeepAliveInterval());
         setMinEvictableIdleDuration(config.getMinEvictableIdleDuration());
+        setEvictorExecutor(config.getEvictorExecutor());
+        setEvictorJitter(config.getEvictorJitter());
         setDurationBetweenEvictionRuns(config.getDurationBetweenEvictionRuns());
         setSoftMinEvictableIdleDuration(config.getSoftMinEvictableIdleDuration());
         final EvictionPolicy<T> policy = config.getEvictionPolicy();
@@ -1306,6 +2011,7 @@ public abstract class BaseGenericObjectPool<T, E extends Exception> extends Base
         }
         setEvictorShutdownTimeout(config.getEvictorShutdownTimeoutDuration());
         setCollectDetailedStatistics(config.getCollectDetailedStatistics());
+        setIndexedEviction(config.getIndexedEviction());
     }
 
     /**
@@ -1415,6 +2121,37 @@ public abstract class BaseGenericObjectPool<T, E extends Exception> extends Base
         }
     }
 
+    /**
+     * Sets the executor that runs the evictor of this pool. The timer shared
+     * by all pools then only hands eviction runs to this executor, so that a
+     * pool whose factory is slow to validate, create or destroy objects does
+     * not delay the eviction runs of other pools. An executor can be shared by
+     * several pools, a pool never has more than one run in progress. The pool
+     * does not shut the executor down.
+     *
+     * @param evictorExecutor the executor that runs the evictor of this pool,
+     *        or {@code null} to run it on the thread of the timer shared by
+     *        all pools
+     * @see #getEvictorExecutor()
+     * @since 3.0.0
+     */
+    public final void setEvictorExecutor(final Executor evictorExecutor) {
+        this.evictorExecutor = evictorExecutor;
+    }
+
+    /**
+     * Sets the maximum random delay added to the first run of the evictor of
+     * this pool. Takes effect the next time the evictor is started.
+     *
+     * @param evictorJitter the maximum random delay added to the first
+     *        eviction run, zero or negative for none
+     * @see #getEvictorJitter()
+     * @since 3.0.0
+     */
+    public final void setEvictorJitter(final Duration evictorJitter) {
+        this.evictorJitter = PoolImplUtils.nonNull(evictorJitter, BaseObjectPoolConfig.DEFAULT_EVICTOR_JITTER);
+    }
+
     /**
      * Sets the timeout that will be used when waiting for the Evictor to shutdown if this pool is closed and it is the
      * only pool still using the value for the Evictor.
@@ -1427,6 +2164,39 @@ public abstract class BaseGenericObjectPool<T, E extends Exception> extends Base
         this.evictorShutdownTimeoutDuration = PoolImplUtils.nonNull(evictorShutdownTimeout, BaseObjectPoolConfig.DEFAULT_EVICTOR_SHUTDOWN_TIMEOUT);
     }
 
+    /**
+     * Sets whether the evictor finds the objects to evict with an index of the
+     * idle objects ordered by idle time.
+     *
+     * @param indexedEviction {@code true} to index eviction by idle time
+     * @see #getIndexedEviction()
+     * @since 3.0.0
+     */
+    public final void setIndexedEviction(final boolean indexedEviction) {
+        if (indexedEviction && !this.indexedEviction) {
+            // The index was not maintained while disabled, have it refilled.
+            idleIndexGeneration++;
+        }
+        this.indexedEviction = indexedEviction;
+    }
+
+    /**
+     * Sets the maximum duration an idle object goes without being used or kept
+     * alive. Use a negative or zero value to disable keepalives.
+     *
+     * @param keepAliveInterval the keepalive interval
+     * @see #getKeepAliveInterval()
+     * @since 3.0.0
+     */
+    public final void setKeepAliveInterval(final Duration keepAliveInterval) {
+        final Duration interval = PoolImplUtils.nonNull(keepAliveInterval, BaseObjectPoolConfig.DEFAULT_KEEP_ALIVE_INTERVAL);
+        if (!interval.equals(this.keepAliveInterval)) {
+            // Schedules were computed for the previous interval, have them refilled.
+            this.keepAliveInterval = interval;
+            keepAliveGeneration++;
+        }
+    }
+
     /**
      * Sets whether the pool has LIFO (last in, first out) behavior with
      * respect to idle objects - always returning the most recently used object
@@ -1443,6 +2213,42 @@ public abstract class BaseGenericObjectPool<T, E extends Exception> extends Base
         this.lifo = lifo;
     }
 
+    /**
+     * Sets the time budget of each eviction run. Use a negative or zero value
+     * for eviction runs only bounded by {@link #getNumTestsPerEvictionRun()}.
+     *
+     * @param maxEvictionRunDuration the time budget of each eviction run
+     * @see #getMaxEvictionRunDuration()
+     * @since 3.0.0
+     */
+    public final void setMaxEvictionRunDuration(final Duration maxEvictionRunDuration) {
+        this.maxEvictionRunDuration = PoolImplUtils.nonNull(maxEvictionRunDuration, BaseObjectPoolConfig.DEFAULT_MAX_EVICTION_RUN_DURATION);
+    }
+
+    /**
+     * Sets the maximum duration an object is kept by the pool after it was
+     * created. Use a negative or zero value for objects that do not expire.
+     *
+     * @param maxLifetime the maximum lifetime of pooled objects
+     * @see #getMaxLifetime()
+     * @since 3.0.0
+     */
+    public final void setMaxLifetime(final Duration maxLifetime) {
+        this.maxLifetime = PoolImplUtils.nonNull(maxLifetime, BaseObjectPoolConfig.DEFAULT_MAX_LIFETIME);
+    }
+
+    /**
+     * Sets the maximum amount by which the lifetime of each object is shortened
+     * to spread the expiry of objects created together.
+     *
+     * @param maxLifetimeJitter the maximum lifetime jitter
+     * @see #getMaxLifetimeJitter()
+     * @since 3.0.0
+     */
+    public final void setMaxLifetimeJitter(final Duration maxLifetimeJitter) {
+        this.maxLifetimeJitter = PoolImplUtils.nonNull(maxLifetimeJitter, BaseObjectPoolConfig.DEFAULT_MAX_LIFETIME_JITTER);
+    }
+
     /**
      * Sets the cap on the number of objects that can be allocated by the pool
      * (checked out to clients, or idle awaiting checkout) at a given time. Use
@@ -1650,6 +2456,33 @@ public abstract class BaseGenericObjectPool<T, E extends Exception> extends Base
         this.testWhileIdle = testWhileIdle;
     }
 
+    /**
+     * Sets the maximum number of idle objects the evictor validates
+     * concurrently when {@link #getTestWhileIdle()} is {@code true}.
+     *
+     * @param testWhileIdleParallelism the maximum number of idle objects
+     *        validated concurrently, one or less to validate them on the
+     *        thread running the evictor
+     * @see #getTestWhileIdleParallelism()
+     * @since 3.0.0
+     */
+    public final void setTestWhileIdleParallelism(final int testWhileIdleParallelism) {
+        this.testWhileIdleParallelism = testWhileIdleParallelism;
+    }
+
+    /**
+     * Sets how long an eviction run waits for the idle objects it validates in
+     * parallel.
+     *
+     * @param testWhileIdleTimeout the maximum duration an eviction run waits
+     *        for parallel validations, negative or zero to wait for all of them
+     * @see #getTestWhileIdleTimeout()
+     * @since 3.0.0
+     */
+    public final void setTestWhileIdleTimeout(final Duration testWhileIdleTimeout) {
+        this.testWhileIdleTimeout = PoolImplUtils.nonNull(testWhileIdleTimeout, BaseObjectPoolConfig.DEFAULT_TEST_WHILE_IDLE_TIMEOUT);
+    }
+
     /**
      * <p>Starts the evictor with the given delay. If there is an evictor
      * running when this method is called, it is stopped and replaced with a
@@ -1666,7 +2499,7 @@ public abstract class BaseGenericObjectPool<T, E extends Exception> extends Base
             if (evictor == null) { // Starting evictor for the first time or after a cancel
                 if (isPositiverDelay) { // Starting new evictor
                     evictor = new Evictor();
-                    EvictionTimer.schedule(evictor, delay, delay);
+                    EvictionTimer.schedule(evictor, jitter(delay), delay);
                 }
             } else if (isPositiverDelay) { // Stop or restart of existing evictor: Restart
                 synchronized (EvictionTimer.class) { // Ensure no cancel can happen between cancel / schedule calls
@@ -1674,7 +2507,7 @@ public abstract class BaseGenericObjectPool<T, E extends Exception> extends Base
                     evictor = null;
                     evictionIterator = null;
                     evictor = new Evictor();
-                    EvictionTimer.schedule(evictor, delay, delay);
+                    EvictionTimer.schedule(evictor, jitter(delay), delay);
                 }
             } else { // Stopping evictor
                 EvictionTimer.cancel(evictor, evictorShutdownTimeoutDuration, false);
@@ -1682,11 +2515,115 @@ public abstract class BaseGenericObjectPool<T, E extends Exception> extends Base
         }
     }
 
+    /**
+     * Adds a random delay of up to {@link #getEvictorJitter()} to the delay of
+     * the first eviction run.
+     *
+     * @param delay duration before the first eviction run.
+     * @return the delay with jitter.
+     */
+    private Duration jitter(final Duration delay) {
+        final Duration jitter = evictorJitter;
+        return PoolImplUtils.isPositive(jitter) ? delay.plusNanos(ThreadLocalRandom.current().nextLong(jitter.toNanos())) : delay;
+    }
+
     /**
      * Stops the evictor.
      */
     void stopEvictor() {
         startEvictor(Duration.ofMillis(-1L));
+        synchronized (evictionLock) {
+            shutdownEvictorExecutors();
+        }
+    }
+
+    /**
+     * Shuts down the executors running work on behalf of the evictor. Must be
+     * called holding the eviction lock.
+     */
+    void shutdownEvictorExecutors() {
+        shutdownTestWhileIdleExecutor();
+    }
+
+    /**
+     * Shuts down the executor that validates idle objects, if any. Must be
+     * called holding the eviction lock.
+     */
+    private void shutdownTestWhileIdleExecutor() {
+        if (testWhileIdleExecutor != null) {
+            testWhileIdleExecutor.shutdown();
+            testWhileIdleExecutor = null;
+        }
+    }
+
+    /**
+     * Runs idle object validations on an executor and waits for them until
+     * {@link #getTestWhileIdleTimeout()} has elapsed or the time budget of the
+     * eviction run is spent, whichever comes first. Validations still running
+     * then complete in the background. The first runtime exception or error
+     * thrown by a validation is rethrown once the wait is over, other exceptions
+     * are swallowed.
+     *
+     * @param executor The executor from {@link #getTestWhileIdleExecutor()}.
+     * @param tests The validations, each ending the eviction test of its object.
+     * @param evictionRun The eviction run the validations belong to.
+     */
+    final void testIdleObjects(final ExecutorService executor, final List<Callable<Void>> tests, final EvictionRun evictionRun) {
+        final List<Future<Void>> futures = new ArrayList<>(tests.size());
+        for (final Callable<Void> test : tests) {
+            futures.add(submit(executor, test));
+        }
+        final long deadlineNanos = System.nanoTime() + Math.min(toBudgetNanos(testWhileIdleTimeout), evictionRun.remainingNanos());
+        Throwable failure = null;
+        for (final Future<Void> future : futures) {
+            try {
+                future.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (final TimeoutException e) {
+                // Still running, its object stays under test until it completes.
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (final ExecutionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException || cause instanceof Error) {
+                    if (failure == null) {
+                        failure = cause;
+                    }
+                } else {
+                    swallowException((Exception) cause);
+                }
+            }
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure != null) {
+            throw (Error) failure;
+        }
+    }
+
+    /**
+     * Submits a task to an executor, running it with the context class loader
+     * of the calling thread, which is the class loader of the factory on the
+     * evictor thread, see Evictor.
+     *
+     * @param <V> The type of the result of the task.
+     * @param executor The executor.
+     * @param task The task.
+     * @return The future result of the task.
+     */
+    static <V> Future<V> submit(final ExecutorService executor, final Callable<V> task) {
+        final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        return executor.submit(() -> {
+            final Thread thread = Thread.currentThread();
+            final ClassLoader savedClassLoader = thread.getContextClassLoader();
+            thread.setContextClassLoader(classLoader);
+            try {
+                return task.call();
+            } finally {
+                thread.setContextClassLoader(savedClassLoader);
+            }
+        });
     }
 
     /**
@@ -1711,6 +2648,19 @@ public abstract class BaseGenericObjectPool<T, E extends Exception> extends Base
         }
     }
 
+    /**
+     * Converts a time budget to nanoseconds.
+     *
+     * @param budget The time budget, negative or zero for no limit.
+     * @return The time budget in nanoseconds.
+     */
+    static long toBudgetNanos(final Duration budget) {
+        if (!PoolImplUtils.isPositive(budget) || budget.compareTo(Duration.ofNanos(UNLIMITED_BUDGET_NANOS)) >= 0) {
+            return UNLIMITED_BUDGET_NANOS;
+        }
+        return budget.toNanos();
+    }
+
     @Override
     protected void toStringAppendFields(final StringBuilder builder) {
         builder.append("maxTotal=");
@@ -1731,16 +2681,34 @@ public abstract class BaseGenericObjectPool<T, E extends Exception> extends Base
         builder.append(testOnReturn);
         builder.append(", testWhileIdle=");
         builder.append(testWhileIdle);
+        builder.append(", testWhileIdleParallelism=");
+        builder.append(testWhileIdleParallelism);
+        builder.append(", testWhileIdleTimeout=");
+        builder.append(testWhileIdleTimeout);
+        builder.append(", indexedEviction=");
+        builder.append(indexedEviction);
         builder.append(", durationBetweenEvictionRuns=");
         builder.append(durationBetweenEvictionRuns);
         builder.append(", numTestsPerEvictionRun=");
         builder.append(numTestsPerEvictionRun);
+        builder.append(", maxEvictionRunDuration=");
+        builder.append(maxEvictionRunDuration);
+        builder.append(", maxLifetime=");
+        builder.append(maxLifetime);
+        builder.append(", maxLifetimeJitter=");
+        builder.append(maxLifetimeJitter);
+        builder.append(", keepAliveInterval=");
+        builder.append(keepAliveInterval);
         builder.append(", minEvictableIdleTimeDuration=");
         builder.append(minEvictableIdleDuration);
         builder.append(", softMinEvictableIdleTimeDuration=");
         builder.append(softMinEvictableIdleDuration);
         builder.append(", evictionPolicy=");
         builder.append(evictionPolicy);
+        builder.append(", evictorExecutor=");
+        builder.append(evictorExecutor);
+        builder.append(", evictorJitter=");
+        builder.append(evictorJitter);
         builder.append(", closeLock=");
         builder.append(closeLock);
         builder.append(", closed=");
@@ -1777,10 +2745,200 @@ public abstract class BaseGenericObjectPool<T, E extends Exception> extends Base
         builder.append(waitTimes);
         builder.append(", maxBorrowWaitDuration=");
         builder.append(maxBorrowWaitDuration);
+        builder.append(", borrowedRates=");
+        builder.append(borrowedRates);
+        builder.append(", returnedRates=");
+        builder.append(returnedRates);
+        builder.append(", createdRates=");
+        builder.append(createdRates);
+        builder.append(", destroyedRates=");
+        builder.append(destroyedRates);
+        builder.append(", validationFailureRates=");
+        builder.append(validationFailureRates);
+        builder.append(", timeoutRates=");
+        builder.append(timeoutRates);
+        builder.append(", borrowSiteProfiler=");
+        builder.append(borrowSiteProfiler);
         builder.append(", swallowedExceptionListener=");
         builder.append(swallowedExceptionListener);
     }
 
+    /**
+     * Updates statistics after an object is created for the pool.
+     */
+    final void updateStatsCreate() {
+        createdCount.incrementAndGet();
+        createdRates.increment();
+    }
+
+    /**
+     * Updates statistics after an object is destroyed by the pool.
+     */
+    final void updateStatsDestroy() {
+        destroyedCount.incrementAndGet();
+        destroyedRates.increment();
+    }
+
+    /**
+     * Updates statistics after a borrow attempt times out waiting for an idle
+     * object.
+     */
+    final void updateStatsTimeout() {
+        timeoutRates.increment();
+    }
+
+    /**
+     * Updates statistics after an object fails validation.
+     */
+    final void updateStatsValidationFailure() {
+        validationFailureRates.increment();
+    }
+
+    /**
+     * Schedules a newly borrowed object for abandoned object detection, if
+     * abandoned objects are removed.
+     *
+     * @param abandonedWheel The borrowed objects scheduled by last use time.
+     * @param p object borrowed from the pool
+     */
+    final void scheduleAbandonedCheck(final TimingWheel<T> abandonedWheel, final PooledObject<T> p) {
+        final AbandonedConfig ac = this.abandonedConfig;
+        if (ac != null && (ac.getRemoveAbandonedOnBorrow() || ac.getRemoveAbandonedOnMaintenance())) {
+            abandonedWheel.schedule(p, p.getLastUsedInstant().toEpochMilli());
+        }
+    }
+
+    /**
+     * Schedules an object that was just added to the idle objects for eviction,
+     * if eviction is indexed by idle time.
+     *
+     * @param idleIndex The idle objects scheduled by last return time.
+     * @param p object added to the idle objects
+     */
+    final void scheduleEvictionCheck(final TimingWheel<T> idleIndex, final PooledObject<T> p) {
+        if (indexedEviction) {
+            idleIndex.schedule(p, p.getLastReturnInstant().toEpochMilli());
+        }
+    }
+
+    /**
+     * Removes and returns the idle objects due for a keepalive, refilling the
+     * schedule first if it was not maintained for the current interval.
+     * Objects used since they were scheduled are scheduled again instead of
+     * being returned.
+     *
+     * @param keepAliveSchedule The idle objects scheduled by keepalive time.
+     * @param idleObjects The idle objects.
+     * @return The idle objects due for a keepalive.
+     */
+    final List<PooledObject<T>> expireKeepAlives(final TimingWheel<T> keepAliveSchedule, final Collection<PooledObject<T>> idleObjects) {
+        final Duration interval = keepAliveInterval;
+        if (!PoolImplUtils.isPositive(interval)) {
+            return Collections.emptyList();
+        }
+        final long now = System.currentTimeMillis();
+        final int generation = keepAliveGeneration;
+        if (keepAliveSchedule.getGeneration() != generation) {
+            keepAliveSchedule.reset(generation, now);
+            idleObjects.forEach(p -> keepAliveSchedule.schedule(p, keepAliveDueMillis(p, p.getLastUsedInstant().toEpochMilli(), interval)));
+        }
+        final List<PooledObject<T>> due = keepAliveSchedule.expire(now);
+        due.removeIf(p -> {
+            final long dueMillis = keepAliveDueMillis(p, p.getLastUsedInstant().toEpochMilli(), interval);
+            if (dueMillis > now) {
+                // Used recently.
+                keepAliveSchedule.schedule(p, dueMillis);
+                return true;
+            }
+            return false;
+        });
+        return due;
+    }
+
+    /**
+     * Gets the time at which an object is due for a keepalive.
+     *
+     * @param p The object.
+     * @param lastAliveMillis The time the object was last used or kept alive.
+     * @param interval The keepalive interval.
+     * @return The time of the next keepalive in milliseconds.
+     */
+    private long keepAliveDueMillis(final PooledObject<T> p, final long lastAliveMillis, final Duration interval) {
+        final long intervalMillis = interval.toMillis();
+        return lastAliveMillis + intervalMillis - jitter(p, intervalMillis / 2);
+    }
+
+    /**
+     * Schedules the next keepalive of an idle object one interval from now,
+     * after it was kept alive or could not be kept alive because it was busy.
+     *
+     * @param keepAliveSchedule The idle objects scheduled by keepalive time.
+     * @param p object to schedule
+     */
+    final void rescheduleKeepAlive(final TimingWheel<T> keepAliveSchedule, final PooledObject<T> p) {
+        final Duration interval = keepAliveInterval;
+        if (PoolImplUtils.isPositive(interval)) {
+            keepAliveSchedule.schedule(p, keepAliveDueMillis(p, System.currentTimeMillis(), interval));
+        }
+    }
+
+    /**
+     * Schedules the keepalive of an object that was just added to the idle
+     * objects, if keepalives are enabled.
+     *
+     * @param keepAliveSchedule The idle objects scheduled by keepalive time.
+     * @param p object added to the idle objects
+     */
+    final void scheduleKeepAlive(final TimingWheel<T> keepAliveSchedule, final PooledObject<T> p) {
+        final Duration interval = keepAliveInterval;
+        if (PoolImplUtils.isPositive(interval)) {
+            keepAliveSchedule.schedule(p, keepAliveDueMillis(p, p.getLastUsedInstant().toEpochMilli(), interval));
+        }
+    }
+
+    /**
+     * Removes and returns the idle objects that have been idle for at least the
+     * smaller of the two idle durations of an eviction configuration, refilling
+     * the index first if it was not maintained for the current setting.
+     *
+     * @param idleIndex The idle objects scheduled by last return time.
+     * @param idleObjects The idle objects.
+     * @param evictionConfig The eviction configuration.
+     * @return The expired idle objects, oldest first.
+     */
+    final List<PooledObject<T>> expireIdleIndex(final TimingWheel<T> idleIndex, final Collection<PooledObject<T>> idleObjects,
+            final EvictionConfig evictionConfig) {
+        final long now = System.currentTimeMillis();
+        final Duration threshold = evictionConfig.getIdleEvictDuration().compareTo(evictionConfig.getIdleSoftEvictDuration()) < 0
+                ? evictionConfig.getIdleEvictDuration()
+                : evictionConfig.getIdleSoftEvictDuration();
+        final boolean expiring = threshold.compareTo(Duration.ofMillis(now)) < 0;
+        final long cutoff = expiring ? now - threshold.toMillis() : now;
+        final int generation = idleIndexGeneration;
+        if (idleIndex.getGeneration() != generation) {
+            // Start at the cutoff, objects idle since before it are expired by this call.
+            idleIndex.reset(generation, cutoff);
+            idleObjects.forEach(p -> idleIndex.schedule(p, p.getLastReturnInstant().toEpochMilli()));
+        }
+        if (!expiring) {
+            return Collections.emptyList();
+        }
+        return idleIndex.expire(cutoff);
+    }
+
+    /**
+     * Updates statistics after a borrowed object is returned to, or destroyed
+     * by, the pool. Must be called before the object can be borrowed again.
+     *
+     * @param p object no longer borrowed from the pool
+     */
+    final void updateStatsRelease(final PooledObject<T> p) {
+        final BorrowSiteProfiler profiler = borrowSiteProfiler;
+        if (profiler != null) {
+            profiler.returned(p);
+        }
+    }
+
     /**
      * Updates statistics after an object is borrowed from the pool.
      *
@@ -1789,6 +2947,11 @@ public abstract class BaseGenericObjectPool<T, E extends Exception> extends Base
      */
     final void updateStatsBorrow(final PooledObject<T> p, final Duration waitDuration) {
         borrowedCount.incrementAndGet();
+        borrowedRates.increment();
+        final BorrowSiteProfiler profiler = borrowSiteProfiler;
+        if (profiler != null) {
+            profiler.borrowed(p);
+        }
         // Only collect detailed statistics if enabled
         if (collectDetailedStatistics) {
             idleTimes.add(p.getIdleDuration());
@@ -1812,6 +2975,7 @@ public abstract class BaseGenericObjectPool<T, E extends Exception> extends Base
      */
     final void updateStatsReturn(final Duration activeTime) {
         returnedCount.incrementAndGet();
+        returnedRates.increment();
         // Only collect detailed statistics if enabled
         if (collectDetailedStatistics) {
             activeTimes.add(activeTime);
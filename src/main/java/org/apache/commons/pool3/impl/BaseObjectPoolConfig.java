@@ -17,6 +17,7 @@
 package org.apache.commons.pool3.impl;
 
 import java.time.Duration;
+import java.util.concurrent.Executor;
 
 import org.apache.commons.pool3.BaseObject;
 
@@ -88,6 +89,55 @@ public abstract class BaseObjectPoolConfig<T> extends BaseObject implements Clon
      */
     public static final Duration DEFAULT_EVICTOR_SHUTDOWN_TIMEOUT = Duration.ofMillis(10L * 1000L);
 
+    /**
+     * The default value for the {@code evictorJitter} configuration attribute.
+     *
+     * @see GenericObjectPool#getEvictorJitter()
+     * @see GenericKeyedObjectPool#getEvictorJitter()
+     * @since 3.0.0
+     */
+    public static final Duration DEFAULT_EVICTOR_JITTER = Duration.ZERO;
+
+    /**
+     * The default value for the {@code keepAliveInterval} configuration
+     * attribute, keepalives are disabled.
+     *
+     * @see GenericObjectPool#getKeepAliveInterval()
+     * @see GenericKeyedObjectPool#getKeepAliveInterval()
+     * @since 3.0.0
+     */
+    public static final Duration DEFAULT_KEEP_ALIVE_INTERVAL = Duration.ofMillis(-1L);
+
+    /**
+     * The default value for the {@code maxEvictionRunDuration} configuration
+     * attribute, no time budget.
+     *
+     * @see GenericObjectPool#getMaxEvictionRunDuration()
+     * @see GenericKeyedObjectPool#getMaxEvictionRunDuration()
+     * @since 3.0.0
+     */
+    public static final Duration DEFAULT_MAX_EVICTION_RUN_DURATION = Duration.ofMillis(-1L);
+
+    /**
+     * The default value for the {@code maxLifetime} configuration attribute,
+     * objects do not expire.
+     *
+     * @see GenericObjectPool#getMaxLifetime()
+     * @see GenericKeyedObjectPool#getMaxLifetime()
+     * @since 3.0.0
+     */
+    public static final Duration DEFAULT_MAX_LIFETIME = Duration.ofMillis(-1L);
+
+    /**
+     * The default value for the {@code maxLifetimeJitter} configuration
+     * attribute.
+     *
+     * @see GenericObjectPool#getMaxLifetimeJitter()
+     * @see GenericKeyedObjectPool#getMaxLifetimeJitter()
+     * @since 3.0.0
+     */
+    public static final Duration DEFAULT_MAX_LIFETIME_JITTER = Duration.ZERO;
+
     /**
      * The default value for the {@code numTestsPerEvictionRun} configuration
      * attribute.
@@ -130,6 +180,24 @@ public abstract class BaseObjectPoolConfig<T> extends BaseObject implements Clon
      */
     public static final boolean DEFAULT_TEST_WHILE_IDLE = false;
 
+    /**
+     * The default value for the {@code testWhileIdleParallelism} configuration attribute.
+     *
+     * @see GenericObjectPool#getTestWhileIdleParallelism()
+     * @see GenericKeyedObjectPool#getTestWhileIdleParallelism()
+     * @since 3.0.0
+     */
+    public static final int DEFAULT_TEST_WHILE_IDLE_PARALLELISM = 1;
+
+    /**
+     * The default value for the {@code testWhileIdleTimeout} configuration attribute.
+     *
+     * @see GenericObjectPool#getTestWhileIdleTimeout()
+     * @see GenericKeyedObjectPool#getTestWhileIdleTimeout()
+     * @since 3.0.0
+     */
+    public static final Duration DEFAULT_TEST_WHILE_IDLE_TIMEOUT = Duration.ofMillis(-1L);
+
     /**
      * The default value for the {@code timeBetweenEvictionRuns}
      * configuration attribute.
@@ -195,6 +263,15 @@ public abstract class BaseObjectPoolConfig<T> extends BaseObject implements Clon
      */
     public static final boolean DEFAULT_COLLECT_DETAILED_STATISTICS = true;
 
+    /**
+     * The default value for the {@code indexedEviction} configuration attribute.
+     *
+     * @see GenericObjectPool#getIndexedEviction()
+     * @see GenericKeyedObjectPool#getIndexedEviction()
+     * @since 3.0.0
+     */
+    public static final boolean DEFAULT_INDEXED_EVICTION = false;
+
     private boolean lifo = DEFAULT_LIFO;
 
     private boolean fairness = DEFAULT_FAIRNESS;
@@ -205,10 +282,22 @@ public abstract class BaseObjectPoolConfig<T> extends BaseObject implements Clon
 
     private Duration evictorShutdownTimeoutDuration = DEFAULT_EVICTOR_SHUTDOWN_TIMEOUT;
 
+    private Executor evictorExecutor;
+
+    private Duration evictorJitter = DEFAULT_EVICTOR_JITTER;
+
     private Duration softMinEvictableIdleDuration = DEFAULT_SOFT_MIN_EVICTABLE_IDLE_DURATION;
 
     private int numTestsPerEvictionRun = DEFAULT_NUM_TESTS_PER_EVICTION_RUN;
 
+    private Duration maxEvictionRunDuration = DEFAULT_MAX_EVICTION_RUN_DURATION;
+
+    private Duration maxLifetime = DEFAULT_MAX_LIFETIME;
+
+    private Duration maxLifetimeJitter = DEFAULT_MAX_LIFETIME_JITTER;
+
+    private Duration keepAliveInterval = DEFAULT_KEEP_ALIVE_INTERVAL;
+
     private EvictionPolicy<T> evictionPolicy; // Only 2.6.0 applications set this
 
     private String evictionPolicyClassName = DEFAULT_EVICTION_POLICY_CLASS_NAME;
@@ -221,6 +310,10 @@ public abstract class BaseObjectPoolConfig<T> extends BaseObject implements Clon
 
     private boolean testWhileIdle = DEFAULT_TEST_WHILE_IDLE;
 
+    private int testWhileIdleParallelism = DEFAULT_TEST_WHILE_IDLE_PARALLELISM;
+
+    private Duration testWhileIdleTimeout = DEFAULT_TEST_WHILE_IDLE_TIMEOUT;
+
     private Duration durationBetweenEvictionRuns = DEFAULT_DURATION_BETWEEN_EVICTION_RUNS;
 
     private boolean blockWhenExhausted = DEFAULT_BLOCK_WHEN_EXHAUSTED;
@@ -234,6 +327,8 @@ public abstract class BaseObjectPoolConfig<T> extends BaseObject implements Clon
 
     private boolean collectDetailedStatistics = DEFAULT_COLLECT_DETAILED_STATISTICS;
 
+    private boolean indexedEviction = DEFAULT_INDEXED_EVICTION;
+
     /**
      * Constructs a new instance.
      */
@@ -316,6 +411,34 @@ public abstract class BaseObjectPoolConfig<T> extends BaseObject implements Clon
         return evictionPolicyClassName;
     }
 
+    /**
+     * Gets the value for the {@code evictorExecutor} configuration attribute
+     * for pools created with this configuration instance.
+     *
+     * @return  The current setting of {@code evictorExecutor} for this
+     *          configuration instance
+     * @see GenericObjectPool#getEvictorExecutor()
+     * @see GenericKeyedObjectPool#getEvictorExecutor()
+     * @since 3.0.0
+     */
+    public Executor getEvictorExecutor() {
+        return evictorExecutor;
+    }
+
+    /**
+     * Gets the value for the {@code evictorJitter} configuration attribute
+     * for pools created with this configuration instance.
+     *
+     * @return  The current setting of {@code evictorJitter} for this
+     *          configuration instance
+     * @see GenericObjectPool#getEvictorJitter()
+     * @see GenericKeyedObjectPool#getEvictorJitter()
+     * @since 3.0.0
+     */
+    public Duration getEvictorJitter() {
+        return evictorJitter;
+    }
+
     /**
      * Gets the value for the {@code evictorShutdownTimeout} configuration
      * attribute for pools created with this configuration instance.
@@ -345,6 +468,20 @@ public abstract class BaseObjectPoolConfig<T> extends BaseObject implements Clon
         return fairness;
     }
 
+    /**
+     * Gets the value for the {@code indexedEviction} configuration attribute
+     * for pools created with this configuration instance.
+     *
+     * @return  The current setting of {@code indexedEviction} for this
+     *          configuration instance
+     * @see GenericObjectPool#getIndexedEviction()
+     * @see GenericKeyedObjectPool#getIndexedEviction()
+     * @since 3.0.0
+     */
+    public boolean getIndexedEviction() {
+        return indexedEviction;
+    }
+
     /**
      * Gets the value of the flag that determines if JMX will be enabled for
      * pools created with this configuration instance.
@@ -381,6 +518,20 @@ public abstract class BaseObjectPoolConfig<T> extends BaseObject implements Clon
         return jmxNamePrefix;
     }
 
+    /**
+     * Gets the value for the {@code keepAliveInterval} configuration
+     * attribute for pools created with this configuration instance.
+     *
+     * @return  The current setting of {@code keepAliveInterval} for
+     *          this configuration instance
+     * @see GenericObjectPool#getKeepAliveInterval()
+     * @see GenericKeyedObjectPool#getKeepAliveInterval()
+     * @since 3.0.0
+     */
+    public Duration getKeepAliveInterval() {
+        return keepAliveInterval;
+    }
+
     /**
      * Gets the value for the {@code lifo} configuration attribute for pools
      * created with this configuration instance.
@@ -395,6 +546,48 @@ public abstract class BaseObjectPoolConfig<T> extends BaseObject implements Clon
         return lifo;
     }
 
+    /**
+     * Gets the value for the {@code maxEvictionRunDuration} configuration
+     * attribute for pools created with this configuration instance.
+     *
+     * @return  The current setting of {@code maxEvictionRunDuration} for
+     *          this configuration instance
+     * @see GenericObjectPool#getMaxEvictionRunDuration()
+     * @see GenericKeyedObjectPool#getMaxEvictionRunDuration()
+     * @since 3.0.0
+     */
+    public Duration getMaxEvictionRunDuration() {
+        return maxEvictionRunDuration;
+    }
+
+    /**
+     * Gets the value for the {@code maxLifetime} configuration
+     * attribute for pools created with this configuration instance.
+     *
+     * @return  The current setting of {@code maxLifetime} for
+     *          this configuration instance
+     * @see GenericObjectPool#getMaxLifetime()
+     * @see GenericKeyedObjectPool#getMaxLifetime()
+     * @since 3.0.0
+     */
+    public Duration getMaxLifetime() {
+        return maxLifetime;
+    }
+
+    /**
+     * Gets the value for the {@code maxLifetimeJitter} configuration
+     * attribute for pools created with this configuration instance.
+     *
+     * @return  The current setting of {@code maxLifetimeJitter} for
+     *          this configuration instance
+     * @see GenericObjectPool#getMaxLifetimeJitter()
+     * @see GenericKeyedObjectPool#getMaxLifetimeJitter()
+     * @since 3.0.0
+     */
+    public Duration getMaxLifetimeJitter() {
+        return maxLifetimeJitter;
+    }
+
     /**
      * Gets the value for the {@code maxWait} configuration attribute for pools
      * created with this configuration instance.
@@ -512,6 +705,34 @@ public abstract class BaseObjectPoolConfig<T> extends BaseObject implements Clon
         return testWhileIdle;
     }
 
+    /**
+     * Gets the value for the {@code testWhileIdleParallelism} configuration
+     * attribute for pools created with this configuration instance.
+     *
+     * @return  The current setting of {@code testWhileIdleParallelism} for
+     *          this configuration instance
+     * @see GenericObjectPool#getTestWhileIdleParallelism()
+     * @see GenericKeyedObjectPool#getTestWhileIdleParallelism()
+     * @since 3.0.0
+     */
+    public int getTestWhileIdleParallelism() {
+        return testWhileIdleParallelism;
+    }
+
+    /**
+     * Gets the value for the {@code testWhileIdleTimeout} configuration
+     * attribute for pools created with this configuration instance.
+     *
+     * @return  The current setting of {@code testWhileIdleTimeout} for
+     *          this configuration instance
+     * @see GenericObjectPool#getTestWhileIdleTimeout()
+     * @see GenericKeyedObjectPool#getTestWhileIdleTimeout()
+     * @since 3.0.0
+     */
+    public Duration getTestWhileIdleTimeout() {
+        return testWhileIdleTimeout;
+    }
+
     /**
      * Sets the value for the {@code blockWhenExhausted} configuration attribute
      * for pools created with this configuration instance.
@@ -591,6 +812,35 @@ public abstract class BaseObjectPoolConfig<T> extends BaseObject implements Clon
         this.evictionPolicyClassName = evictionPolicyClassName;
     }
 
+    /**
+     * Sets the value for the {@code evictorExecutor} configuration attribute
+     * for pools created with this configuration instance. The pools do not
+     * shut the executor down.
+     *
+     * @param evictorExecutor The new setting of {@code evictorExecutor}
+     *        for this configuration instance
+     * @see GenericObjectPool#getEvictorExecutor()
+     * @see GenericKeyedObjectPool#getEvictorExecutor()
+     * @since 3.0.0
+     */
+    public void setEvictorExecutor(final Executor evictorExecutor) {
+        this.evictorExecutor = evictorExecutor;
+    }
+
+    /**
+     * Sets the value for the {@code evictorJitter} configuration attribute
+     * for pools created with this configuration instance.
+     *
+     * @param evictorJitter The new setting of {@code evictorJitter}
+     *        for this configuration instance
+     * @see GenericObjectPool#getEvictorJitter()
+     * @see GenericKeyedObjectPool#getEvictorJitter()
+     * @since 3.0.0
+     */
+    public void setEvictorJitter(final Duration evictorJitter) {
+        this.evictorJitter = PoolImplUtils.nonNull(evictorJitter, DEFAULT_EVICTOR_JITTER);
+    }
+
     /**
      * Sets the value for the {@code evictorShutdownTimeout} configuration
      * attribute for pools created with this configuration instance.
@@ -621,6 +871,20 @@ public abstract class BaseObjectPoolConfig<T> extends BaseObject implements Clon
         this.fairness = fairness;
     }
 
+    /**
+     * Sets the value for the {@code indexedEviction} configuration attribute
+     * for pools created with this configuration instance.
+     *
+     * @param indexedEviction The new setting of {@code indexedEviction}
+     *        for this configuration instance
+     * @see GenericObjectPool#getIndexedEviction()
+     * @see GenericKeyedObjectPool#getIndexedEviction()
+     * @since 3.0.0
+     */
+    public void setIndexedEviction(final boolean indexedEviction) {
+        this.indexedEviction = indexedEviction;
+    }
+
     /**
      * Sets the value of the flag that determines if JMX will be enabled for
      * pools created with this configuration instance.
@@ -657,6 +921,20 @@ public abstract class BaseObjectPoolConfig<T> extends BaseObject implements Clon
         this.jmxNamePrefix = jmxNamePrefix;
     }
 
+    /**
+     * Sets the value for the {@code keepAliveInterval} configuration
+     * attribute for pools created with this configuration instance.
+     *
+     * @param keepAliveInterval The new setting of
+     *        {@code keepAliveInterval} for this configuration instance
+     * @see GenericObjectPool#getKeepAliveInterval()
+     * @see GenericKeyedObjectPool#getKeepAliveInterval()
+     * @since 3.0.0
+     */
+    public void setKeepAliveInterval(final Duration keepAliveInterval) {
+        this.keepAliveInterval = PoolImplUtils.nonNull(keepAliveInterval, DEFAULT_KEEP_ALIVE_INTERVAL);
+    }
+
     /**
      * Sets the value for the {@code lifo} configuration attribute for pools
      * created with this configuration instance.
@@ -671,6 +949,48 @@ public abstract class BaseObjectPoolConfig<T> extends BaseObject implements Clon
         this.lifo = lifo;
     }
 
+    /**
+     * Sets the value for the {@code maxEvictionRunDuration} configuration
+     * attribute for pools created with this configuration instance.
+     *
+     * @param maxEvictionRunDuration The new setting of
+     *        {@code maxEvictionRunDuration} for this configuration instance
+     * @see GenericObjectPool#getMaxEvictionRunDuration()
+     * @see GenericKeyedObjectPool#getMaxEvictionRunDuration()
+     * @since 3.0.0
+     */
+    public void setMaxEvictionRunDuration(final Duration maxEvictionRunDuration) {
+        this.maxEvictionRunDuration = PoolImplUtils.nonNull(maxEvictionRunDuration, DEFAULT_MAX_EVICTION_RUN_DURATION);
+    }
+
+    /**
+     * Sets the value for the {@code maxLifetime} configuration
+     * attribute for pools created with this configuration instance.
+     *
+     * @param maxLifetime The new setting of
+     *        {@code maxLifetime} for this configuration instance
+     * @see GenericObjectPool#getMaxLifetime()
+     * @see GenericKeyedObjectPool#getMaxLifetime()
+     * @since 3.0.0
+     */
+    public void setMaxLifetime(final Duration maxLifetime) {
+        this.maxLifetime = PoolImplUtils.nonNull(maxLifetime, DEFAULT_MAX_LIFETIME);
+    }
+
+    /**
+     * Sets the value for the {@code maxLifetimeJitter} configuration
+     * attribute for pools created with this configuration instance.
+     *
+     * @param maxLifetimeJitter The new setting of
+     *        {@code maxLifetimeJitter} for this configuration instance
+     * @see GenericObjectPool#getMaxLifetimeJitter()
+     * @see GenericKeyedObjectPool#getMaxLifetimeJitter()
+     * @since 3.0.0
+     */
+    public void setMaxLifetimeJitter(final Duration maxLifetimeJitter) {
+        this.maxLifetimeJitter = PoolImplUtils.nonNull(maxLifetimeJitter, DEFAULT_MAX_LIFETIME_JITTER);
+    }
+
     /**
      * Sets the value for the {@code maxWait} configuration attribute for pools
      * created with this configuration instance.
@@ -789,6 +1109,34 @@ public abstract class BaseObjectPoolConfig<T> extends BaseObject implements Clon
         this.testWhileIdle = testWhileIdle;
     }
 
+    /**
+     * Sets the value for the {@code testWhileIdleParallelism} configuration
+     * attribute for pools created with this configuration instance.
+     *
+     * @param testWhileIdleParallelism The new setting of
+     *        {@code testWhileIdleParallelism} for this configuration instance
+     * @see GenericObjectPool#getTestWhileIdleParallelism()
+     * @see GenericKeyedObjectPool#getTestWhileIdleParallelism()
+     * @since 3.0.0
+     */
+    public void setTestWhileIdleParallelism(final int testWhileIdleParallelism) {
+        this.testWhileIdleParallelism = testWhileIdleParallelism;
+    }
+
+    /**
+     * Sets the value for the {@code testWhileIdleTimeout} configuration
+     * attribute for pools created with this configuration instance.
+     *
+     * @param testWhileIdleTimeout The new setting of
+     *        {@code testWhileIdleTimeout} for this configuration instance
+     * @see GenericObjectPool#getTestWhileIdleTimeout()
+     * @see GenericKeyedObjectPool#getTestWhileIdleTimeout()
+     * @since 3.0.0
+     */
+    public void setTestWhileIdleTimeout(final Duration testWhileIdleTimeout) {
+        this.testWhileIdleTimeout = PoolImplUtils.nonNull(testWhileIdleTimeout, DEFAULT_TEST_WHILE_IDLE_TIMEOUT);
+    }
+
     @Override
     protected void toStringAppendFields(final StringBuilder builder) {
         builder.append("lifo=");
@@ -803,8 +1151,20 @@ public abstract class BaseObjectPoolConfig<T> extends BaseObject implements Clon
         builder.append(softMinEvictableIdleDuration);
         builder.append(", numTestsPerEvictionRun=");
         builder.append(numTestsPerEvictionRun);
+        builder.append(", maxEvictionRunDuration=");
+        builder.append(maxEvictionRunDuration);
+        builder.append(", maxLifetime=");
+        builder.append(maxLifetime);
+        builder.append(", maxLifetimeJitter=");
+        builder.append(maxLifetimeJitter);
+        builder.append(", keepAliveInterval=");
+        builder.append(keepAliveInterval);
         builder.append(", evictionPolicyClassName=");
         builder.append(evictionPolicyClassName);
+        builder.append(", evictorExecutor=");
+        builder.append(evictorExecutor);
+        builder.append(", evictorJitter=");
+        builder.append(evictorJitter);
         builder.append(", testOnCreate=");
         builder.append(testOnCreate);
         builder.append(", testOnBorrow=");
@@ -813,6 +1173,10 @@ public abstract class BaseObjectPoolConfig<T> extends BaseObject implements Clon
         builder.append(testOnReturn);
         builder.append(", testWhileIdle=");
         builder.append(testWhileIdle);
+        builder.append(", testWhileIdleParallelism=");
+        builder.append(testWhileIdleParallelism);
+        builder.append(", testWhileIdleTimeout=");
+        builder.append(testWhileIdleTimeout);
         builder.append(", timeBetweenEvictionRuns=");
         builder.append(durationBetweenEvictionRuns);
         builder.append(", blockWhenExhausted=");
@@ -825,5 +1189,7 @@ public abstract class BaseObjectPoolConfig<T> extends BaseObject implements Clon
         builder.append(jmxNameBase);
         builder.append(", collectDetailedStatistics=");
         builder.append(collectDetailedStatistics);
+        builder.append(", indexedEviction=");
+        builder.append(indexedEviction);
     }
 }
@@ -0,0 +1,335 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool3.impl;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.function.LongFunction;
+import java.util.function.ToIntFunction;
+
+import org.apache.commons.pool3.DestroyMode;
+import org.apache.commons.pool3.KeyedPooledObjectFactory;
+import org.apache.commons.pool3.PooledObject;
+import org.apache.commons.pool3.PooledObjectFactory;
+
+/**
+ * Base class for the keyed pools with primitive keys, holding a
+ * {@link GenericObjectPool} per key in a {@link LongKeyTable}, so that
+ * borrowing and returning objects neither boxes nor hashes the key through a
+ * {@code Map}. Each sub-pool calls the keyed factory with the key boxed once
+ * when the sub-pool is created, and is maintained by its own evictor.
+ * Subclasses only adapt the public methods to their key type, keys being
+ * widened to {@code long} here.
+ * <p>
+ * Unlike the sub-pools of {@link GenericKeyedObjectPool}, the sub-pools are
+ * kept once created, which suits small or bounded key sets such as shard
+ * identifiers.
+ * </p>
+ * <p>
+ * This class is intended to be thread-safe.
+ * </p>
+ *
+ * @param <K> Type of the boxed keys given to the factory.
+ * @param <T> Type of element pooled in this pool.
+ * @param <E> Type of exception thrown in this pool.
+ * @since 3.0.0
+ */
+abstract class BasePrimitiveKeyedObjectPool<K, T, E extends Exception> implements Closeable {
+
+    /**
+     * Adapts a keyed factory to the key of one sub-pool.
+     *
+     * @param <K> The type of keys.
+     * @param <T> Type of element pooled.
+     * @param <E> Type of exception thrown.
+     */
+    static final class SubPoolFactory<K, T, E extends Exception> implements PooledObjectFactory<T, E> {
+
+        private final K key;
+        private final KeyedPooledObjectFactory<K, T, E> factory;
+
+        SubPoolFactory(final K key, final KeyedPooledObjectFactory<K, T, E> factory) {
+            this.key = key;
+            this.factory = factory;
+        }
+
+        @Override
+        public void activateObject(final PooledObject<T> p) throws E {
+            factory.activateObject(key, p);
+        }
+
+        @Override
+        public void destroyObject(final PooledObject<T> p) throws E {
+            factory.destroyObject(key, p);
+        }
+
+        @Override
+        public void destroyObject(final PooledObject<T> p, final DestroyMode destroyMode) throws E {
+            factory.destroyObject(key, p, destroyMode);
+        }
+
+        @Override
+        public boolean keepAliveObject(final PooledObject<T> p) {
+            return factory.keepAliveObject(key, p);
+        }
+
+        @Override
+        public PooledObject<T> makeObject() throws E {
+            return factory.makeObject(key);
+        }
+
+        @Override
+        public List<PooledObject<T>> makeObjects(final int count) throws E {
+            return factory.makeObjects(key, count);
+        }
+
+        @Override
+        public void passivateObject(final PooledObject<T> p) throws E {
+            factory.passivateObject(key, p);
+        }
+
+        @Override
+        public boolean validateObject(final PooledObject<T> p) {
+            return factory.validateObject(key, p);
+        }
+
+        @Override
+        public boolean[] validateObjects(final List<PooledObject<T>> list) {
+            return factory.validateObjects(key, list);
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder builder = new StringBuilder();
+            builder.append("SubPoolFactory [key=");
+            builder.append(key);
+            builder.append(", factory=");
+            builder.append(factory);
+            builder.append("]");
+            return builder.toString();
+        }
+    }
+
+    private final KeyedPooledObjectFactory<K, T, E> factory;
+
+    private final LongFunction<K> keyBoxer;
+
+    private final GenericObjectPoolConfig<T> config;
+
+    private final LongKeyTable<GenericObjectPool<T, E>> subPools;
+
+    private final LongFunction<GenericObjectPool<T, E>> subPoolCreator = this::createSubPool;
+
+    private volatile boolean closed;
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param factory The factory to be used to create entries.
+     * @param keyBoxer Boxes a key, widened to a {@code long}, for the factory.
+     * @param config The configuration of each sub-pool. JMX registration of the sub-pools is disabled.
+     * @param denseKeys The keys from 0 to this number, exclusive, are held in a dense array, other keys in a hash table.
+     */
+    BasePrimitiveKeyedObjectPool(final KeyedPooledObjectFactory<K, T, E> factory, final LongFunction<K> keyBoxer,
+            final GenericObjectPoolConfig<T> config, final int denseKeys) {
+        if (factory == null) {
+            throw new IllegalArgumentException("Factory may not be null");
+        }
+        this.factory = factory;
+        this.keyBoxer = keyBoxer;
+        this.config = config.clone();
+        this.config.setJmxEnabled(false);
+        this.subPools = new LongKeyTable<>(denseKeys);
+    }
+
+    /**
+     * Throws an {@code IllegalStateException} if called when the pool has been closed.
+     *
+     * @throws IllegalStateException if this pool has been closed.
+     */
+    final void assertOpen() throws IllegalStateException {
+        if (isClosed()) {
+            throw new IllegalStateException("Pool not open");
+        }
+    }
+
+    /**
+     * Clears every sub-pool, destroying their idle objects.
+     */
+    public void clear() {
+        subPools.forEach((subPool, key) -> subPool.clear());
+    }
+
+    /**
+     * Clears the sub-pool of a key, if there is one.
+     *
+     * @param key The key, widened to a {@code long}.
+     */
+    final void clearSubPool(final long key) {
+        final GenericObjectPool<T, E> subPool = subPools.get(key);
+        if (subPool != null) {
+            subPool.clear();
+        }
+    }
+
+    /**
+     * Closes the pool and every sub-pool.
+     */
+    @Override
+    public void close() {
+        // Sub-pools are created and added holding the lock of the table, so
+        // each one is either created closed or added before the pass below.
+        synchronized (subPools) {
+            closed = true;
+        }
+        subPools.forEach((subPool, key) -> subPool.close());
+    }
+
+    /**
+     * Counts something in the sub-pool of a key.
+     *
+     * @param key The key, widened to a {@code long}.
+     * @param counter Counts in a sub-pool.
+     * @return The count, 0 if there is no sub-pool for the key.
+     */
+    final int count(final long key, final ToIntFunction<GenericObjectPool<T, E>> counter) {
+        final GenericObjectPool<T, E> subPool = subPools.get(key);
+        return subPool != null ? counter.applyAsInt(subPool) : 0;
+    }
+
+    private GenericObjectPool<T, E> createSubPool(final long key) {
+        final PooledObjectFactory<T, E> subPoolFactory = new SubPoolFactory<>(keyBoxer.apply(key), factory);
+        final GenericObjectPool<T, E> subPool = new GenericObjectPool<>(subPoolFactory, config);
+        if (closed) {
+            // Closed while the sub-pool was created.
+            subPool.close();
+        }
+        return subPool;
+    }
+
+    /**
+     * Gets the factory used to create entries.
+     *
+     * @return The factory.
+     */
+    public KeyedPooledObjectFactory<K, T, E> getFactory() {
+        return factory;
+    }
+
+    /**
+     * Gets the number of objects borrowed from every sub-pool.
+     *
+     * @return The number of objects borrowed.
+     */
+    public int getNumActive() {
+        return sum(GenericObjectPool::getNumActive);
+    }
+
+    /**
+     * Gets the number of idle objects of every sub-pool.
+     *
+     * @return The number of idle objects.
+     */
+    public int getNumIdle() {
+        return sum(GenericObjectPool::getNumIdle);
+    }
+
+    /**
+     * Gets the number of keys, that is of sub-pools.
+     *
+     * @return The number of keys.
+     */
+    public int getNumKeys() {
+        return subPools.size();
+    }
+
+    /**
+     * Gets the number of threads waiting to borrow an object from any sub-pool.
+     *
+     * @return The number of waiting threads.
+     */
+    public int getNumWaiters() {
+        return sum(GenericObjectPool::getNumWaiters);
+    }
+
+    /**
+     * Gets the sub-pool of a key, creating it if there is none.
+     *
+     * @param key The key, widened to a {@code long}.
+     * @return The sub-pool of the key.
+     * @throws IllegalStateException if this pool has been closed.
+     */
+    final GenericObjectPool<T, E> getOrCreateSubPool(final long key) {
+        assertOpen();
+        return subPools.computeIfAbsent(key, subPoolCreator);
+    }
+
+    /**
+     * Gets the sub-pool of a key an object is returned to.
+     *
+     * @param key The key, widened to a {@code long}.
+     * @return The sub-pool of the key.
+     * @throws IllegalStateException if there is no sub-pool for the key.
+     */
+    final GenericObjectPool<T, E> getSubPoolOfReturn(final long key) {
+        final GenericObjectPool<T, E> subPool = subPools.get(key);
+        if (subPool == null) {
+            throw new IllegalStateException("No keyed pool found under the given key.");
+        }
+        return subPool;
+    }
+
+    /**
+     * Gets the keys, widened to {@code long}.
+     *
+     * @return The keys.
+     */
+    final long[] getSubPoolKeys() {
+        return subPools.keys();
+    }
+
+    /**
+     * Tests whether this pool is closed.
+     *
+     * @return {@code true} when this pool has been closed.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private int sum(final ToIntFunction<GenericObjectPool<T, E>> counter) {
+        final int[] total = { 0 };
+        subPools.forEach((subPool, key) -> total[0] += counter.applyAsInt(subPool));
+        return total[0];
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append(getClass().getSimpleName());
+        builder.append(" [factory=");
+        builder.append(factory);
+        builder.append(", config=");
+        builder.append(config);
+        builder.append(", subPools=");
+        builder.append(subPools);
+        builder.append(", closed=");
+        builder.append(closed);
+        builder.append("]");
+        return builder.toString();
+    }
+}
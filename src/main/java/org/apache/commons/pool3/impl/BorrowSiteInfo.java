@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool3.impl;
+
+import java.util.Arrays;
+
+/**
+ * A snapshot of the statistics collected for one sampled borrow call site, made
+ * available via JMX.
+ *
+ * @see AbandonedConfig#getBorrowSiteSamplingInterval()
+ * @see GenericObjectPool#listBorrowSites()
+ * @since 3.0.0
+ */
+public final class BorrowSiteInfo {
+
+    private final String callSite;
+    private final long sampledBorrowCount;
+    private final long outstandingCount;
+    private final long totalHoldTimeMillis;
+    private final long maxHoldTimeMillis;
+    private final long[] holdTimeHistogram;
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param callSite The call site.
+     * @param sampledBorrowCount The number of sampled borrows from the call site.
+     * @param outstandingCount The number of sampled borrows not yet returned.
+     * @param totalHoldTimeMillis The total hold time of returned sampled borrows.
+     * @param maxHoldTimeMillis The maximum hold time of returned sampled borrows.
+     * @param holdTimeHistogram The hold time histogram.
+     */
+    BorrowSiteInfo(final String callSite, final long sampledBorrowCount, final long outstandingCount, final long totalHoldTimeMillis,
+            final long maxHoldTimeMillis, final long[] holdTimeHistogram) {
+        this.callSite = callSite;
+        this.sampledBorrowCount = sampledBorrowCount;
+        this.outstandingCount = outstandingCount;
+        this.totalHoldTimeMillis = totalHoldTimeMillis;
+        this.maxHoldTimeMillis = maxHoldTimeMillis;
+        this.holdTimeHistogram = holdTimeHistogram;
+    }
+
+    /**
+     * Gets the call site: the innermost application frames, one per line, of the
+     * stacks that borrowed objects from this site.
+     *
+     * @return The call site.
+     */
+    public String getCallSite() {
+        return callSite;
+    }
+
+    /**
+     * Gets the number of sampled borrows by hold time. Bucket {@code i} counts
+     * hold times below {@code getHoldTimeHistogramBoundsMillis()[i]}, the last
+     * bucket counts everything longer.
+     *
+     * @return The number of sampled borrows by hold time.
+     */
+    public long[] getHoldTimeHistogram() {
+        return holdTimeHistogram.clone();
+    }
+
+    /**
+     * Gets the upper bounds, in milliseconds, of the buckets of
+     * {@link #getHoldTimeHistogram()}.
+     *
+     * @return The upper bounds of the hold time histogram buckets.
+     */
+    public long[] getHoldTimeHistogramBoundsMillis() {
+        return BorrowSiteProfiler.HOLD_TIME_BOUNDS_MILLIS.clone();
+    }
+
+    /**
+     * Gets the maximum time a sampled borrow from this site held its object.
+     *
+     * @return The maximum hold time in milliseconds.
+     */
+    public long getMaxHoldTimeMillis() {
+        return maxHoldTimeMillis;
+    }
+
+    /**
+     * Gets the mean time sampled borrows from this site held their object.
+     *
+     * @return The mean hold time in milliseconds.
+     */
+    public long getMeanHoldTimeMillis() {
+        final long returned = sampledBorrowCount - outstandingCount;
+        return returned > 0 ? totalHoldTimeMillis / returned : 0;
+    }
+
+    /**
+     * Gets the number of sampled borrows from this site that have not been
+     * returned yet.
+     *
+     * @return The number of outstanding sampled borrows.
+     */
+    public long getOutstandingCount() {
+        return outstandingCount;
+    }
+
+    /**
+     * Gets the number of sampled borrows from this site.
+     *
+     * @return The number of sampled borrows.
+     */
+    public long getSampledBorrowCount() {
+        return sampledBorrowCount;
+    }
+
+    /**
+     * Gets the total time sampled borrows from this site held their object,
+     * counting only objects that have been returned.
+     *
+     * @return The total hold time in milliseconds.
+     */
+    public long getTotalHoldTimeMillis() {
+        return totalHoldTimeMillis;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("BorrowSiteInfo [callSite=");
+        builder.append(callSite);
+        builder.append(", sampledBorrowCount=");
+        builder.append(sampledBorrowCount);
+        builder.append(", outstandingCount=");
+        builder.append(outstandingCount);
+        builder.append(", totalHoldTimeMillis=");
+        builder.append(totalHoldTimeMillis);
+        builder.append(", maxHoldTimeMillis=");
+        builder.append(maxHoldTimeMillis);
+        builder.append(", holdTimeHistogram=");
+        builder.append(Arrays.toString(holdTimeHistogram));
+        builder.append("]");
+        return builder.toString();
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool3.impl;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import org.apache.commons.pool3.PooledObject;
+import org.apache.commons.pool3.impl.BaseGenericObjectPool.IdentityWrapper;
+
+/**
+ * Samples the call stacks that borrow objects from a pool and aggregates them
+ * into a bounded table of call sites with hold time statistics.
+ * <p>
+ * Only one in {@code samplingInterval} borrows (chosen at random) pays for a
+ * stack walk; all other borrows cost one random number. At most
+ * {@code maxSites} distinct call sites are tracked; sampled borrows from any
+ * further site are aggregated under {@link #OTHER_SITES}.
+ * </p>
+ * <p>
+ * This class is intended to be thread-safe.
+ * </p>
+ *
+ * @since 3.0.0
+ */
+final class BorrowSiteProfiler {
+
+    /**
+     * A sampled borrow that has not been returned yet.
+     */
+    private static final class Sample {
+
+        private final Site site;
+        private final long borrowNanos = System.nanoTime();
+
+        Sample(final Site site) {
+            this.site = site;
+        }
+    }
+
+    /**
+     * Aggregated statistics for one call site.
+     */
+    private static final class Site {
+
+        private final String callSite;
+        private final LongAdder sampledBorrowCount = new LongAdder();
+        private final LongAdder outstandingCount = new LongAdder();
+        private final LongAdder totalHoldTimeMillis = new LongAdder();
+        private final AtomicLong maxHoldTimeMillis = new AtomicLong();
+        private final AtomicLongArray holdTimeHistogram = new AtomicLongArray(HOLD_TIME_BOUNDS_MILLIS.length + 1);
+
+        Site(final String callSite) {
+            this.callSite = callSite;
+        }
+
+        void borrowed() {
+            sampledBorrowCount.increment();
+            outstandingCount.increment();
+        }
+
+        void returned(final long holdTimeMillis) {
+            int bucket = 0;
+            while (bucket < HOLD_TIME_BOUNDS_MILLIS.length && holdTimeMillis >= HOLD_TIME_BOUNDS_MILLIS[bucket]) {
+                bucket++;
+            }
+            holdTimeHistogram.incrementAndGet(bucket);
+            totalHoldTimeMillis.add(holdTimeMillis);
+            maxHoldTimeMillis.accumulateAndGet(holdTimeMillis, Math::max);
+            outstandingCount.decrement();
+        }
+
+        BorrowSiteInfo toInfo() {
+            final long[] histogram = new long[holdTimeHistogram.length()];
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] = holdTimeHistogram.get(i);
+            }
+            return new BorrowSiteInfo(callSite, sampledBorrowCount.sum(), outstandingCount.sum(), totalHoldTimeMillis.sum(), maxHoldTimeMillis.get(),
+                    histogram);
+        }
+    }
+
+    /**
+     * Upper bounds, in milliseconds, of the hold time histogram buckets. A last
+     * bucket counts everything longer.
+     */
+    static final long[] HOLD_TIME_BOUNDS_MILLIS = { 10, 100, 1_000, 10_000, 60_000, 600_000 };
+
+    /** Maximum number of application frames that identify a call site. */
+    static final int MAX_FRAMES = 8;
+
+    /** Name of the call site that aggregates sites beyond the table bound. */
+    static final String OTHER_SITES = "[other]";
+
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    /**
+     * Gets the innermost application frames of the current thread, skipping the
+     * pool frames.
+     *
+     * @return The current call site, one frame per line.
+     */
+    static String currentCallSite() {
+        return STACK_WALKER.walk(frames -> frames
+                .dropWhile(CallStackUtils::isPoolFrame)
+                .limit(MAX_FRAMES)
+                .map(frame -> frame.toStackTraceElement().toString())
+                .collect(Collectors.joining(System.lineSeparator())));
+    }
+
+    private final int samplingInterval;
+    private final int maxSites;
+    private final Map<String, Site> sites = new ConcurrentHashMap<>();
+
+    private final Map<IdentityWrapper<PooledObject<?>>, Sample> outstanding = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param samplingInterval Sample one in this many borrows, must be positive.
+     * @param maxSites The maximum number of distinct call sites to track, must be positive.
+     */
+    BorrowSiteProfiler(final int samplingInterval, final int maxSites) {
+        this.samplingInterval = samplingInterval;
+        this.maxSites = maxSites;
+    }
+
+    /**
+     * Records a borrow, capturing its call site if it is sampled.
+     *
+     * @param pooledObject The borrowed object.
+     */
+    void borrowed(final PooledObject<?> pooledObject) {
+        if (samplingInterval > 1 && ThreadLocalRandom.current().nextInt(samplingInterval) != 0) {
+            return;
+        }
+        final String callSite = currentCallSite();
+        Site site = sites.get(callSite);
+        if (site == null) {
+            site = sites.computeIfAbsent(sites.size() < maxSites ? callSite : OTHER_SITES, Site::new);
+        }
+        site.borrowed();
+        final Sample previous = outstanding.put(new IdentityWrapper<>(pooledObject), new Sample(site));
+        if (previous != null) {
+            // Not seen returning, do not leave it outstanding forever.
+            previous.site.returned(0);
+        }
+    }
+
+    /**
+     * Lists the call sites, longest total hold time first.
+     *
+     * @return The call sites.
+     */
+    List<BorrowSiteInfo> listBorrowSites() {
+        final List<BorrowSiteInfo> list = new ArrayList<>(sites.size());
+        sites.values().forEach(site -> list.add(site.toInfo()));
+        list.sort(Comparator.comparingLong(BorrowSiteInfo::getTotalHoldTimeMillis).reversed());
+        return list;
+    }
+
+    /**
+     * Records the end of a borrow, if it was sampled.
+     *
+     * @param pooledObject The returned or destroyed object.
+     */
+    void returned(final PooledObject<?> pooledObject) {
+        final Sample sample = outstanding.remove(new IdentityWrapper<>(pooledObject));
+        if (sample != null) {
+            sample.site.returned(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sample.borrowNanos));
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("BorrowSiteProfiler [samplingInterval=");
+        builder.append(samplingInterval);
+        builder.append(", maxSites=");
+        builder.append(maxSites);
+        builder.append(", sites=");
+        builder.append(sites.size());
+        builder.append(", outstanding=");
+        builder.append(outstanding.size());
+        builder.append("]");
+        return builder.toString();
+    }
+}
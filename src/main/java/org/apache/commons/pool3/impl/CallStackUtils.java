@@ -16,7 +16,9 @@
  */
 package org.apache.commons.pool3.impl;
 
-import java.security.AccessControlException;
+import java.lang.StackWalker.StackFrame;
+import java.security.CodeSource;
+import java.util.Objects;
 
 /**
  * Utility methods for {@link CallStack}.
@@ -26,41 +28,55 @@ import java.security.AccessControlException;
 public final class CallStackUtils {
 
     /**
-     * Tests whether the caller can create a security manager in the current environment.
-     *
-     * @return {@code true} if it is able to create a security manager in the current environment, {@code false}
-     *         otherwise.
+     * Whether a class is one of the classes of this package, as opposed to an
+     * application class, even one declared in the same package.
      */
-    private static boolean canCreateSecurityManager() {
-        final SecurityManager manager = System.getSecurityManager();
-        if (manager == null) {
-            return true;
-        }
-        try {
-            manager.checkPermission(new RuntimePermission("createSecurityManager"));
-            return true;
-        } catch (final AccessControlException ignored) {
-            return false;
+    private static final ClassValue<Boolean> POOL_CLASSES = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(final Class<?> type) {
+            return Boolean.valueOf(CallStackUtils.class.getPackageName().equals(type.getPackageName())
+                    && Objects.equals(codeSource(type), codeSource(CallStackUtils.class)));
         }
+    };
+
+    private static CodeSource codeSource(final Class<?> type) {
+        return type.getProtectionDomain().getCodeSource();
+    }
+
+    /**
+     * Tests whether a stack frame belongs to the pool implementation rather than
+     * to the application, that is to a class of the
+     * {@code org.apache.commons.pool3.impl} package of this library.
+     *
+     * @param frame The frame to test.
+     * @return Whether the frame belongs to the pool implementation.
+     */
+    static boolean isPoolFrame(final StackFrame frame) {
+        return POOL_CLASSES.get(frame.getDeclaringClass()).booleanValue();
     }
 
     /**
      * Constructs a new {@link CallStack} using the fasted allowed strategy.
+     * <p>
+     * Both strategies walk the stack with a {@link StackWalkerCallStack}. When {@code requireFullStackTrace} is false, the
+     * frames of the pool itself are skipped and at most {@link StackWalkerCallStack#DEFAULT_MAX_FRAMES} frames are
+     * captured; otherwise every frame is captured.
+     * </p>
      *
      * @param messageFormat         message (or format) to print first in stack traces
      * @param useTimestamp          if true, interpret message as a SimpleDateFormat and print the created timestamp;
      *                              otherwise, print message format literally
-     * @param requireFullStackTrace if true, forces the use of a stack walking mechanism that includes full stack trace
-     *                              information; otherwise, uses a faster implementation if possible
+     * @param requireFullStackTrace if true, captures every frame; otherwise, captures a bounded number of application
+     *                              frames
      * @return A new CallStack
      * @since 2.5
      */
     public static CallStack newCallStack(final String messageFormat,
                                          final boolean useTimestamp,
                                          final boolean requireFullStackTrace) {
-        return canCreateSecurityManager() && !requireFullStackTrace ?
-            new SecurityManagerCallStack(messageFormat, useTimestamp) :
-            new ThrowableCallStack(messageFormat, useTimestamp);
+        return requireFullStackTrace ?
+            new StackWalkerCallStack(messageFormat, useTimestamp, Integer.MAX_VALUE, false) :
+            new StackWalkerCallStack(messageFormat, useTimestamp);
     }
 
     /**
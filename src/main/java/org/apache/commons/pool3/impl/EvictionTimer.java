@@ -37,6 +37,10 @@ import java.util.concurrent.TimeUnit;
  * leads and/or prevent applications from shutting down or reloading cleanly.
  * </p>
  * <p>
+ * Pools configured with an {@link BaseGenericObjectPool#getEvictorExecutor() evictor executor} only use the timer thread
+ * to hand their eviction runs to that executor, so that the timer thread is not held up by slow pools.
+ * </p>
+ * <p>
  * This class has package scope to prevent its inclusion in the pool public API. The class declaration below should
  * *not* be changed to public.
  * </p>
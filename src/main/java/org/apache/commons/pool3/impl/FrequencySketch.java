@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool3.impl;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A count-min sketch estimating how often each key is used, in the manner of
+ * TinyLFU.
+ * <p>
+ * Each key maps to four 4-bit counters, one per row, held sixteen to a
+ * {@code long}. The estimate is the smallest of the four counters, so it can
+ * be too high because of collisions but is never too low, and saturates at 15.
+ * Once the number of increments reaches ten times the number of counters in a
+ * row, every counter is halved so that the estimates follow recent use.
+ * </p>
+ * <p>
+ * This class is intended to be thread-safe. Concurrent increments are not
+ * lost, but increments made while the counters are being halved may be
+ * halved or not.
+ * </p>
+ *
+ * @param <K> The type of keys.
+ * @since 3.0.0
+ */
+final class FrequencySketch<K> {
+
+    /** Maximum value of a counter. */
+    static final int MAX_FREQUENCY = 15;
+
+    private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+
+    /** Clears the high bit of each counter after a right shift. */
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private static int spread(final Object key) {
+        final int hash = key.hashCode() * 0x9E3779B9;
+        return hash ^ hash >>> 16;
+    }
+
+    private final AtomicLongArray table;
+    private final int tableMask;
+    private final int sampleSize;
+    private final AtomicInteger additions = new AtomicInteger();
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param tableLength The number of {@code long} words of the table, rounded up to a power of two.
+     */
+    FrequencySketch(final int tableLength) {
+        final int length = tableLength <= 1 ? 1 : Integer.highestOneBit(tableLength - 1) << 1;
+        this.table = new AtomicLongArray(length);
+        this.tableMask = length - 1;
+        // Each row has four counters per word.
+        this.sampleSize = 10 * 4 * length;
+    }
+
+    /**
+     * Estimates how often a key was used recently.
+     *
+     * @param key The key.
+     * @return The estimate, from 0 to {@link #MAX_FREQUENCY}.
+     */
+    int frequency(final K key) {
+        final int hash = spread(key);
+        int frequency = MAX_FREQUENCY;
+        for (int row = 0; row < SEEDS.length; row++) {
+            final int shift = shift(hash, row);
+            frequency = Math.min(frequency, (int) (table.get(indexOf(hash, row)) >>> shift) & MAX_FREQUENCY);
+        }
+        return frequency;
+    }
+
+    /**
+     * Records a use of a key.
+     *
+     * @param key The key.
+     */
+    void increment(final K key) {
+        final int hash = spread(key);
+        boolean added = false;
+        for (int row = 0; row < SEEDS.length; row++) {
+            added |= incrementAt(indexOf(hash, row), shift(hash, row));
+        }
+        if (added && additions.incrementAndGet() >= sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(final int index, final int shift) {
+        long word;
+        do {
+            word = table.get(index);
+            if ((word >>> shift & MAX_FREQUENCY) == MAX_FREQUENCY) {
+                return false;
+            }
+        } while (!table.compareAndSet(index, word, word + (1L << shift)));
+        return true;
+    }
+
+    private int indexOf(final int hash, final int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        h += h >>> 32;
+        return (int) h & tableMask;
+    }
+
+    /**
+     * Halves every counter.
+     */
+    private synchronized void reset() {
+        if (additions.get() < sampleSize) {
+            // Halved by another thread.
+            return;
+        }
+        for (int i = 0; i < table.length(); i++) {
+            table.getAndUpdate(i, word -> word >>> 1 & RESET_MASK);
+        }
+        additions.set(additions.get() / 2);
+    }
+
+    private int shift(final int hash, final int row) {
+        // Each key uses one group of four counters in each word, one counter per row.
+        return ((hash & 3) << 2) + row << 2;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("FrequencySketch [tableLength=");
+        builder.append(table.length());
+        builder.append(", sampleSize=");
+        builder.append(sampleSize);
+        builder.append(", additions=");
+        builder.append(additions);
+        builder.append("]");
+        return builder.toString();
+    }
+}
@@ -18,27 +18,40 @@ package org.apache.commons.pool3.impl;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NoSuchElementException;
 import java.util.Objects;
-import java.util.TreeMap;
 import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import org.apache.commons.pool3.AsyncKeyedPooledObjectFactory;
 import org.apache.commons.pool3.DestroyMode;
 import org.apache.commons.pool3.KeyedObjectPool;
 import org.apache.commons.pool3.KeyedPooledObjectFactory;
@@ -121,18 +134,102 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
          * Number of threads with registered interest in this key.
          * register(K) increments this counter and deRegister(K) decrements it.
          * Invariant: empty keyed pool will not be dropped unless numInterested
-         *            is 0.
+         *            is 0. A dropped keyed pool is marked with -1 so that no
+         *            thread can register with it again.
          */
         private final AtomicLong numInterested = new AtomicLong();
 
+        /*
+         * Registration order of the key, used to control eviction order.
+         */
+        private final long sequence;
+
+        /*
+         * Whether the key is listed in the keys with idle objects. Set before
+         * the key is added to the list and cleared after it is removed.
+         */
+        private final AtomicBoolean idleKeyListed = new AtomicBoolean();
+
+        /*
+         * Guards the ranks of the key in the keys ranked by idle age, by
+         * waiters and by last use, and the number of waiters.
+         */
+        private final Object rankLock = new Object();
+
+        /*
+         * Rank of the key by the age of its oldest idle object, null when it
+         * is not ranked.
+         */
+        private volatile RankedKey<?> idleAgeRank; // @GuardedBy("rankLock") for write access
+
+        /*
+         * Rank of the key by its number of waiters, null when it has none.
+         */
+        private RankedKey<?> waitersRank; // @GuardedBy("rankLock")
+
+        /*
+         * Number of threads blocked waiting for an idle object of the key.
+         */
+        private int numWaiters; // @GuardedBy("rankLock")
+
+        /*
+         * Rank of the key by its last use, null when it is not ranked. The
+         * rank may be older than the last use.
+         */
+        private RankedKey<?> useRank; // @GuardedBy("rankLock")
+
+        /*
+         * Time in milliseconds the key was last registered, updated only when
+         * the number of keys is limited.
+         */
+        private volatile long lastUseMillis;
+
+        /*
+         * Limits of the key resolved by the key limits of the pool, null if
+         * the pool limits apply.
+         */
+        private volatile KeyLimits keyLimits; // @GuardedBy("this") for write access
+
+        /*
+         * Generation of the key limits of the pool the limits were resolved
+         * with, -1 if they were never resolved.
+         */
+        private volatile int keyLimitsGeneration = -1; // @GuardedBy("this") for write access
+
+        /*
+         * Borrowed instances scheduled by last use time to find abandoned ones.
+         */
+        private final TimingWheel<S> abandonedWheel = new TimingWheel<>();
+
+        /*
+         * Idle instances scheduled by last return time for indexed eviction.
+         */
+        private final TimingWheel<S> idleIndex = new TimingWheel<>();
+
+        /*
+         * Idle instances scheduled by the time of their next keepalive.
+         */
+        private final TimingWheel<S> keepAliveSchedule = new TimingWheel<>();
+
         /**
          * Constructs a new ObjectDeque with the given fairness policy.
          *
          * @param fairness true means client threads waiting to borrow / return instances
          * will be served as if waiting in a FIFO queue.
+         * @param sequence The registration order of the key.
          */
-        ObjectDeque(final boolean fairness) {
+        ObjectDeque(final boolean fairness, final long sequence) {
             idleObjects = new LinkedBlockingDeque<>(fairness);
+            this.sequence = sequence;
+        }
+
+        /**
+         * Gets the borrowed objects for the current key, scheduled by last use time.
+         *
+         * @return The borrowed objects scheduled by last use time.
+         */
+        TimingWheel<S> getAbandonedWheel() {
+            return abandonedWheel;
         }
 
         /**
@@ -154,6 +251,15 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
             return createCount;
         }
 
+        /**
+         * Gets the idle objects for the current key, scheduled by last return time.
+         *
+         * @return The idle objects scheduled by last return time.
+         */
+        TimingWheel<S> getIdleIndex() {
+            return idleIndex;
+        }
+
         /**
          * Gets the idle objects for the current key.
          *
@@ -163,6 +269,25 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
             return idleObjects;
         }
 
+        /**
+         * Gets the idle objects for the current key, scheduled by the time of
+         * their next keepalive.
+         *
+         * @return The idle objects scheduled by keepalive time.
+         */
+        TimingWheel<S> getKeepAliveSchedule() {
+            return keepAliveSchedule;
+        }
+
+        /**
+         * Gets whether the key is listed in the keys with idle objects.
+         *
+         * @return Whether the key is listed in the keys with idle objects.
+         */
+        AtomicBoolean getIdleKeyListed() {
+            return idleKeyListed;
+        }
+
         /**
          * Gets the number of threads with an interest registered in this key.
          *
@@ -172,6 +297,31 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
             return numInterested;
         }
 
+        /**
+         * Gets the registration order of the key.
+         *
+         * @return The registration order of the key.
+         */
+        long getSequence() {
+            return sequence;
+        }
+
+        /**
+         * Registers an interest in this key unless it has been dropped from the pool.
+         *
+         * @return Whether the interest was registered.
+         */
+        boolean tryRegister() {
+            long interested;
+            do {
+                interested = numInterested.get();
+                if (interested < 0) {
+                    return false;
+                }
+            } while (!numInterested.compareAndSet(interested, interested + 1));
+            return true;
+        }
+
         @Override
         public String toString() {
             final StringBuilder builder = new StringBuilder();
@@ -183,14 +333,91 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
             builder.append(allObjects);
             builder.append(", numInterested=");
             builder.append(numInterested);
+            builder.append(", sequence=");
+            builder.append(sequence);
             builder.append("]");
             return builder.toString();
         }
 
     }
 
+    /**
+     * A key ranked in an index of keys, ordered by rank and then by
+     * registration order.
+     *
+     * @param <K> The type of keys.
+     */
+    private static final class RankedKey<K> implements Comparable<RankedKey<K>> {
+
+        private final long rank;
+        private final long sequence;
+        private final K key;
+
+        /**
+         * Constructs a new instance.
+         *
+         * @param rank The rank, lowest first.
+         * @param sequence The registration order of the key.
+         * @param key The key.
+         */
+        RankedKey(final long rank, final long sequence, final K key) {
+            this.rank = rank;
+            this.sequence = sequence;
+            this.key = key;
+        }
+
+        @Override
+        public int compareTo(final RankedKey<K> other) {
+            final int result = Long.compare(rank, other.rank);
+            return result != 0 ? result : Long.compare(sequence, other.sequence);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof RankedKey)) {
+                return false;
+            }
+            final RankedKey<?> other = (RankedKey<?>) obj;
+            return rank == other.rank && sequence == other.sequence;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(rank) * 31 + Long.hashCode(sequence);
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder builder = new StringBuilder();
+            builder.append("RankedKey [rank=");
+            builder.append(rank);
+            builder.append(", key=");
+            builder.append(key);
+            builder.append("]");
+            return builder.toString();
+        }
+    }
+
     private static final Integer ZERO = Integer.valueOf(0);
 
+    /** Number of words of the frequency sketch, 8 KiB. */
+    private static final int FREQUENCY_SKETCH_LENGTH = 1024;
+
+    /** Estimated bookkeeping size in bytes of a keyed sub-pool without objects, mostly its three timing wheels. */
+    private static final long SUB_POOL_FOOTPRINT = 5 * 1024;
+
+    /** Estimated bookkeeping size in bytes of each object of a keyed sub-pool, excluding the object itself. */
+    private static final long OBJECT_FOOTPRINT = 256;
+
+    /** Name of the threads preparing keys, see {@link #preparePools(Collection, int, Duration)}. */
+    private static final String PREPARE_THREAD_NAME = "commons-pool-prepare";
+
+    /** Number of keys with the oldest idle objects considered for destruction with frequency aware retention. */
+    private static final int RETENTION_SAMPLE_SIZE = 8;
+
     // JMX specific attributes
     private static final String ONAME_BASE =
             "org.apache.commons.pool3:type=GenericKeyedObjectPool,name=";
@@ -204,14 +431,63 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
     private volatile int maxTotalPerKey =
             GenericKeyedObjectPoolConfig.DEFAULT_MAX_TOTAL_PER_KEY;
 
+    private volatile int maxKeys =
+            GenericKeyedObjectPoolConfig.DEFAULT_MAX_KEYS;
+
+    private volatile int minIdleParallelism =
+            GenericKeyedObjectPoolConfig.DEFAULT_MIN_IDLE_PARALLELISM;
+
+    private ThreadPoolExecutor minIdleExecutor; // @GuardedBy("evictionLock")
+
+    /*
+     * Retires cold keys when a new key takes the pool over maxKeys, one run
+     * at a time.
+     */
+    private final ThreadPoolExecutor coldKeyExecutor = evictorExecutor(null, 1, EvictionConfig.THREAD_NAME);
+
+    private final AtomicBoolean coldKeysRetiring = new AtomicBoolean();
+
+    /*
+     * Borrow frequency of the keys, null unless frequency aware retention is
+     * enabled.
+     */
+    private volatile FrequencySketch<K> frequencySketch;
+
+    /*
+     * Resolves the limits of each key, null if the pool limits apply to every
+     * key. Resolved limits are cached by each sub-pool until the resolver is
+     * replaced, which increments the generation.
+     */
+    private volatile Function<? super K, KeyLimits> keyLimits;
+
+    private final AtomicInteger keyLimitsGeneration = new AtomicInteger();
+
+    private volatile KeyPreference<K> keyPreference = KeyPreference.leastActive();
+
+    /*
+     * Threads in borrowAny wait on this lock for an object to become idle or
+     * for capacity to be freed under any key, both of which increment the
+     * signal. The count of those threads spares the lock when there are none.
+     */
+    private final Object borrowAnyLock = new Object();
+
+    private final AtomicLong borrowAnySignal = new AtomicLong();
+
+    private final AtomicInteger numBorrowAnyThreads = new AtomicInteger();
+
     private final KeyedPooledObjectFactory<K, T, E> factory;
 
+    /*
+     * The factory if it is asynchronous, null otherwise.
+     */
+    private final AsyncKeyedPooledObjectFactory<K, T, E> asyncFactory;
+
     private final boolean fairness;
 
     /*
-     * My hash of sub-pools (ObjectQueue). The list of keys <strong>must</strong> be kept
-     * in step with {@link #poolKeyList} using {@link #keyLock} to ensure any
-     * changes to the list of current keys is made in a thread-safe manner.
+     * My hash of sub-pools (ObjectQueue). Keys are only added and removed by
+     * compute operations, which also keep {@link #poolKeyOrder} in step, so
+     * that no lock is needed on the borrow and return paths.
      *
      * Correct operation of the pool requires that a Map implementation is used that
      * supports concurrent read and write (e.g. ensureMinIdle() iterates over the key set
@@ -219,17 +495,48 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
      * this field as ConcurrentHashMap rather than Map.
      */
     private final ConcurrentHashMap<K, ObjectDeque<T>> poolMap =
-            new ConcurrentHashMap<>(); // @GuardedBy("keyLock") for write access (and some read access)
+            new ConcurrentHashMap<>();
 
     /*
-     * List of pool keys - used to control eviction order. The list of keys
-     * <strong>must</strong> be kept in step with {@link #poolMap} using {@link #keyLock}
-     * to ensure any changes to the list of current keys is made in a
-     * thread-safe manner.
+     * Pool keys by registration order - used to control eviction order. Entries
+     * are added and removed inside the compute operations that add and remove
+     * the keys of {@link #poolMap}.
      */
-    private final ArrayList<K> poolKeyList = new ArrayList<>(); // @GuardedBy("keyLock")
+    private final ConcurrentSkipListMap<Long, K> poolKeyOrder = new ConcurrentSkipListMap<>();
 
-    private final ReadWriteLock keyLock = new ReentrantReadWriteLock(true);
+    /*
+     * Pool keys that may have idle objects, by registration order - walked by
+     * the evictor. A key is added whenever an object becomes idle and it is
+     * not listed, and removed by the evictor when it finds no idle objects.
+     */
+    private final ConcurrentSkipListMap<Long, K> idleKeyOrder = new ConcurrentSkipListMap<>();
+
+    /*
+     * Keys with idle objects ranked by the last return time of their oldest
+     * idle object - used to find the globally oldest idle object when
+     * capacity must be moved to another key. A rank may be older than the
+     * oldest idle object of its key, it is corrected when it is reached.
+     */
+    private final ConcurrentSkipListSet<RankedKey<K>> idleAgeRanks = new ConcurrentSkipListSet<>();
+
+    /*
+     * Keys with threads waiting for an idle object, most waiters first - used
+     * to decide which key gets freed capacity.
+     */
+    private final ConcurrentSkipListSet<RankedKey<K>> waitersRanks = new ConcurrentSkipListSet<>();
+
+    /*
+     * Keys ranked by last use, least recently used first - used to retire
+     * whole sub-pools when there are more than {@link #maxKeys} keys. A rank
+     * may be older than the last use of its key, it is corrected when it is
+     * reached.
+     */
+    private final ConcurrentSkipListSet<RankedKey<K>> useRanks = new ConcurrentSkipListSet<>();
+
+    /*
+     * Source of the registration order of new keys.
+     */
+    private final AtomicLong keySequence = new AtomicLong();
 
     /*
      * The combined count of the currently active objects for all keys and those
@@ -239,10 +546,38 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
      */
     private final AtomicInteger numTotal = new AtomicInteger();
 
-    private Iterator<K> evictionKeyIterator; // @GuardedBy("evictionLock")
+    private final AtomicLong rekeyedCount = new AtomicLong();
+
+    private final AtomicLong retiredKeyCount = new AtomicLong();
+
+    /*
+     * Registration order of the last key visited by the evictor, the next
+     * run resumes with the next key that has idle objects.
+     */
+    private long evictionKeySequence; // @GuardedBy("evictionLock")
 
     private K evictionKey; // @GuardedBy("evictionLock")
 
+    /*
+     * Registration order of the last key whose expired idle objects were all
+     * passed to the eviction policy, the next indexed run resumes after it.
+     */
+    private long indexedEvictionKeySequence; // @GuardedBy("evictionLock")
+
+    /*
+     * Registration order of the key the maximum lifetime pass is in, and its
+     * position in the idle objects of that key, the next run resumes from it.
+     */
+    private long lifetimeKeySequence; // @GuardedBy("evictionLock")
+
+    private Iterator<PooledObject<T>> lifetimeIterator; // @GuardedBy("evictionLock")
+
+    /*
+     * Registration order of the key the keepalive pass stopped in, the next
+     * run resumes with it.
+     */
+    private long keepAliveKeySequence; // @GuardedBy("evictionLock")
+
     /**
      * Constructs a new {@code GenericKeyedObjectPool} using defaults from
      * {@link GenericKeyedObjectPoolConfig}.
@@ -263,6 +598,7 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
      *                  the configuration object will not be reflected in the
      *                  pool.
      */
+    @SuppressWarnings("unchecked")
     public GenericKeyedObjectPool(final KeyedPooledObjectFactory<K, T, E> factory,
             final GenericKeyedObjectPoolConfig<T> config) {
 
@@ -273,6 +609,7 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
             throw new IllegalArgumentException("Factory may not be null");
         }
         this.factory = factory;
+        this.asyncFactory = factory instanceof AsyncKeyedPooledObjectFactory ? (AsyncKeyedPooledObjectFactory<K, T, E>) factory : null;
         this.fairness = config.getFairness();
 
         setConfig(config);
@@ -298,6 +635,77 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
         setAbandonedConfig(abandonedConfig);
     }
 
+    /**
+     * Allocates, activates and, if {@link #getTestOnBorrow()} is true,
+     * validates an object being borrowed. An idle object that has reached its
+     * maximum lifetime, or fails activation or validation, is destroyed.
+     *
+     * @param key The key of the object.
+     * @param p The object taken from the idle objects, or newly created.
+     * @param create Whether the object was newly created.
+     * @return The object, or null if it cannot be borrowed and another object should be tried.
+     * @throws NoSuchElementException if a newly created object fails activation or validation.
+     */
+    private PooledObject<T> activate(final K key, PooledObject<T> p, final boolean create) {
+        if (!p.allocate()) {
+            p = null;
+        }
+        if (!create && !PooledObject.isNull(p) && isExpired(p)) {
+            try {
+                destroy(key, p, true, DestroyMode.NORMAL);
+                destroyedByMaxLifetimeCount.incrementAndGet();
+            } catch (final Exception e) {
+                swallowException(e);
+            }
+            p = null;
+        }
+
+        if (!PooledObject.isNull(p)) {
+            try {
+                factory.activateObject(key, p);
+            } catch (final Exception e) {
+                try {
+                    destroy(key, p, true, DestroyMode.NORMAL);
+                } catch (final Exception ignored) {
+                    // ignored - activation failure is more important
+                }
+                p = null;
+                if (create) {
+                    final NoSuchElementException nsee = new NoSuchElementException(appendStats("Unable to activate object"));
+                    nsee.initCause(e);
+                    throw nsee;
+                }
+            }
+            if (!PooledObject.isNull(p) && getTestOnBorrow()) {
+                boolean validate = false;
+                Throwable validationThrowable = null;
+                try {
+                    validate = factory.validateObject(key, p);
+                } catch (final Throwable t) {
+                    PoolUtils.checkRethrow(t);
+                    validationThrowable = t;
+                }
+                if (!validate) {
+                    updateStatsValidationFailure();
+                    try {
+                        destroy(key, p, true, DestroyMode.NORMAL);
+                        destroyedByBorrowValidationCount.incrementAndGet();
+                    } catch (final Exception ignored) {
+                        // ignored - validation failure is more important
+                    }
+                    p = null;
+                    if (create) {
+                        final NoSuchElementException nsee = new NoSuchElementException(
+                                appendStats("Unable to validate object"));
+                        nsee.initCause(validationThrowable);
+                        throw nsee;
+                    }
+                }
+            }
+        }
+        return p;
+    }
+
     /**
      * Add an object to the set of idle objects for a given key.
      * If the object is null this is a no-op.
@@ -309,12 +717,17 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
     private void addIdleObject(final K key, final PooledObject<T> p) throws E {
         if (PooledObject.nonNull(p)) {
             factory.passivateObject(key, p);
-            final BlockingDeque<PooledObject<T>> idleObjects = poolMap.get(key).getIdleObjects();
+            final ObjectDeque<T> objectDeque = poolMap.get(key);
+            final BlockingDeque<PooledObject<T>> idleObjects = objectDeque.getIdleObjects();
             if (getLifo()) {
                 idleObjects.addFirst(p);
             } else {
                 idleObjects.addLast(p);
             }
+            scheduleEvictionCheck(objectDeque.getIdleIndex(), p);
+            scheduleKeepAlive(objectDeque.getKeepAliveSchedule(), p);
+            listIdleKey(key, objectDeque);
+            signalBorrowAny();
         }
     }
 
@@ -347,6 +760,74 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
         }
     }
 
+    /**
+     * Creates {@code count} objects for a key and places them in the idle
+     * object pool, as {@link #addObject(Object)} does, creating them in
+     * batches, see {@link KeyedPooledObjectFactory#makeObjects(Object, int)},
+     * while there is capacity left for more than one.
+     *
+     * @param key The key to add objects for.
+     * @param count The number of idle objects to add for {@code key}.
+     * @throws E when {@link KeyedPooledObjectFactory#makeObjects} or
+     *         {@link KeyedPooledObjectFactory#makeObject} fails.
+     * @throws IllegalArgumentException when {@code key} is {@code null}.
+     */
+    @Override
+    public void addObjects(final K key, final int count) throws E {
+        if (key == null) {
+            throw new IllegalArgumentException("key must not be null.");
+        }
+        for (int i = 0; i < count;) {
+            final int added = count - i > 1 ? addIdleObjects(key, count - i) : 0;
+            if (added > 0) {
+                i += added;
+            } else {
+                addObject(key);
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Creates up to {@code count} objects for a key with one call to
+     * {@link KeyedPooledObjectFactory#makeObjects(Object, int)}, passivates
+     * them, and places them in the idle object pool.
+     * <p>
+     * Fewer objects are added if there is not enough capacity left for the
+     * whole batch under the key or in the pool. Unlike
+     * {@link #addObject(Object)}, idle objects of other keys are not moved to
+     * make room.
+     * </p>
+     *
+     * @param key The key the new instances should be added to
+     * @param count The number of instances to add
+     * @return The number of instances added.
+     * @throws E when {@link KeyedPooledObjectFactory#makeObjects} fails, or
+     *         passivating an instance fails, in which case the instances
+     *         not passivated yet are destroyed.
+     */
+    private int addIdleObjects(final K key, final int count) throws E {
+        assertOpen();
+        register(key);
+        try {
+            final List<PooledObject<T>> created = createAll(key, count);
+            int added = 0;
+            try {
+                for (final PooledObject<T> p : created) {
+                    addIdleObject(key, p);
+                    added++;
+                }
+            } finally {
+                for (final PooledObject<T> p : created.subList(added, created.size())) {
+                    destroy(key, p, true, DestroyMode.NORMAL);
+                }
+            }
+            return added;
+        } finally {
+            deregister(key);
+        }
+    }
+
     /**
      * Equivalent to <code>{@link #borrowObject(Object, long) borrowObject}(key,
      * {@link #getMaxWaitDuration()})</code>.
@@ -433,6 +914,10 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
         // Get local copy of current config so it is consistent for entire
         // method execution
         final boolean blockWhenExhausted = getBlockWhenExhausted();
+        final FrequencySketch<K> sketch = frequencySketch;
+        if (sketch != null) {
+            sketch.increment(key);
+        }
 
         boolean create;
         final Instant waitTime = Instant.now();
@@ -450,98 +935,190 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
                 }
                 if (blockWhenExhausted) {
                     if (PooledObject.isNull(p)) {
+                        rankWaiters(key, objectDeque, 1);
                         try {
                             p = borrowMaxWaitMillis < 0 ? objectDeque.getIdleObjects().takeFirst() :
                                 objectDeque.getIdleObjects().pollFirst(borrowMaxWaitMillis, TimeUnit.MILLISECONDS);
                         } catch (final InterruptedException e) {
                             Thread.currentThread().interrupt();
                             throw cast(e);
+                        } finally {
+                            rankWaiters(key, objectDeque, -1);
                         }
                     }
                     if (PooledObject.isNull(p)) {
+                        updateStatsTimeout();
                         throw new NoSuchElementException(appendStats(
                                 "Timeout waiting for idle object, borrowMaxWaitMillis=" + borrowMaxWaitMillis));
                     }
                 } else if (PooledObject.isNull(p)) {
                     throw new NoSuchElementException(appendStats("Pool exhausted"));
                 }
-                if (!p.allocate()) {
-                    p = null;
-                }
-
-                if (!PooledObject.isNull(p)) {
-                    try {
-                        factory.activateObject(key, p);
-                    } catch (final Exception e) {
-                        try {
-                            destroy(key, p, true, DestroyMode.NORMAL);
-                        } catch (final Exception ignored) {
-                            // ignored - activation failure is more important
-                        }
-                        p = null;
-                        if (create) {
-                            final NoSuchElementException nsee = new NoSuchElementException(appendStats("Unable to activate object"));
-                            nsee.initCause(e);
-                            throw nsee;
-                        }
-                    }
-                    if (!PooledObject.isNull(p) && getTestOnBorrow()) {
-                        boolean validate = false;
-                        Throwable validationThrowable = null;
-                        try {
-                            validate = factory.validateObject(key, p);
-                        } catch (final Throwable t) {
-                            PoolUtils.checkRethrow(t);
-                            validationThrowable = t;
-                        }
-                        if (!validate) {
-                            try {
-                                destroy(key, p, true, DestroyMode.NORMAL);
-                                destroyedByBorrowValidationCount.incrementAndGet();
-                            } catch (final Exception ignored) {
-                                // ignored - validation failure is more important
-                            }
-                            p = null;
-                            if (create) {
-                                final NoSuchElementException nsee = new NoSuchElementException(
-                                        appendStats("Unable to validate object"));
-                                nsee.initCause(validationThrowable);
-                                throw nsee;
-                            }
-                        }
-                    }
-                }
+                p = activate(key, p, create);
             }
         } finally {
             deregister(key);
         }
 
-        updateStatsBorrow(p, Duration.between(waitTime, Instant.now()));
-
-        return p.getObject();
+        return borrowed(objectDeque, p, waitTime);
     }
 
     /**
-     * Calculate the number of objects that need to be created to attempt to
-     * maintain the minimum number of idle objects while not exceeded the limits
-     * on the maximum number of objects either per key or totally.
+     * Borrows an object from the sub-pool of any of the given keys, for
+     * sub-pools of interchangeable objects such as one per replica of a
+     * service.
+     * <p>
+     * An idle object is taken from the first of the keys that has one, in the
+     * order of the {@link #getKeyPreference() key preference}. If none has
+     * an idle object, an object is created under the key with the fewest
+     * active objects that has the capacity to create one. Otherwise, if
+     * {@link #getBlockWhenExhausted()} is true, this method waits for an
+     * object to become idle, or for capacity to be freed, under any of the
+     * keys, for at most {@code maxWait}, then tries again.
+     * </p>
+     * <p>
+     * Objects are activated and validated as by {@link #borrowObject(Object, long)}.
+     * The returned object must be returned to the pool, or invalidated, under
+     * the key it is returned with.
+     * </p>
      *
-     * @param objectDeque   The set of objects to check
-     * @return The number of new objects to create
+     * @param keys The keys to borrow under, duplicates are ignored.
+     * @param maxWait The time to wait for an object to become available, a negative duration waits indefinitely.
+     * @return The key the object was borrowed under and the object.
+     * @throws IllegalArgumentException if {@code keys} is empty.
+     * @throws NoSuchElementException if no object can be borrowed because the sub-pools of the keys are exhausted.
+     * @throws E if an object cannot be borrowed due to an error.
+     * @since 3.0.0
      */
-    private int calculateDeficit(final ObjectDeque<T> objectDeque) {
+    public Entry<K, T> borrowAny(final Collection<K> keys, final Duration maxWait) throws E {
+        assertOpen();
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("keys must not be empty");
+        }
 
-        if (objectDeque == null) {
-            return getMinIdlePerKey();
+        final AbandonedConfig ac = this.abandonedConfig;
+        if (ac != null && ac.getRemoveAbandonedOnBorrow() && getNumIdle() < 2 &&
+                getNumActive() > getMaxTotal() - 3) {
+            removeAbandoned(ac);
         }
 
-        // Used more than once so keep a local copy so the value is consistent
-        final int maxTotal = getMaxTotal();
-        final int maxTotalPerKeySave = getMaxTotalPerKey();
+        final boolean blockWhenExhausted = getBlockWhenExhausted();
+        final long maxWaitMillis = maxWait.toMillis();
+        final Instant waitTime = Instant.now();
+        final List<K> candidates = new ArrayList<>(new LinkedHashSet<>(keys));
+        final Map<K, ObjectDeque<T>> objectDeques = new LinkedHashMap<>();
+        numBorrowAnyThreads.incrementAndGet();
+        try {
+            candidates.forEach(key -> objectDeques.put(key, register(key)));
+            while (true) {
+                // Read the signal before looking, so that anything freed meanwhile cuts the wait short.
+                final long signal = borrowAnySignal.get();
+                final List<K> preferred = new ArrayList<>(candidates);
+                keyPreference.order(preferred, this);
+                for (final K key : preferred) {
+                    final ObjectDeque<T> objectDeque = objectDeques.get(key);
+                    PooledObject<T> p;
+                    while ((p = objectDeque.getIdleObjects().pollFirst()) != null) {
+                        p = activate(key, p, false);
+                        if (p != null) {
+                            return borrowedAny(key, objectDeque, p, waitTime);
+                        }
+                    }
+                }
+                preferred.sort(Comparator.comparingInt(this::getNumActive));
+                for (final K key : preferred) {
+                    final PooledObject<T> p = create(key);
+                    if (PooledObject.nonNull(p)) {
+                        final PooledObject<T> activated = activate(key, p, true);
+                        if (activated != null) {
+                            return borrowedAny(key, objectDeques.get(key), activated, waitTime);
+                        }
+                    }
+                }
+                if (!blockWhenExhausted) {
+                    throw new NoSuchElementException(appendStats("Pool exhausted"));
+                }
+                final long remaining = maxWaitMillis - Duration.between(waitTime, Instant.now()).toMillis();
+                if (maxWaitMillis >= 0 && remaining <= 0) {
+                    updateStatsTimeout();
+                    throw new NoSuchElementException(appendStats(
+                            "Timeout waiting for idle object under any key, maxWait=" + maxWait));
+                }
+                synchronized (borrowAnyLock) {
+                    if (borrowAnySignal.get() == signal) {
+                        try {
+                            borrowAnyLock.wait(maxWaitMillis < 0 ? 0 : remaining);
+                        } catch (final InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw cast(e);
+                        }
+                    }
+                }
+                assertOpen();
+            }
+        } finally {
+            numBorrowAnyThreads.decrementAndGet();
+            objectDeques.keySet().forEach(this::deregister);
+        }
+    }
+
+    /**
+     * Completes a borrow by {@link #borrowAny(Collection, Duration)}.
+     *
+     * @param key The key the object was borrowed under.
+     * @param objectDeque The sub-pool of the key.
+     * @param p The borrowed object.
+     * @param waitTime When the borrow started.
+     * @return The key and the borrowed object.
+     */
+    private Entry<K, T> borrowedAny(final K key, final ObjectDeque<T> objectDeque, final PooledObject<T> p, final Instant waitTime) {
+        final FrequencySketch<K> sketch = frequencySketch;
+        if (sketch != null) {
+            sketch.increment(key);
+        }
+        return new SimpleImmutableEntry<>(key, borrowed(objectDeque, p, waitTime));
+    }
+
+    /**
+     * Completes a borrow, updating the statistics and the indexes of the
+     * sub-pool.
+     *
+     * @param objectDeque The sub-pool the object was borrowed from.
+     * @param p The borrowed object.
+     * @param waitTime When the borrow started.
+     * @return The borrowed object.
+     */
+    private T borrowed(final ObjectDeque<T> objectDeque, final PooledObject<T> p, final Instant waitTime) {
+        updateStatsBorrow(p, Duration.between(waitTime, Instant.now()));
+        scheduleAbandonedCheck(objectDeque.getAbandonedWheel(), p);
+        objectDeque.getIdleIndex().cancel(p);
+        objectDeque.getKeepAliveSchedule().cancel(p);
+
+        return p.getObject();
+    }
+
+    /**
+     * Calculate the number of objects that need to be created to attempt to
+     * maintain the minimum number of idle objects while not exceeded the limits
+     * on the maximum number of objects either per key or totally.
+     *
+     * @param key The key of the keyed pool.
+     * @param objectDeque   The set of objects to check
+     * @return The number of new objects to create
+     */
+    private int calculateDeficit(final K key, final ObjectDeque<T> objectDeque) {
+
+        if (objectDeque == null) {
+            return getMinIdlePerKey(key, null);
+        }
+
+        // Used more than once so keep a local copy so the value is consistent
+        final int maxTotal = getMaxTotal();
+        final int maxTotalPerKeySave = getMaxTotalPerKey(key, objectDeque);
 
         // Calculate no of objects needed to be created, in order to have
         // the number of pooled objects < maxTotalPerKey();
-        int objectDefecit = getMinIdlePerKey() - objectDeque.getIdleObjects().size();
+        int objectDefecit = getMinIdlePerKey(key, objectDeque) - objectDeque.getIdleObjects().size();
         if (maxTotalPerKeySave > 0) {
             final int growLimit = Math.max(0,
                     maxTotalPerKeySave - objectDeque.getIdleObjects().size());
@@ -642,41 +1219,14 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
     }
 
     /**
-     * Clears oldest 15% of objects in pool.  The method sorts the objects into
-     * a TreeMap and then iterates the first 15% for removal.
+     * Clears oldest 15% of objects in pool. The oldest idle objects are found
+     * through the keys ranked by the age of their oldest idle object.
      */
     public void clearOldest() {
-
-        // build sorted map of idle objects
-        final TreeMap<PooledObject<T>, K> map = new TreeMap<>();
-
-        // Each item into the map using the PooledObject object as the
-        // key. It then gets sorted based on the idle time
-        poolMap.forEach((key, value) -> value.getIdleObjects().forEach(p -> map.put(p, key)));
-
-        // Now iterate created map and kill the first 15% plus one to account
-        // for zero
-        int itemsToRemove = (int) (map.size() * 0.15) + 1;
-        final Iterator<Entry<PooledObject<T>, K>> iter = map.entrySet().iterator();
-
-        while (iter.hasNext() && itemsToRemove > 0) {
-            final Entry<PooledObject<T>, K> entry = iter.next();
-            // kind of backwards on naming. In the map, each key is the
-            // PooledObject because it has the ordering with the timestamp
-            // value. Each value that the key references is the key of the
-            // list it belongs to.
-            final K key = entry.getValue();
-            final PooledObject<T> p = entry.getKey();
-            // Assume the destruction succeeds
-            boolean destroyed = true;
-            try {
-                destroyed = destroy(key, p, false, DestroyMode.NORMAL);
-            } catch (final Exception e) {
-                swallowException(e);
-            }
-            if (destroyed) {
-                itemsToRemove--;
-            }
+        // Kill the first 15% plus one to account for zero
+        int itemsToRemove = (int) (getNumIdle() * 0.15) + 1;
+        while (itemsToRemove > 0 && destroyOldestIdle(null)) {
+            itemsToRemove--;
         }
     }
 
@@ -713,6 +1263,7 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
 
             // Release any threads that were waiting for an object
             poolMap.values().forEach(e -> e.getIdleObjects().interruptTakeWaiters());
+            signalBorrowAny();
             // This clear cleans up the keys now any waiting threads have been
             // interrupted
             clear();
@@ -727,14 +1278,14 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
      * @throws E If the objection creation fails.
      */
     private PooledObject<T> create(final K key) throws E {
-        int maxTotalPerKeySave = getMaxTotalPerKey(); // Per key
+        final ObjectDeque<T> objectDeque = poolMap.get(key);
+
+        int maxTotalPerKeySave = getMaxTotalPerKey(key, objectDeque); // Per key
         if (maxTotalPerKeySave < 0) {
             maxTotalPerKeySave = Integer.MAX_VALUE;
         }
         final int maxTotal = getMaxTotal();   // All keys
 
-        final ObjectDeque<T> objectDeque = poolMap.get(key);
-
         // Check against the overall limit
         boolean loop = true;
 
@@ -742,10 +1293,16 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
             final int newNumTotal = numTotal.incrementAndGet();
             if (maxTotal > -1 && newNumTotal > maxTotal) {
                 numTotal.decrementAndGet();
-                if (getNumIdle() == 0) {
+                // Move capacity from the globally oldest idle object,
+                // re-keying the object itself if the factory can.
+                final Entry<K, PooledObject<T>> oldest = takeOldestIdle(key);
+                if (oldest == null) {
                     return null;
                 }
-                clearOldest();
+                final PooledObject<T> rekeyed = rekey(oldest.getKey(), oldest.getValue(), key, objectDeque);
+                if (rekeyed != null) {
+                    return rekeyed;
+                }
             } else {
                 loop = false;
             }
@@ -805,6 +1362,7 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
                 throw new NullPointerException(String.format("%s.makeObject() = null", factory.getClass().getSimpleName()));
             }
             if (getTestOnCreate() && !factory.validateObject(key, p)) {
+                updateStatsValidationFailure();
                 numTotal.decrementAndGet();
                 objectDeque.getCreateCount().decrementAndGet();
                 return null;
@@ -826,11 +1384,121 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
             p.setRequireFullStackTrace(ac.getRequireFullStackTrace());
         }
 
-        createdCount.incrementAndGet();
+        updateStatsCreate();
         objectDeque.getAllObjects().put(IdentityWrapper.unwrap(p), p);
         return p;
     }
 
+    /**
+     * Attempts to create up to {@code count} new pooled objects for a key with
+     * one call to {@link KeyedPooledObjectFactory#makeObjects(Object, int)}.
+     * <p>
+     * Capacity for the whole batch is reserved up front, against both
+     * {@link #getMaxTotal()} and the limit of the key, without waiting for
+     * creations in progress or moving idle objects of other keys: the batch is
+     * cut down to the capacity left, and the capacity of the objects the
+     * factory does not return, or that fail validation on creation, is
+     * released. Objects returned beyond the reservation and objects failing
+     * validation are destroyed. Objects are validated together, see
+     * {@link KeyedPooledObjectFactory#validateObjects(Object, List)}.
+     * </p>
+     * <p>
+     * If the factory returns null elements, the other objects are destroyed
+     * and this method throws a NullPointerException.
+     * </p>
+     *
+     * @param key Key associated with the new pooled objects.
+     * @param count The number of objects to create.
+     * @return The new pooled objects, empty if there is no capacity left or
+     *         none passed validation.
+     * @throws E If the object creation fails.
+     */
+    private List<PooledObject<T>> createAll(final K key, final int count) throws E {
+        final ObjectDeque<T> objectDeque = poolMap.get(key);
+
+        int maxTotalPerKeySave = getMaxTotalPerKey(key, objectDeque); // Per key
+        if (maxTotalPerKeySave < 0) {
+            maxTotalPerKeySave = Integer.MAX_VALUE;
+        }
+        int maxTotal = getMaxTotal();   // All keys
+        if (maxTotal < 0) {
+            maxTotal = Integer.MAX_VALUE;
+        }
+
+        // Reserve against the overall limit without overshooting it, since
+        // other threads take an overshoot as a reason to move idle objects.
+        int total;
+        int totalReserved;
+        do {
+            total = numTotal.get();
+            totalReserved = Math.max(0, Math.min(count, maxTotal - total));
+        } while (totalReserved > 0 && !numTotal.compareAndSet(total, total + totalReserved));
+        if (totalReserved == 0) {
+            return Collections.emptyList();
+        }
+
+        final int reserved;
+        synchronized (objectDeque.makeObjectCountLock) {
+            reserved = Math.max(0, Math.min(totalReserved, maxTotalPerKeySave - objectDeque.getCreateCount().get()));
+            objectDeque.getCreateCount().addAndGet(reserved);
+            objectDeque.makeObjectCount += reserved;
+        }
+        if (reserved < totalReserved) {
+            numTotal.addAndGet(reserved - totalReserved);
+        }
+        if (reserved == 0) {
+            return Collections.emptyList();
+        }
+
+        final List<PooledObject<T>> created = new ArrayList<>(reserved);
+        List<PooledObject<T>> kept = Collections.emptyList();
+        try {
+            final List<PooledObject<T>> made = factory.makeObjects(key, reserved);
+            if (made.stream().anyMatch(PooledObject::isNull)) {
+                made.stream().filter(PooledObject::nonNull).forEach(p -> destroyCreated(key, p));
+                throw new NullPointerException(String.format("%s.makeObjects() contains null", factory.getClass().getSimpleName()));
+            }
+            if (made.size() > reserved) {
+                made.subList(reserved, made.size()).forEach(p -> destroyCreated(key, p));
+                kept = made.subList(0, reserved);
+            } else {
+                kept = made;
+            }
+            final boolean[] valid = getTestOnCreate() && !kept.isEmpty() ? factory.validateObjects(key, kept) : null;
+            for (int i = 0; i < kept.size(); i++) {
+                final PooledObject<T> p = kept.get(i);
+                if (valid != null && (i >= valid.length || !valid[i])) {
+                    updateStatsValidationFailure();
+                    destroyCreated(key, p);
+                } else {
+                    created.add(p);
+                }
+            }
+        } catch (final Throwable e) {
+            kept.forEach(p -> destroyCreated(key, p));
+            created.clear();
+            throw e;
+        } finally {
+            numTotal.addAndGet(created.size() - reserved);
+            synchronized (objectDeque.makeObjectCountLock) {
+                objectDeque.makeObjectCount -= reserved;
+                objectDeque.getCreateCount().addAndGet(created.size() - reserved);
+                objectDeque.makeObjectCountLock.notifyAll();
+            }
+        }
+
+        final AbandonedConfig ac = this.abandonedConfig;
+        for (final PooledObject<T> p : created) {
+            if (ac != null && ac.getLogAbandoned()) {
+                p.setLogAbandoned(true);
+                p.setRequireFullStackTrace(ac.getRequireFullStackTrace());
+            }
+            updateStatsCreate();
+            objectDeque.getAllObjects().put(IdentityWrapper.unwrap(p), p);
+        }
+        return created;
+    }
+
     /**
      * De-register the use of a key by an object.
      * <p>
@@ -840,27 +1508,43 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
      * @param k The key to de-register
      */
     private void deregister(final K k) {
-        Lock lock = keyLock.readLock();
-        try {
-            lock.lock();
-            final ObjectDeque<T> objectDeque = poolMap.get(k);
-            if (objectDeque != null) {
-                // Potential to remove key
-                // Upgrade to write lock
-                lock.unlock();
-                lock = keyLock.writeLock();
-                lock.lock();
-                if (objectDeque.getNumInterested().decrementAndGet() == 0 && objectDeque.getCreateCount().get() == 0) {
-                    // NOTE: Keys must always be removed from both poolMap and
-                    // poolKeyList at the same time while protected by
-                    // keyLock.writeLock()
-                    poolMap.remove(k);
-                    poolKeyList.remove(k);
+        final ObjectDeque<T> objectDeque = poolMap.get(k);
+        if (objectDeque != null && objectDeque.getNumInterested().decrementAndGet() == 0 && objectDeque.getCreateCount().get() == 0) {
+            // Potential to remove key, unless another thread registers first.
+            // Marking the deque as dropped under the map's lock for the key
+            // races only with tryRegister(), which then falls back to register().
+            poolMap.computeIfPresent(k, (key, deque) -> {
+                if (deque == objectDeque && deque.getCreateCount().get() == 0 && deque.getNumInterested().compareAndSet(0, -1)) {
+                    poolKeyOrder.remove(deque.getSequence());
+                    idleKeyOrder.remove(deque.getSequence());
+                    rankIdleAge(key, deque, false);
+                    unrankUse(deque);
+                    return null;
                 }
-            }
-        } finally {
-            lock.unlock();
+                return deque;
+            });
+        }
+    }
+
+    /**
+     * Destroys the oldest idle object across all keys, see
+     * {@link #takeOldestIdle(Object)}.
+     *
+     * @param capacityKey The key that needs the capacity, or null to destroy the oldest idle object regardless.
+     * @return Whether an idle object was destroyed, false if there are none or none may be destroyed.
+     */
+    private boolean destroyOldestIdle(final K capacityKey) {
+        final Entry<K, PooledObject<T>> oldest = takeOldestIdle(capacityKey);
+        if (oldest == null) {
+            return false;
         }
+        try {
+            destroy(oldest.getKey(), oldest.getValue(), true, DestroyMode.NORMAL);
+        } catch (final Exception e) {
+            swallowException(e);
+            // Assume the destruction succeeds
+        }
+        return true;
     }
 
     /**
@@ -892,13 +1576,22 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
             if (isIdle || always) {
                 objectDeque.getAllObjects().remove(IdentityWrapper.unwrap(toDestroy));
                 toDestroy.invalidate();
+                updateStatsRelease(toDestroy);
+                objectDeque.getAbandonedWheel().cancel(toDestroy);
+                objectDeque.getIdleIndex().cancel(toDestroy);
+                objectDeque.getKeepAliveSchedule().cancel(toDestroy);
 
                 try {
-                    factory.destroyObject(key, toDestroy, destroyMode);
+                    if (asyncFactory != null) {
+                        destroyAsync(key, toDestroy, destroyMode);
+                    } else {
+                        factory.destroyObject(key, toDestroy, destroyMode);
+                    }
                 } finally {
                     objectDeque.getCreateCount().decrementAndGet();
-                    destroyedCount.incrementAndGet();
+                    updateStatsDestroy();
                     numTotal.decrementAndGet();
+                    signalBorrowAny();
                 }
                 return true;
             }
@@ -908,16 +1601,140 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
         }
     }
 
+    /**
+     * Destroys an object through an asynchronous factory without waiting for
+     * it, swallowing the exception the destruction fails with, if any.
+     *
+     * @param key The key of the object.
+     * @param p The object to destroy.
+     * @param destroyMode DestroyMode context provided to the factory
+     */
+    private void destroyAsync(final K key, final PooledObject<T> p, final DestroyMode destroyMode) {
+        PoolImplUtils.toStage(() -> asyncFactory.destroyObjectAsync(key, p, destroyMode)).whenComplete((v, t) -> {
+            if (t != null) {
+                swallowException(PoolImplUtils.stageException(t));
+            }
+        });
+    }
+
+    /**
+     * Destroys an object the factory made that is not taken into the pool,
+     * swallowing the exception the destruction fails with, if any.
+     *
+     * @param key The key of the object.
+     * @param p The object to destroy.
+     */
+    private void destroyCreated(final K key, final PooledObject<T> p) {
+        try {
+            factory.destroyObject(key, p, DestroyMode.NORMAL);
+        } catch (final Exception e) {
+            swallowException(e);
+        }
+    }
+
+    /**
+     * Destroys an idle object that failed an asynchronous eviction test.
+     *
+     * @param key The key of the object.
+     * @param underTest The idle object under eviction test.
+     */
+    private void destroyTestedAsync(final K key, final PooledObject<T> underTest) {
+        try {
+            destroy(key, underTest, true, DestroyMode.NORMAL);
+            destroyedByEvictorCount.incrementAndGet();
+        } catch (final Exception e) {
+            swallowException(e);
+        }
+    }
+
+    /**
+     * Tops up the idle objects of every key to its minimum, on the executor
+     * from {@link #getMinIdleExecutor()} if {@link #getMinIdleParallelism()}
+     * is greater than one, until the keys reach their minimum or
+     * {@link #getMaxEvictionRunDuration()} has elapsed.
+     */
     @Override
     void ensureMinIdle() throws E {
         final int minIdlePerKeySave = getMinIdlePerKey();
-        if (minIdlePerKeySave < 1) {
+        if (minIdlePerKeySave < 1 && keyLimits == null) {
+            return;
+        }
+        final long deadlineNanos = System.nanoTime() + toBudgetNanos(getMaxEvictionRunDuration());
+        final ExecutorService executor;
+        synchronized (evictionLock) {
+            executor = getMinIdleExecutor();
+        }
+        if (executor == null) {
+            for (final K k : poolMap.keySet()) {
+                if (!ensureMinIdle(k, deadlineNanos)) {
+                    return;
+                }
+            }
             return;
         }
+        final List<K> keys = new ArrayList<>();
+        poolMap.forEach((k, objectDeque) -> {
+            if (calculateDeficit(k, objectDeque) > 0) {
+                keys.add(k);
+            }
+        });
+        ensureMinIdle(executor, keys, deadlineNanos);
+    }
 
-        for (final K k : poolMap.keySet()) {
-            ensureMinIdle(k);
+    /**
+     * Tops up the idle objects of keys to their minimum, running one task per
+     * key on an executor, and waits for the tasks until a deadline. Tasks
+     * still running then stop after the object they are creating. The first
+     * runtime exception or error thrown by a task is rethrown once the wait is
+     * over, other exceptions are swallowed.
+     *
+     * @param executor The executor.
+     * @param keys The keys.
+     * @param deadlineNanos The deadline, in {@link System#nanoTime()} time.
+     * @return The keys that did not reach their minimum before the deadline.
+     */
+    private List<K> ensureMinIdle(final ExecutorService executor, final Collection<K> keys, final long deadlineNanos) {
+        final Map<K, Future<Boolean>> futures = new LinkedHashMap<>();
+        for (final K key : keys) {
+            futures.put(key, submit(executor, () -> ensureMinIdle(key, deadlineNanos)));
+        }
+        final List<K> pending = new ArrayList<>();
+        Throwable failure = null;
+        boolean interrupted = false;
+        for (final Entry<K, Future<Boolean>> entry : futures.entrySet()) {
+            if (interrupted) {
+                pending.add(entry.getKey());
+                continue;
+            }
+            try {
+                if (!entry.getValue().get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    pending.add(entry.getKey());
+                }
+            } catch (final TimeoutException e) {
+                pending.add(entry.getKey());
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                interrupted = true;
+                pending.add(entry.getKey());
+            } catch (final ExecutionException e) {
+                pending.add(entry.getKey());
+                final Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException || cause instanceof Error) {
+                    if (failure == null) {
+                        failure = cause;
+                    }
+                } else {
+                    swallowException((Exception) cause);
+                }
+            }
         }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure != null) {
+            throw (Error) failure;
+        }
+        return pending;
     }
 
     /**
@@ -936,6 +1753,23 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
      * @throws E If a new object is required and cannot be created
      */
     private void ensureMinIdle(final K key) throws E {
+        ensureMinIdle(key, System.nanoTime() + toBudgetNanos(Duration.ZERO));
+    }
+
+    /**
+     * Try to ensure that the configured number of minimum idle objects is
+     * available in the pool for the given key, stopping once a deadline has
+     * passed. Missing objects are created in batches when more than one is
+     * missing, see {@link KeyedPooledObjectFactory#makeObjects(Object, int)},
+     * and one at a time once there is no capacity left for a batch.
+     *
+     * @param key The key to check for idle objects
+     * @param deadlineNanos The deadline, in {@link System#nanoTime()} time.
+     * @return Whether the deadline had not passed when the key reached its
+     *         minimum or ran out of capacity.
+     * @throws E If a new object is required and cannot be created
+     */
+    private boolean ensureMinIdle(final K key, final long deadlineNanos) throws E {
         // Calculate current pool objects
         ObjectDeque<T> objectDeque = poolMap.get(key);
 
@@ -947,10 +1781,19 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
         // as a loop limit and a second time inside the loop
         // to stop when another thread already returned the
         // needed objects
-        final int deficit = calculateDeficit(objectDeque);
+        final int deficit = calculateDeficit(key, objectDeque);
 
-        for (int i = 0; i < deficit && calculateDeficit(objectDeque) > 0; i++) {
-            addObject(key);
+        int remaining;
+        for (int i = 0; i < deficit && (remaining = calculateDeficit(key, objectDeque)) > 0; i++) {
+            if (System.nanoTime() - deadlineNanos >= 0) {
+                return false;
+            }
+            final int added = remaining > 1 ? addIdleObjects(key, Math.min(remaining, deficit - i)) : 0;
+            if (added > 0) {
+                i += added - 1;
+            } else {
+                addObject(key);
+            }
             // If objectDeque was null, it won't be any more. Obtain a reference
             // to it so the deficit can be correctly calculated. It needs to
             // take account of objects created in other threads.
@@ -958,6 +1801,26 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
                 objectDeque = poolMap.get(key);
             }
         }
+        return true;
+    }
+
+    /**
+     * Ends the eviction test of an idle object, listing its key in the keys
+     * with idle objects and waking the threads in
+     * {@link #borrowAny(Collection, Duration)} in case a borrower put the
+     * object back.
+     *
+     * @param key The key of the object.
+     * @param p The object under test.
+     * @param idleObjects The idle objects of the key.
+     */
+    private void endEvictionTest(final K key, final PooledObject<T> p, final Deque<PooledObject<T>> idleObjects) {
+        p.endEvictionTest(idleObjects);
+        final ObjectDeque<T> objectDeque = poolMap.get(key);
+        if (objectDeque != null) {
+            listIdleKey(key, objectDeque);
+        }
+        signalBorrowAny();
     }
 
     /**
@@ -965,13 +1828,30 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
      * <p>
      * Successive activations of this method examine objects in keyed sub-pools
      * in sequence, cycling through the keys and examining objects in
-     * oldest-to-youngest order within the keyed sub-pools.
+     * oldest-to-youngest order within the keyed sub-pools. If
+     * {@link #getIndexedEviction()} is {@code true}, the objects of every key
+     * that have been idle long enough to be evicted are examined first, and
+     * objects are only examined in sequence to validate them when
+     * {@link #getTestWhileIdle()} is {@code true}.
+     * </p>
+     * <p>
+     * Unless they are validated in parallel, see
+     * {@link #getTestWhileIdleParallelism()}, or the run has a time budget,
+     * see {@link #getMaxEvictionRunDuration()}, the objects of a run that are
+     * kept by the eviction policy are validated together once the run has
+     * examined them, one call per key, see
+     * {@link KeyedPooledObjectFactory#validateObjects(Object, List)}.
      * </p>
      */
     @Override
     public void evict() throws E {
         assertOpen();
 
+        if (maxKeys > 0 && poolMap.size() > maxKeys) {
+            retireColdKeys();
+        }
+
+        boolean exhausted = false;
         if (getNumIdle() > 0) {
 
             PooledObject<T> underTest = null;
@@ -983,40 +1863,34 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
                         getSoftMinEvictableIdleDuration(),
                         getMinIdlePerKey());
 
+                final EvictionRun evictionRun = new EvictionRun(getNumIdle());
+                if (PoolImplUtils.isPositive(getMaxLifetime())) {
+                    replaceExpiring(evictionRun);
+                }
                 final boolean testWhileIdle = getTestWhileIdle();
-
-                for (int i = 0, m = getNumTests(); i < m; i++) {
-                    if (evictionIterator == null || !evictionIterator.hasNext()) {
-                        if (evictionKeyIterator == null ||
-                                !evictionKeyIterator.hasNext()) {
-                            final List<K> keyCopy = new ArrayList<>();
-                            final Lock readLock = keyLock.readLock();
-                            readLock.lock();
-                            try {
-                                keyCopy.addAll(poolKeyList);
-                            } finally {
-                                readLock.unlock();
-                            }
-                            evictionKeyIterator = keyCopy.iterator();
-                        }
-                        while (evictionKeyIterator.hasNext()) {
-                            evictionKey = evictionKeyIterator.next();
-                            final ObjectDeque<T> objectDeque = poolMap.get(evictionKey);
-                            if (objectDeque == null) {
-                                continue;
-                            }
-
-                            final Deque<PooledObject<T>> idleObjects = objectDeque.getIdleObjects();
-                            evictionIterator = new EvictionIterator(idleObjects);
-                            if (evictionIterator.hasNext()) {
-                                break;
-                            }
-                            evictionIterator = null;
-                        }
+                final boolean indexedEviction = getIndexedEviction();
+                if (indexedEviction) {
+                    evictIndexed(evictionPolicy, evictionConfig, evictionRun);
+                }
+                final boolean testAsync = testWhileIdle && asyncFactory != null;
+                final ExecutorService testExecutor = testWhileIdle && !testAsync ? getTestWhileIdleExecutor() : null;
+                final List<Callable<Void>> tests = new ArrayList<>();
+                final Map<K, List<PooledObject<T>>> toTest = new LinkedHashMap<>();
+                final Map<K, Deque<PooledObject<T>>> toTestIdleObjects = new HashMap<>();
+                int busyCount = 0;
+
+                for (int i = 0, m = indexedEviction && !testWhileIdle ? 0 : getNumTests(); i < m; i++) {
+                    if (evictionRun.isOver()) {
+                        // Out of time, the next run resumes from here.
+                        break;
+                    }
+                    if ((evictionIterator == null || !evictionIterator.hasNext()) && !nextEvictionKey()) {
+                        evictionIterator = null;
                     }
                     if (evictionIterator == null) {
-                        // Pools exhausted
-                        return;
+                        // Pools exhausted, nothing to do here but to finish the tests already started
+                        exhausted = true;
+                        break;
                     }
                     final Deque<PooledObject<T>> idleObjects;
                     try {
@@ -1034,16 +1908,22 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
                         // Object was borrowed in another thread
                         // Don't count this as an eviction test so reduce i;
                         i--;
+                        if (++busyCount > getNumIdle()) {
+                            // Every idle object is under test, for example by asynchronous validations.
+                            break;
+                        }
                         continue;
                     }
+                    evictionRun.examined();
 
                     // User provided eviction policy could throw all sorts of
                     // crazy exceptions. Protect against such an exception
                     // killing the eviction thread.
                     boolean evict;
                     try {
-                        evict = evictionPolicy.evict(evictionConfig, underTest,
-                                poolMap.get(evictionKey).getIdleObjects().size());
+                        final ObjectDeque<T> objectDeque = poolMap.get(evictionKey);
+                        evict = evictionPolicy.evict(getEvictionConfig(evictionKey, objectDeque, evictionConfig), underTest,
+                                objectDeque.getIdleObjects().size());
                     } catch (final Throwable t) {
                         // Slightly convoluted as SwallowedExceptionListener
                         // uses Exception rather than Throwable
@@ -1056,85 +1936,300 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
                     if (evict) {
                         destroy(evictionKey, underTest, true, DestroyMode.NORMAL);
                         destroyedByEvictorCount.incrementAndGet();
-                    } else {
-                        if (testWhileIdle) {
-                            boolean active = false;
+                    } else if (testAsync) {
+                        testIdleObjectAsync(evictionKey, underTest, idleObjects);
+                    } else if (testExecutor != null) {
+                        final K key = evictionKey;
+                        final PooledObject<T> p = underTest;
+                        tests.add(() -> {
                             try {
-                                factory.activateObject(evictionKey, underTest);
-                                active = true;
-                            } catch (final Exception e) {
-                                destroy(evictionKey, underTest, true, DestroyMode.NORMAL);
-                                destroyedByEvictorCount.incrementAndGet();
-                            }
-                            if (active) {
-                                boolean validate = false;
-                                Throwable validationThrowable = null;
-                                try {
-                                    validate = factory.validateObject(evictionKey, underTest);
-                                } catch (final Throwable t) {
-                                    PoolUtils.checkRethrow(t);
-                                    validationThrowable = t;
-                                }
-                                if (!validate) {
-                                    destroy(evictionKey, underTest, true, DestroyMode.NORMAL);
-                                    destroyedByEvictorCount.incrementAndGet();
-                                    if (validationThrowable != null) {
-                                        if (validationThrowable instanceof RuntimeException) {
-                                            throw (RuntimeException) validationThrowable;
-                                        }
-                                        throw (Error) validationThrowable;
-                                    }
-                                } else {
-                                    try {
-                                        factory.passivateObject(evictionKey, underTest);
-                                    } catch (final Exception e) {
-                                        destroy(evictionKey, underTest, true, DestroyMode.NORMAL);
-                                        destroyedByEvictorCount.incrementAndGet();
-                                    }
+                                testIdleObject(key, p);
+                            } finally {
+                                endEvictionTest(key, p, idleObjects);
+                                // Closed meanwhile, the idle objects were cleared without it.
+                                if (isClosed()) {
+                                    destroy(key, p, false, DestroyMode.NORMAL);
                                 }
                             }
+                            return null;
+                        });
+                    } else if (testWhileIdle && !evictionRun.isBudgeted()) {
+                        // Stays under test until the objects of the run are validated together.
+                        toTest.computeIfAbsent(evictionKey, k -> new ArrayList<>()).add(underTest);
+                        toTestIdleObjects.put(evictionKey, idleObjects);
+                    } else {
+                        if (testWhileIdle) {
+                            testIdleObject(evictionKey, underTest);
                         }
-                        underTest.endEvictionTest(idleObjects);
+                        endEvictionTest(evictionKey, underTest, idleObjects);
                         // TODO - May need to add code here once additional
                         // states are used
                     }
                 }
+                if (!tests.isEmpty()) {
+                    testIdleObjects(testExecutor, tests, evictionRun);
+                }
+                if (!toTest.isEmpty()) {
+                    // Every key is validated before the first failure is rethrown.
+                    Throwable failure = null;
+                    try {
+                        for (final Entry<K, List<PooledObject<T>>> entry : toTest.entrySet()) {
+                            try {
+                                testIdleObjects(entry.getKey(), entry.getValue());
+                            } catch (final Throwable t) {
+                                PoolUtils.checkRethrow(t);
+                                if (failure == null) {
+                                    failure = t;
+                                }
+                            }
+                        }
+                    } finally {
+                        toTest.forEach((key, objects) -> objects.forEach(p -> endEvictionTest(key, p, toTestIdleObjects.get(key))));
+                    }
+                    if (failure != null) {
+                        throw cast(failure);
+                    }
+                }
+                keepAliveIdleObjects(evictionRun);
+                evictionRun.end();
             }
         }
         final AbandonedConfig ac = this.abandonedConfig;
-        if (ac != null && ac.getRemoveAbandonedOnMaintenance()) {
+        if (!exhausted && ac != null && ac.getRemoveAbandonedOnMaintenance()) {
             removeAbandoned(ac);
         }
     }
 
     /**
-     * Gets a reference to the factory used to create, destroy and validate
-     * the objects used by this pool.
+     * Passes the objects of every key that have been idle long enough to be
+     * evicted to the eviction policy, oldest first within each key. Keys are
+     * visited in registration order, starting after the last key finished by
+     * the previous run. Stops once the time budget of the run is spent, objects
+     * left over from the current key are scheduled again and the next run
+     * starts with that key. Must be called holding the eviction lock.
      *
-     * @return The factory
+     * @param evictionPolicy The eviction policy.
+     * @param evictionConfig The eviction configuration.
+     * @param evictionRun The eviction run.
+     * @throws E If an object cannot be destroyed.
      */
-    public KeyedPooledObjectFactory<K, T, E> getFactory() {
-        return factory;
+    private void evictIndexed(final EvictionPolicy<T> evictionPolicy, final EvictionConfig evictionConfig, final EvictionRun evictionRun) throws E {
+        final long start = indexedEvictionKeySequence;
+        final Long startKey = Long.valueOf(start);
+        for (final Map<Long, K> keys : List.of(idleKeyOrder.tailMap(startKey, false), idleKeyOrder.headMap(startKey, true))) {
+            for (final Entry<Long, K> entry : keys.entrySet()) {
+                if (evictionRun.isOver()) {
+                    return;
+                }
+                evictIndexed(entry.getKey().longValue(), entry.getValue(), evictionPolicy, evictionConfig, evictionRun);
+            }
+        }
     }
 
     /**
-     * Gets a copy of the pool key list.
+     * Passes the objects of a key that have been idle long enough to be
+     * evicted to the eviction policy, see
+     * {@link #evictIndexed(EvictionPolicy, EvictionConfig, EvictionRun)}.
      *
-     * @return A copy of the pool key list.
-     * @since 2.12.0
+     * @param sequence The registration order of the key.
+     * @param key The key.
+     * @param evictionPolicy The eviction policy.
+     * @param evictionConfig The eviction configuration.
+     * @param evictionRun The eviction run.
+     * @throws E If an object cannot be destroyed.
      */
-    @Override
-    @SuppressWarnings("unchecked")
-    public List<K> getKeys() {
-        return (List<K>) poolKeyList.clone();
+    private void evictIndexed(final long sequence, final K key, final EvictionPolicy<T> evictionPolicy, final EvictionConfig evictionConfig,
+            final EvictionRun evictionRun) throws E {
+        boolean finished = true;
+        final ObjectDeque<T> objectDeque = poolMap.get(key);
+        if (objectDeque != null && objectDeque.getSequence() == sequence) {
+            final TimingWheel<T> idleIndex = objectDeque.getIdleIndex();
+            final Deque<PooledObject<T>> idleObjects = objectDeque.getIdleObjects();
+            for (final PooledObject<T> underTest : expireIdleIndex(idleIndex, idleObjects, evictionConfig)) {
+                if (evictionRun.isOver()) {
+                    scheduleEvictionCheck(idleIndex, underTest);
+                    finished = false;
+                    continue;
+                }
+                if (!underTest.startEvictionTest()) {
+                    // Borrowed in another thread, scheduled again once it is returned.
+                    continue;
+                }
+                evictionRun.examined();
+                boolean evict;
+                try {
+                    evict = evictionPolicy.evict(getEvictionConfig(key, objectDeque, evictionConfig), underTest, idleObjects.size());
+                } catch (final Throwable t) {
+                    PoolUtils.checkRethrow(t);
+                    swallowException(new Exception(t));
+                    evict = false;
+                }
+                if (evict) {
+                    destroy(key, underTest, true, DestroyMode.NORMAL);
+                    destroyedByEvictorCount.incrementAndGet();
+                } else {
+                    // Kept by the policy, for example to honor minIdlePerKey, so examine it again next run.
+                    idleIndex.schedule(underTest, underTest.getLastReturnInstant().toEpochMilli());
+                    endEvictionTest(key, underTest, idleObjects);
+                }
+            }
+        }
+        if (finished) {
+            indexedEvictionKeySequence = sequence;
+        }
     }
 
     /**
-     * Gets the cap on the number of "idle" instances per key in the pool.
-     * If maxIdlePerKey is set too low on heavily loaded systems it is possible
-     * you will see objects being destroyed and almost immediately new objects
-     * being created. This is a result of the active threads momentarily
-     * returning objects faster than they are requesting them, causing the
+     * Gets the eviction configuration of a key, which differs from the one of
+     * the pool when the key has its own minimum number of idle objects.
+     *
+     * @param key The key.
+     * @param objectDeque The sub-pool of the key.
+     * @param evictionConfig The eviction configuration of the pool.
+     * @return The eviction configuration of the key.
+     */
+    private EvictionConfig getEvictionConfig(final K key, final ObjectDeque<T> objectDeque, final EvictionConfig evictionConfig) {
+        if (keyLimits == null) {
+            return evictionConfig;
+        }
+        final int minIdle = getMinIdlePerKey(key, objectDeque);
+        return minIdle == evictionConfig.getMinIdle() ? evictionConfig
+                : new EvictionConfig(evictionConfig.getIdleEvictDuration(), evictionConfig.getIdleSoftEvictDuration(), minIdle);
+    }
+
+    /**
+     * Gets a reference to the factory used to create, destroy and validate
+     * the objects used by this pool.
+     *
+     * @return The factory
+     */
+    public KeyedPooledObjectFactory<K, T, E> getFactory() {
+        return factory;
+    }
+
+    /**
+     * Gets an estimate of the memory used by the bookkeeping of each keyed
+     * sub-pool, in bytes, excluding the pooled objects themselves. A sub-pool
+     * takes about 5 KiB, plus about 256 bytes per object.
+     *
+     * @return The estimated footprint in bytes of each key, keyed by the string form of the key.
+     * @since 3.0.0
+     */
+    @Override
+    public Map<String, Long> getFootprintPerKey() {
+        final Map<String, Long> result = new HashMap<>();
+        poolMap.forEach((k, deque) -> result.put(k.toString(),
+                Long.valueOf(SUB_POOL_FOOTPRINT + OBJECT_FOOTPRINT * deque.getAllObjects().size())));
+        return result;
+    }
+
+    /**
+     * Gets whether the pool tracks how frequently each key is borrowed, in
+     * a compact sketch, to decide which key gives up an idle object when
+     * {@link #getMaxTotal()} is reached and another key needs capacity.
+     * When {@code false}, the globally oldest idle object is destroyed. When
+     * {@code true}, the idle object is taken from the least frequently
+     * borrowed of the few keys with the oldest idle objects, and no idle
+     * object is destroyed for a key borrowed less frequently than all of
+     * them, so that idle objects of hot keys are not given up for rare keys.
+     *
+     * @return {@code true} if frequency aware retention is enabled.
+     * @see #setFrequencyAwareRetention(boolean)
+     * @since 3.0.0
+     */
+    @Override
+    public boolean getFrequencyAwareRetention() {
+        return frequencySketch != null;
+    }
+
+    /**
+     * Gets the function resolving the limits of each key.
+     *
+     * @return The function resolving the limits of each key, or null if the pool limits apply to every key.
+     * @see #setKeyLimits(Function)
+     * @since 3.0.0
+     */
+    public Function<? super K, KeyLimits> getKeyLimits() {
+        return keyLimits;
+    }
+
+    /**
+     * Gets the limits of a key, resolved once and cached by its sub-pool
+     * until the key limits are replaced.
+     *
+     * @param key The key.
+     * @param objectDeque The sub-pool of the key, or null if there is none, in which case the limits are resolved again.
+     * @return The limits of the key, or null if the pool limits apply.
+     */
+    private KeyLimits getKeyLimits(final K key, final ObjectDeque<T> objectDeque) {
+        final Function<? super K, KeyLimits> resolver = keyLimits;
+        if (resolver == null) {
+            return null;
+        }
+        if (objectDeque == null) {
+            return resolver.apply(key);
+        }
+        if (objectDeque.keyLimitsGeneration != keyLimitsGeneration.get()) {
+            synchronized (objectDeque) {
+                // Read the generation before the resolver, see setKeyLimits.
+                final int generation = keyLimitsGeneration.get();
+                if (objectDeque.keyLimitsGeneration != generation) {
+                    final Function<? super K, KeyLimits> current = keyLimits;
+                    objectDeque.keyLimits = current != null ? current.apply(key) : null;
+                    objectDeque.keyLimitsGeneration = generation;
+                }
+            }
+        }
+        return objectDeque.keyLimits;
+    }
+
+    /**
+     * Gets the order in which {@link #borrowAny(Collection, Duration)} looks
+     * for an idle object under the given keys.
+     *
+     * @return The key preference.
+     * @see #setKeyPreference(KeyPreference)
+     * @since 3.0.0
+     */
+    public KeyPreference<K> getKeyPreference() {
+        return keyPreference;
+    }
+
+    /**
+     * Gets a copy of the pool key list.
+     *
+     * @return A copy of the pool key list.
+     * @since 2.12.0
+     */
+    @Override
+    public List<K> getKeys() {
+        return new ArrayList<>(poolKeyOrder.values());
+    }
+
+    /**
+     * Gets the cap on the number of keys, that is of keyed sub-pools, in the
+     * pool. When a new key takes the pool over the cap, the sub-pools of the
+     * least recently used keys without active objects are retired on a
+     * background thread: their idle objects are destroyed and the sub-pools
+     * dropped. While the pool is still over the cap, each eviction run retires
+     * more. New keys are not held back by the cap, which is not enforced while
+     * every other key has active objects. A negative value indicates no limit.
+     *
+     * @return The cap on the number of keys, or a negative value for no limit.
+     * @see #setMaxKeys(int)
+     * @since 3.0.0
+     */
+    @Override
+    public int getMaxKeys() {
+        return maxKeys;
+    }
+
+    /**
+     * Gets the cap on the number of "idle" instances per key in the pool.
+     * If maxIdlePerKey is set too low on heavily loaded systems it is possible
+     * you will see objects being destroyed and almost immediately new objects
+     * being created. This is a result of the active threads momentarily
+     * returning objects faster than they are requesting them, causing the
      * number of idle objects to rise above maxIdlePerKey. The best value for
      * maxIdlePerKey for heavily loaded system will vary but the default is a
      * good starting point.
@@ -1149,6 +2244,18 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
         return maxIdlePerKey;
     }
 
+    /**
+     * Gets the cap on the number of "idle" instances of a key.
+     *
+     * @param key The key.
+     * @param objectDeque The sub-pool of the key, may be null.
+     * @return The cap on the number of "idle" instances of the key.
+     */
+    private int getMaxIdlePerKey(final K key, final ObjectDeque<T> objectDeque) {
+        final KeyLimits limits = getKeyLimits(key, objectDeque);
+        return limits != null ? limits.getMaxIdlePerKey() : getMaxIdlePerKey();
+    }
+
     /**
      * Gets the limit on the number of object instances allocated by the pool
      * (checked out or idle), per key. When the limit is reached, the sub-pool
@@ -1162,6 +2269,60 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
         return maxTotalPerKey;
     }
 
+    /**
+     * Gets the cap on the number of object instances of a key.
+     *
+     * @param key The key.
+     * @param objectDeque The sub-pool of the key, may be null.
+     * @return The cap on the number of object instances of the key.
+     */
+    private int getMaxTotalPerKey(final K key, final ObjectDeque<T> objectDeque) {
+        final KeyLimits limits = getKeyLimits(key, objectDeque);
+        return limits != null ? limits.getMaxTotalPerKey() : getMaxTotalPerKey();
+    }
+
+    /**
+     * Gets the executor that tops up the idle objects of the keys for the
+     * evictor, creating or resizing it to match
+     * {@link #getMinIdleParallelism()}. Must be called holding the eviction
+     * lock.
+     *
+     * @return The executor, or {@code null} if keys are topped up on the
+     *         thread running the evictor.
+     */
+    private ExecutorService getMinIdleExecutor() {
+        final int parallelism = minIdleParallelism;
+        if (parallelism <= 1) {
+            shutdownMinIdleExecutor();
+            return null;
+        }
+        minIdleExecutor = evictorExecutor(minIdleExecutor, parallelism, EvictionConfig.THREAD_NAME);
+        return minIdleExecutor;
+    }
+
+    /**
+     * Gets the maximum number of keys whose idle objects the evictor tops up
+     * to {@link #getMinIdlePerKey()} concurrently. With a value of one or
+     * less, keys are topped up one after the other on the thread running the
+     * evictor. Otherwise, each key short of idle objects is topped up by its
+     * own task on a dedicated executor with this many threads, so that a key
+     * whose objects are slow to create does not hold up the others.
+     * <p>
+     * Either way, an eviction run stops topping up keys once
+     * {@link #getMaxEvictionRunDuration()} has elapsed; keys still short of
+     * idle objects are topped up by the next runs.
+     * </p>
+     *
+     * @return the maximum number of keys topped up concurrently
+     * @see #setMinIdleParallelism(int)
+     * @see #preparePools(Collection, int, Duration)
+     * @since 3.0.0
+     */
+    @Override
+    public int getMinIdleParallelism() {
+        return minIdleParallelism;
+    }
+
     /**
      * Gets the target for the minimum number of idle objects to maintain in
      * each of the keyed sub-pools. This setting only has an effect if it is
@@ -1184,6 +2345,19 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
         return Math.min(this.minIdlePerKey, maxIdlePerKeySave);
     }
 
+    /**
+     * Gets the target for the minimum number of idle objects of a key, no
+     * more than its cap on the number of "idle" instances.
+     *
+     * @param key The key.
+     * @param objectDeque The sub-pool of the key, may be null.
+     * @return The target for the minimum number of idle objects of the key.
+     */
+    private int getMinIdlePerKey(final K key, final ObjectDeque<T> objectDeque) {
+        final KeyLimits limits = getKeyLimits(key, objectDeque);
+        return limits != null ? Math.min(limits.getMinIdlePerKey(), limits.getMaxIdlePerKey()) : getMinIdlePerKey();
+    }
+
     @Override
     public int getNumActive() {
         return numTotal.get() - getNumIdle();
@@ -1267,6 +2441,31 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
         return result;
     }
 
+    /**
+     * Gets the total number of idle objects moved from one key to another by
+     * {@link KeyedPooledObjectFactory#rekeyObject(Object, Object, PooledObject)}
+     * instead of being destroyed to make room under {@link #getMaxTotal()}.
+     *
+     * @return The count of objects re-keyed.
+     * @since 3.0.0
+     */
+    @Override
+    public long getRekeyedCount() {
+        return rekeyedCount.get();
+    }
+
+    /**
+     * Gets the total number of keys whose sub-pools were retired because
+     * there were more than {@link #getMaxKeys()} keys.
+     *
+     * @return The count of keys retired.
+     * @since 3.0.0
+     */
+    @Override
+    public long getRetiredKeyCount() {
+        return retiredKeyCount.get();
+    }
+
     @Override
     String getStatsString() {
         // Simply listed in AB order.
@@ -1283,7 +2482,7 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
      *         {@code false}
      */
     private boolean hasBorrowWaiters() {
-        return getBlockWhenExhausted() && poolMap.values().stream().anyMatch(deque -> deque.getIdleObjects().hasTakeWaiters());
+        return getBlockWhenExhausted() && !waitersRanks.isEmpty();
     }
 
     /**
@@ -1336,6 +2535,117 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
         }
     }
 
+    /**
+     * Keeps alive the idle objects that have not been used for
+     * {@link #getKeepAliveInterval()}, destroying the ones the factory reports
+     * dead. Keys are visited in registration order, starting with the key the
+     * previous run stopped in. Stops once the time budget of the run is spent,
+     * after keeping at least one object alive, the objects left over being
+     * kept alive by the next run. Must be called holding the eviction lock.
+     *
+     * @param evictionRun The eviction run.
+     * @throws E if an error occurs destroying idle instances
+     */
+    private void keepAliveIdleObjects(final EvictionRun evictionRun) throws E {
+        if (!PoolImplUtils.isPositive(getKeepAliveInterval())) {
+            return;
+        }
+        final Long startKey = Long.valueOf(keepAliveKeySequence);
+        int keptAlive = 0;
+        for (final Map<Long, K> keys : List.of(idleKeyOrder.tailMap(startKey, true), idleKeyOrder.headMap(startKey, false))) {
+            for (final Entry<Long, K> entry : keys.entrySet()) {
+                final long sequence = entry.getKey().longValue();
+                final K key = entry.getValue();
+                final ObjectDeque<T> objectDeque = poolMap.get(key);
+                if (objectDeque == null || objectDeque.getSequence() != sequence) {
+                    // Left behind by a dropped sub-pool.
+                    continue;
+                }
+                keepAliveKeySequence = sequence;
+                keptAlive = keepAliveIdleObjects(key, objectDeque, evictionRun, keptAlive);
+                if (keptAlive > 0 && evictionRun.remainingNanos() <= 0) {
+                    // Out of time, the next run resumes from here.
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Keeps alive the idle objects of a key, see
+     * {@link #keepAliveIdleObjects(EvictionRun)}.
+     *
+     * @param key The key.
+     * @param objectDeque The sub-pool of the key.
+     * @param evictionRun The eviction run.
+     * @param keptAlive The number of objects kept alive so far by the run.
+     * @return The number of objects kept alive so far by the run.
+     * @throws E if an error occurs destroying idle instances
+     */
+    private int keepAliveIdleObjects(final K key, final ObjectDeque<T> objectDeque, final EvictionRun evictionRun, final int keptAlive) throws E {
+        int count = keptAlive;
+        final TimingWheel<T> keepAliveSchedule = objectDeque.getKeepAliveSchedule();
+        final Deque<PooledObject<T>> idleObjects = objectDeque.getIdleObjects();
+        for (final PooledObject<T> p : expireKeepAlives(keepAliveSchedule, idleObjects)) {
+            if (count > 0 && evictionRun.remainingNanos() <= 0) {
+                // Out of time, due again in the next run.
+                scheduleKeepAlive(keepAliveSchedule, p);
+                continue;
+            }
+            if (!p.startEvictionTest()) {
+                // Borrowed or under test in another thread.
+                rescheduleKeepAlive(keepAliveSchedule, p);
+                continue;
+            }
+            count++;
+            keepAliveCount.incrementAndGet();
+            boolean alive;
+            try {
+                alive = factory.keepAliveObject(key, p);
+            } catch (final Throwable t) {
+                PoolUtils.checkRethrow(t);
+                swallowException(new Exception(t));
+                alive = false;
+            }
+            if (alive) {
+                rescheduleKeepAlive(keepAliveSchedule, p);
+                endEvictionTest(key, p, idleObjects);
+            } else {
+                updateStatsValidationFailure();
+                destroy(key, p, true, DestroyMode.NORMAL);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Lists a key in the keys with idle objects walked by the evictor, and
+     * ranks it by idle age, unless it is listed and ranked already. Called
+     * after an object becomes idle.
+     *
+     * @param key The key.
+     * @param objectDeque The sub-pool of the key.
+     */
+    private void listIdleKey(final K key, final ObjectDeque<T> objectDeque) {
+        final AtomicBoolean listed = objectDeque.getIdleKeyListed();
+        if (!listed.get() && listed.compareAndSet(false, true)) {
+            idleKeyOrder.put(objectDeque.getSequence(), key);
+        }
+        if (objectDeque.idleAgeRank == null) {
+            rankIdleAge(key, objectDeque, true);
+        }
+    }
+
+    /**
+     * Gets the last return time of an idle object.
+     *
+     * @param p The idle object.
+     * @return The last return time in milliseconds.
+     */
+    private static long lastReturnMillis(final PooledObject<?> p) {
+        return p.getLastReturnInstant().toEpochMilli();
+    }
+
     /**
      * Provides information on all the objects in the pool, both idle (waiting
      * to be borrowed) and active (currently borrowed).
@@ -1354,6 +2664,66 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
                 e -> e.getValue().getAllObjects().values().stream().map(DefaultPooledObjectInfo::new).collect(Collectors.toList())));
     }
 
+    /**
+     * Moves the eviction cursor to the next key with idle objects, in
+     * registration order, wrapping around at most once. Keys found without
+     * idle objects are dropped from the keys with idle objects on the way.
+     * Must be called holding the eviction lock.
+     *
+     * @return Whether a key with idle objects was found.
+     */
+    private boolean nextEvictionKey() {
+        final long start = evictionKeySequence;
+        boolean wrapped = false;
+        while (true) {
+            final Entry<Long, K> entry = idleKeyOrder.higherEntry(evictionKeySequence);
+            if (entry == null) {
+                if (wrapped) {
+                    return false;
+                }
+                wrapped = true;
+                evictionKeySequence = 0;
+                continue;
+            }
+            final long sequence = entry.getKey().longValue();
+            if (wrapped && sequence > start) {
+                return false;
+            }
+            evictionKeySequence = sequence;
+            final K key = entry.getValue();
+            final ObjectDeque<T> objectDeque = poolMap.get(key);
+            if (objectDeque == null || objectDeque.getSequence() != sequence) {
+                // Left behind by a dropped sub-pool.
+                idleKeyOrder.remove(sequence, key);
+                continue;
+            }
+            final EvictionIterator iterator = new EvictionIterator(objectDeque.getIdleObjects());
+            if (iterator.hasNext()) {
+                evictionKey = key;
+                evictionIterator = iterator;
+                return true;
+            }
+            unlistIdleKey(key, objectDeque);
+        }
+    }
+
+    /**
+     * Gets the oldest idle object of a key, which is at either end of its
+     * idle objects depending on {@link #getLifo()}.
+     *
+     * @param objectDeque The sub-pool of the key.
+     * @return The oldest idle object, or null if there are none.
+     */
+    private PooledObject<T> oldestIdle(final ObjectDeque<T> objectDeque) {
+        final LinkedBlockingDeque<PooledObject<T>> idleObjects = objectDeque.getIdleObjects();
+        final PooledObject<T> first = idleObjects.peekFirst();
+        final PooledObject<T> last = idleObjects.peekLast();
+        if (first == null || last == null) {
+            return first != null ? first : last;
+        }
+        return lastReturnMillis(first) <= lastReturnMillis(last) ? first : last;
+    }
+
     /**
      * Registers a key for pool control and ensures that
      * {@link #getMinIdlePerKey()} idle instances are created.
@@ -1362,13 +2732,163 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
      * @throws E If the associated factory throws an exception
      */
     public void preparePool(final K key) throws E {
-        final int minIdlePerKeySave = getMinIdlePerKey();
+        final int minIdlePerKeySave = getMinIdlePerKey(key, poolMap.get(key));
         if (minIdlePerKeySave < 1) {
             return;
         }
         ensureMinIdle(key);
     }
 
+    /**
+     * Registers keys for pool control and ensures that
+     * {@link #getMinIdlePerKey()} idle instances are created for each of them,
+     * preparing up to {@code parallelism} keys concurrently.
+     * <p>
+     * Each key is prepared by its own task, so that a key whose objects are
+     * slow to create does not hold up the others. Once the timeout has
+     * elapsed, the method returns; tasks still running stop after the object
+     * they are creating. Exceptions thrown by the factory are swallowed, see
+     * {@link #getSwallowedExceptionListener()}, and the keys they were thrown
+     * for are returned as not prepared.
+     * </p>
+     *
+     * @param keys The keys to register for pool control.
+     * @param parallelism The maximum number of keys prepared concurrently, one
+     *        or less to prepare them one after the other on the calling thread.
+     * @param timeout The maximum duration to wait for, zero or negative for no
+     *        limit.
+     * @return The keys that were not prepared, empty if all keys reached
+     *         their minimum number of idle instances or ran out of capacity.
+     * @see #preparePool(Object)
+     * @since 3.0.0
+     */
+    public List<K> preparePools(final Collection<K> keys, final int parallelism, final Duration timeout) {
+        final long deadlineNanos = System.nanoTime() + toBudgetNanos(timeout);
+        final List<K> prepare = new ArrayList<>();
+        for (final K key : new LinkedHashSet<>(keys)) {
+            if (getMinIdlePerKey(key, poolMap.get(key)) > 0) {
+                prepare.add(key);
+            }
+        }
+        if (parallelism <= 1 || prepare.size() <= 1) {
+            final List<K> pending = new ArrayList<>();
+            for (final K key : prepare) {
+                try {
+                    if (!ensureMinIdle(key, deadlineNanos)) {
+                        pending.add(key);
+                    }
+                } catch (final RuntimeException e) {
+                    throw e;
+                } catch (final Exception e) {
+                    swallowException(e);
+                    pending.add(key);
+                }
+            }
+            return pending;
+        }
+        final ThreadPoolExecutor executor = evictorExecutor(null, Math.min(parallelism, prepare.size()), PREPARE_THREAD_NAME);
+        try {
+            return ensureMinIdle(executor, prepare, deadlineNanos);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Ranks a key by the age of its oldest idle object, or drops its rank.
+     *
+     * @param key The key.
+     * @param objectDeque The sub-pool of the key.
+     * @param rank Whether to rank the key, if it has idle objects and is not ranked.
+     */
+    private void rankIdleAge(final K key, final ObjectDeque<T> objectDeque, final boolean rank) {
+        synchronized (objectDeque.rankLock) {
+            if (!rank) {
+                if (objectDeque.idleAgeRank != null) {
+                    idleAgeRanks.remove(objectDeque.idleAgeRank);
+                    objectDeque.idleAgeRank = null;
+                }
+                return;
+            }
+            if (objectDeque.idleAgeRank == null) {
+                final PooledObject<T> oldest = oldestIdle(objectDeque);
+                if (oldest != null) {
+                    final RankedKey<K> ranked = new RankedKey<>(lastReturnMillis(oldest), objectDeque.getSequence(), key);
+                    objectDeque.idleAgeRank = ranked;
+                    idleAgeRanks.add(ranked);
+                }
+            }
+        }
+    }
+
+    /**
+     * Ranks a key by its last use if it is not ranked and its sub-pool was
+     * not dropped.
+     *
+     * @param key The key.
+     * @param objectDeque The sub-pool of the key.
+     */
+    private void rankUse(final K key, final ObjectDeque<T> objectDeque) {
+        synchronized (objectDeque.rankLock) {
+            if (objectDeque.useRank == null && objectDeque.getNumInterested().get() >= 0) {
+                final RankedKey<K> ranked = new RankedKey<>(objectDeque.lastUseMillis, objectDeque.getSequence(), key);
+                objectDeque.useRank = ranked;
+                useRanks.add(ranked);
+            }
+        }
+    }
+
+    /**
+     * Ranks a key by its number of waiters after a thread starts or stops
+     * waiting for one of its idle objects.
+     *
+     * @param key The key.
+     * @param objectDeque The sub-pool of the key.
+     * @param delta 1 when a thread starts waiting, -1 when it stops.
+     */
+    private void rankWaiters(final K key, final ObjectDeque<T> objectDeque, final int delta) {
+        synchronized (objectDeque.rankLock) {
+            objectDeque.numWaiters += delta;
+            if (objectDeque.waitersRank != null) {
+                waitersRanks.remove(objectDeque.waitersRank);
+                objectDeque.waitersRank = null;
+            }
+            if (objectDeque.numWaiters > 0) {
+                final RankedKey<K> ranked = new RankedKey<>(-objectDeque.numWaiters, objectDeque.getSequence(), key);
+                objectDeque.waitersRank = ranked;
+                waitersRanks.add(ranked);
+            }
+        }
+    }
+
+    /**
+     * Selects the key that gives up an idle object for capacity.
+     *
+     * @param capacityKey The key that needs the capacity, or null to select the key with the oldest idle object.
+     * @return The rank of the selected key, or null if no key may give up an idle object.
+     */
+    private RankedKey<K> selectIdleVictim(final K capacityKey) {
+        final FrequencySketch<K> sketch = frequencySketch;
+        if (sketch == null || capacityKey == null) {
+            return idleAgeRanks.isEmpty() ? null : idleAgeRanks.first();
+        }
+        RankedKey<K> victim = null;
+        int victimFrequency = Integer.MAX_VALUE;
+        int sampled = 0;
+        for (final RankedKey<K> ranked : idleAgeRanks) {
+            final int frequency = sketch.frequency(ranked.key);
+            if (frequency < victimFrequency) {
+                victim = ranked;
+                victimFrequency = frequency;
+            }
+            if (++sampled == RETENTION_SAMPLE_SIZE) {
+                break;
+            }
+        }
+        // Admit the new object only if its key is borrowed at least as often.
+        return victim != null && victimFrequency <= sketch.frequency(capacityKey) ? victim : null;
+    }
+
     /**
      * Register the use of a key by an object.
      * <p>
@@ -1381,34 +2901,29 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
      *         return null.
      */
     private ObjectDeque<T> register(final K k) {
-        Lock lock = keyLock.readLock();
-        ObjectDeque<T> objectDeque = null;
-        try {
-            lock.lock();
-            objectDeque = poolMap.get(k);
-            if (objectDeque == null) {
-                // Upgrade to write lock
-                lock.unlock();
-                lock = keyLock.writeLock();
-                lock.lock();
-                final AtomicBoolean allocated = new AtomicBoolean();
-                objectDeque = poolMap.computeIfAbsent(k, key -> {
-                    allocated.set(true);
-                    final ObjectDeque<T> deque = new ObjectDeque<>(fairness);
-                    deque.getNumInterested().incrementAndGet();
-                    // NOTE: Keys must always be added to both poolMap and
-                    //       poolKeyList at the same time while protected by
-                    poolKeyList.add(k);
-                    return deque;
-                });
-                if (!allocated.get()) {
-                    objectDeque.getNumInterested().incrementAndGet();
+        final int maxKeysSave = maxKeys;
+        ObjectDeque<T> objectDeque = poolMap.get(k);
+        if (objectDeque == null || !objectDeque.tryRegister()) {
+            // New key, or one dropped concurrently: a dropped deque is removed
+            // from the map before compute can see it.
+            objectDeque = poolMap.compute(k, (key, deque) -> {
+                if (deque == null) {
+                    deque = new ObjectDeque<>(fairness, keySequence.incrementAndGet());
+                    deque.lastUseMillis = System.currentTimeMillis();
+                    poolKeyOrder.put(deque.getSequence(), key);
+                    rankUse(key, deque);
                 }
-            } else {
-                objectDeque.getNumInterested().incrementAndGet();
+                deque.getNumInterested().incrementAndGet();
+                return deque;
+            });
+            if (maxKeysSave > 0 && poolMap.size() > maxKeysSave) {
+                retireColdKeysAsync();
+            }
+        } else if (maxKeysSave > 0) {
+            final long now = System.currentTimeMillis();
+            if (objectDeque.lastUseMillis != now) {
+                objectDeque.lastUseMillis = now;
             }
-        } finally {
-            lock.unlock();
         }
         return objectDeque;
     }
@@ -1423,7 +2938,7 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
     private void removeAbandoned(final AbandonedConfig abandonedConfig) {
         poolMap.forEach((key, value) -> {
             // Generate a list of abandoned objects to remove
-            final ArrayList<PooledObject<T>> remove = createRemoveList(abandonedConfig, value.getAllObjects());
+            final ArrayList<PooledObject<T>> remove = createRemoveList(abandonedConfig, value.getAbandonedWheel(), value.getAllObjects());
             // Now remove the abandoned objects
             remove.forEach(pooledObject -> {
                 if (abandonedConfig.getLogAbandoned()) {
@@ -1478,11 +2993,14 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
         }
 
         markReturningState(p);
+        updateStatsRelease(p);
+        objectDeque.getAbandonedWheel().cancel(p);
 
         final Duration activeTime = p.getActiveDuration();
 
         try {
             if (getTestOnReturn() && !factory.validateObject(key, p)) {
+                updateStatsValidationFailure();
                 try {
                     destroy(key, p, true, DestroyMode.NORMAL);
                 } catch (final Exception e) {
@@ -1509,12 +3027,16 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
                 throw new IllegalStateException("Object has already been returned to this pool");
             }
 
-            final int maxIdle = getMaxIdlePerKey();
+            final int maxIdle = getMaxIdlePerKey(key, objectDeque);
             final BlockingDeque<PooledObject<T>> idleObjects = objectDeque.getIdleObjects();
 
-            if (isClosed() || maxIdle > -1 && maxIdle <= idleObjects.size()) {
+            final boolean expired = isExpired(p);
+            if (isClosed() || expired || maxIdle > -1 && maxIdle <= idleObjects.size()) {
                 try {
                     destroy(key, p, true, DestroyMode.NORMAL);
+                    if (expired) {
+                        destroyedByMaxLifetimeCount.incrementAndGet();
+                    }
                 } catch (final Exception e) {
                     swallowException(e);
                 }
@@ -1524,6 +3046,10 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
                 } else {
                     idleObjects.addLast(p);
                 }
+                scheduleEvictionCheck(objectDeque.getIdleIndex(), p);
+                scheduleKeepAlive(objectDeque.getKeepAliveSchedule(), p);
+                listIdleKey(key, objectDeque);
+                signalBorrowAny();
                 if (isClosed()) {
                     // Pool closed while object was being added to idle objects.
                     // Make sure the returned object is destroyed rather than left
@@ -1539,6 +3065,249 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
         }
     }
 
+    /**
+     * Re-keys an idle object taken by {@link #takeOldestIdle(Object)} with
+     * {@link KeyedPooledObjectFactory#rekeyObject(Object, Object, PooledObject)},
+     * moving it to the sub-pool of the key that needs it without changing the
+     * total number of objects. The object is destroyed instead if it belongs
+     * to the same key, has reached its maximum lifetime, the new key is at
+     * capacity or the factory does not convert it.
+     *
+     * @param fromKey The key of the object.
+     * @param p The object, under eviction test.
+     * @param toKey The key that needs an object.
+     * @param toDeque The sub-pool of the key that needs an object, registered by the caller.
+     * @return The object, now belonging to {@code toKey}, or null if it was destroyed.
+     */
+    private PooledObject<T> rekey(final K fromKey, final PooledObject<T> p, final K toKey, final ObjectDeque<T> toDeque) {
+        boolean rekeyed = false;
+        if (!fromKey.equals(toKey) && !isExpired(p)) {
+            int maxTotalPerKeySave = getMaxTotalPerKey(toKey, toDeque);
+            if (maxTotalPerKeySave < 0) {
+                maxTotalPerKeySave = Integer.MAX_VALUE;
+            }
+            if (toDeque.getCreateCount().incrementAndGet() <= maxTotalPerKeySave) {
+                try {
+                    rekeyed = factory.rekeyObject(fromKey, toKey, p);
+                } catch (final Exception e) {
+                    swallowException(e);
+                }
+            }
+            if (!rekeyed) {
+                toDeque.getCreateCount().decrementAndGet();
+            }
+        }
+        if (!rekeyed) {
+            try {
+                destroy(fromKey, p, true, DestroyMode.NORMAL);
+            } catch (final Exception e) {
+                swallowException(e);
+            }
+            return null;
+        }
+        final ObjectDeque<T> fromDeque = register(fromKey);
+        try {
+            fromDeque.getAllObjects().remove(IdentityWrapper.unwrap(p));
+            fromDeque.getIdleIndex().cancel(p);
+            fromDeque.getKeepAliveSchedule().cancel(p);
+            fromDeque.getCreateCount().decrementAndGet();
+        } finally {
+            deregister(fromKey);
+        }
+        toDeque.getAllObjects().put(IdentityWrapper.unwrap(p), p);
+        p.endEvictionTest(toDeque.getIdleObjects());
+        rekeyedCount.incrementAndGet();
+        return p;
+    }
+
+    /**
+     * Destroys the idle objects that would reach their maximum lifetime before
+     * the next eviction run. Keys are visited in registration order, starting
+     * with the key the previous run stopped in. Looks at each idle object at
+     * most once, and stops once the time budget of the run is spent, the next
+     * run resuming from there. At least one object is looked at and the run is
+     * left to the eviction test, so that both make progress. Must be called
+     * holding the eviction lock.
+     *
+     * @param evictionRun The eviction run.
+     * @throws E If an object cannot be destroyed.
+     */
+    private void replaceExpiring(final EvictionRun evictionRun) throws E {
+        final Long startKey = Long.valueOf(lifetimeKeySequence);
+        int looked = 0;
+        for (final Map<Long, K> keys : List.of(idleKeyOrder.tailMap(startKey, true), idleKeyOrder.headMap(startKey, false))) {
+            for (final Entry<Long, K> entry : keys.entrySet()) {
+                final long sequence = entry.getKey().longValue();
+                if (sequence != lifetimeKeySequence) {
+                    lifetimeKeySequence = sequence;
+                    lifetimeIterator = null;
+                }
+                looked = replaceExpiring(sequence, entry.getValue(), evictionRun, looked);
+                if (lifetimeIterator != null) {
+                    // Out of time, the next run resumes from here.
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Destroys the idle objects of a key that would reach their maximum lifetime
+     * before the next eviction run, see {@link #replaceExpiring(EvictionRun)}.
+     * When destroying an object would leave fewer than
+     * {@link #getMinIdlePerKey()} idle objects for the key, a replacement is
+     * created first, and an object that has not expired yet is kept if there
+     * is no capacity for a replacement. Leaves {@code lifetimeIterator} set
+     * when the run is out of time before the end of the idle objects.
+     *
+     * @param sequence The registration order of the key.
+     * @param key The key of the objects to replace.
+     * @param evictionRun The eviction run.
+     * @param looked The number of objects looked at so far by the run.
+     * @return The number of objects looked at so far by the run.
+     * @throws E If an object cannot be destroyed.
+     */
+    private int replaceExpiring(final long sequence, final K key, final EvictionRun evictionRun, final int looked) throws E {
+        final ObjectDeque<T> listed = poolMap.get(key);
+        if (listed == null || listed.getSequence() != sequence) {
+            // Stale entry, the key was dropped since.
+            lifetimeIterator = null;
+            return looked;
+        }
+        int count = looked;
+        final ObjectDeque<T> objectDeque = register(key);
+        try {
+            final Deque<PooledObject<T>> idleObjects = objectDeque.getIdleObjects();
+            if (lifetimeIterator == null) {
+                lifetimeIterator = idleObjects.iterator();
+            }
+            while (lifetimeIterator.hasNext()) {
+                if (count > 0 && evictionRun.remainingNanos() <= 0) {
+                    return count;
+                }
+                count++;
+                final PooledObject<T> p = lifetimeIterator.next();
+                if (!isExpiringBeforeNextEvictionRun(p)) {
+                    continue;
+                }
+                if (!p.startEvictionTest()) {
+                    // Borrowed in another thread, checked again when it is returned.
+                    continue;
+                }
+                if (idleObjects.size() <= getMinIdlePerKey(key, objectDeque)) {
+                    PooledObject<T> replacement = null;
+                    try {
+                        replacement = create(key);
+                        addIdleObject(key, replacement);
+                    } catch (final Exception e) {
+                        swallowException(e);
+                    }
+                    if (PooledObject.isNull(replacement) && !isExpired(p)) {
+                        endEvictionTest(key, p, idleObjects);
+                        continue;
+                    }
+                }
+                destroy(key, p, true, DestroyMode.NORMAL);
+                destroyedByMaxLifetimeCount.incrementAndGet();
+            }
+            lifetimeIterator = null;
+            return count;
+        } finally {
+            deregister(key);
+        }
+    }
+
+    /**
+     * Retires the least recently used keys while there are more than
+     * {@link #getMaxKeys()} keys, destroying their idle objects so that their
+     * sub-pools are dropped. Keys with active objects, or in use by another
+     * thread, are skipped and ranked as used now. Idle objects are claimed
+     * for the eviction test before being destroyed, so that an object
+     * borrowed or tested meanwhile keeps its key. Each key is looked at no
+     * more than once per call. Called by the evictor, and in the background
+     * when a new key takes the pool over the cap.
+     */
+    private void retireColdKeys() {
+        final int maxKeysSave = maxKeys;
+        int attempts = poolMap.size();
+        while (maxKeysSave > 0 && poolMap.size() > maxKeysSave && attempts-- > 0) {
+            final RankedKey<K> ranked = useRanks.pollFirst();
+            if (ranked == null) {
+                return;
+            }
+            final K key = ranked.key;
+            final ObjectDeque<T> objectDeque = poolMap.get(key);
+            if (objectDeque == null || objectDeque.getSequence() != ranked.sequence) {
+                // Left behind by a dropped sub-pool.
+                continue;
+            }
+            synchronized (objectDeque.rankLock) {
+                if (objectDeque.useRank != ranked) {
+                    // Ranked again meanwhile.
+                    continue;
+                }
+                objectDeque.useRank = null;
+            }
+            if (objectDeque.lastUseMillis > ranked.rank) {
+                // Used since it was ranked, try again with the right rank.
+                rankUse(key, objectDeque);
+                continue;
+            }
+            if (objectDeque.getNumInterested().get() > 0 ||
+                    objectDeque.getAllObjects().size() > objectDeque.getIdleObjects().size() ||
+                    !objectDeque.tryRegister()) {
+                objectDeque.lastUseMillis = System.currentTimeMillis();
+                rankUse(key, objectDeque);
+                continue;
+            }
+            try {
+                for (final PooledObject<T> p : objectDeque.getIdleObjects()) {
+                    if (!p.startEvictionTest()) {
+                        // Borrowed or under test in another thread.
+                        continue;
+                    }
+                    try {
+                        destroy(key, p, true, DestroyMode.NORMAL);
+                    } catch (final Exception e) {
+                        swallowException(e);
+                    }
+                }
+            } finally {
+                deregister(key);
+            }
+            if (poolMap.get(key) == objectDeque) {
+                // Borrowed from or registered by another thread meanwhile.
+                rankUse(key, objectDeque);
+            } else {
+                retiredKeyCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Retires cold keys on a background thread, unless a retirement is
+     * already under way, so that the cap on the number of keys holds without
+     * the evictor and without holding up the thread adding a key.
+     */
+    private void retireColdKeysAsync() {
+        if (isClosed() || !coldKeysRetiring.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            submit(coldKeyExecutor, () -> {
+                try {
+                    retireColdKeys();
+                } finally {
+                    coldKeysRetiring.set(false);
+                }
+                return null;
+            });
+        } catch (final RejectedExecutionException e) {
+            // Closed meanwhile.
+            coldKeysRetiring.set(false);
+        }
+    }
+
     /**
      * Attempt to create one new instance to serve from the most heavily
      * loaded pool that can add a new instance.
@@ -1553,32 +3322,25 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
      * borrowed, returned or destroyed by other threads while it is executing.
      */
     private void reuseCapacity() {
-        final int maxTotalPerKeySave = getMaxTotalPerKey();
-        int maxQueueLength = 0;
-        BlockingDeque<PooledObject<T>> mostLoadedPool = null;
-        K mostLoadedKey = null;
         // Find the most loaded pool that could take a new instance
-        for (final Map.Entry<K, ObjectDeque<T>> entry : poolMap.entrySet()) {
-            final K k = entry.getKey();
-            final LinkedBlockingDeque<PooledObject<T>> pool = entry.getValue().getIdleObjects();
-            final int queueLength = pool.getTakeQueueLength();
-            if (getNumActive(k) < maxTotalPerKeySave && queueLength > maxQueueLength) {
-                maxQueueLength = queueLength;
-                mostLoadedPool = pool;
-                mostLoadedKey = k;
-            }
-        }
-        // Attempt to add an instance to the most loaded pool.
-        if (mostLoadedPool != null) {
-            register(mostLoadedKey);
-            try {
-                // If there is no capacity to add, create will return null
-                // and addIdleObject will no-op.
-                addIdleObject(mostLoadedKey, create(mostLoadedKey));
-            } catch (final Exception e) {
-                swallowException(e);
-            } finally {
-                deregister(mostLoadedKey);
+        for (final RankedKey<K> ranked : waitersRanks) {
+            final K mostLoadedKey = ranked.key;
+            final ObjectDeque<T> objectDeque = poolMap.get(mostLoadedKey);
+            // Waiters that were just handed an object are still ranked, skip them.
+            if (objectDeque != null && objectDeque.getIdleObjects().hasTakeWaiters() &&
+                    getNumActive(mostLoadedKey) < getMaxTotalPerKey(mostLoadedKey, objectDeque)) {
+                // Attempt to add an instance to the most loaded pool.
+                register(mostLoadedKey);
+                try {
+                    // If there is no capacity to add, create will return null
+                    // and addIdleObject will no-op.
+                    addIdleObject(mostLoadedKey, create(mostLoadedKey));
+                } catch (final Exception e) {
+                    swallowException(e);
+                } finally {
+                    deregister(mostLoadedKey);
+                }
+                return;
             }
         }
     }
@@ -1609,6 +3371,60 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
         setMaxTotalPerKey(conf.getMaxTotalPerKey());
         setMaxTotal(conf.getMaxTotal());
         setMinIdlePerKey(conf.getMinIdlePerKey());
+        setFrequencyAwareRetention(conf.getFrequencyAwareRetention());
+        setMaxKeys(conf.getMaxKeys());
+        setMinIdleParallelism(conf.getMinIdleParallelism());
+    }
+
+    /**
+     * Sets whether the pool tracks how frequently each key is borrowed to
+     * decide which key gives up an idle object when {@link #getMaxTotal()} is
+     * reached. Enabling it starts with no borrow history.
+     *
+     * @param frequencyAwareRetention {@code true} to enable frequency aware retention.
+     * @see #getFrequencyAwareRetention()
+     * @since 3.0.0
+     */
+    public void setFrequencyAwareRetention(final boolean frequencyAwareRetention) {
+        if (frequencyAwareRetention != getFrequencyAwareRetention()) {
+            frequencySketch = frequencyAwareRetention ? new FrequencySketch<>(FREQUENCY_SKETCH_LENGTH) : null;
+        }
+    }
+
+    /**
+     * Sets the function resolving the limits of each key, overriding
+     * {@link #getMaxTotalPerKey()}, {@link #getMaxIdlePerKey()} and
+     * {@link #getMinIdlePerKey()} for the keys it returns limits for. The
+     * pool limits apply to the keys it returns null for.
+     * <p>
+     * The function is called once per keyed sub-pool, when its limits are
+     * first needed, and the result is cached by the sub-pool, so it may be
+     * called again for a key whose sub-pool was dropped. Setting a new
+     * function, even the same one, resolves the limits of every key again.
+     * </p>
+     *
+     * @param keyLimits The function resolving the limits of each key, or null for the pool limits to apply to every key.
+     * @see #getKeyLimits()
+     * @since 3.0.0
+     */
+    public void setKeyLimits(final Function<? super K, KeyLimits> keyLimits) {
+        // Replace the resolver before incrementing the generation, sub-pools
+        // that see the new generation then resolve with the new resolver.
+        this.keyLimits = keyLimits;
+        keyLimitsGeneration.incrementAndGet();
+    }
+
+    /**
+     * Sets the order in which {@link #borrowAny(Collection, Duration)} looks
+     * for an idle object under the given keys. The default is
+     * {@link KeyPreference#leastActive()}.
+     *
+     * @param keyPreference The key preference.
+     * @see #getKeyPreference()
+     * @since 3.0.0
+     */
+    public void setKeyPreference(final KeyPreference<K> keyPreference) {
+        this.keyPreference = Objects.requireNonNull(keyPreference, "keyPreference");
     }
 
     /**
@@ -1631,6 +3447,18 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
         this.maxIdlePerKey = maxIdlePerKey;
     }
 
+    /**
+     * Sets the cap on the number of keys, that is of keyed sub-pools, in the
+     * pool. See {@link #getMaxKeys()} for how the cap is enforced.
+     *
+     * @param maxKeys The cap on the number of keys. Use a negative value for no limit.
+     * @see #getMaxKeys()
+     * @since 3.0.0
+     */
+    public void setMaxKeys(final int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
     /**
      * Sets the limit on the number of object instances allocated by the pool
      * (checked out or idle), per key. When the limit is reached, the sub-pool
@@ -1643,6 +3471,20 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
         this.maxTotalPerKey = maxTotalPerKey;
     }
 
+    /**
+     * Sets the maximum number of keys whose idle objects the evictor tops up
+     * to {@link #getMinIdlePerKey()} concurrently.
+     *
+     * @param minIdleParallelism the maximum number of keys topped up
+     *        concurrently, one or less to top them up on the thread running
+     *        the evictor
+     * @see #getMinIdleParallelism()
+     * @since 3.0.0
+     */
+    public void setMinIdleParallelism(final int minIdleParallelism) {
+        this.minIdleParallelism = minIdleParallelism;
+    }
+
     /**
      * Sets the target for the minimum number of idle objects to maintain in
      * each of the keyed sub-pools. This setting only has an effect if it is
@@ -1665,6 +3507,244 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
         this.minIdlePerKey = minIdlePerKey;
     }
 
+    /**
+     * Wakes the threads waiting in {@link #borrowAny(Collection, Duration)},
+     * called whenever an object becomes idle or capacity is freed.
+     */
+    private void signalBorrowAny() {
+        borrowAnySignal.incrementAndGet();
+        if (numBorrowAnyThreads.get() > 0) {
+            synchronized (borrowAnyLock) {
+                borrowAnyLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Takes the oldest idle object across all keys out of the idle objects of
+     * its key, found through the keys ranked by idle age in logarithmic time.
+     * Ranks found to be older than the oldest idle object of their key are
+     * corrected on the way. With {@link #getFrequencyAwareRetention()}, the
+     * object is taken from the least frequently borrowed of the keys with the
+     * oldest idle objects, and only if that key is not borrowed more
+     * frequently than the key that needs the capacity.
+     * <p>
+     * The object is left under eviction test, so that neither the evictor nor
+     * borrowers can use it, and must be destroyed or re-keyed.
+     * </p>
+     *
+     * @param capacityKey The key that needs the capacity, or null to take the oldest idle object regardless.
+     * @return The key and the object taken, or null if there are none or none may be taken.
+     */
+    private Entry<K, PooledObject<T>> takeOldestIdle(final K capacityKey) {
+        RankedKey<K> ranked;
+        while ((ranked = selectIdleVictim(capacityKey)) != null) {
+            if (!idleAgeRanks.remove(ranked)) {
+                // Taken by another thread.
+                continue;
+            }
+            final K key = ranked.key;
+            final ObjectDeque<T> objectDeque = poolMap.get(key);
+            if (objectDeque == null || objectDeque.getSequence() != ranked.sequence) {
+                // Left behind by a dropped sub-pool.
+                continue;
+            }
+            final PooledObject<T> oldest;
+            synchronized (objectDeque.rankLock) {
+                if (objectDeque.idleAgeRank != ranked) {
+                    // Ranked again meanwhile.
+                    continue;
+                }
+                objectDeque.idleAgeRank = null;
+                oldest = oldestIdle(objectDeque);
+                if (oldest != null && lastReturnMillis(oldest) > ranked.rank) {
+                    // The oldest objects were borrowed, try again with the right rank.
+                    rankIdleAge(key, objectDeque, true);
+                    continue;
+                }
+            }
+            final LinkedBlockingDeque<PooledObject<T>> idleObjects = objectDeque.getIdleObjects();
+            boolean taken = false;
+            if (oldest != null && oldest.startEvictionTest()) {
+                taken = idleObjects.remove(oldest);
+                if (!taken) {
+                    // Polled by a borrower meanwhile, hand it back.
+                    endEvictionTest(key, oldest, idleObjects);
+                }
+            }
+            if (!idleObjects.isEmpty()) {
+                rankIdleAge(key, objectDeque, true);
+            }
+            if (taken) {
+                return new SimpleImmutableEntry<>(key, oldest);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Activates, validates and passivates an idle object under eviction test,
+     * destroying it if any of these steps fails.
+     *
+     * @param key The key of the object.
+     * @param underTest The idle object under eviction test.
+     * @throws E If the object cannot be destroyed.
+     */
+    private void testIdleObject(final K key, final PooledObject<T> underTest) throws E {
+        boolean active = false;
+        try {
+            factory.activateObject(key, underTest);
+            active = true;
+        } catch (final Exception e) {
+            destroy(key, underTest, true, DestroyMode.NORMAL);
+            destroyedByEvictorCount.incrementAndGet();
+        }
+        if (active) {
+            boolean validate = false;
+            Throwable validationThrowable = null;
+            try {
+                validate = factory.validateObject(key, underTest);
+            } catch (final Throwable t) {
+                PoolUtils.checkRethrow(t);
+                validationThrowable = t;
+            }
+            if (!validate) {
+                updateStatsValidationFailure();
+                destroy(key, underTest, true, DestroyMode.NORMAL);
+                destroyedByEvictorCount.incrementAndGet();
+                if (validationThrowable != null) {
+                    if (validationThrowable instanceof RuntimeException) {
+                        throw (RuntimeException) validationThrowable;
+                    }
+                    throw (Error) validationThrowable;
+                }
+            } else {
+                try {
+                    factory.passivateObject(key, underTest);
+                } catch (final Exception e) {
+                    destroy(key, underTest, true, DestroyMode.NORMAL);
+                    destroyedByEvictorCount.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Validates an idle object under eviction test through an asynchronous
+     * factory without waiting for it. The object stays under test until the
+     * validation completes, then it is either made available again or
+     * destroyed.
+     *
+     * @param key The key of the object.
+     * @param underTest The idle object under eviction test.
+     * @param idleObjects The idle objects of the key.
+     */
+    private void testIdleObjectAsync(final K key, final PooledObject<T> underTest, final Deque<PooledObject<T>> idleObjects) {
+        PoolImplUtils.toStage(() -> asyncFactory.activateObjectAsync(key, underTest)).whenComplete((v, t) -> {
+            if (t != null) {
+                destroyTestedAsync(key, underTest);
+                return;
+            }
+            PoolImplUtils.toStage(() -> asyncFactory.validateObjectAsync(key, underTest)).whenComplete((valid, validationThrowable) -> {
+                if (validationThrowable != null || !Boolean.TRUE.equals(valid)) {
+                    updateStatsValidationFailure();
+                    if (validationThrowable != null) {
+                        swallowException(PoolImplUtils.stageException(validationThrowable));
+                    }
+                    destroyTestedAsync(key, underTest);
+                    return;
+                }
+                PoolImplUtils.toStage(() -> asyncFactory.passivateObjectAsync(key, underTest)).whenComplete((pv, passivationThrowable) -> {
+                    if (passivationThrowable != null) {
+                        destroyTestedAsync(key, underTest);
+                    } else {
+                        endEvictionTest(key, underTest, idleObjects);
+                    }
+                });
+            });
+        });
+    }
+
+    /**
+     * Activates, validates together and passivates idle objects of a key
+     * under eviction test, destroying each object for which any of these steps
+     * fails. Every object is dealt with before an exception is thrown.
+     *
+     * @param key The key of the objects.
+     * @param underTest The idle objects under eviction test.
+     * @throws E If an object cannot be destroyed.
+     */
+    private void testIdleObjects(final K key, final List<PooledObject<T>> underTest) throws E {
+        Exception failure = null;
+        final List<PooledObject<T>> active = new ArrayList<>(underTest.size());
+        for (final PooledObject<T> p : underTest) {
+            try {
+                factory.activateObject(key, p);
+                active.add(p);
+            } catch (final Exception e) {
+                try {
+                    destroy(key, p, true, DestroyMode.NORMAL);
+                    destroyedByEvictorCount.incrementAndGet();
+                } catch (final Exception de) {
+                    failure = failure == null ? de : failure;
+                }
+            }
+        }
+        boolean[] valid = null;
+        Throwable validationThrowable = null;
+        if (!active.isEmpty()) {
+            try {
+                valid = factory.validateObjects(key, active);
+            } catch (final Throwable t) {
+                PoolUtils.checkRethrow(t);
+                validationThrowable = t;
+            }
+        }
+        for (int i = 0; i < active.size(); i++) {
+            final PooledObject<T> p = active.get(i);
+            try {
+                if (valid == null || i >= valid.length || !valid[i]) {
+                    updateStatsValidationFailure();
+                    destroy(key, p, true, DestroyMode.NORMAL);
+                    destroyedByEvictorCount.incrementAndGet();
+                } else {
+                    try {
+                        factory.passivateObject(key, p);
+                    } catch (final Exception e) {
+                        destroy(key, p, true, DestroyMode.NORMAL);
+                        destroyedByEvictorCount.incrementAndGet();
+                    }
+                }
+            } catch (final Exception e) {
+                failure = failure == null ? e : failure;
+            }
+        }
+        if (validationThrowable != null) {
+            throw cast(validationThrowable);
+        }
+        if (failure != null) {
+            throw cast(failure);
+        }
+    }
+
+    @Override
+    void shutdownEvictorExecutors() {
+        super.shutdownEvictorExecutors();
+        shutdownMinIdleExecutor();
+        coldKeyExecutor.shutdown();
+    }
+
+    /**
+     * Shuts down the executor that tops up the idle objects of the keys, if
+     * any. Must be called holding the eviction lock.
+     */
+    private void shutdownMinIdleExecutor() {
+        if (minIdleExecutor != null) {
+            minIdleExecutor.shutdown();
+            minIdleExecutor = null;
+        }
+    }
+
     @Override
     protected void toStringAppendFields(final StringBuilder builder) {
         super.toStringAppendFields(builder);
@@ -1674,26 +3754,67 @@ public class GenericKeyedObjectPool<K, T, E extends Exception> extends BaseGener
         builder.append(minIdlePerKey);
         builder.append(", maxTotalPerKey=");
         builder.append(maxTotalPerKey);
+        builder.append(", frequencySketch=");
+        builder.append(frequencySketch);
+        builder.append(", keyLimits=");
+        builder.append(keyLimits);
+        builder.append(", keyPreference=");
+        builder.append(keyPreference);
+        builder.append(", maxKeys=");
+        builder.append(maxKeys);
+        builder.append(", minIdleParallelism=");
+        builder.append(minIdleParallelism);
         builder.append(", factory=");
         builder.append(factory);
         builder.append(", fairness=");
         builder.append(fairness);
         builder.append(", poolMap=");
         builder.append(poolMap);
-        builder.append(", poolKeyList=");
-        builder.append(poolKeyList);
-        builder.append(", keyLock=");
-        builder.append(keyLock);
+        builder.append(", poolKeyOrder=");
+        builder.append(poolKeyOrder);
         builder.append(", numTotal=");
         builder.append(numTotal);
-        builder.append(", evictionKeyIterator=");
-        builder.append(evictionKeyIterator);
+        builder.append(", evictionKeySequence=");
+        builder.append(evictionKeySequence);
         builder.append(", evictionKey=");
         builder.append(evictionKey);
+        builder.append(", indexedEvictionKeySequence=");
+        builder.append(indexedEvictionKeySequence);
+        builder.append(", lifetimeKeySequence=");
+        builder.append(lifetimeKeySequence);
         builder.append(", abandonedConfig=");
         builder.append(abandonedConfig);
     }
 
+    /**
+     * Drops a key found without idle objects from the keys with idle objects,
+     * listing it again if an object became idle meanwhile.
+     *
+     * @param key The key.
+     * @param objectDeque The sub-pool of the key.
+     */
+    private void unlistIdleKey(final K key, final ObjectDeque<T> objectDeque) {
+        idleKeyOrder.remove(objectDeque.getSequence());
+        objectDeque.getIdleKeyListed().set(false);
+        if (!objectDeque.getIdleObjects().isEmpty()) {
+            listIdleKey(key, objectDeque);
+        }
+    }
+
+    /**
+     * Removes the rank of a key by its last use.
+     *
+     * @param objectDeque The sub-pool of the key.
+     */
+    private void unrankUse(final ObjectDeque<T> objectDeque) {
+        synchronized (objectDeque.rankLock) {
+            if (objectDeque.useRank != null) {
+                useRanks.remove(objectDeque.useRank);
+                objectDeque.useRank = null;
+            }
+        }
+    }
+
     /**
      * @since 2.10.0
      */
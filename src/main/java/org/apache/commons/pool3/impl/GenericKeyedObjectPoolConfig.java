@@ -58,6 +58,30 @@ public class GenericKeyedObjectPoolConfig<T> extends BaseObjectPoolConfig<T> {
      */
     public static final int DEFAULT_MAX_IDLE_PER_KEY = 8;
 
+    /**
+     * The default value for the {@code frequencyAwareRetention} configuration attribute.
+     *
+     * @see GenericKeyedObjectPool#getFrequencyAwareRetention()
+     * @since 3.0.0
+     */
+    public static final boolean DEFAULT_FREQUENCY_AWARE_RETENTION = false;
+
+    /**
+     * The default value for the {@code maxKeys} configuration attribute.
+     *
+     * @see GenericKeyedObjectPool#getMaxKeys()
+     * @since 3.0.0
+     */
+    public static final int DEFAULT_MAX_KEYS = -1;
+
+    /**
+     * The default value for the {@code minIdleParallelism} configuration attribute.
+     *
+     * @see GenericKeyedObjectPool#getMinIdleParallelism()
+     * @since 3.0.0
+     */
+    public static final int DEFAULT_MIN_IDLE_PARALLELISM = 1;
+
     private int minIdlePerKey = DEFAULT_MIN_IDLE_PER_KEY;
 
     private int maxIdlePerKey = DEFAULT_MAX_IDLE_PER_KEY;
@@ -66,6 +90,12 @@ public class GenericKeyedObjectPoolConfig<T> extends BaseObjectPoolConfig<T> {
 
     private int maxTotal = DEFAULT_MAX_TOTAL;
 
+    private boolean frequencyAwareRetention = DEFAULT_FREQUENCY_AWARE_RETENTION;
+
+    private int maxKeys = DEFAULT_MAX_KEYS;
+
+    private int minIdleParallelism = DEFAULT_MIN_IDLE_PARALLELISM;
+
     /**
      * Constructs a new configuration with default settings.
      */
@@ -82,6 +112,20 @@ public class GenericKeyedObjectPoolConfig<T> extends BaseObjectPoolConfig<T> {
         }
     }
 
+    /**
+     * Gets the value for the {@code frequencyAwareRetention} configuration attribute
+     * for pools created with this configuration instance.
+     *
+     * @return  The current setting of {@code frequencyAwareRetention} for this
+     *          configuration instance
+     *
+     * @see GenericKeyedObjectPool#getFrequencyAwareRetention()
+     * @since 3.0.0
+     */
+    public boolean getFrequencyAwareRetention() {
+        return frequencyAwareRetention;
+    }
+
     /**
      * Gets the value for the {@code maxIdlePerKey} configuration attribute
      * for pools created with this configuration instance.
@@ -95,6 +139,20 @@ public class GenericKeyedObjectPoolConfig<T> extends BaseObjectPoolConfig<T> {
         return maxIdlePerKey;
     }
 
+    /**
+     * Gets the value for the {@code maxKeys} configuration attribute
+     * for pools created with this configuration instance.
+     *
+     * @return  The current setting of {@code maxKeys} for this
+     *          configuration instance
+     *
+     * @see GenericKeyedObjectPool#getMaxKeys()
+     * @since 3.0.0
+     */
+    public int getMaxKeys() {
+        return maxKeys;
+    }
+
     /**
      * Gets the value for the {@code maxTotal} configuration attribute
      * for pools created with this configuration instance.
@@ -121,6 +179,20 @@ public class GenericKeyedObjectPoolConfig<T> extends BaseObjectPoolConfig<T> {
         return maxTotalPerKey;
     }
 
+    /**
+     * Gets the value for the {@code minIdleParallelism} configuration attribute
+     * for pools created with this configuration instance.
+     *
+     * @return  The current setting of {@code minIdleParallelism} for this
+     *          configuration instance
+     *
+     * @see GenericKeyedObjectPool#getMinIdleParallelism()
+     * @since 3.0.0
+     */
+    public int getMinIdleParallelism() {
+        return minIdleParallelism;
+    }
+
     /**
      * Gets the value for the {@code minIdlePerKey} configuration attribute
      * for pools created with this configuration instance.
@@ -134,6 +206,20 @@ public class GenericKeyedObjectPoolConfig<T> extends BaseObjectPoolConfig<T> {
         return minIdlePerKey;
     }
 
+    /**
+     * Sets the value for the {@code frequencyAwareRetention} configuration attribute for
+     * pools created with this configuration instance.
+     *
+     * @param frequencyAwareRetention The new setting of {@code frequencyAwareRetention}
+     *        for this configuration instance
+     *
+     * @see GenericKeyedObjectPool#setFrequencyAwareRetention(boolean)
+     * @since 3.0.0
+     */
+    public void setFrequencyAwareRetention(final boolean frequencyAwareRetention) {
+        this.frequencyAwareRetention = frequencyAwareRetention;
+    }
+
     /**
      * Sets the value for the {@code maxIdlePerKey} configuration attribute for
      * pools created with this configuration instance.
@@ -147,6 +233,20 @@ public class GenericKeyedObjectPoolConfig<T> extends BaseObjectPoolConfig<T> {
         this.maxIdlePerKey = maxIdlePerKey;
     }
 
+    /**
+     * Sets the value for the {@code maxKeys} configuration attribute for
+     * pools created with this configuration instance.
+     *
+     * @param maxKeys The new setting of {@code maxKeys}
+     *        for this configuration instance
+     *
+     * @see GenericKeyedObjectPool#setMaxKeys(int)
+     * @since 3.0.0
+     */
+    public void setMaxKeys(final int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
     /**
      * Sets the value for the {@code maxTotal} configuration attribute for
      * pools created with this configuration instance.
@@ -173,6 +273,20 @@ public class GenericKeyedObjectPoolConfig<T> extends BaseObjectPoolConfig<T> {
         this.maxTotalPerKey = maxTotalPerKey;
     }
 
+    /**
+     * Sets the value for the {@code minIdleParallelism} configuration attribute for
+     * pools created with this configuration instance.
+     *
+     * @param minIdleParallelism The new setting of {@code minIdleParallelism}
+     *        for this configuration instance
+     *
+     * @see GenericKeyedObjectPool#setMinIdleParallelism(int)
+     * @since 3.0.0
+     */
+    public void setMinIdleParallelism(final int minIdleParallelism) {
+        this.minIdleParallelism = minIdleParallelism;
+    }
+
     /**
      * Sets the value for the {@code minIdlePerKey} configuration attribute for
      * pools created with this configuration instance.
@@ -197,5 +311,11 @@ public class GenericKeyedObjectPoolConfig<T> extends BaseObjectPoolConfig<T> {
         builder.append(maxTotalPerKey);
         builder.append(", maxTotal=");
         builder.append(maxTotal);
+        builder.append(", frequencyAwareRetention=");
+        builder.append(frequencyAwareRetention);
+        builder.append(", maxKeys=");
+        builder.append(maxKeys);
+        builder.append(", minIdleParallelism=");
+        builder.append(minIdleParallelism);
     }
 }
@@ -49,6 +49,14 @@ public interface GenericKeyedObjectPoolMXBean<K> {
      */
     long getBorrowedCount();
 
+    /**
+     * See {@link GenericKeyedObjectPool#getBorrowedRates()}.
+     *
+     * @return See {@link GenericKeyedObjectPool#getBorrowedRates()}.
+     * @since 3.0.0
+     */
+    Map<String, Double> getBorrowedRates();
+
     /**
      * See {@link GenericKeyedObjectPool#getCreatedCount()}.
      *
@@ -56,6 +64,14 @@ public interface GenericKeyedObjectPoolMXBean<K> {
      */
     long getCreatedCount();
 
+    /**
+     * See {@link GenericKeyedObjectPool#getCreatedRates()}.
+     *
+     * @return See {@link GenericKeyedObjectPool#getCreatedRates()}.
+     * @since 3.0.0
+     */
+    Map<String, Double> getCreatedRates();
+
     /**
      * See {@link GenericKeyedObjectPool#getCreationStackTrace()}.
      *
@@ -77,6 +93,14 @@ public interface GenericKeyedObjectPoolMXBean<K> {
      */
     long getDestroyedByEvictorCount();
 
+    /**
+     * See {@link GenericKeyedObjectPool#getDestroyedByMaxLifetimeCount()}.
+     *
+     * @return See {@link GenericKeyedObjectPool#getDestroyedByMaxLifetimeCount()}.
+     * @since 3.0.0
+     */
+    long getDestroyedByMaxLifetimeCount();
+
     /**
      * See {@link GenericKeyedObjectPool#getDestroyedCount()}.
      *
@@ -84,6 +108,22 @@ public interface GenericKeyedObjectPoolMXBean<K> {
      */
     long getDestroyedCount();
 
+    /**
+     * See {@link GenericKeyedObjectPool#getDestroyedRates()}.
+     *
+     * @return See {@link GenericKeyedObjectPool#getDestroyedRates()}.
+     * @since 3.0.0
+     */
+    Map<String, Double> getDestroyedRates();
+
+    /**
+     * See {@link GenericKeyedObjectPool#getEvictionRunCount()}.
+     *
+     * @return See {@link GenericKeyedObjectPool#getEvictionRunCount()}.
+     * @since 3.0.0
+     */
+    long getEvictionRunCount();
+
     /**
      * See {@link GenericKeyedObjectPool#getFairness()}.
      *
@@ -91,6 +131,38 @@ public interface GenericKeyedObjectPoolMXBean<K> {
      */
     boolean getFairness();
 
+    /**
+     * See {@link GenericKeyedObjectPool#getFootprintPerKey()}.
+     *
+     * @return See {@link GenericKeyedObjectPool#getFootprintPerKey()}.
+     * @since 3.0.0
+     */
+    Map<String, Long> getFootprintPerKey();
+
+    /**
+     * See {@link GenericKeyedObjectPool#getFrequencyAwareRetention()}.
+     *
+     * @return See {@link GenericKeyedObjectPool#getFrequencyAwareRetention()}.
+     * @since 3.0.0
+     */
+    boolean getFrequencyAwareRetention();
+
+    /**
+     * See {@link GenericKeyedObjectPool#getIndexedEviction()}.
+     *
+     * @return See {@link GenericKeyedObjectPool#getIndexedEviction()}.
+     * @since 3.0.0
+     */
+    boolean getIndexedEviction();
+
+    /**
+     * See {@link GenericKeyedObjectPool#getKeepAliveCount()}.
+     *
+     * @return See {@link GenericKeyedObjectPool#getKeepAliveCount()}.
+     * @since 3.0.0
+     */
+    long getKeepAliveCount();
+
     /**
      * See {@link GenericKeyedObjectPool#getLifo()}.
      *
@@ -122,6 +194,14 @@ public interface GenericKeyedObjectPoolMXBean<K> {
      */
     int getMaxIdlePerKey();
 
+    /**
+     * See {@link GenericKeyedObjectPool#getMaxKeys()}.
+     *
+     * @return See {@link GenericKeyedObjectPool#getMaxKeys()}.
+     * @since 3.0.0
+     */
+    int getMaxKeys();
+
     /**
      * See {@link GenericKeyedObjectPool#getMaxTotal()}.
      *
@@ -157,6 +237,30 @@ public interface GenericKeyedObjectPoolMXBean<K> {
      */
     long getMeanBorrowWaitTimeMillis();
 
+    /**
+     * See {@link GenericKeyedObjectPool#getMeanEvictionRunCoverage()}.
+     *
+     * @return See {@link GenericKeyedObjectPool#getMeanEvictionRunCoverage()}.
+     * @since 3.0.0
+     */
+    double getMeanEvictionRunCoverage();
+
+    /**
+     * See {@link GenericKeyedObjectPool#getMeanEvictionRunDelayMillis()}.
+     *
+     * @return See {@link GenericKeyedObjectPool#getMeanEvictionRunDelayMillis()}.
+     * @since 3.0.0
+     */
+    long getMeanEvictionRunDelayMillis();
+
+    /**
+     * See {@link GenericKeyedObjectPool#getMeanEvictionRunTimeMillis()}.
+     *
+     * @return See {@link GenericKeyedObjectPool#getMeanEvictionRunTimeMillis()}.
+     * @since 3.0.0
+     */
+    long getMeanEvictionRunTimeMillis();
+
     /**
      * See {@link GenericKeyedObjectPool#getMeanIdleTimeMillis()}.
      *
@@ -173,6 +277,14 @@ public interface GenericKeyedObjectPoolMXBean<K> {
 
     // Expose getters for monitoring attributes
 
+    /**
+     * See {@link GenericKeyedObjectPool#getMinIdleParallelism()}.
+     *
+     * @return See {@link GenericKeyedObjectPool#getMinIdleParallelism()}.
+     * @since 3.0.0
+     */
+    int getMinIdleParallelism();
+
     /**
      * See {@link GenericKeyedObjectPool#getMinIdlePerKey()}.
      *
@@ -252,6 +364,30 @@ public interface GenericKeyedObjectPoolMXBean<K> {
         return 0;
     }
 
+    /**
+     * See {@link GenericKeyedObjectPool#getRekeyedCount()}.
+     *
+     * @return See {@link GenericKeyedObjectPool#getRekeyedCount()}.
+     * @since 3.0.0
+     */
+    long getRekeyedCount();
+
+    /**
+     * See {@link GenericKeyedObjectPool#getRetiredKeyCount()}.
+     *
+     * @return See {@link GenericKeyedObjectPool#getRetiredKeyCount()}.
+     * @since 3.0.0
+     */
+    long getRetiredKeyCount();
+
+    /**
+     * See {@link GenericKeyedObjectPool#getSkippedEvictionRunCount()}.
+     *
+     * @return See {@link GenericKeyedObjectPool#getSkippedEvictionRunCount()}.
+     * @since 3.0.0
+     */
+    long getSkippedEvictionRunCount();
+
     /**
      * See {@link GenericKeyedObjectPool#getReturnedCount()}.
      *
@@ -259,6 +395,14 @@ public interface GenericKeyedObjectPoolMXBean<K> {
      */
     long getReturnedCount();
 
+    /**
+     * See {@link GenericKeyedObjectPool#getReturnedRates()}.
+     *
+     * @return See {@link GenericKeyedObjectPool#getReturnedRates()}.
+     * @since 3.0.0
+     */
+    Map<String, Double> getReturnedRates();
+
     /**
      * See {@link GenericKeyedObjectPool#getTestOnBorrow()}.
      *
@@ -288,6 +432,14 @@ public interface GenericKeyedObjectPoolMXBean<K> {
      */
     boolean getTestWhileIdle();
 
+    /**
+     * See {@link GenericKeyedObjectPool#getTestWhileIdleParallelism()}.
+     *
+     * @return See {@link GenericKeyedObjectPool#getTestWhileIdleParallelism()}.
+     * @since 3.0.0
+     */
+    int getTestWhileIdleParallelism();
+
     /**
      * See {@link GenericKeyedObjectPool#getDurationBetweenEvictionRuns}
      *
@@ -295,6 +447,30 @@ public interface GenericKeyedObjectPoolMXBean<K> {
      */
     long getTimeBetweenEvictionRunsMillis();
 
+    /**
+     * See {@link GenericKeyedObjectPool#getTimeLimitedEvictionRunCount()}.
+     *
+     * @return See {@link GenericKeyedObjectPool#getTimeLimitedEvictionRunCount()}.
+     * @since 3.0.0
+     */
+    long getTimeLimitedEvictionRunCount();
+
+    /**
+     * See {@link GenericKeyedObjectPool#getTimeoutRates()}.
+     *
+     * @return See {@link GenericKeyedObjectPool#getTimeoutRates()}.
+     * @since 3.0.0
+     */
+    Map<String, Double> getTimeoutRates();
+
+    /**
+     * See {@link GenericKeyedObjectPool#getValidationFailureRates()}.
+     *
+     * @return See {@link GenericKeyedObjectPool#getValidationFailureRates()}.
+     * @since 3.0.0
+     */
+    Map<String, Double> getValidationFailureRates();
+
     /**
      * See {@link GenericKeyedObjectPool#isAbandonedConfig()}.
      *
@@ -318,4 +494,12 @@ public interface GenericKeyedObjectPoolMXBean<K> {
      * @return See {@link GenericKeyedObjectPool#listAllObjects()}.
      */
     Map<String, List<DefaultPooledObjectInfo>> listAllObjects();
+
+    /**
+     * See {@link GenericKeyedObjectPool#listBorrowSites()}.
+     *
+     * @return See {@link GenericKeyedObjectPool#listBorrowSites()}.
+     * @since 3.0.0
+     */
+    List<BorrowSiteInfo> listBorrowSites();
 }
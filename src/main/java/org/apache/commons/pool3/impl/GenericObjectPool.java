@@ -19,12 +19,25 @@ package org.apache.commons.pool3.impl;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
+import org.apache.commons.pool3.AsyncPooledObjectFactory;
 import org.apache.commons.pool3.DestroyMode;
 import org.apache.commons.pool3.ObjectPool;
 import org.apache.commons.pool3.PoolUtils;
@@ -81,6 +94,20 @@ import org.apache.commons.pool3.UsageTracking;
 public class GenericObjectPool<T, E extends Exception> extends BaseGenericObjectPool<T, E>
         implements ObjectPool<T, E>, GenericObjectPoolMXBean, UsageTracking<T> {
 
+    /**
+     * A call to {@link GenericObjectPool#borrowObjectAsync(Duration)}.
+     *
+     * @param <T> type of objects in the pool
+     */
+    private static final class AsyncBorrow<T> {
+
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final Instant startInstant = Instant.now();
+
+        /** Whether the borrower waits in the queue, cleared by the thread that takes it over. */
+        private final AtomicBoolean waiting = new AtomicBoolean();
+    }
+
     // JMX specific attributes
     private static final String ONAME_BASE =
         "org.apache.commons.pool3:type=GenericObjectPool,name=";
@@ -99,6 +126,28 @@ public class GenericObjectPool<T, E extends Exception> extends BaseGenericObject
 
     private final PooledObjectFactory<T, E> factory;
 
+    /*
+     * The factory if it is asynchronous, null otherwise.
+     */
+    private final AsyncPooledObjectFactory<T, E> asyncFactory;
+
+    /*
+     * Calls to borrowObjectAsync waiting for an object to become available.
+     * Borrowers that stopped waiting are left in the queue and skipped when
+     * they are polled.
+     */
+    private final ConcurrentLinkedQueue<AsyncBorrow<T>> asyncBorrowers = new ConcurrentLinkedQueue<>();
+
+    /*
+     * The number of asynchronous borrowers waiting in asyncBorrowers.
+     */
+    private final AtomicInteger asyncWaiterCount = new AtomicInteger();
+
+    /*
+     * The number of idle objects being created asynchronously for the evictor.
+     */
+    private final AtomicInteger asyncIdleCreateCount = new AtomicInteger();
+
     /*
      * TODO The references to _maxActive are from 1.x and need to be updated.
      *
@@ -110,6 +159,23 @@ public class GenericObjectPool<T, E extends Exception> extends BaseGenericObject
      */
     private final ConcurrentHashMap<IdentityWrapper<T>, PooledObject<T>> allObjects = new ConcurrentHashMap<>();
 
+    /*
+     * Borrowed objects scheduled by last use time so that abandoned objects
+     * are found without scanning allObjects.
+     */
+    private final TimingWheel<T> abandonedWheel = new TimingWheel<>();
+
+    /*
+     * Idle objects scheduled by last return time so that indexed eviction finds
+     * the objects to evict without scanning idleObjects.
+     */
+    private final TimingWheel<T> idleIndex = new TimingWheel<>();
+
+    /*
+     * Idle objects scheduled by the time of their next keepalive.
+     */
+    private final TimingWheel<T> keepAliveSchedule = new TimingWheel<>();
+
     /*
      * TODO The references to _maxActive are from 1.x and need to be updated.
      *
@@ -127,6 +193,12 @@ public class GenericObjectPool<T, E extends Exception> extends BaseGenericObject
 
     private final LinkedBlockingDeque<PooledObject<T>> idleObjects;
 
+    /*
+     * Position of the maximum lifetime pass in the idle objects, the next run
+     * resumes from it.
+     */
+    private Iterator<PooledObject<T>> lifetimeIterator; // @GuardedBy("evictionLock")
+
     /**
      * Creates a new {@code GenericObjectPool} using defaults from
      * {@link GenericObjectPoolConfig}.
@@ -149,6 +221,7 @@ public class GenericObjectPool<T, E extends Exception> extends BaseGenericObject
      *                  the configuration object will not be reflected in the
      *                  pool.
      */
+    @SuppressWarnings("unchecked")
     public GenericObjectPool(final PooledObjectFactory<T, E> factory,
             final GenericObjectPoolConfig<T> config) {
 
@@ -159,6 +232,7 @@ public class GenericObjectPool<T, E extends Exception> extends BaseGenericObject
             throw new IllegalArgumentException("Factory may not be null");
         }
         this.factory = factory;
+        this.asyncFactory = factory instanceof AsyncPooledObjectFactory ? (AsyncPooledObjectFactory<T, E>) factory : null;
 
         idleObjects = new LinkedBlockingDeque<>(config.getFairness());
 
@@ -184,6 +258,50 @@ public class GenericObjectPool<T, E extends Exception> extends BaseGenericObject
         setAbandonedConfig(abandonedConfig);
     }
 
+    /**
+     * Activates an object, asynchronously if the factory is asynchronous.
+     *
+     * @param p The object to activate.
+     * @return A stage completed once the object is activated.
+     */
+    private CompletionStage<Void> activateAsync(final PooledObject<T> p) {
+        return PoolImplUtils.toStage(asyncFactory != null ? () -> asyncFactory.activateObjectAsync(p) : () -> {
+            factory.activateObject(p);
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    /**
+     * Activates and, if {@link #getTestOnBorrow()} is {@code true}, validates
+     * an allocated object for an asynchronous borrower, then hands it over.
+     * If activation or validation fails, the object is destroyed and the
+     * borrower tries the next idle object, or fails if the object was created
+     * for it.
+     *
+     * @param borrow The borrower.
+     * @param p The allocated object.
+     * @param create Whether the object was created for the borrower.
+     */
+    private void activateAsync(final AsyncBorrow<T> borrow, final PooledObject<T> p, final boolean create) {
+        activateAsync(p).whenComplete((v, t) -> {
+            if (t != null) {
+                borrowAsyncFailed(borrow, p, create, "Unable to activate object", t);
+            } else if (!getTestOnBorrow()) {
+                borrowedAsync(borrow, p);
+            } else {
+                validateAsync(p).whenComplete((valid, validationThrowable) -> {
+                    if (validationThrowable == null && Boolean.TRUE.equals(valid)) {
+                        borrowedAsync(borrow, p);
+                    } else {
+                        updateStatsValidationFailure();
+                        destroyedByBorrowValidationCount.incrementAndGet();
+                        borrowAsyncFailed(borrow, p, create, "Unable to validate object", validationThrowable);
+                    }
+                });
+            }
+        });
+    }
+
     /**
      * Adds the provided wrapped pooled object to the set of idle objects for
      * this pool. The object must already be part of the pool.  If {@code p}
@@ -195,11 +313,8 @@ public class GenericObjectPool<T, E extends Exception> extends BaseGenericObject
     private void addIdleObject(final PooledObject<T> p) throws E {
         if (PooledObject.nonNull(p)) {
             factory.passivateObject(p);
-            if (getLifo()) {
-                idleObjects.addFirst(p);
-            } else {
-                idleObjects.addLast(p);
-            }
+            pushIdle(p);
+            serveAsyncBorrowers();
         }
     }
 
@@ -226,6 +341,43 @@ public class GenericObjectPool<T, E extends Exception> extends BaseGenericObject
         addIdleObject(create(getMaxWaitDuration()));
     }
 
+    /**
+     * Creates {@code count} objects and places them into the pool, as
+     * {@link #addObject()} does, creating them in batches, see
+     * {@link PooledObjectFactory#makeObjects(int)}, while there is capacity
+     * left for more than one.
+     *
+     * @param count The number of idle objects to add.
+     * @throws E See {@link #addObject()}.
+     */
+    @Override
+    public void addObjects(final int count) throws E {
+        assertOpen();
+        if (factory == null) {
+            throw new IllegalStateException("Cannot add objects without a factory.");
+        }
+        for (int i = 0; i < count;) {
+            final List<PooledObject<T>> created = count - i > 1 ? createAll(count - i) : Collections.emptyList();
+            if (created.isEmpty()) {
+                addIdleObject(create(getMaxWaitDuration()));
+                i++;
+                continue;
+            }
+            int added = 0;
+            try {
+                for (final PooledObject<T> p : created) {
+                    addIdleObject(p);
+                    added++;
+                }
+            } finally {
+                for (final PooledObject<T> p : created.subList(added, created.size())) {
+                    destroy(p, DestroyMode.NORMAL);
+                }
+            }
+            i += added;
+        }
+    }
+
     /**
      * Equivalent to <code>{@link #borrowObject(long)
      * borrowObject}({@link #getMaxWaitDuration()})</code>.
@@ -319,6 +471,7 @@ public class GenericObjectPool<T, E extends Exception> extends BaseGenericObject
                     }
                 }
                 if (PooledObject.isNull(p)) {
+                    updateStatsTimeout();
                     throw new NoSuchElementException(appendStats("Timeout waiting for idle object, borrowMaxWaitDuration=" + remainingWaitDuration));
                 }
             } else if (PooledObject.isNull(p)) {
@@ -327,6 +480,15 @@ public class GenericObjectPool<T, E extends Exception> extends BaseGenericObject
             if (!p.allocate()) {
                 p = null;
             }
+            if (!create && !PooledObject.isNull(p) && isExpired(p)) {
+                try {
+                    destroy(p, DestroyMode.NORMAL);
+                    destroyedByMaxLifetimeCount.incrementAndGet();
+                } catch (final Exception e) {
+                    swallowException(e);
+                }
+                p = null;
+            }
             if (!PooledObject.isNull(p)) {
                 try {
                     factory.activateObject(p);
@@ -353,6 +515,7 @@ public class GenericObjectPool<T, E extends Exception> extends BaseGenericObject
                         validationThrowable = t;
                     }
                     if (!validate) {
+                        updateStatsValidationFailure();
                         try {
                             destroy(p, DestroyMode.NORMAL);
                             destroyedByBorrowValidationCount.incrementAndGet();
@@ -370,6 +533,9 @@ public class GenericObjectPool<T, E extends Exception> extends BaseGenericObject
             }
         }
         updateStatsBorrow(p, durationSince(startInstant));
+        scheduleAbandonedCheck(abandonedWheel, p);
+        idleIndex.cancel(p);
+        keepAliveSchedule.cancel(p);
         return p.getObject();
     }
 
@@ -425,6 +591,175 @@ public class GenericObjectPool<T, E extends Exception> extends BaseGenericObject
         return borrowObject(Duration.ofMillis(borrowMaxWaitMillis));
     }
 
+    /**
+     * Equivalent to <code>{@link #borrowObjectAsync(Duration)
+     * borrowObjectAsync}({@link #getMaxWaitDuration()})</code>.
+     *
+     * @return A stage completed with an object instance from the pool.
+     * @since 3.0.0
+     */
+    public CompletionStage<T> borrowObjectAsync() {
+        return borrowObjectAsync(getMaxWaitDuration());
+    }
+
+    /**
+     * Borrows an object from the pool without blocking the calling thread.
+     * <p>
+     * The returned stage completes as {@link #borrowObject(Duration)} would
+     * return: with an idle instance, activated and if applicable validated,
+     * or else with a new instance if the pool has capacity for it. If the pool
+     * is exhausted and {@link #getBlockWhenExhausted()} is {@code true}, the
+     * stage completes with the next instance that becomes available, or with
+     * a {@code NoSuchElementException} once {@code maxWaitDuration} has
+     * elapsed. Borrowers waiting this way do not hold a thread.
+     * </p>
+     * <p>
+     * If the factory is an {@link AsyncPooledObjectFactory}, instances are
+     * created, activated and validated without blocking. Otherwise, the
+     * factory is called on the thread that makes an instance available to the
+     * borrower: the calling thread, or a thread returning an object to the pool.
+     * </p>
+     * <p>
+     * Completing the stage before the pool does, for example by cancelling it,
+     * withdraws the request; an instance allocated to it meanwhile is returned
+     * to the pool.
+     * </p>
+     *
+     * @param maxWaitDuration The time to wait for an object to become available,
+     *        negative to wait indefinitely, not null.
+     * @return A stage completed with an object instance from the pool.
+     * @throws IllegalStateException if the pool is closed.
+     * @since 3.0.0
+     */
+    public CompletionStage<T> borrowObjectAsync(final Duration maxWaitDuration) {
+        assertOpen();
+        final AsyncBorrow<T> borrow = new AsyncBorrow<>();
+        borrow.future.whenComplete((obj, t) -> stopWaiting(borrow));
+        if (getBlockWhenExhausted() && !maxWaitDuration.isNegative() && maxWaitDuration.compareTo(Duration.ofNanos(Long.MAX_VALUE)) < 0) {
+            // Completing the timer once the borrower is served cancels its scheduled timeout.
+            final CompletableFuture<Void> timer = new CompletableFuture<>();
+            timer.orTimeout(maxWaitDuration.toNanos(), TimeUnit.NANOSECONDS).whenComplete((v, t) -> {
+                if (t != null && borrow.future.completeExceptionally(
+                        new NoSuchElementException(appendStats("Timeout waiting for idle object, borrowMaxWaitDuration=" + maxWaitDuration)))) {
+                    updateStatsTimeout();
+                }
+            });
+            borrow.future.whenComplete((obj, t) -> timer.complete(null));
+        }
+        borrowAsync(borrow);
+        return borrow.future;
+    }
+
+    /**
+     * Serves an asynchronous borrower with an idle object or a new one, or
+     * queues it until an object becomes available.
+     *
+     * @param borrow The borrower.
+     */
+    private void borrowAsync(final AsyncBorrow<T> borrow) {
+        while (!borrow.future.isDone()) {
+            if (isClosed()) {
+                borrow.future.completeExceptionally(new IllegalStateException("Pool not open"));
+                return;
+            }
+            final PooledObject<T> p = idleObjects.pollFirst();
+            if (p != null) {
+                if (!p.allocate()) {
+                    continue;
+                }
+                if (isExpired(p)) {
+                    try {
+                        destroy(p, DestroyMode.NORMAL);
+                        destroyedByMaxLifetimeCount.incrementAndGet();
+                    } catch (final Exception e) {
+                        swallowException(e);
+                    }
+                    continue;
+                }
+                activateAsync(borrow, p, false);
+                return;
+            }
+            if (reserveCreate()) {
+                createAsync().whenComplete((created, t) -> {
+                    if (t != null) {
+                        borrow.future.completeExceptionally(PoolImplUtils.stageException(t));
+                    } else if (created == null || !created.allocate()) {
+                        borrowAsync(borrow);
+                    } else {
+                        activateAsync(borrow, created, true);
+                    }
+                });
+                return;
+            }
+            if (!getBlockWhenExhausted()) {
+                borrow.future.completeExceptionally(new NoSuchElementException(appendStats("Pool exhausted")));
+                return;
+            }
+            // Drop the borrowers at the head that stopped waiting, so that they do not pile up while the pool is exhausted.
+            AsyncBorrow<T> head;
+            while ((head = asyncBorrowers.peek()) != null && !head.waiting.get() && asyncBorrowers.remove(head)) {
+                // Dropped
+            }
+            borrow.waiting.set(true);
+            asyncWaiterCount.incrementAndGet();
+            asyncBorrowers.add(borrow);
+            // An object may have become available since it was looked for, or the borrower completed meanwhile,
+            // unless another thread took the borrower over.
+            if (!borrow.future.isDone() && idleObjects.isEmpty() && !hasCreateCapacity() || !stopWaiting(borrow)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Destroys an object that failed activation or validation for an
+     * asynchronous borrower, and serves the borrower again or fails it.
+     *
+     * @param borrow The borrower.
+     * @param p The object.
+     * @param create Whether the object was created for the borrower.
+     * @param message The message of the exception failing the borrower.
+     * @param t The failure, may be null.
+     */
+    private void borrowAsyncFailed(final AsyncBorrow<T> borrow, final PooledObject<T> p, final boolean create, final String message,
+            final Throwable t) {
+        try {
+            destroy(p, DestroyMode.NORMAL);
+        } catch (final Exception ignored) {
+            // ignored - activation or validation failure is more important
+        }
+        if (create) {
+            final NoSuchElementException nsee = new NoSuchElementException(appendStats(message));
+            if (t != null) {
+                nsee.initCause(PoolImplUtils.stageException(t));
+            }
+            borrow.future.completeExceptionally(nsee);
+        } else {
+            borrowAsync(borrow);
+        }
+    }
+
+    /**
+     * Hands an activated object over to an asynchronous borrower, returning
+     * it to the pool if the borrower has withdrawn.
+     *
+     * @param borrow The borrower.
+     * @param p The object.
+     */
+    private void borrowedAsync(final AsyncBorrow<T> borrow, final PooledObject<T> p) {
+        updateStatsBorrow(p, durationSince(borrow.startInstant));
+        scheduleAbandonedCheck(abandonedWheel, p);
+        idleIndex.cancel(p);
+        keepAliveSchedule.cancel(p);
+        if (!borrow.future.complete(p.getObject())) {
+            try {
+                returnObject(p.getObject());
+            } catch (final Exception e) {
+                swallowException(e);
+            }
+        }
+    }
+
     /**
      * Clears any objects sitting idle in the pool by removing them from the
      * idle instance pool and then invoking the configured
@@ -489,6 +824,10 @@ public class GenericObjectPool<T, E extends Exception> extends BaseGenericObject
 
             // Release any threads that were waiting for an object
             idleObjects.interruptTakeWaiters();
+            AsyncBorrow<T> borrow;
+            while ((borrow = asyncBorrowers.poll()) != null) {
+                borrow.future.completeExceptionally(new IllegalStateException("Pool not open"));
+            }
         }
     }
 
@@ -573,6 +912,7 @@ public class GenericObjectPool<T, E extends Exception> extends BaseGenericObject
                 throw new NullPointerException(String.format("%s.makeObject() = null", factory.getClass().getSimpleName()));
             }
             if (getTestOnCreate() && !factory.validateObject(p)) {
+                updateStatsValidationFailure();
                 createCount.decrementAndGet();
                 return null;
             }
@@ -592,11 +932,143 @@ public class GenericObjectPool<T, E extends Exception> extends BaseGenericObject
             p.setRequireFullStackTrace(ac.getRequireFullStackTrace());
         }
 
-        createdCount.incrementAndGet();
+        updateStatsCreate();
         allObjects.put(IdentityWrapper.unwrap(p), p);
         return p;
     }
 
+    /**
+     * Attempts to create up to {@code count} new wrapped pooled objects with
+     * one call to {@link PooledObjectFactory#makeObjects(int)}.
+     * <p>
+     * Capacity for the whole batch is reserved up front, without waiting for
+     * creations in progress: the batch is cut down to what is left below
+     * {@link #getMaxTotal()}, and the capacity of the objects the factory does
+     * not return, or that fail validation on creation, is released. Objects
+     * returned beyond the reservation and objects failing validation are
+     * destroyed. Objects are validated together, see
+     * {@link PooledObjectFactory#validateObjects(List)}.
+     * </p>
+     * <p>
+     * If the factory returns null elements, the other objects are destroyed
+     * and this method throws a NullPointerException.
+     * </p>
+     *
+     * @param count The number of objects to create.
+     * @return The new wrapped pooled objects, empty if there is no capacity
+     *         left or none passed validation.
+     * @throws E if the object factory's {@code makeObjects} fails
+     */
+    private List<PooledObject<T>> createAll(final int count) throws E {
+        final int reserved = reserveCreate(count);
+        if (reserved == 0) {
+            return Collections.emptyList();
+        }
+        final List<PooledObject<T>> created = new ArrayList<>(reserved);
+        List<PooledObject<T>> kept = Collections.emptyList();
+        try {
+            final List<PooledObject<T>> made = factory.makeObjects(reserved);
+            if (made.stream().anyMatch(PooledObject::isNull)) {
+                made.stream().filter(PooledObject::nonNull).forEach(this::destroyCreated);
+                throw new NullPointerException(String.format("%s.makeObjects() contains null", factory.getClass().getSimpleName()));
+            }
+            if (made.size() > reserved) {
+                made.subList(reserved, made.size()).forEach(this::destroyCreated);
+                kept = made.subList(0, reserved);
+            } else {
+                kept = made;
+            }
+            final boolean[] valid = getTestOnCreate() && !kept.isEmpty() ? factory.validateObjects(kept) : null;
+            for (int i = 0; i < kept.size(); i++) {
+                final PooledObject<T> p = kept.get(i);
+                if (valid != null && (i >= valid.length || !valid[i])) {
+                    updateStatsValidationFailure();
+                    destroyCreated(p);
+                } else {
+                    created.add(p);
+                }
+            }
+        } catch (final Throwable e) {
+            kept.forEach(this::destroyCreated);
+            created.clear();
+            throw e;
+        } finally {
+            synchronized (makeObjectCountLock) {
+                makeObjectCount -= reserved;
+                createCount.addAndGet(created.size() - reserved);
+                makeObjectCountLock.notifyAll();
+            }
+        }
+
+        final AbandonedConfig ac = this.abandonedConfig;
+        for (final PooledObject<T> p : created) {
+            if (ac != null && ac.getLogAbandoned()) {
+                p.setLogAbandoned(true);
+                p.setRequireFullStackTrace(ac.getRequireFullStackTrace());
+            }
+            updateStatsCreate();
+            allObjects.put(IdentityWrapper.unwrap(p), p);
+        }
+        return created;
+    }
+
+    /**
+     * Creates a new wrapped pooled object without blocking, asynchronously if
+     * the factory is asynchronous, once capacity has been reserved with
+     * {@link #reserveCreate()}. The reservation is released if no object is
+     * created.
+     *
+     * @return A stage completed with the new wrapped pooled object, or null
+     *         if it failed validation on creation. An object that fails or
+     *         cannot be validated is destroyed.
+     */
+    private CompletionStage<PooledObject<T>> createAsync() {
+        return PoolImplUtils.toStage(asyncFactory != null ? asyncFactory::makeObjectAsync : () -> CompletableFuture.completedFuture(factory.makeObject()))
+                .thenCompose(p -> {
+                    if (PooledObject.isNull(p)) {
+                        throw new NullPointerException(String.format("%s.makeObject() = null", factory.getClass().getSimpleName()));
+                    }
+                    if (!getTestOnCreate()) {
+                        return CompletableFuture.completedFuture(p);
+                    }
+                    return validateAsync(p).handle((valid, t) -> {
+                        if (t == null && Boolean.TRUE.equals(valid)) {
+                            return p;
+                        }
+                        if (t == null) {
+                            updateStatsValidationFailure();
+                        }
+                        destroyCreatedAsync(p);
+                        if (t != null) {
+                            throw new CompletionException(PoolImplUtils.stageException(t));
+                        }
+                        return null;
+                    });
+                })
+                .handle((p, t) -> {
+                    synchronized (makeObjectCountLock) {
+                        makeObjectCount--;
+                        makeObjectCountLock.notifyAll();
+                    }
+                    if (p == null) {
+                        createCount.decrementAndGet();
+                        serveAsyncBorrowers();
+                        if (t != null) {
+                            throw new CompletionException(PoolImplUtils.stageException(t));
+                        }
+                        return null;
+                    }
+                    final AbandonedConfig ac = this.abandonedConfig;
+                    if (ac != null && ac.getLogAbandoned()) {
+                        p.setLogAbandoned(true);
+                        p.setRequireFullStackTrace(ac.getRequireFullStackTrace());
+                    }
+                    updateStatsCreate();
+                    allObjects.put(IdentityWrapper.unwrap(p), p);
+                    return p;
+                });
+    }
+
     /**
      * Destroys a wrapped pooled object.
      *
@@ -609,11 +1081,64 @@ public class GenericObjectPool<T, E extends Exception> extends BaseGenericObject
         toDestroy.invalidate();
         idleObjects.remove(toDestroy);
         allObjects.remove(IdentityWrapper.unwrap(toDestroy));
+        updateStatsRelease(toDestroy);
+        abandonedWheel.cancel(toDestroy);
+        idleIndex.cancel(toDestroy);
+        keepAliveSchedule.cancel(toDestroy);
         try {
-            factory.destroyObject(toDestroy, destroyMode);
+            if (asyncFactory != null) {
+                destroyAsync(toDestroy, destroyMode);
+            } else {
+                factory.destroyObject(toDestroy, destroyMode);
+            }
         } finally {
-            destroyedCount.incrementAndGet();
+            updateStatsDestroy();
             createCount.decrementAndGet();
+            serveAsyncBorrowers();
+        }
+    }
+
+    /**
+     * Destroys an object through an asynchronous factory without waiting for
+     * it, swallowing the exception the destruction fails with, if any.
+     *
+     * @param p The object to destroy.
+     * @param destroyMode DestroyMode context provided to the factory
+     */
+    private void destroyAsync(final PooledObject<T> p, final DestroyMode destroyMode) {
+        PoolImplUtils.toStage(() -> asyncFactory.destroyObjectAsync(p, destroyMode)).whenComplete((v, t) -> {
+            if (t != null) {
+                swallowException(PoolImplUtils.stageException(t));
+            }
+        });
+    }
+
+    /**
+     * Destroys an object the factory made that is not taken into the pool,
+     * swallowing the exception the destruction fails with, if any.
+     *
+     * @param p The object to destroy.
+     */
+    private void destroyCreated(final PooledObject<T> p) {
+        try {
+            factory.destroyObject(p, DestroyMode.NORMAL);
+        } catch (final Exception e) {
+            swallowException(e);
+        }
+    }
+
+    /**
+     * Destroys an object the factory made that is not taken into the pool
+     * without waiting for it if the factory is asynchronous, swallowing the
+     * exception the destruction fails with, if any.
+     *
+     * @param p The object to destroy.
+     */
+    private void destroyCreatedAsync(final PooledObject<T> p) {
+        if (asyncFactory != null) {
+            destroyAsync(p, DestroyMode.NORMAL);
+        } else {
+            destroyCreated(p);
         }
     }
 
@@ -621,6 +1146,18 @@ public class GenericObjectPool<T, E extends Exception> extends BaseGenericObject
         return Duration.between(startInstant, Instant.now());
     }
 
+    /**
+     * Ends the eviction test of an idle object, making it available again, and
+     * serves the asynchronous borrowers that may have queued while it was
+     * under test.
+     *
+     * @param p The idle object under eviction test.
+     */
+    private void endEvictionTest(final PooledObject<T> p) {
+        p.endEvictionTest(idleObjects);
+        serveAsyncBorrowers();
+    }
+
     /**
      * Tries to ensure that {@code idleCount} idle instances exist in the pool.
      * <p>
@@ -633,6 +1170,10 @@ public class GenericObjectPool<T, E extends Exception> extends BaseGenericObject
      * If the factory returns null when creating an instance, a {@code NullPointerException}
      * is thrown.
      * </p>
+     * <p>
+     * When more than one instance is missing, they are created in batches, see
+     * {@link PooledObjectFactory#makeObjects(int)}.
+     * </p>
      *
      * @param idleCount The number of idle instances desired
      * @param always true means create instances even if the pool has no threads waiting
@@ -644,42 +1185,99 @@ public class GenericObjectPool<T, E extends Exception> extends BaseGenericObject
         }
 
         while (idleObjects.size() < idleCount) {
+            final int deficit = idleCount - idleObjects.size();
+            final List<PooledObject<T>> created = deficit > 1 ? createAll(deficit) : Collections.emptyList();
+            if (!created.isEmpty()) {
+                created.forEach(this::pushIdle);
+                continue;
+            }
             final PooledObject<T> p = create(getMaxWaitDuration());
             if (PooledObject.isNull(p)) {
                 // Can't create objects, no reason to think another call to
                 // create will work. Give up.
                 break;
             }
-            if (getLifo()) {
-                idleObjects.addFirst(p);
-            } else {
-                idleObjects.addLast(p);
-            }
+            pushIdle(p);
         }
         if (isClosed()) {
             // Pool closed while object was being added to idle objects.
             // Make sure the returned object is destroyed rather than left
             // in the idle object pool (which would effectively be a leak)
             clear();
+        } else {
+            serveAsyncBorrowers();
+        }
+    }
+
+    /**
+     * Tries to ensure that {@code idleCount} idle instances exist in the pool
+     * with an asynchronous factory, starting the creation of the missing
+     * instances without waiting for them.
+     *
+     * @param idleCount The number of idle instances desired
+     */
+    private void ensureIdleAsync(final int idleCount) {
+        if (idleCount < 1 || isClosed()) {
+            return;
+        }
+        for (int deficit = idleCount - idleObjects.size() - asyncIdleCreateCount.get(); deficit > 0 && reserveCreate(); deficit--) {
+            asyncIdleCreateCount.incrementAndGet();
+            createAsync().whenComplete((p, t) -> {
+                try {
+                    if (t != null) {
+                        swallowException(PoolImplUtils.stageException(t));
+                    } else if (p != null) {
+                        pushIdle(p);
+                        if (isClosed()) {
+                            clear();
+                        } else {
+                            serveAsyncBorrowers();
+                        }
+                    }
+                } finally {
+                    asyncIdleCreateCount.decrementAndGet();
+                }
+            });
         }
     }
 
+    /**
+     * Tries to ensure that {@link #getMinIdle()} idle instances exist in the
+     * pool. With an asynchronous factory, the missing instances are created
+     * without waiting for them.
+     */
     @Override
     void ensureMinIdle() throws E {
-        ensureIdle(getMinIdle(), true);
+        if (asyncFactory != null) {
+            ensureIdleAsync(getMinIdle());
+        } else {
+            ensureIdle(getMinIdle(), true);
+        }
     }
 
     /**
      * {@inheritDoc}
      * <p>
      * Successive activations of this method examine objects in sequence,
-     * cycling through objects in oldest-to-youngest order.
+     * cycling through objects in oldest-to-youngest order. If
+     * {@link #getIndexedEviction()} is {@code true}, the objects that have been
+     * idle long enough to be evicted are examined first, and objects are only
+     * examined in sequence to validate them when {@link #getTestWhileIdle()} is
+     * {@code true}.
+     * </p>
+     * <p>
+     * Unless they are validated in parallel, see
+     * {@link #getTestWhileIdleParallelism()}, or the run has a time budget,
+     * see {@link #getMaxEvictionRunDuration()}, the objects of a run that are
+     * kept by the eviction policy are validated together once the run has
+     * examined them, see {@link PooledObjectFactory#validateObjects(List)}.
      * </p>
      */
     @Override
     public void evict() throws E {
         assertOpen();
 
+        boolean exhausted = false;
         if (!idleObjects.isEmpty()) {
 
             PooledObject<T> underTest = null;
@@ -691,15 +1289,33 @@ public class GenericObjectPool<T, E extends Exception> extends BaseGenericObject
                         getSoftMinEvictableIdleDuration(),
                         getMinIdle());
 
+                final EvictionRun evictionRun = new EvictionRun(idleObjects.size());
+                if (PoolImplUtils.isPositive(getMaxLifetime())) {
+                    replaceExpiring(evictionRun);
+                }
                 final boolean testWhileIdle = getTestWhileIdle();
-
-                for (int i = 0, m = getNumTests(); i < m; i++) {
+                final boolean indexedEviction = getIndexedEviction();
+                if (indexedEviction) {
+                    evictIndexed(evictionPolicy, evictionConfig, evictionRun);
+                }
+                final boolean testAsync = testWhileIdle && asyncFactory != null;
+                final ExecutorService testExecutor = testWhileIdle && !testAsync ? getTestWhileIdleExecutor() : null;
+                final List<Callable<Void>> tests = new ArrayList<>();
+                final List<PooledObject<T>> toTest = new ArrayList<>();
+                int busyCount = 0;
+
+                for (int i = 0, m = indexedEviction && !testWhileIdle ? 0 : getNumTests(); i < m; i++) {
+                    if (evictionRun.isOver()) {
+                        // Out of time, the next run resumes from here.
+                        break;
+                    }
                     if (evictionIterator == null || !evictionIterator.hasNext()) {
                         evictionIterator = new EvictionIterator(idleObjects);
                     }
                     if (!evictionIterator.hasNext()) {
-                        // Pool exhausted, nothing to do here
-                        return;
+                        // Pool exhausted, nothing to do here but to finish the tests already started
+                        exhausted = true;
+                        break;
                     }
 
                     try {
@@ -716,8 +1332,13 @@ public class GenericObjectPool<T, E extends Exception> extends BaseGenericObject
                         // Object was borrowed in another thread
                         // Don't count this as an eviction test so reduce i;
                         i--;
+                        if (++busyCount > idleObjects.size()) {
+                            // Every idle object is under test, for example by asynchronous validations.
+                            break;
+                        }
                         continue;
                     }
+                    evictionRun.examined();
 
                     // User provided eviction policy could throw all sorts of
                     // crazy exceptions. Protect against such an exception
@@ -738,57 +1359,95 @@ public class GenericObjectPool<T, E extends Exception> extends BaseGenericObject
                     if (evict) {
                         destroy(underTest, DestroyMode.NORMAL);
                         destroyedByEvictorCount.incrementAndGet();
-                    } else {
-                        if (testWhileIdle) {
-                            boolean active = false;
+                    } else if (testAsync) {
+                        testIdleObjectAsync(underTest);
+                    } else if (testExecutor != null) {
+                        final PooledObject<T> p = underTest;
+                        tests.add(() -> {
                             try {
-                                factory.activateObject(underTest);
-                                active = true;
-                            } catch (final Exception e) {
-                                destroy(underTest, DestroyMode.NORMAL);
-                                destroyedByEvictorCount.incrementAndGet();
-                            }
-                            if (active) {
-                                boolean validate = false;
-                                Throwable validationThrowable = null;
-                                try {
-                                    validate = factory.validateObject(underTest);
-                                } catch (final Throwable t) {
-                                    PoolUtils.checkRethrow(t);
-                                    validationThrowable = t;
-                                }
-                                if (!validate) {
-                                    destroy(underTest, DestroyMode.NORMAL);
-                                    destroyedByEvictorCount.incrementAndGet();
-                                    if (validationThrowable != null) {
-                                        if (validationThrowable instanceof RuntimeException) {
-                                            throw (RuntimeException) validationThrowable;
-                                        }
-                                        throw (Error) validationThrowable;
-                                    }
-                                } else {
-                                    try {
-                                        factory.passivateObject(underTest);
-                                    } catch (final Exception e) {
-                                        destroy(underTest, DestroyMode.NORMAL);
-                                        destroyedByEvictorCount.incrementAndGet();
-                                    }
+                                testIdleObject(p);
+                            } finally {
+                                endEvictionTest(p);
+                                // Closed meanwhile, the idle objects were cleared without it.
+                                if (isClosed() && idleObjects.remove(p)) {
+                                    destroy(p, DestroyMode.NORMAL);
                                 }
                             }
+                            return null;
+                        });
+                    } else if (testWhileIdle && !evictionRun.isBudgeted()) {
+                        // Stays under test until the objects of the run are validated together.
+                        toTest.add(underTest);
+                    } else {
+                        if (testWhileIdle) {
+                            testIdleObject(underTest);
                         }
-                        underTest.endEvictionTest(idleObjects);
+                        endEvictionTest(underTest);
                         // TODO - May need to add code here once additional
                         // states are used
                     }
                 }
+                if (!tests.isEmpty()) {
+                    testIdleObjects(testExecutor, tests, evictionRun);
+                }
+                if (!toTest.isEmpty()) {
+                    try {
+                        testIdleObjects(toTest);
+                    } finally {
+                        toTest.forEach(this::endEvictionTest);
+                    }
+                }
+                keepAliveIdleObjects(evictionRun);
+                evictionRun.end();
             }
         }
         final AbandonedConfig ac = this.abandonedConfig;
-        if (ac != null && ac.getRemoveAbandonedOnMaintenance()) {
+        if (!exhausted && ac != null && ac.getRemoveAbandonedOnMaintenance()) {
             removeAbandoned(ac);
         }
     }
 
+    /**
+     * Passes the objects that have been idle long enough to be evicted to the
+     * eviction policy, oldest first. Objects left over when the time budget of
+     * the run is spent are scheduled again. Must be called holding the eviction
+     * lock.
+     *
+     * @param evictionPolicy The eviction policy.
+     * @param evictionConfig The eviction configuration.
+     * @param evictionRun The eviction run.
+     * @throws E If an object cannot be destroyed.
+     */
+    private void evictIndexed(final EvictionPolicy<T> evictionPolicy, final EvictionConfig evictionConfig, final EvictionRun evictionRun) throws E {
+        for (final PooledObject<T> underTest : expireIdleIndex(idleIndex, idleObjects, evictionConfig)) {
+            if (evictionRun.isOver()) {
+                scheduleEvictionCheck(idleIndex, underTest);
+                continue;
+            }
+            if (!underTest.startEvictionTest()) {
+                // Borrowed in another thread, scheduled again once it is returned.
+                continue;
+            }
+            evictionRun.examined();
+            boolean evict;
+            try {
+                evict = evictionPolicy.evict(evictionConfig, underTest, idleObjects.size());
+            } catch (final Throwable t) {
+                PoolUtils.checkRethrow(t);
+                swallowException(new Exception(t));
+                evict = false;
+            }
+            if (evict) {
+                destroy(underTest, DestroyMode.NORMAL);
+                destroyedByEvictorCount.incrementAndGet();
+            } else {
+                // Kept by the policy, for example to honor minIdle, so examine it again next run.
+                idleIndex.schedule(underTest, underTest.getLastReturnInstant().toEpochMilli());
+                endEvictionTest(underTest);
+            }
+        }
+    }
+
     /**
      * Gets a reference to the factory used to create, destroy and validate
      * the objects used by this pool.
@@ -898,7 +1557,7 @@ public class GenericObjectPool<T, E extends Exception> extends BaseGenericObject
     @Override
     public int getNumWaiters() {
         if (getBlockWhenExhausted()) {
-            return idleObjects.getTakeQueueLength();
+            return idleObjects.getTakeQueueLength() + asyncWaiterCount.get();
         }
         return 0;
     }
@@ -958,6 +1617,73 @@ public class GenericObjectPool<T, E extends Exception> extends BaseGenericObject
         ensureIdle(1, false);
     }
 
+    /**
+     * Keeps alive the idle objects that have not been used for
+     * {@link #getKeepAliveInterval()}, destroying the ones the factory reports
+     * dead. Stops once the time budget of the run is spent, after keeping at
+     * least one object alive, the objects left over being kept alive by the
+     * next run. Must be called holding the eviction lock.
+     *
+     * @param evictionRun The eviction run.
+     * @throws E if an error occurs destroying idle instances
+     */
+    private void keepAliveIdleObjects(final EvictionRun evictionRun) throws E {
+        int keptAlive = 0;
+        for (final PooledObject<T> p : expireKeepAlives(keepAliveSchedule, idleObjects)) {
+            if (keptAlive > 0 && evictionRun.remainingNanos() <= 0) {
+                // Out of time, due again in the next run.
+                scheduleKeepAlive(keepAliveSchedule, p);
+                continue;
+            }
+            if (!p.startEvictionTest()) {
+                // Borrowed or under test in another thread.
+                rescheduleKeepAlive(keepAliveSchedule, p);
+                continue;
+            }
+            keptAlive++;
+            keepAliveCount.incrementAndGet();
+            boolean alive;
+            try {
+                alive = factory.keepAliveObject(p);
+            } catch (final Throwable t) {
+                PoolUtils.checkRethrow(t);
+                swallowException(new Exception(t));
+                alive = false;
+            }
+            if (alive) {
+                rescheduleKeepAlive(keepAliveSchedule, p);
+                endEvictionTest(p);
+            } else {
+                updateStatsValidationFailure();
+                destroy(p, DestroyMode.NORMAL);
+            }
+        }
+    }
+
+    /**
+     * Destroys an idle object that failed an asynchronous eviction test.
+     *
+     * @param underTest The idle object under eviction test.
+     */
+    private void destroyTestedAsync(final PooledObject<T> underTest) {
+        try {
+            destroy(underTest, DestroyMode.NORMAL);
+            destroyedByEvictorCount.incrementAndGet();
+        } catch (final Exception e) {
+            swallowException(e);
+        }
+    }
+
+    /**
+     * Tests whether the pool has capacity to create an object.
+     *
+     * @return Whether fewer than {@link #getMaxTotal()} objects are in circulation or being created.
+     */
+    private boolean hasCreateCapacity() {
+        final int localMaxTotal = getMaxTotal();
+        return localMaxTotal < 0 || createCount.get() < localMaxTotal;
+    }
+
     /**
      * Provides information on all the objects in the pool, both idle (waiting
      * to be borrowed) and active (currently borrowed).
@@ -986,7 +1712,36 @@ public class GenericObjectPool<T, E extends Exception> extends BaseGenericObject
         if (getMinIdle() < 1) {
             return;
         }
-        ensureMinIdle();
+        ensureIdle(getMinIdle(), true);
+    }
+
+    /**
+     * Passivates an object, asynchronously if the factory is asynchronous.
+     *
+     * @param p The object to passivate.
+     * @return A stage completed once the object is passivated.
+     */
+    private CompletionStage<Void> passivateAsync(final PooledObject<T> p) {
+        return PoolImplUtils.toStage(asyncFactory != null ? () -> asyncFactory.passivateObjectAsync(p) : () -> {
+            factory.passivateObject(p);
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    /**
+     * Adds a new or passivated object to the idle objects, scheduling its
+     * eviction check and keepalive.
+     *
+     * @param p The object to add.
+     */
+    private void pushIdle(final PooledObject<T> p) {
+        if (getLifo()) {
+            idleObjects.addFirst(p);
+        } else {
+            idleObjects.addLast(p);
+        }
+        scheduleEvictionCheck(idleIndex, p);
+        scheduleKeepAlive(keepAliveSchedule, p);
     }
 
     /**
@@ -998,7 +1753,7 @@ public class GenericObjectPool<T, E extends Exception> extends BaseGenericObject
     @SuppressWarnings("resource") // PrintWriter is managed elsewhere
     private void removeAbandoned(final AbandonedConfig abandonedConfig) {
         // Generate a list of abandoned objects to remove
-        final ArrayList<PooledObject<T>> remove = createRemoveList(abandonedConfig, allObjects);
+        final ArrayList<PooledObject<T>> remove = createRemoveList(abandonedConfig, abandonedWheel, allObjects);
         // Now remove the abandoned objects
         remove.forEach(pooledObject -> {
             if (abandonedConfig.getLogAbandoned()) {
@@ -1042,10 +1797,13 @@ public class GenericObjectPool<T, E extends Exception> extends BaseGenericObject
         }
 
         markReturningState(p);
+        updateStatsRelease(p);
+        abandonedWheel.cancel(p);
 
         final Duration activeTime = p.getActiveDuration();
 
         if (getTestOnReturn() && !factory.validateObject(p)) {
+            updateStatsValidationFailure();
             try {
                 destroy(p, DestroyMode.NORMAL);
             } catch (final Exception e) {
@@ -1084,9 +1842,13 @@ public class GenericObjectPool<T, E extends Exception> extends BaseGenericObject
         }
 
         final int maxIdleSave = getMaxIdle();
-        if (isClosed() || maxIdleSave > -1 && maxIdleSave <= idleObjects.size()) {
+        final boolean expired = isExpired(p);
+        if (isClosed() || expired || maxIdleSave > -1 && maxIdleSave <= idleObjects.size()) {
             try {
                 destroy(p, DestroyMode.NORMAL);
+                if (expired) {
+                    destroyedByMaxLifetimeCount.incrementAndGet();
+                }
             } catch (final Exception e) {
                 swallowException(e);
             }
@@ -1101,16 +1863,116 @@ public class GenericObjectPool<T, E extends Exception> extends BaseGenericObject
             } else {
                 idleObjects.addLast(p);
             }
+            scheduleEvictionCheck(idleIndex, p);
+            scheduleKeepAlive(keepAliveSchedule, p);
             if (isClosed()) {
                 // Pool closed while object was being added to idle objects.
                 // Make sure the returned object is destroyed rather than left
                 // in the idle object pool (which would effectively be a leak)
                 clear();
+            } else {
+                serveAsyncBorrowers();
             }
         }
         updateStatsReturn(activeTime);
     }
 
+    /**
+     * Reserves capacity to create an object without waiting, see
+     * {@link #create(Duration)}.
+     *
+     * @return Whether capacity was reserved, in which case the caller must
+     *         create the object with {@link #createAsync()}.
+     */
+    private boolean reserveCreate() {
+        return reserveCreate(1) == 1;
+    }
+
+    /**
+     * Reserves capacity to create up to {@code count} objects without waiting,
+     * see {@link #create(Duration)}.
+     *
+     * @param count The number of objects to reserve capacity for.
+     * @return The number of objects capacity was reserved for, which the
+     *         caller must release once they are created or have failed.
+     */
+    private int reserveCreate(final int count) {
+        int localMaxTotal = getMaxTotal();
+        if (localMaxTotal < 0) {
+            localMaxTotal = Integer.MAX_VALUE;
+        }
+        synchronized (makeObjectCountLock) {
+            final int reserved = (int) Math.max(0, Math.min(count, localMaxTotal - createCount.get()));
+            createCount.addAndGet(reserved);
+            makeObjectCount += reserved;
+            return reserved;
+        }
+    }
+
+    /**
+     * Destroys the idle objects that would reach their maximum lifetime before
+     * the next eviction run. When destroying an object would leave fewer than
+     * {@link #getMinIdle()} idle objects, a replacement is created first, and
+     * an object that has not expired yet is kept if there is no capacity for a
+     * replacement. Looks at each idle object at most once, and stops once the
+     * time budget of the run is spent, the next run resuming from there. At
+     * least one object is looked at and the run is left to the eviction test,
+     * so that both make progress. Must be called holding the eviction lock.
+     *
+     * @param evictionRun The eviction run.
+     * @throws E If an object cannot be destroyed.
+     */
+    private void replaceExpiring(final EvictionRun evictionRun) throws E {
+        for (int i = 0, m = idleObjects.size(); i < m; i++) {
+            if (i > 0 && evictionRun.remainingNanos() <= 0) {
+                return;
+            }
+            if (lifetimeIterator == null || !lifetimeIterator.hasNext()) {
+                lifetimeIterator = idleObjects.iterator();
+                if (!lifetimeIterator.hasNext()) {
+                    return;
+                }
+            }
+            final PooledObject<T> p = lifetimeIterator.next();
+            if (!isExpiringBeforeNextEvictionRun(p)) {
+                continue;
+            }
+            if (!p.startEvictionTest()) {
+                // Borrowed in another thread, checked again when it is returned.
+                continue;
+            }
+            if (idleObjects.size() <= getMinIdle()) {
+                PooledObject<T> replacement = null;
+                try {
+                    replacement = create(Duration.ZERO);
+                    addIdleObject(replacement);
+                } catch (final Exception e) {
+                    swallowException(e);
+                }
+                if (PooledObject.isNull(replacement) && !isExpired(p)) {
+                    endEvictionTest(p);
+                    continue;
+                }
+            }
+            destroy(p, DestroyMode.NORMAL);
+            destroyedByMaxLifetimeCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Serves the asynchronous borrowers waiting for an object while objects
+     * are idle or can be created.
+     */
+    private void serveAsyncBorrowers() {
+        AsyncBorrow<T> borrow;
+        while (!asyncBorrowers.isEmpty() && (!idleObjects.isEmpty() || hasCreateCapacity() || isClosed())
+                && (borrow = asyncBorrowers.poll()) != null) {
+            if (stopWaiting(borrow)) {
+                borrowAsync(borrow);
+            }
+        }
+    }
+
     /**
      * Sets the base pool configuration.
      *
@@ -1166,6 +2028,162 @@ public class GenericObjectPool<T, E extends Exception> extends BaseGenericObject
         this.minIdle = minIdle;
     }
 
+    /**
+     * Takes an asynchronous borrower out of the wait, leaving its entry in the
+     * queue to be skipped when polled.
+     *
+     * @param borrow The asynchronous borrower.
+     * @return Whether the borrower was waiting, that is whether the caller took it over.
+     */
+    private boolean stopWaiting(final AsyncBorrow<T> borrow) {
+        if (borrow.waiting.compareAndSet(true, false)) {
+            asyncWaiterCount.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Activates, validates and passivates an idle object under eviction test,
+     * destroying it if any of these steps fails.
+     *
+     * @param underTest The idle object under eviction test.
+     * @throws E If the object cannot be destroyed.
+     */
+    private void testIdleObject(final PooledObject<T> underTest) throws E {
+        boolean active = false;
+        try {
+            factory.activateObject(underTest);
+            active = true;
+        } catch (final Exception e) {
+            destroy(underTest, DestroyMode.NORMAL);
+            destroyedByEvictorCount.incrementAndGet();
+        }
+        if (active) {
+            boolean validate = false;
+            Throwable validationThrowable = null;
+            try {
+                validate = factory.validateObject(underTest);
+            } catch (final Throwable t) {
+                PoolUtils.checkRethrow(t);
+                validationThrowable = t;
+            }
+            if (!validate) {
+                updateStatsValidationFailure();
+                destroy(underTest, DestroyMode.NORMAL);
+                destroyedByEvictorCount.incrementAndGet();
+                if (validationThrowable != null) {
+                    if (validationThrowable instanceof RuntimeException) {
+                        throw (RuntimeException) validationThrowable;
+                    }
+                    throw (Error) validationThrowable;
+                }
+            } else {
+                try {
+                    factory.passivateObject(underTest);
+                } catch (final Exception e) {
+                    destroy(underTest, DestroyMode.NORMAL);
+                    destroyedByEvictorCount.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Validates an idle object under eviction test through an asynchronous
+     * factory without waiting for it. The object stays under test until the
+     * validation completes, then it is either made available again or
+     * destroyed.
+     *
+     * @param underTest The idle object under eviction test.
+     */
+    private void testIdleObjectAsync(final PooledObject<T> underTest) {
+        activateAsync(underTest).whenComplete((v, t) -> {
+            if (t != null) {
+                destroyTestedAsync(underTest);
+                return;
+            }
+            validateAsync(underTest).whenComplete((valid, validationThrowable) -> {
+                if (validationThrowable != null || !Boolean.TRUE.equals(valid)) {
+                    updateStatsValidationFailure();
+                    if (validationThrowable != null) {
+                        swallowException(PoolImplUtils.stageException(validationThrowable));
+                    }
+                    destroyTestedAsync(underTest);
+                    return;
+                }
+                passivateAsync(underTest).whenComplete((pv, passivationThrowable) -> {
+                    if (passivationThrowable != null) {
+                        destroyTestedAsync(underTest);
+                    } else {
+                        endEvictionTest(underTest);
+                    }
+                });
+            });
+        });
+    }
+
+    /**
+     * Activates, validates together and passivates idle objects under
+     * eviction test, destroying each object for which any of these steps
+     * fails. Every object is dealt with before an exception is thrown.
+     *
+     * @param underTest The idle objects under eviction test.
+     * @throws E If an object cannot be destroyed.
+     */
+    private void testIdleObjects(final List<PooledObject<T>> underTest) throws E {
+        Exception failure = null;
+        final List<PooledObject<T>> active = new ArrayList<>(underTest.size());
+        for (final PooledObject<T> p : underTest) {
+            try {
+                factory.activateObject(p);
+                active.add(p);
+            } catch (final Exception e) {
+                try {
+                    destroy(p, DestroyMode.NORMAL);
+                    destroyedByEvictorCount.incrementAndGet();
+                } catch (final Exception de) {
+                    failure = failure == null ? de : failure;
+                }
+            }
+        }
+        boolean[] valid = null;
+        Throwable validationThrowable = null;
+        if (!active.isEmpty()) {
+            try {
+                valid = factory.validateObjects(active);
+            } catch (final Throwable t) {
+                PoolUtils.checkRethrow(t);
+                validationThrowable = t;
+            }
+        }
+        for (int i = 0; i < active.size(); i++) {
+            final PooledObject<T> p = active.get(i);
+            try {
+                if (valid == null || i >= valid.length || !valid[i]) {
+                    updateStatsValidationFailure();
+                    destroy(p, DestroyMode.NORMAL);
+                    destroyedByEvictorCount.incrementAndGet();
+                } else {
+                    try {
+                        factory.passivateObject(p);
+                    } catch (final Exception e) {
+                        destroy(p, DestroyMode.NORMAL);
+                        destroyedByEvictorCount.incrementAndGet();
+                    }
+                }
+            } catch (final Exception e) {
+                failure = failure == null ? e : failure;
+            }
+        }
+        if (validationThrowable != null) {
+            throw cast(validationThrowable);
+        }
+        if (failure != null) {
+            throw cast(failure);
+        }
+    }
+
     @Override
     protected void toStringAppendFields(final StringBuilder builder) {
         super.toStringAppendFields(builder);
@@ -1198,4 +2216,14 @@ public class GenericObjectPool<T, E extends Exception> extends BaseGenericObject
         }
     }
 
+    /**
+     * Validates an object, asynchronously if the factory is asynchronous.
+     *
+     * @param p The object to validate.
+     * @return A stage completed with the result of the validation.
+     */
+    private CompletionStage<Boolean> validateAsync(final PooledObject<T> p) {
+        return PoolImplUtils.toStage(asyncFactory != null ? () -> asyncFactory.validateObjectAsync(p)
+                : () -> CompletableFuture.completedFuture(Boolean.valueOf(factory.validateObject(p))));
+    }
 }
@@ -16,6 +16,8 @@
  */
 package org.apache.commons.pool3.impl;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -45,6 +47,14 @@ public interface GenericObjectPoolMXBean {
      */
     long getBorrowedCount();
 
+    /**
+     * See {@link GenericObjectPool#getBorrowedRates()}.
+     *
+     * @return See {@link GenericObjectPool#getBorrowedRates()}.
+     * @since 3.0.0
+     */
+    Map<String, Double> getBorrowedRates();
+
     /**
      * See {@link GenericObjectPool#getCreatedCount()}.
      *
@@ -52,6 +62,14 @@ public interface GenericObjectPoolMXBean {
      */
     long getCreatedCount();
 
+    /**
+     * See {@link GenericObjectPool#getCreatedRates()}.
+     *
+     * @return See {@link GenericObjectPool#getCreatedRates()}.
+     * @since 3.0.0
+     */
+    Map<String, Double> getCreatedRates();
+
     /**
      * See {@link GenericObjectPool#getCreationStackTrace()}.
      *
@@ -73,6 +91,14 @@ public interface GenericObjectPoolMXBean {
      */
     long getDestroyedByEvictorCount();
 
+    /**
+     * See {@link GenericObjectPool#getDestroyedByMaxLifetimeCount()}.
+     *
+     * @return See {@link GenericObjectPool#getDestroyedByMaxLifetimeCount()}.
+     * @since 3.0.0
+     */
+    long getDestroyedByMaxLifetimeCount();
+
     /**
      * See {@link GenericObjectPool#getDestroyedCount()}.
      *
@@ -80,6 +106,14 @@ public interface GenericObjectPoolMXBean {
      */
     long getDestroyedCount();
 
+    /**
+     * See {@link GenericObjectPool#getDestroyedRates()}.
+     *
+     * @return See {@link GenericObjectPool#getDestroyedRates()}.
+     * @since 3.0.0
+     */
+    Map<String, Double> getDestroyedRates();
+
     /**
      * See {@link GenericObjectPool#getFactoryType()}.
      *
@@ -87,6 +121,14 @@ public interface GenericObjectPoolMXBean {
      */
     String getFactoryType();
 
+    /**
+     * See {@link GenericObjectPool#getEvictionRunCount()}.
+     *
+     * @return See {@link GenericObjectPool#getEvictionRunCount()}.
+     * @since 3.0.0
+     */
+    long getEvictionRunCount();
+
     /**
      * See {@link GenericObjectPool#getLifo()}.
      *
@@ -94,6 +136,22 @@ public interface GenericObjectPoolMXBean {
      */
     boolean getFairness();
 
+    /**
+     * See {@link GenericObjectPool#getIndexedEviction()}.
+     *
+     * @return See {@link GenericObjectPool#getIndexedEviction()}.
+     * @since 3.0.0
+     */
+    boolean getIndexedEviction();
+
+    /**
+     * See {@link GenericObjectPool#getKeepAliveCount()}.
+     *
+     * @return See {@link GenericObjectPool#getKeepAliveCount()}.
+     * @since 3.0.0
+     */
+    long getKeepAliveCount();
+
     /**
      * See {@link GenericObjectPool#getFairness()}.
      *
@@ -150,6 +208,30 @@ public interface GenericObjectPoolMXBean {
      */
     long getMeanBorrowWaitTimeMillis();
 
+    /**
+     * See {@link GenericObjectPool#getMeanEvictionRunCoverage()}.
+     *
+     * @return See {@link GenericObjectPool#getMeanEvictionRunCoverage()}.
+     * @since 3.0.0
+     */
+    double getMeanEvictionRunCoverage();
+
+    /**
+     * See {@link GenericObjectPool#getMeanEvictionRunDelayMillis()}.
+     *
+     * @return See {@link GenericObjectPool#getMeanEvictionRunDelayMillis()}.
+     * @since 3.0.0
+     */
+    long getMeanEvictionRunDelayMillis();
+
+    /**
+     * See {@link GenericObjectPool#getMeanEvictionRunTimeMillis()}.
+     *
+     * @return See {@link GenericObjectPool#getMeanEvictionRunTimeMillis()}.
+     * @since 3.0.0
+     */
+    long getMeanEvictionRunTimeMillis();
+
     /**
      * See {@link GenericObjectPool#getMeanIdleTimeMillis()}.
      *
@@ -220,6 +302,14 @@ public interface GenericObjectPoolMXBean {
      */
     int getRemoveAbandonedTimeout();
 
+    /**
+     * See {@link GenericObjectPool#getSkippedEvictionRunCount()}.
+     *
+     * @return See {@link GenericObjectPool#getSkippedEvictionRunCount()}.
+     * @since 3.0.0
+     */
+    long getSkippedEvictionRunCount();
+
     /**
      * See {@link GenericObjectPool#getReturnedCount()}.
      *
@@ -227,6 +317,14 @@ public interface GenericObjectPoolMXBean {
      */
     long getReturnedCount();
 
+    /**
+     * See {@link GenericObjectPool#getReturnedRates()}.
+     *
+     * @return See {@link GenericObjectPool#getReturnedRates()}.
+     * @since 3.0.0
+     */
+    Map<String, Double> getReturnedRates();
+
     /**
      * See {@link GenericObjectPool#getTestOnBorrow()}.
      *
@@ -256,6 +354,14 @@ public interface GenericObjectPoolMXBean {
      */
     boolean getTestWhileIdle();
 
+    /**
+     * See {@link GenericObjectPool#getTestWhileIdleParallelism()}.
+     *
+     * @return See {@link GenericObjectPool#getTestWhileIdleParallelism()}.
+     * @since 3.0.0
+     */
+    int getTestWhileIdleParallelism();
+
     /**
      * See {@link GenericObjectPool#getDurationBetweenEvictionRuns()}.
      *
@@ -263,6 +369,30 @@ public interface GenericObjectPoolMXBean {
      */
     long getTimeBetweenEvictionRunsMillis();
 
+    /**
+     * See {@link GenericObjectPool#getTimeLimitedEvictionRunCount()}.
+     *
+     * @return See {@link GenericObjectPool#getTimeLimitedEvictionRunCount()}.
+     * @since 3.0.0
+     */
+    long getTimeLimitedEvictionRunCount();
+
+    /**
+     * See {@link GenericObjectPool#getTimeoutRates()}.
+     *
+     * @return See {@link GenericObjectPool#getTimeoutRates()}.
+     * @since 3.0.0
+     */
+    Map<String, Double> getTimeoutRates();
+
+    /**
+     * See {@link GenericObjectPool#getValidationFailureRates()}.
+     *
+     * @return See {@link GenericObjectPool#getValidationFailureRates()}.
+     * @since 3.0.0
+     */
+    Map<String, Double> getValidationFailureRates();
+
     /**
      * See {@link GenericObjectPool#isAbandonedConfig()}.
      *
@@ -283,4 +413,12 @@ public interface GenericObjectPoolMXBean {
      * @return See {@link GenericObjectPool#listAllObjects()}.
      */
     Set<DefaultPooledObjectInfo> listAllObjects();
+
+    /**
+     * See {@link GenericObjectPool#listBorrowSites()}.
+     *
+     * @return See {@link GenericObjectPool#listBorrowSites()}.
+     * @since 3.0.0
+     */
+    List<BorrowSiteInfo> listBorrowSites();
 }
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool3.impl;
+
+/**
+ * The limits of one key of a {@link GenericKeyedObjectPool}, overriding the
+ * per key limits of the pool for that key.
+ * <p>
+ * This class is immutable, and therefore thread-safe.
+ * </p>
+ *
+ * @see GenericKeyedObjectPool#setKeyLimits(java.util.function.Function)
+ * @since 3.0.0
+ */
+public final class KeyLimits {
+
+    private final int maxTotalPerKey;
+    private final int maxIdlePerKey;
+    private final int minIdlePerKey;
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param maxTotalPerKey The cap on the number of object instances for the key, see
+     *                       {@link GenericKeyedObjectPool#setMaxTotalPerKey(int)}.
+     * @param maxIdlePerKey  The cap on the number of idle instances for the key, see
+     *                       {@link GenericKeyedObjectPool#setMaxIdlePerKey(int)}.
+     * @param minIdlePerKey  The target for the minimum number of idle objects for the key, see
+     *                       {@link GenericKeyedObjectPool#setMinIdlePerKey(int)}.
+     */
+    public KeyLimits(final int maxTotalPerKey, final int maxIdlePerKey, final int minIdlePerKey) {
+        this.maxTotalPerKey = maxTotalPerKey;
+        this.maxIdlePerKey = maxIdlePerKey;
+        this.minIdlePerKey = minIdlePerKey;
+    }
+
+    /**
+     * Gets the cap on the number of "idle" instances for the key.
+     *
+     * @return the cap on the number of "idle" instances for the key.
+     */
+    public int getMaxIdlePerKey() {
+        return maxIdlePerKey;
+    }
+
+    /**
+     * Gets the cap on the number of object instances for the key.
+     *
+     * @return the cap on the number of object instances for the key.
+     */
+    public int getMaxTotalPerKey() {
+        return maxTotalPerKey;
+    }
+
+    /**
+     * Gets the target for the minimum number of idle objects to maintain for
+     * the key. As for the pool, the value of {@link #getMaxIdlePerKey()} is
+     * used instead if it is lower.
+     *
+     * @return the target for the minimum number of idle objects for the key.
+     */
+    public int getMinIdlePerKey() {
+        return minIdlePerKey;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("KeyLimits [maxTotalPerKey=");
+        builder.append(maxTotalPerKey);
+        builder.append(", maxIdlePerKey=");
+        builder.append(maxIdlePerKey);
+        builder.append(", minIdlePerKey=");
+        builder.append(minIdlePerKey);
+        builder.append("]");
+        return builder.toString();
+    }
+}
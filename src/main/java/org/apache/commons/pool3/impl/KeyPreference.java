@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool3.impl;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.pool3.KeyedObjectPool;
+
+/**
+ * Orders the keys {@link GenericKeyedObjectPool#borrowAny(java.util.Collection, java.time.Duration)}
+ * takes an idle object from, most preferred first.
+ * <p>
+ * Implementations must be thread-safe, they are called concurrently by
+ * borrowing threads.
+ * </p>
+ *
+ * @param <K> The type of keys.
+ * @see GenericKeyedObjectPool#setKeyPreference(KeyPreference)
+ * @since 3.0.0
+ */
+@FunctionalInterface
+public interface KeyPreference<K> {
+
+    /**
+     * Creates a preference for the keys with the fewest active objects. Keys
+     * with as many active objects keep their order.
+     *
+     * @param <K> The type of keys.
+     * @return A new preference.
+     */
+    static <K> KeyPreference<K> leastActive() {
+        return (keys, pool) -> keys.sort(Comparator.comparingInt(pool::getNumActive));
+    }
+
+    /**
+     * Creates a preference starting with the next key each time, in the order
+     * the keys are given.
+     *
+     * @param <K> The type of keys.
+     * @return A new preference.
+     */
+    static <K> KeyPreference<K> roundRobin() {
+        final AtomicInteger next = new AtomicInteger();
+        return (keys, pool) -> Collections.rotate(keys, -Math.floorMod(next.getAndIncrement(), keys.size()));
+    }
+
+    /**
+     * Orders keys in place, most preferred first.
+     *
+     * @param keys The keys to order, without duplicates, in the order they were given to the pool.
+     * @param pool The pool the keys belong to.
+     */
+    void order(List<K> keys, KeyedObjectPool<K, ?, ?> pool);
+}
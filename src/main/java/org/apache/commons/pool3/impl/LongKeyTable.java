@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool3.impl;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongFunction;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * A map from {@code long} keys to values that never removes entries, read
+ * without locking or boxing.
+ * <p>
+ * Keys from 0 to a given bound are held in a dense array, other keys in an
+ * open addressing table with linear probing, kept at most half full. The
+ * table is replaced by a copy twice as large when it fills up, so readers
+ * holding the previous table still find every entry it had.
+ * </p>
+ * <p>
+ * This class is intended to be thread-safe. Values are added under the lock
+ * of the table, each slot's key is written before its value is published.
+ * </p>
+ *
+ * @param <V> The type of values.
+ * @since 3.0.0
+ */
+final class LongKeyTable<V> {
+
+    /**
+     * An open addressing table.
+     *
+     * @param <V> The type of values.
+     */
+    private static final class Table<V> {
+
+        private final long[] keys;
+        private final AtomicReferenceArray<V> values;
+        private final int mask;
+
+        Table(final int capacity) {
+            this.keys = new long[capacity];
+            this.values = new AtomicReferenceArray<>(capacity);
+            this.mask = capacity - 1;
+        }
+
+        V get(final long key) {
+            for (int i = indexOf(key, mask);; i = i + 1 & mask) {
+                final V value = values.get(i);
+                // The key is written before the value is published.
+                if (value == null || keys[i] == key) {
+                    return value;
+                }
+            }
+        }
+
+        void put(final long key, final V value) {
+            int i = indexOf(key, mask);
+            while (values.get(i) != null) {
+                i = i + 1 & mask;
+            }
+            keys[i] = key;
+            values.set(i, value);
+        }
+    }
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static int indexOf(final long key, final int mask) {
+        final long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ hash >>> 32) & mask;
+    }
+
+    private final AtomicReferenceArray<V> dense;
+
+    private volatile Table<V> table = new Table<>(INITIAL_CAPACITY);
+
+    /** Number of entries, in the dense array and the table. */
+    private volatile int size; // @GuardedBy("this") for write access
+
+    /** Number of entries of the table. */
+    private int tableSize; // @GuardedBy("this")
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param denseLength The keys from 0 to this length, exclusive, are held in a dense array.
+     */
+    LongKeyTable(final int denseLength) {
+        this.dense = new AtomicReferenceArray<>(Math.max(0, denseLength));
+    }
+
+    /**
+     * Gets the value of a key, adding it if there is none.
+     *
+     * @param key The key.
+     * @param mappingFunction Creates the value of a key that has none, called holding the lock of this table.
+     * @return The value of the key.
+     */
+    V computeIfAbsent(final long key, final LongFunction<V> mappingFunction) {
+        final V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        synchronized (this) {
+            V current = get(key);
+            if (current == null) {
+                current = mappingFunction.apply(key);
+                if (isDense(key)) {
+                    dense.set((int) key, current);
+                } else {
+                    Table<V> t = table;
+                    if (tableSize + 1 > t.keys.length / 2) {
+                        t = resize(t);
+                    }
+                    t.put(key, current);
+                    tableSize++;
+                }
+                size++;
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Performs an action on each entry, dense keys first in key order.
+     *
+     * @param action The action, given the value and the key.
+     */
+    void forEach(final ObjLongConsumer<? super V> action) {
+        for (int i = 0; i < dense.length(); i++) {
+            final V value = dense.get(i);
+            if (value != null) {
+                action.accept(value, i);
+            }
+        }
+        final Table<V> t = table;
+        for (int i = 0; i < t.keys.length; i++) {
+            final V value = t.values.get(i);
+            if (value != null) {
+                action.accept(value, t.keys[i]);
+            }
+        }
+    }
+
+    /**
+     * Gets the value of a key.
+     *
+     * @param key The key.
+     * @return The value of the key, or null if there is none.
+     */
+    V get(final long key) {
+        return isDense(key) ? dense.get((int) key) : table.get(key);
+    }
+
+    private boolean isDense(final long key) {
+        return key >= 0 && key < dense.length();
+    }
+
+    /**
+     * Gets the keys, dense keys first in key order.
+     *
+     * @return The keys.
+     */
+    synchronized long[] keys() {
+        final long[] keys = new long[size];
+        int count = 0;
+        for (int i = 0; i < dense.length(); i++) {
+            if (dense.get(i) != null) {
+                keys[count++] = i;
+            }
+        }
+        final Table<V> t = table;
+        for (int i = 0; i < t.keys.length; i++) {
+            if (t.values.get(i) != null) {
+                keys[count++] = t.keys[i];
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Replaces the table by a copy twice as large. Must be called holding the
+     * lock of this table.
+     *
+     * @param t The current table.
+     * @return The new table.
+     */
+    private Table<V> resize(final Table<V> t) {
+        final Table<V> resized = new Table<>(t.keys.length * 2);
+        for (int i = 0; i < t.keys.length; i++) {
+            final V value = t.values.get(i);
+            if (value != null) {
+                resized.put(t.keys[i], value);
+            }
+        }
+        table = resized;
+        return resized;
+    }
+
+    /**
+     * Gets the number of entries.
+     *
+     * @return The number of entries.
+     */
+    int size() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("LongKeyTable [denseLength=");
+        builder.append(dense.length());
+        builder.append(", capacity=");
+        builder.append(table.keys.length);
+        builder.append(", size=");
+        builder.append(size);
+        builder.append("]");
+        return builder.toString();
+    }
+}
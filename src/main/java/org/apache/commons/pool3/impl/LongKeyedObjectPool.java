@@ -0,0 +1,214 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool3.impl;
+
+import java.time.Duration;
+
+import org.apache.commons.pool3.DestroyMode;
+import org.apache.commons.pool3.KeyedPooledObjectFactory;
+
+/**
+ * A keyed pool with {@code long} keys, such as shard identifiers, that does not
+ * box the key when objects are borrowed and returned.
+ * <p>
+ * Each key has a {@link GenericObjectPool} sub-pool configured with the
+ * configuration given to the pool, held in a dense array for the keys from 0
+ * to a given bound and in an open addressing table for other keys. Objects
+ * are made, validated and destroyed by a {@link KeyedPooledObjectFactory},
+ * which is given the key boxed once per sub-pool, and each sub-pool is
+ * maintained by its own evictor as configured. Limits, such as
+ * {@link GenericObjectPoolConfig#getMaxTotal()}, apply to each key. Sub-pools
+ * are kept once created, the pool suits small or bounded key sets.
+ * </p>
+ * <p>
+ * This class is intended to be thread-safe.
+ * </p>
+ *
+ * @param <T> Type of element pooled in this pool.
+ * @param <E> Type of exception thrown in this pool.
+ * @see IntKeyedObjectPool
+ * @since 3.0.0
+ */
+public class LongKeyedObjectPool<T, E extends Exception> extends BasePrimitiveKeyedObjectPool<Long, T, E> {
+
+    /**
+     * Constructs a new instance using defaults from {@link GenericObjectPoolConfig}.
+     *
+     * @param factory The factory to be used to create entries.
+     */
+    public LongKeyedObjectPool(final KeyedPooledObjectFactory<Long, T, E> factory) {
+        this(factory, new GenericObjectPoolConfig<>());
+    }
+
+    /**
+     * Constructs a new instance using a specific configuration, holding every
+     * sub-pool in the hash table.
+     *
+     * @param factory The factory to be used to create entries.
+     * @param config The configuration of each sub-pool, used by value.
+     */
+    public LongKeyedObjectPool(final KeyedPooledObjectFactory<Long, T, E> factory, final GenericObjectPoolConfig<T> config) {
+        this(factory, config, 0);
+    }
+
+    /**
+     * Constructs a new instance using a specific configuration.
+     *
+     * @param factory The factory to be used to create entries.
+     * @param config The configuration of each sub-pool, used by value.
+     * @param denseKeys The sub-pools of the keys from 0 to this number, exclusive, are held in a dense array.
+     */
+    public LongKeyedObjectPool(final KeyedPooledObjectFactory<Long, T, E> factory, final GenericObjectPoolConfig<T> config, final int denseKeys) {
+        super(factory, Long::valueOf, config, denseKeys);
+    }
+
+    /**
+     * Creates an object using the factory, passivates it, and then places it
+     * in the idle objects of the key, see {@link GenericObjectPool#addObject()}.
+     *
+     * @param key The key a new instance should be added to.
+     * @throws E when the factory fails to make or passivate the object.
+     */
+    public void addObject(final long key) throws E {
+        getOrCreateSubPool(key).addObject();
+    }
+
+    /**
+     * Borrows an object of a key, see {@link GenericObjectPool#borrowObject()}.
+     *
+     * @param key The key of the object.
+     * @return An object of the key.
+     * @throws java.util.NoSuchElementException if the sub-pool of the key is exhausted.
+     * @throws E if an object cannot be borrowed due to an error.
+     */
+    public T borrowObject(final long key) throws E {
+        return getOrCreateSubPool(key).borrowObject();
+    }
+
+    /**
+     * Borrows an object of a key, waiting at most the given duration, see
+     * {@link GenericObjectPool#borrowObject(Duration)}.
+     *
+     * @param key The key of the object.
+     * @param maxWaitDuration The time to wait for an object to become available.
+     * @return An object of the key.
+     * @throws java.util.NoSuchElementException if the sub-pool of the key is exhausted.
+     * @throws E if an object cannot be borrowed due to an error.
+     */
+    public T borrowObject(final long key, final Duration maxWaitDuration) throws E {
+        return getOrCreateSubPool(key).borrowObject(maxWaitDuration);
+    }
+
+    /**
+     * Clears the sub-pool of a key, destroying its idle objects.
+     *
+     * @param key The key to clear.
+     */
+    public void clear(final long key) {
+        clearSubPool(key);
+    }
+
+    /**
+     * Gets the keys that have a sub-pool.
+     *
+     * @return The keys, those held in the dense array first in key order.
+     */
+    public long[] getKeys() {
+        return getSubPoolKeys();
+    }
+
+    /**
+     * Gets the number of objects borrowed from the sub-pool of a key.
+     *
+     * @param key The key.
+     * @return The number of objects borrowed.
+     */
+    public int getNumActive(final long key) {
+        return count(key, GenericObjectPool::getNumActive);
+    }
+
+    /**
+     * Gets the number of idle objects of the sub-pool of a key.
+     *
+     * @param key The key.
+     * @return The number of idle objects.
+     */
+    public int getNumIdle(final long key) {
+        return count(key, GenericObjectPool::getNumIdle);
+    }
+
+    /**
+     * Gets the number of threads waiting to borrow an object of a key.
+     *
+     * @param key The key.
+     * @return The number of waiting threads.
+     */
+    public int getNumWaiters(final long key) {
+        return count(key, GenericObjectPool::getNumWaiters);
+    }
+
+    /**
+     * Invalidates an object borrowed under a key, see
+     * {@link GenericObjectPool#invalidateObject(Object)}.
+     *
+     * @param key The key the object was borrowed under.
+     * @param obj The object to invalidate.
+     * @throws E if the object cannot be destroyed.
+     * @throws IllegalStateException if there is no sub-pool for the key or the object is not part of it.
+     */
+    public void invalidateObject(final long key, final T obj) throws E {
+        getSubPoolOfReturn(key).invalidateObject(obj);
+    }
+
+    /**
+     * Invalidates an object borrowed under a key, see
+     * {@link GenericObjectPool#invalidateObject(Object, DestroyMode)}.
+     *
+     * @param key The key the object was borrowed under.
+     * @param obj The object to invalidate.
+     * @param destroyMode The destroy mode given to the factory.
+     * @throws E if the object cannot be destroyed.
+     * @throws IllegalStateException if there is no sub-pool for the key or the object is not part of it.
+     */
+    public void invalidateObject(final long key, final T obj, final DestroyMode destroyMode) throws E {
+        getSubPoolOfReturn(key).invalidateObject(obj, destroyMode);
+    }
+
+    /**
+     * Creates the sub-pool of a key if there is none and fills it up to
+     * {@link GenericObjectPoolConfig#getMinIdle()}, see
+     * {@link GenericObjectPool#preparePool()}.
+     *
+     * @param key The key to prepare.
+     * @throws E if the factory fails to make an object.
+     */
+    public void preparePool(final long key) throws E {
+        getOrCreateSubPool(key).preparePool();
+    }
+
+    /**
+     * Returns an object borrowed under a key, see
+     * {@link GenericObjectPool#returnObject(Object)}.
+     *
+     * @param key The key the object was borrowed under.
+     * @param obj The object to return.
+     * @throws IllegalStateException if there is no sub-pool for the key or the object is not part of it.
+     */
+    public void returnObject(final long key, final T obj) {
+        getSubPoolOfReturn(key).returnObject(obj);
+    }
+}
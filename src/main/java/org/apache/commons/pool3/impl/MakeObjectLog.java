@@ -0,0 +1,327 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool3.impl;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.commons.pool3.impl.ResilientPooledObjectFactory.MakeEvent;
+
+/**
+ * A log of makeObject calls for a {@link ResilientPooledObjectFactory}.
+ * <p>
+ * The last calls are kept in a preallocated ring of start and end times and
+ * outcome codes. Each call takes the next sequence number and writes its slot
+ * under a stamp derived from it: the call claims the slot by setting an odd
+ * stamp with a compare and set, writes the fields, then publishes an even
+ * stamp, so that readers can skip a slot that is being overwritten, and a
+ * call never overwrites a later one. The sequence number of the last failure
+ * is kept apart, which answers whether any of the last calls failed in
+ * constant time. Calls are also counted by outcome in {@value #BUCKETS} buckets of time
+ * spanning the look back duration, so that counts over that duration take a
+ * pass over the buckets. None of these allocate.
+ * </p>
+ * <p>
+ * This class is intended to be thread-safe. A call counted while its bucket is
+ * being reused for a later time may not be counted, and a call logged while
+ * the ring is being resized may be missing from the events of the new ring.
+ * </p>
+ *
+ * @since 3.0.0
+ */
+final class MakeObjectLog {
+
+    /**
+     * The slots of the ring.
+     */
+    private static final class Slots {
+
+        private final int mask;
+        /** Stamp of each slot, odd while the slot is written, see {@link #stamp(long)}. */
+        private final AtomicLongArray stamps;
+        private final AtomicLongArray startMillis;
+        private final AtomicLongArray endMillis;
+        private final AtomicIntegerArray outcomes;
+        private final AtomicReferenceArray<Throwable> exceptions;
+
+        Slots(final int capacity) {
+            final int length = capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+            this.mask = length - 1;
+            this.stamps = new AtomicLongArray(length);
+            this.startMillis = new AtomicLongArray(length);
+            this.endMillis = new AtomicLongArray(length);
+            this.outcomes = new AtomicIntegerArray(length);
+            this.exceptions = new AtomicReferenceArray<>(length);
+            for (int i = 0; i < length; i++) {
+                stamps.set(i, stamp(EMPTY));
+            }
+        }
+
+        /**
+         * Gets the stamp of a slot holding a sequence number, even.
+         *
+         * @param sequence The sequence number.
+         * @return The stamp.
+         */
+        private static long stamp(final long sequence) {
+            return sequence << 1;
+        }
+
+        int length() {
+            return mask + 1;
+        }
+
+        /**
+         * Reads a slot, if it still holds the given sequence number.
+         *
+         * @param sequence The sequence number.
+         * @return The event, or null if the slot holds another sequence number.
+         */
+        MakeEvent read(final long sequence) {
+            final int i = (int) sequence & mask;
+            final long stamp = stamp(sequence);
+            if (stamps.get(i) != stamp) {
+                return null;
+            }
+            final MakeEvent makeEvent = new MakeEvent(Instant.ofEpochMilli(startMillis.get(i)), Instant.ofEpochMilli(endMillis.get(i)),
+                    outcomes.get(i) == SUCCESS, exceptions.get(i));
+            // Unchanged since it was checked, so no write took place meanwhile.
+            return stamps.get(i) == stamp ? makeEvent : null;
+        }
+
+        /**
+         * Writes a slot, unless it holds a later sequence number already.
+         *
+         * @param sequence The sequence number.
+         * @param start The start time of the call in milliseconds.
+         * @param end The end time of the call in milliseconds.
+         * @param outcome The outcome of the call.
+         * @param exception The exception thrown by the call, or null.
+         */
+        void write(final long sequence, final long start, final long end, final int outcome, final Throwable exception) {
+            final int i = (int) sequence & mask;
+            final long stamp = stamp(sequence);
+            long current;
+            while (true) {
+                current = stamps.get(i);
+                if (current >> 1 >= sequence) {
+                    // Taken by a later call, this one is overwritten already.
+                    return;
+                }
+                if ((current & 1) != 0) {
+                    // Being written by an earlier call.
+                    Thread.onSpinWait();
+                } else if (stamps.compareAndSet(i, current, stamp | 1)) {
+                    break;
+                }
+            }
+            startMillis.set(i, start);
+            endMillis.set(i, end);
+            outcomes.set(i, outcome);
+            exceptions.set(i, exception);
+            stamps.set(i, stamp);
+        }
+    }
+
+    /** Outcome of a call that made an object. */
+    static final int SUCCESS = 0;
+
+    /** Outcome of a call that returned null or an empty pooled object. */
+    static final int NULL_OBJECT = 1;
+
+    /** Outcome of a call that threw. */
+    static final int EXCEPTION = 2;
+
+    private static final int OUTCOMES = 3;
+
+    /** Number of time buckets spanning the look back duration. */
+    static final int BUCKETS = 16;
+
+    /** Sequence number of an empty slot. */
+    private static final long EMPTY = -1;
+
+    private volatile Slots slots;
+
+    /** Next sequence number. */
+    private final AtomicLong cursor = new AtomicLong();
+
+    /** Sequence number of the last failed call. */
+    private final AtomicLong lastFailure = new AtomicLong(EMPTY);
+
+    private final long bucketMillis;
+
+    /** Time of each bucket, in units of bucketMillis. */
+    private final AtomicLongArray bucketTimes = new AtomicLongArray(BUCKETS);
+
+    /** Counts of each bucket, {@value #OUTCOMES} per bucket. */
+    private final AtomicLongArray bucketCounts = new AtomicLongArray(BUCKETS * OUTCOMES);
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param capacity The number of calls to keep, rounded up to a power of two.
+     * @param lookBack The duration over which calls are counted.
+     */
+    MakeObjectLog(final int capacity, final Duration lookBack) {
+        this.slots = new Slots(capacity);
+        this.bucketMillis = Math.max(1, lookBack.toMillis() / BUCKETS);
+        for (int i = 0; i < BUCKETS; i++) {
+            bucketTimes.set(i, EMPTY);
+        }
+    }
+
+    /**
+     * Logs a makeObject call.
+     *
+     * @param startMillis The start time of the call in milliseconds.
+     * @param endMillis The end time of the call in milliseconds.
+     * @param outcome The outcome of the call.
+     * @param exception The exception thrown by the call, or null.
+     */
+    void add(final long startMillis, final long endMillis, final int outcome, final Throwable exception) {
+        final long sequence = cursor.getAndIncrement();
+        if (outcome != SUCCESS) {
+            lastFailure.accumulateAndGet(sequence, Math::max);
+        }
+        slots.write(sequence, startMillis, endMillis, outcome, exception);
+        final long time = endMillis / bucketMillis;
+        final int bucket = (int) Math.floorMod(time, (long) BUCKETS);
+        long bucketTime = bucketTimes.get(bucket);
+        while (bucketTime < time) {
+            if (bucketTimes.compareAndSet(bucket, bucketTime, time)) {
+                for (int i = 0; i < OUTCOMES; i++) {
+                    bucketCounts.set(bucket * OUTCOMES + i, 0);
+                }
+                bucketTime = time;
+            } else {
+                bucketTime = bucketTimes.get(bucket);
+            }
+        }
+        if (bucketTime == time) {
+            bucketCounts.incrementAndGet(bucket * OUTCOMES + outcome);
+        }
+    }
+
+    /**
+     * Gets the number of calls the ring keeps.
+     *
+     * @return The capacity.
+     */
+    int capacity() {
+        return slots.length();
+    }
+
+    /**
+     * Counts the calls with a given outcome that ended within the look back
+     * duration, give or take a bucket.
+     *
+     * @param nowMillis The current time in milliseconds.
+     * @param outcome The outcome.
+     * @return The count.
+     */
+    long count(final long nowMillis, final int outcome) {
+        final long oldest = nowMillis / bucketMillis - BUCKETS;
+        long count = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            if (bucketTimes.get(bucket) > oldest) {
+                count += bucketCounts.get(bucket * OUTCOMES + outcome);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the last calls, oldest first.
+     *
+     * @param last The maximum number of calls.
+     * @return The events of the calls.
+     */
+    List<MakeEvent> getEvents(final int last) {
+        final Slots current = slots;
+        final long end = cursor.get();
+        final long start = Math.max(0, end - Math.min(last, current.length()));
+        final List<MakeEvent> events = new ArrayList<>((int) (end - start));
+        for (long sequence = start; sequence < end; sequence++) {
+            final MakeEvent makeEvent = current.read(sequence);
+            if (makeEvent != null) {
+                events.add(makeEvent);
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Tests whether any of the last calls failed.
+     *
+     * @param last The number of calls.
+     * @return true if one of the last calls did not succeed.
+     */
+    boolean hasFailure(final int last) {
+        final long failure = lastFailure.get();
+        return failure != EMPTY && failure >= cursor.get() - last;
+    }
+
+    /**
+     * Replaces the ring with one of another capacity, keeping the last calls.
+     *
+     * @param capacity The number of calls to keep, rounded up to a power of two.
+     */
+    synchronized void resize(final int capacity) {
+        final Slots current = slots;
+        final Slots resized = new Slots(capacity);
+        final long end = cursor.get();
+        for (long sequence = Math.max(0, end - Math.min(current.length(), resized.length())); sequence < end; sequence++) {
+            final MakeEvent makeEvent = current.read(sequence);
+            if (makeEvent != null) {
+                final Throwable exception = makeEvent.getException();
+                final int outcome = makeEvent.isSuccess() ? SUCCESS : exception != null ? EXCEPTION : NULL_OBJECT;
+                resized.write(sequence, makeEvent.getStartTime().toEpochMilli(), makeEvent.getEndTime().toEpochMilli(), outcome, exception);
+            }
+        }
+        slots = resized;
+    }
+
+    /**
+     * Gets the number of calls logged.
+     *
+     * @return The number of calls logged.
+     */
+    long size() {
+        return cursor.get();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("MakeObjectLog [capacity=");
+        builder.append(capacity());
+        builder.append(", size=");
+        builder.append(size());
+        builder.append(", lastFailure=");
+        builder.append(lastFailure);
+        builder.append(", bucketMillis=");
+        builder.append(bucketMillis);
+        builder.append("]");
+        return builder.toString();
+    }
+}
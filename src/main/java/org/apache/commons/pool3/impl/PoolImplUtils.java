@@ -23,6 +23,10 @@ import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.pool3.PooledObjectFactory;
@@ -188,6 +192,18 @@ final class PoolImplUtils {
         return value != null ? value : Objects.requireNonNull(defaultValue, "defaultValue");
     }
 
+    /**
+     * Gets the exception a stage completed with from the throwable passed to
+     * the callbacks of the stage.
+     *
+     * @param t The throwable passed to the callback, not null.
+     * @return The exception, with throwables that are not exceptions wrapped.
+     */
+    static Exception stageException(final Throwable t) {
+        final Throwable cause = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+        return cause instanceof Exception ? (Exception) cause : new Exception(cause);
+    }
+
     /**
      * Converts a {@link TimeUnit} to a {@link ChronoUnit}.
      *
@@ -227,4 +243,20 @@ final class PoolImplUtils {
         return Duration.of(amount, toChronoUnit(timeUnit));
     }
 
+    /**
+     * Calls a method returning a stage, turning an exception thrown by the call
+     * into a stage completed with it.
+     *
+     * @param <V> The type of the result of the stage.
+     * @param call The call, for example a blocking factory method wrapped in a completed stage.
+     * @return The stage.
+     */
+    static <V> CompletionStage<V> toStage(final Callable<CompletionStage<V>> call) {
+        try {
+            return call.call();
+        } catch (final Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
 }
@@ -18,10 +18,14 @@ package org.apache.commons.pool3.impl;
 
 import java.time.Duration;
 import java.time.Instant;
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.commons.pool3.PooledObject;
 import org.apache.commons.pool3.PooledObjectFactory;
@@ -34,6 +38,18 @@ import org.apache.commons.pool3.PooledObjectFactory;
  * Decisions use data in the makeObject log and information reported by
  * the pool that the factory is attached to.
  * </p>
+ * <p>
+ * While the factory is down, it acts as an open circuit breaker: makeObject
+ * calls fail immediately with a {@link FactoryDownException}, so that
+ * borrowers finding no idle object fail fast instead of each trying the
+ * wrapped factory. Only up to {@link #getMaxProbes()} calls at a time are let
+ * through as probes, once the backoff since the last failed probe has
+ * elapsed. The backoff starts at {@link #getDelay()} and doubles with each
+ * consecutive failed probe up to {@link #getMaxDelay()}, with random jitter
+ * so that factories going down together do not probe in step. A successful
+ * probe closes the breaker, so that borrowers are not limited to the probes
+ * until the next monitor check.
+ * </p>
  *
  * @param <T> Type of object managed by the factory
  * @param <E> Type of exception that the factory may throw
@@ -41,8 +57,8 @@ import org.apache.commons.pool3.PooledObjectFactory;
 public class ResilientPooledObjectFactory<T, E extends Exception> implements PooledObjectFactory<T, E> {
 
     /**
-     * Adder thread that adds objects to the pool, waiting for a fixed delay between
-     * adds.
+     * Adder thread that adds objects to the pool, waiting for the delay between
+     * adds, or for the backoff of the circuit breaker after a failed add.
      * <p>
      * The adder thread will stop under any of the following conditions:
      * </p>
@@ -78,15 +94,17 @@ public class ResilientPooledObjectFactory<T, E extends Exception> implements Poo
                     if (pool.getNumWaiters() == 0 || pool.getNumActive() + pool.getNumIdle() == pool.getMaxTotal()) {
                         kill();
                     }
+                } catch (final FactoryDownException e) {
+                    // Another probe is in progress, not a failure of the factory.
                 } catch (final Throwable e) {
                     failures++;
                     if (failures > MAX_FAILURES) {
                         kill();
                     }
                 } finally {
-                    // Wait for delay
+                    // Wait for delay, or until the next probe is allowed
                     try {
-                        sleep(delay.toMillis());
+                        sleep(Math.max(delay.toMillis(), TimeUnit.NANOSECONDS.toMillis(getRetryNanos() - System.nanoTime())));
                     } catch (final InterruptedException e) {
                         interrupt();
                         kill();
@@ -99,26 +117,48 @@ public class ResilientPooledObjectFactory<T, E extends Exception> implements Poo
     }
 
     /**
-     * Record of a makeObject event.
+     * Thrown by {@link ResilientPooledObjectFactory#makeObject()} instead of
+     * calling the wrapped factory while it is down, so that borrowers finding
+     * no idle object fail fast.
+     *
+     * @since 3.0.0
      */
-    static final class MakeEvent {
-        private final Instant startTime;
-        private Instant endTime;
-        private boolean success;
-        private Throwable exception;
+    public static class FactoryDownException extends NoSuchElementException {
+
+        private static final long serialVersionUID = 1L;
 
         /**
-         * Constructs a new instance and set statTime to now.
+         * Constructs a new instance.
+         *
+         * @param message The detail message.
          */
-        MakeEvent() {
-            startTime = Instant.now();
+        public FactoryDownException(final String message) {
+            super(message);
         }
+    }
+
+    /**
+     * Record of a makeObject event, read from the makeObject log.
+     */
+    static final class MakeEvent {
+        private final Instant startTime;
+        private final Instant endTime;
+        private final boolean success;
+        private final Throwable exception;
 
         /**
-         * Mark completion of makeObject call.
+         * Constructs a new instance.
+         *
+         * @param startTime The start time of the makeObject call
+         * @param endTime   The time the makeObject call ended
+         * @param success   Whether the makeObject call succeeded
+         * @param exception The exception thrown by the makeObject call, or null
          */
-        public void end() {
-            this.endTime = Instant.now();
+        MakeEvent(final Instant startTime, final Instant endTime, final boolean success, final Throwable exception) {
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.success = success;
+            this.exception = exception;
         }
 
         /**
@@ -148,24 +188,6 @@ public class ResilientPooledObjectFactory<T, E extends Exception> implements Poo
         public boolean isSuccess() {
             return success;
         }
-
-        /**
-         * Set the exception thrown by the makeObject call.
-         *
-         * @param exception
-         */
-        public void setException(final Throwable exception) {
-            this.exception = exception;
-        }
-
-        /**
-         * Set the success status of the makeObject call.
-         *
-         * @param success
-         */
-        public void setSuccess(final boolean success) {
-            this.success = success;
-        }
     }
 
     /**
@@ -191,6 +213,7 @@ public class ResilientPooledObjectFactory<T, E extends Exception> implements Poo
     }
 
     private static final int DEFAULT_LOG_SIZE = 10;
+    private static final int DEFAULT_MAX_PROBES = 1;
     private static final Duration DEFAULT_DELAY = Duration.ofSeconds(1);
     private static final Duration DEFAULT_LOOK_BACK = Duration.ofMinutes(5);
     private static final Duration DEFAULT_TIME_BETWEEN_CHECKS = Duration.ofSeconds(10);
@@ -213,6 +236,17 @@ public class ResilientPooledObjectFactory<T, E extends Exception> implements Poo
         return DEFAULT_LOG_SIZE;
     }
 
+    /**
+     * Gets the default maximum number of probe makeObject calls at a time
+     * while the factory is down.
+     *
+     * @return The default maximum number of probes.
+     * @since 3.0.0
+     */
+    public static int getDefaultMaxProbes() {
+        return DEFAULT_MAX_PROBES;
+    }
+
     /**
      * Gets the default look back duration.
      *
@@ -244,7 +278,7 @@ public class ResilientPooledObjectFactory<T, E extends Exception> implements Poo
     private final Duration lookBack;
 
     /** Circular log of makeObject events */
-    private final ConcurrentLinkedQueue<MakeEvent> makeObjectLog = new ConcurrentLinkedQueue<>();
+    private final MakeObjectLog makeObjectLog;
 
     /** Time of last factory failure */
     private Instant downStart;
@@ -253,11 +287,28 @@ public class ResilientPooledObjectFactory<T, E extends Exception> implements Poo
     private Instant upStart;
 
     /** Exception counts */
-    @SuppressWarnings("rawtypes")
-    private final ConcurrentHashMap<Class, Integer> exceptionCounts = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Class<? extends Throwable>, LongAdder> exceptionCounts = new ConcurrentHashMap<>();
 
     /** Whether or not the factory is "up" */
-    private boolean up = true;
+    private volatile boolean up = true;
+
+    /** Maximum backoff between probes while the factory is down */
+    private volatile Duration maxDelay;
+
+    /** Maximum number of probes at a time while the factory is down */
+    private volatile int maxProbes = DEFAULT_MAX_PROBES;
+
+    /** Number of probes in progress */
+    private int probes; // @GuardedBy("this")
+
+    /** Number of consecutive failed probes */
+    private int probeFailures; // @GuardedBy("this")
+
+    /** Earliest {@link System#nanoTime()} of the next probe */
+    private long retryNanos; // @GuardedBy("this")
+
+    /** Number of makeObject calls logged when a probe last closed the breaker */
+    private volatile long upSequence;
 
     /**
      * @return The factory wrapped by this resilient factory
@@ -303,8 +354,10 @@ public class ResilientPooledObjectFactory<T, E extends Exception> implements Poo
         this.logSize = logSize;
         this.factory = factory;
         this.delay = delay;
+        this.maxDelay = delay;
         this.lookBack = lookBack;
         this.timeBetweenChecks = timeBetweenChecks;
+        this.makeObjectLog = new MakeObjectLog(logSize, lookBack);
     }
 
     @Override
@@ -312,11 +365,50 @@ public class ResilientPooledObjectFactory<T, E extends Exception> implements Poo
         factory.activateObject(p);
     }
 
+    /**
+     * Computes the backoff after a number of consecutive failed probes: the
+     * delay doubled for each failure after the first, capped at the maximum
+     * delay, of which a random part between the delay and the cap is taken.
+     *
+     * @param failures The number of consecutive failed probes, at least 1.
+     * @return The backoff in nanoseconds.
+     */
+    long backoffNanos(final int failures) {
+        final long delayNanos = delay.toNanos();
+        final long maxNanos = Math.max(delayNanos, maxDelay.toNanos());
+        final int shift = Math.min(failures - 1, Long.SIZE - 2);
+        final long backoffNanos = delayNanos > maxNanos >> shift ? maxNanos : delayNanos << shift;
+        return delayNanos + ThreadLocalRandom.current().nextLong(backoffNanos - delayNanos + 1);
+    }
+
     @Override
     public void destroyObject(final PooledObject<T> p) throws E {
         factory.destroyObject(p);
     }
 
+    /**
+     * Ends a probe, closing the breaker if it succeeded or extending the
+     * backoff if it failed.
+     *
+     * @param success Whether the probe made an object.
+     */
+    private synchronized void endProbe(final boolean success) {
+        probes--;
+        if (success) {
+            probeFailures = 0;
+            retryNanos = System.nanoTime();
+            if (!up) {
+                // Failures logged so far are not counted again by runChecks.
+                upSequence = makeObjectLog.size();
+                upStart = Instant.now();
+                up = true;
+            }
+        } else {
+            probeFailures++;
+            retryNanos = System.nanoTime() + backoffNanos(probeFailures);
+        }
+    }
+
     /**
      * Gets the time to wait between object creations by the adder thread.
      *
@@ -335,6 +427,31 @@ public class ResilientPooledObjectFactory<T, E extends Exception> implements Poo
         return downStart;
     }
 
+    /**
+     * Gets the number of makeObject calls by exception type over the life of
+     * the factory.
+     *
+     * @return The number of makeObject calls by exception type.
+     * @since 3.0.0
+     */
+    public Map<Class<? extends Throwable>, Long> getExceptionCounts() {
+        final Map<Class<? extends Throwable>, Long> counts = new HashMap<>();
+        exceptionCounts.forEach((type, count) -> counts.put(type, count.sum()));
+        return counts;
+    }
+
+    /**
+     * Gets the number of failed makeObject calls within the look back
+     * duration, give or take a sixteenth of it.
+     *
+     * @return The number of failed makeObject calls.
+     * @since 3.0.0
+     */
+    public long getFailureCount() {
+        final long now = System.currentTimeMillis();
+        return makeObjectLog.count(now, MakeObjectLog.NULL_OBJECT) + makeObjectLog.count(now, MakeObjectLog.EXCEPTION);
+    }
+
     /**
      * Gets the size of the makeObject log.
      *
@@ -354,13 +471,50 @@ public class ResilientPooledObjectFactory<T, E extends Exception> implements Poo
     }
 
     /**
-     * Gets a copy of the makeObject log.
+     * Gets a copy of the last logSize events of the makeObject log, oldest
+     * first.
      *
      * @return A copy of the makeObject log.
      */
     public List<MakeEvent> getMakeObjectLog() {
-        final ArrayList<MakeEvent> makeObjectLog = new ArrayList<>();
-        return new ArrayList<>(makeObjectLog.stream().toList());
+        return makeObjectLog.getEvents(logSize);
+    }
+
+    /**
+     * Gets the maximum backoff between probe makeObject calls while the
+     * factory is down.
+     *
+     * @return The maximum backoff.
+     * @since 3.0.0
+     */
+    public Duration getMaxDelay() {
+        return maxDelay;
+    }
+
+    /**
+     * Gets the maximum number of probe makeObject calls at a time while the
+     * factory is down.
+     *
+     * @return The maximum number of probes.
+     * @since 3.0.0
+     */
+    public int getMaxProbes() {
+        return maxProbes;
+    }
+
+    private synchronized long getRetryNanos() {
+        return retryNanos;
+    }
+
+    /**
+     * Gets the number of successful makeObject calls within the look back
+     * duration, give or take a sixteenth of it.
+     *
+     * @return The number of successful makeObject calls.
+     * @since 3.0.0
+     */
+    public long getSuccessCount() {
+        return makeObjectLog.count(System.currentTimeMillis(), MakeObjectLog.SUCCESS);
     }
 
     /**
@@ -408,24 +562,43 @@ public class ResilientPooledObjectFactory<T, E extends Exception> implements Poo
         return up;
     }
 
+    @Override
+    public boolean keepAliveObject(final PooledObject<T> p) {
+        return factory.keepAliveObject(p);
+    }
+
     /**
-     * Delegate to the wrapped factory, but log the makeObject call.
+     * Delegate to the wrapped factory, but log the makeObject call. While the
+     * factory is down, only probes are delegated.
+     *
+     * @throws FactoryDownException if the factory is down and no probe is
+     *         allowed now.
      */
     @Override
     public PooledObject<T> makeObject() throws E {
-        final MakeEvent makeEvent = new MakeEvent();
+        final boolean probe = !up;
+        if (probe && !startProbe()) {
+            throw new FactoryDownException("Factory down since " + downStart);
+        }
+        final long startMillis = System.currentTimeMillis();
+        int outcome = MakeObjectLog.NULL_OBJECT;
+        Throwable exception = null;
         try {
             final PooledObject<T> obj = factory.makeObject();
-            makeEvent.setSuccess(PooledObject.nonNull(obj));
+            if (PooledObject.nonNull(obj)) {
+                outcome = MakeObjectLog.SUCCESS;
+            }
             return obj;
         } catch (final Throwable t) {
-            makeEvent.setSuccess(false);
-            makeEvent.setException(t);
-            exceptionCounts.put(t.getClass(), exceptionCounts.getOrDefault(t, 0) + 1);
+            outcome = MakeObjectLog.EXCEPTION;
+            exception = t;
+            exceptionCounts.computeIfAbsent(t.getClass(), k -> new LongAdder()).increment();
             throw t;
         } finally {
-            makeEvent.end();
-            makeObjectLog.add(makeEvent);
+            makeObjectLog.add(startMillis, System.currentTimeMillis(), outcome, exception);
+            if (probe) {
+                endProbe(outcome == MakeObjectLog.SUCCESS);
+            }
         }
     }
 
@@ -441,46 +614,45 @@ public class ResilientPooledObjectFactory<T, E extends Exception> implements Poo
      * <p>
      * Sets downStart to time of the first failure found in makeObjectLog and
      * upStart to the time when logSize consecutive makes have succeeded.
+     * Failures logged before a successful probe closed the breaker are not
+     * counted.
      * </p>
      * <p>
      * When a failure is observed, the adder thread is started if the pool
-     * is not closed and has take waiters.
+     * is not closed and has take waiters. When the factory goes down, the
+     * first probe is allowed at once.
      * </p>
      * <p>
-     * Removes the oldest event from the log if it is full.
+     * Only looks at the last logSize events of the log, in constant time.
      * </p>
      */
     protected void runChecks() {
-        boolean upOverLog = true;
-        // 1. If the log is full, remove the oldest (first) event.
+        // 1. If one of the last logSize events is a failure, set downStart, set up to
+        // false and start the adder thread.
         //
-        // 2. Walk the event log. If we find a failure, set downStart, set up to false
-        // and start the adder thread.
-        //
-        // 3. If the log contains only successes, if up is false, set upStart and up to
-        // true
+        // 2. If they are all successes, if up is false, set upStart and up to true
         // and kill the adder thread.
-        while (makeObjectLog.size() > logSize) {
-            makeObjectLog.poll();
-        }
-        for (final MakeEvent makeEvent : makeObjectLog) {
-            if (!makeEvent.isSuccess()) {
-                upOverLog = false;
-                downStart = Instant.now();
-                up = false;
-                if (pool.getNumWaiters() > 0 && !pool.isClosed() && adder == null) {
-                    adder = new Adder();
-                    adder.start();
+        if (makeObjectLog.hasFailure((int) Math.min(logSize, makeObjectLog.size() - upSequence))) {
+            downStart = Instant.now();
+            if (up) {
+                synchronized (this) {
+                    probeFailures = 0;
+                    retryNanos = System.nanoTime();
                 }
+                up = false;
             }
-
-        }
-        if (upOverLog && !up) {
+            if (pool.getNumWaiters() > 0 && !pool.isClosed() && (adder == null || !adder.isAlive())) {
+                adder = new Adder();
+                adder.start();
+            }
+        } else if (!up) {
             // Kill adder thread and set up to true
             upStart = Instant.now();
             up = true;
-            adder.kill();
-            adder = null;
+            if (adder != null) {
+                adder.kill();
+                adder = null;
+            }
         }
     }
 
@@ -490,9 +662,35 @@ public class ResilientPooledObjectFactory<T, E extends Exception> implements Poo
      * @param logSize The number of makeObject events to keep in the log
      */
     public void setLogSize(final int logSize) {
+        if (logSize > makeObjectLog.capacity()) {
+            makeObjectLog.resize(logSize);
+        }
         this.logSize = logSize;
     }
 
+    /**
+     * Sets the maximum backoff between probe makeObject calls while the
+     * factory is down. The backoff grows from {@link #getDelay()}, which is
+     * also the default maximum, keeping a fixed delay between probes.
+     *
+     * @param maxDelay The maximum backoff.
+     * @since 3.0.0
+     */
+    public void setMaxDelay(final Duration maxDelay) {
+        this.maxDelay = maxDelay;
+    }
+
+    /**
+     * Sets the maximum number of probe makeObject calls at a time while the
+     * factory is down.
+     *
+     * @param maxProbes The maximum number of probes.
+     * @since 3.0.0
+     */
+    public void setMaxProbes(final int maxProbes) {
+        this.maxProbes = maxProbes;
+    }
+
     /**
      * Sets the underlying pool. For tests.
      *
@@ -529,6 +727,20 @@ public class ResilientPooledObjectFactory<T, E extends Exception> implements Poo
         startMonitor();
     }
 
+    /**
+     * Starts a probe if the backoff has elapsed and fewer than
+     * {@link #getMaxProbes()} probes are in progress.
+     *
+     * @return Whether the probe may call the wrapped factory.
+     */
+    private synchronized boolean startProbe() {
+        if (System.nanoTime() - retryNanos < 0 || probes >= maxProbes) {
+            return false;
+        }
+        probes++;
+        return true;
+    }
+
     /**
      * Stops the monitor thread.
      */
@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool3.impl;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Tracks the rate of a single kind of event over rolling one second, one minute
+ * and five minute windows.
+ * <p>
+ * Each window is a fixed ring of time buckets, so memory use is constant no
+ * matter how many events are recorded. Each bucket packs its epoch (the bucket
+ * number since this instance was created) and its event count into a single
+ * {@code long} so that it can be rolled over and incremented with one
+ * compare-and-set. Rates are approximate: the bucket currently being filled is
+ * included in the window.
+ * </p>
+ * <p>
+ * This class is intended to be thread-safe.
+ * </p>
+ *
+ * @since 3.0.0
+ */
+final class SlidingWindowRates {
+
+    /**
+     * A ring of time buckets covering {@code bucketCount * bucketMillis}.
+     */
+    static final class Window {
+
+        private static final int COUNT_BITS = 28;
+        private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+        private final long bucketMillis;
+        private final int bucketCount;
+        private final AtomicLongArray buckets;
+
+        /**
+         * Constructs a new window.
+         *
+         * @param bucketDuration The width of each bucket.
+         * @param bucketCount The number of buckets in the window.
+         */
+        Window(final Duration bucketDuration, final int bucketCount) {
+            this.bucketMillis = bucketDuration.toMillis();
+            this.bucketCount = bucketCount;
+            this.buckets = new AtomicLongArray(bucketCount);
+        }
+
+        /**
+         * Gets the length of this window.
+         *
+         * @return The length of this window.
+         */
+        Duration getDuration() {
+            return Duration.ofMillis(bucketMillis * bucketCount);
+        }
+
+        /**
+         * Records one event.
+         *
+         * @param elapsedMillis Milliseconds since the owning instance was created.
+         */
+        void increment(final long elapsedMillis) {
+            final long epoch = elapsedMillis / bucketMillis;
+            final int slot = (int) (epoch % bucketCount);
+            long current;
+            long next;
+            do {
+                current = buckets.get(slot);
+                if (current >>> COUNT_BITS != epoch) {
+                    next = epoch << COUNT_BITS | 1;
+                } else if ((current & COUNT_MASK) == COUNT_MASK) {
+                    // Saturated, keep the maximum.
+                    return;
+                } else {
+                    next = current + 1;
+                }
+            } while (!buckets.compareAndSet(slot, current, next));
+        }
+
+        /**
+         * Gets the number of events recorded in this window.
+         *
+         * @param elapsedMillis Milliseconds since the owning instance was created.
+         * @return The number of events recorded in this window.
+         */
+        long sum(final long elapsedMillis) {
+            final long epoch = elapsedMillis / bucketMillis;
+            long sum = 0;
+            for (int i = 0; i < bucketCount; i++) {
+                final long value = buckets.get(i);
+                final long age = epoch - (value >>> COUNT_BITS);
+                if (age >= 0 && age < bucketCount) {
+                    sum += value & COUNT_MASK;
+                }
+            }
+            return sum;
+        }
+
+        /**
+         * Gets the mean number of events per second in this window.
+         *
+         * @param elapsedMillis Milliseconds since the owning instance was created.
+         * @return The mean number of events per second in this window.
+         */
+        double ratePerSecond(final long elapsedMillis) {
+            return sum(elapsedMillis) * 1000d / (bucketMillis * bucketCount);
+        }
+    }
+
+    /** Name of the one second window in {@link #getRates()}. */
+    static final String ONE_SECOND = "1s";
+
+    /** Name of the one minute window in {@link #getRates()}. */
+    static final String ONE_MINUTE = "1m";
+
+    /** Name of the five minute window in {@link #getRates()}. */
+    static final String FIVE_MINUTES = "5m";
+
+    private final LongSupplier clock;
+    private final long originMillis;
+    private final Window oneSecond = new Window(Duration.ofMillis(100), 10);
+    private final Window oneMinute = new Window(Duration.ofSeconds(5), 12);
+    private final Window fiveMinutes = new Window(Duration.ofSeconds(30), 10);
+
+    /**
+     * Constructs a new instance using the system clock.
+     */
+    SlidingWindowRates() {
+        this(System::currentTimeMillis);
+    }
+
+    /**
+     * Constructs a new instance using the given clock.
+     *
+     * @param clock Supplies the current time in milliseconds.
+     */
+    SlidingWindowRates(final LongSupplier clock) {
+        this.clock = clock;
+        this.originMillis = clock.getAsLong();
+    }
+
+    private long elapsedMillis() {
+        return Math.max(0, clock.getAsLong() - originMillis);
+    }
+
+    /**
+     * Gets the events per second over the last five minutes.
+     *
+     * @return The events per second over the last five minutes.
+     */
+    double getFiveMinuteRate() {
+        return fiveMinutes.ratePerSecond(elapsedMillis());
+    }
+
+    /**
+     * Gets the events per second over the last minute.
+     *
+     * @return The events per second over the last minute.
+     */
+    double getOneMinuteRate() {
+        return oneMinute.ratePerSecond(elapsedMillis());
+    }
+
+    /**
+     * Gets the events per second over the last second.
+     *
+     * @return The events per second over the last second.
+     */
+    double getOneSecondRate() {
+        return oneSecond.ratePerSecond(elapsedMillis());
+    }
+
+    /**
+     * Gets the events per second for each window, keyed by {@link #ONE_SECOND},
+     * {@link #ONE_MINUTE} and {@link #FIVE_MINUTES}.
+     *
+     * @return The events per second for each window.
+     */
+    Map<String, Double> getRates() {
+        final long elapsedMillis = elapsedMillis();
+        final Map<String, Double> rates = new LinkedHashMap<>();
+        rates.put(ONE_SECOND, Double.valueOf(oneSecond.ratePerSecond(elapsedMillis)));
+        rates.put(ONE_MINUTE, Double.valueOf(oneMinute.ratePerSecond(elapsedMillis)));
+        rates.put(FIVE_MINUTES, Double.valueOf(fiveMinutes.ratePerSecond(elapsedMillis)));
+        return rates;
+    }
+
+    /**
+     * Records one event in every window.
+     */
+    void increment() {
+        final long elapsedMillis = elapsedMillis();
+        oneSecond.increment(elapsedMillis);
+        oneMinute.increment(elapsedMillis);
+        fiveMinutes.increment(elapsedMillis);
+    }
+
+    @Override
+    public String toString() {
+        return "SlidingWindowRates " + getRates();
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool3.impl;
+
+import java.io.PrintWriter;
+import java.lang.StackWalker.StackFrame;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * CallStack strategy that uses a {@link StackWalker}. Only a bounded number of frames is captured, frames of the pool
+ * itself are skipped unless requested otherwise, and no strings are built until {@link #printStackTrace(PrintWriter)} is called. This makes it
+ * cheaper than {@link ThrowableCallStack} while still providing method names and line numbers, and unlike
+ * {@link SecurityManagerCallStack} it does not depend on the {@link SecurityManager}.
+ *
+ * @see StackWalker
+ * @since 3.0.0
+ */
+public class StackWalkerCallStack implements CallStack {
+
+    /**
+     * A snapshot of a call stack.
+     */
+    private static final class Snapshot {
+        private final long timestampMillis = System.currentTimeMillis();
+        private final List<StackFrame> stack;
+
+        /**
+         * Constructs a new snapshot with a call stack.
+         *
+         * @param stack call stack
+         */
+        private Snapshot(final List<StackFrame> stack) {
+            this.stack = stack;
+        }
+    }
+
+    /**
+     * The default maximum number of frames captured.
+     */
+    public static final int DEFAULT_MAX_FRAMES = 32;
+
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    private final String messageFormat;
+
+    //@GuardedBy("dateFormat")
+    private final DateFormat dateFormat;
+
+    private final int maxFrames;
+
+    private final boolean skipPoolFrames;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * Creates a new instance capturing at most {@link #DEFAULT_MAX_FRAMES} frames.
+     *
+     * @param messageFormat message format
+     * @param useTimestamp whether to format the dates in the output message or not
+     */
+    public StackWalkerCallStack(final String messageFormat, final boolean useTimestamp) {
+        this(messageFormat, useTimestamp, DEFAULT_MAX_FRAMES);
+    }
+
+    /**
+     * Creates a new instance skipping the frames of the pool.
+     *
+     * @param messageFormat message format
+     * @param useTimestamp whether to format the dates in the output message or not
+     * @param maxFrames the maximum number of frames to capture, must be positive
+     */
+    public StackWalkerCallStack(final String messageFormat, final boolean useTimestamp, final int maxFrames) {
+        this(messageFormat, useTimestamp, maxFrames, true);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param messageFormat message format
+     * @param useTimestamp whether to format the dates in the output message or not
+     * @param maxFrames the maximum number of frames to capture, must be positive
+     * @param skipPoolFrames whether to skip the innermost frames of the pool implementation
+     */
+    public StackWalkerCallStack(final String messageFormat, final boolean useTimestamp, final int maxFrames, final boolean skipPoolFrames) {
+        this.messageFormat = messageFormat;
+        this.dateFormat = useTimestamp ? new SimpleDateFormat(messageFormat) : null;
+        this.maxFrames = maxFrames > 0 ? maxFrames : DEFAULT_MAX_FRAMES;
+        this.skipPoolFrames = skipPoolFrames;
+    }
+
+    @Override
+    public void clear() {
+        snapshot = null;
+    }
+
+    @Override
+    public void fillInStackTrace() {
+        snapshot = new Snapshot(STACK_WALKER.walk(frames -> frames
+                .dropWhile(frame -> skipPoolFrames && CallStackUtils.isPoolFrame(frame))
+                .limit(maxFrames)
+                .collect(Collectors.toList())));
+    }
+
+    @Override
+    public boolean printStackTrace(final PrintWriter writer) {
+        final Snapshot snapshotRef = this.snapshot;
+        if (snapshotRef == null) {
+            return false;
+        }
+        final String message;
+        if (dateFormat == null) {
+            message = messageFormat;
+        } else {
+            synchronized (dateFormat) {
+                message = dateFormat.format(Long.valueOf(snapshotRef.timestampMillis));
+            }
+        }
+        writer.println(message);
+        snapshotRef.stack.forEach(frame -> {
+            writer.print("\tat ");
+            writer.println(frame.toStackTraceElement());
+        });
+        return true;
+    }
+}
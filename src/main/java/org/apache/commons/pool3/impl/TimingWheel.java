@@ -0,0 +1,434 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool3.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.pool3.PooledObject;
+
+/**
+ * A hierarchical timing wheel of pooled objects keyed by a time in
+ * milliseconds, used to find the objects whose time has passed without scanning
+ * every object under management: borrowed objects keyed by last use time to find
+ * abandoned ones, and idle objects keyed by last return time to find the ones to
+ * evict.
+ * <p>
+ * The wheel has four levels of 64 slots. A slot on level {@code n} spans
+ * {@code 64^n} milliseconds, so the levels together cover about 4.6 hours ahead
+ * of the cursor; later entries wait in an overflow list. {@link #expire(long)}
+ * moves the cursor up to a cut-off time, jumping directly from one occupied
+ * slot to the next and cascading higher level slots down as it reaches them, so
+ * it only visits entries that have expired plus a bounded number of slots.
+ * Scheduling and cancelling are constant time.
+ * </p>
+ * <p>
+ * Scheduling and cancelling do not lock the wheel, which would serialize every
+ * borrow and return of the pool: they queue the operation, and the queue is
+ * applied in order under the lock by the next {@link #expire(long)}, or by a
+ * scheduling thread that finds enough operations queued and the wheel not
+ * locked.
+ * </p>
+ * <p>
+ * Entries are keyed by the time known when they were scheduled. Since a pooled
+ * object can report a later use time at any moment (see
+ * {@link PooledObject#use()} and {@link org.apache.commons.pool3.TrackedUse}),
+ * callers must check expired entries against the current state of the object
+ * and reschedule those that are not due yet. Recording a use is therefore free;
+ * the entry is moved only when its old time is reached.
+ * </p>
+ * <p>
+ * This class is intended to be thread-safe.
+ * </p>
+ *
+ * @param <T> The type of objects in the pool.
+ * @since 3.0.0
+ */
+final class TimingWheel<T> {
+
+    /**
+     * A scheduled entry, linked into the list of its slot.
+     *
+     * @param <T> The type of objects in the pool.
+     */
+    private static final class Node<T> {
+
+        private final PooledObject<T> pooledObject;
+        private long time;
+        private int level;
+        private int slot;
+        private Node<T> prev;
+        private Node<T> next;
+
+        Node(final PooledObject<T> pooledObject) {
+            this.pooledObject = pooledObject;
+        }
+    }
+
+    /**
+     * A queued schedule or cancel.
+     *
+     * @param <T> The type of objects in the pool.
+     */
+    private static final class Operation<T> {
+
+        private final PooledObject<T> pooledObject;
+        private final long time;
+
+        Operation(final PooledObject<T> pooledObject, final long time) {
+            this.pooledObject = pooledObject;
+            this.time = time;
+        }
+    }
+
+    /** Time of a queued cancel. */
+    private static final long CANCEL = Long.MIN_VALUE;
+
+    /** Number of queued operations at which a scheduling thread tries to apply them. */
+    private static final int DRAIN_THRESHOLD = 64;
+
+    private static final int LEVELS = 4;
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    /** Level of the entries that are too far ahead of the cursor for the wheel. */
+    private static final int OVERFLOW = LEVELS;
+
+    private static int digit(final long time, final int level) {
+        return (int) (time >>> level * SLOT_BITS) & SLOT_MASK;
+    }
+
+    @SuppressWarnings("unchecked")
+    private final Node<T>[][] wheel = new Node[LEVELS + 1][];
+
+    /** One bit per slot telling whether the slot has entries. */
+    private final long[] occupied = new long[LEVELS];
+
+    private final Map<PooledObject<T>, Node<T>> nodes = new IdentityHashMap<>();
+
+    /** Every entry scheduled before the cursor has been expired. */
+    private long cursor;
+
+    /** The configuration generation this wheel was filled for. */
+    private volatile int generation;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final ConcurrentLinkedQueue<Operation<T>> pending = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    /** Whether anything was ever scheduled, so that there can be something to cancel. */
+    private volatile boolean scheduled;
+
+    /**
+     * Constructs a new instance.
+     */
+    TimingWheel() {
+        for (int level = 0; level < LEVELS; level++) {
+            wheel[level] = newSlots(SLOTS);
+        }
+        wheel[OVERFLOW] = newSlots(1);
+    }
+
+    /**
+     * Moves the cursor forward, re-placing overflow entries if it leaves the span
+     * of the wheel.
+     *
+     * @param time The new cursor.
+     */
+    private void advance(final long time) {
+        final long previous = cursor;
+        cursor = time;
+        if (previous >>> LEVELS * SLOT_BITS != time >>> LEVELS * SLOT_BITS) {
+            Node<T> node = wheel[OVERFLOW][0];
+            wheel[OVERFLOW][0] = null;
+            while (node != null) {
+                final Node<T> next = node.next;
+                place(node);
+                node = next;
+            }
+        }
+    }
+
+    /**
+     * Cancels the entry of a pooled object, if any.
+     *
+     * @param pooledObject The pooled object.
+     */
+    void cancel(final PooledObject<T> pooledObject) {
+        if (scheduled) {
+            enqueue(new Operation<>(pooledObject, CANCEL));
+        }
+    }
+
+    /**
+     * Applies the queued operations. Must be called with the lock held.
+     */
+    private void drain() {
+        Operation<T> operation;
+        while ((operation = pending.poll()) != null) {
+            pendingCount.decrementAndGet();
+            Node<T> node = nodes.get(operation.pooledObject);
+            if (operation.time == CANCEL) {
+                if (node != null) {
+                    nodes.remove(operation.pooledObject);
+                    unlink(node);
+                }
+                continue;
+            }
+            if (node == null) {
+                node = new Node<>(operation.pooledObject);
+                nodes.put(operation.pooledObject, node);
+            } else {
+                unlink(node);
+            }
+            node.time = operation.time;
+            place(node);
+        }
+    }
+
+    /**
+     * Queues an operation, applying the queue if it is long enough and the wheel
+     * is not locked.
+     *
+     * @param operation The operation.
+     */
+    private void enqueue(final Operation<T> operation) {
+        pending.add(operation);
+        if (pendingCount.incrementAndGet() >= DRAIN_THRESHOLD && lock.tryLock()) {
+            try {
+                drain();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Removes and returns every entry scheduled at or before the given time.
+     *
+     * @param cutoff The cut-off time in milliseconds.
+     * @return The expired pooled objects.
+     */
+    List<PooledObject<T>> expire(final long cutoff) {
+        lock.lock();
+        try {
+            drain();
+            return expireDrained(cutoff);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<PooledObject<T>> expireDrained(final long cutoff) {
+        final List<PooledObject<T>> expired = new ArrayList<>();
+        while (true) {
+            // The earliest occupied slot is on the lowest occupied level. A
+            // higher level slot starting at the cursor has not been cascaded
+            // yet if a previous call stopped the cursor at its start.
+            int level = 0;
+            int slot = -1;
+            for (; level < LEVELS; level++) {
+                final int digit = digit(cursor, level);
+                final int first = (cursor & ~(-1L << level * SLOT_BITS)) == 0 ? digit : digit + 1;
+                final long mask = first < SLOTS ? occupied[level] & -1L << first : 0;
+                if (mask != 0) {
+                    slot = Long.numberOfTrailingZeros(mask);
+                    break;
+                }
+            }
+            final long next;
+            if (slot >= 0) {
+                final int shift = level * SLOT_BITS;
+                next = cursor & -1L << shift + SLOT_BITS | (long) slot << shift;
+            } else if (wheel[OVERFLOW][0] != null) {
+                long min = Long.MAX_VALUE;
+                for (Node<T> node = wheel[OVERFLOW][0]; node != null; node = node.next) {
+                    min = Math.min(min, node.time);
+                }
+                next = min;
+            } else {
+                next = Long.MAX_VALUE;
+            }
+            if (next > cutoff) {
+                if (cutoff >= cursor) {
+                    advance(cutoff + 1);
+                }
+                break;
+            }
+            advance(next);
+            if (slot < 0) {
+                // Overflow entries were re-placed by advance.
+                continue;
+            }
+            Node<T> node = wheel[level][slot];
+            wheel[level][slot] = null;
+            occupied[level] &= ~(1L << slot);
+            while (node != null) {
+                final Node<T> nextNode = node.next;
+                if (level == 0) {
+                    nodes.remove(node.pooledObject);
+                    expired.add(node.pooledObject);
+                } else {
+                    place(node);
+                }
+                node = nextNode;
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Gets the configuration generation this wheel was filled for.
+     *
+     * @return The generation.
+     */
+    int getGeneration() {
+        return generation;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Node<T>[] newSlots(final int count) {
+        return new Node[count];
+    }
+
+    /**
+     * Links a node into the slot for its time relative to the cursor. Entries
+     * scheduled before the cursor go into the cursor's slot.
+     *
+     * @param node The node to place.
+     */
+    private void place(final Node<T> node) {
+        final long time = Math.max(node.time, cursor);
+        final long diff = time ^ cursor;
+        final int level = diff == 0 ? 0 : (Long.SIZE - 1 - Long.numberOfLeadingZeros(diff)) / SLOT_BITS;
+        final int slot;
+        if (level >= LEVELS) {
+            node.level = OVERFLOW;
+            slot = 0;
+        } else {
+            node.level = level;
+            slot = digit(time, level);
+            occupied[level] |= 1L << slot;
+        }
+        node.slot = slot;
+        final Node<T> head = wheel[node.level][slot];
+        node.prev = null;
+        node.next = head;
+        if (head != null) {
+            head.prev = node;
+        }
+        wheel[node.level][slot] = node;
+    }
+
+    /**
+     * Empties the wheel.
+     *
+     * @param generation The configuration generation the wheel will be filled for.
+     * @param cursor The new cursor in milliseconds.
+     */
+    void reset(final int generation, final long cursor) {
+        lock.lock();
+        try {
+            drain();
+            for (final Node<T>[] slots : wheel) {
+                Arrays.fill(slots, null);
+            }
+            Arrays.fill(occupied, 0);
+            nodes.clear();
+            this.generation = generation;
+            this.cursor = cursor;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Schedules, or reschedules, a pooled object at a given time.
+     *
+     * @param pooledObject The pooled object.
+     * @param time The time in milliseconds.
+     */
+    void schedule(final PooledObject<T> pooledObject, final long time) {
+        scheduled = true;
+        enqueue(new Operation<>(pooledObject, time));
+    }
+
+    /**
+     * Gets the number of scheduled entries, applying the queued operations.
+     *
+     * @return The number of scheduled entries.
+     */
+    int size() {
+        lock.lock();
+        try {
+            drain();
+            return nodes.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        lock.lock();
+        try {
+            final StringBuilder builder = new StringBuilder();
+            builder.append("TimingWheel [cursor=");
+            builder.append(cursor);
+            builder.append(", size=");
+            builder.append(nodes.size());
+            builder.append(", pending=");
+            builder.append(pendingCount);
+            builder.append(", generation=");
+            builder.append(generation);
+            builder.append("]");
+            return builder.toString();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Unlinks a node from its slot.
+     *
+     * @param node The node to unlink.
+     */
+    private void unlink(final Node<T> node) {
+        if (node.prev != null) {
+            node.prev.next = node.next;
+        } else {
+            wheel[node.level][node.slot] = node.next;
+            if (node.next == null && node.level < LEVELS) {
+                occupied[node.level] &= ~(1L << node.slot);
+            }
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+    }
+}
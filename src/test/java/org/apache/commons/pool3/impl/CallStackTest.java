@@ -23,6 +23,7 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.stream.Stream;
 
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -35,7 +36,9 @@ class CallStackTest {
                 Arguments.arguments(new ThrowableCallStack("Test", false)),
                 Arguments.arguments(new ThrowableCallStack("yyyy-MM-dd'T'HH:mm:ss.SSSXXX", true)),
                 Arguments.arguments(new SecurityManagerCallStack("Test", false)),
-                Arguments.arguments(new SecurityManagerCallStack("yyyy-MM-dd'T'HH:mm:ss.SSSXXX", true))
+                Arguments.arguments(new SecurityManagerCallStack("yyyy-MM-dd'T'HH:mm:ss.SSSXXX", true)),
+                Arguments.arguments(new StackWalkerCallStack("Test", false)),
+                Arguments.arguments(new StackWalkerCallStack("yyyy-MM-dd'T'HH:mm:ss.SSSXXX", true))
         );
         // @formatter:on
     }
@@ -60,4 +63,16 @@ class CallStackTest {
         final String stackTrace = writer.toString();
         assertTrue(stackTrace.contains(getClass().getName()));
     }
+
+    @Test
+    void testStackWalkerMaxFrames() {
+        final CallStack stack = new StackWalkerCallStack("Test", false, 2);
+        stack.fillInStackTrace();
+        stack.printStackTrace(new PrintWriter(writer));
+        final String[] lines = writer.toString().split(System.lineSeparator());
+        assertEquals(3, lines.length);
+        assertEquals("Test", lines[0]);
+        // The call stack's own frames are skipped.
+        assertTrue(lines[1].contains(getClass().getName() + ".testStackWalkerMaxFrames"), lines[1]);
+    }
 }
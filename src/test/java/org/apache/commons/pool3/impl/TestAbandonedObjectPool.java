@@ -28,6 +28,8 @@ import java.lang.management.ManagementFactory;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -321,6 +323,37 @@ class TestAbandonedObjectPool {
         assertEquals(1, pool.getNumActive());
     }
 
+    @Test
+    void testBorrowSiteSampling() throws Exception {
+        assertTrue(pool.listBorrowSites().isEmpty());
+        abandonedConfig = new AbandonedConfig();
+        abandonedConfig.setBorrowSiteSamplingInterval(1);
+        pool.close();  // Unregister pool created by setup
+        pool = new GenericObjectPool<>(new SimpleFactory(), new GenericObjectPoolConfig<>(), abandonedConfig);
+        final PooledTestObject held = pool.borrowObject();
+        for (int i = 0; i < 3; i++) {
+            pool.returnObject(pool.borrowObject());
+        }
+        final PooledTestObject invalid = pool.borrowObject();
+        pool.invalidateObject(invalid);
+        final List<BorrowSiteInfo> sites = pool.listBorrowSites();
+        assertEquals(3, sites.size());
+        long sampled = 0;
+        long outstanding = 0;
+        for (final BorrowSiteInfo site : sites) {
+            assertTrue(site.getCallSite().startsWith(TestAbandonedObjectPool.class.getName() + ".testBorrowSiteSampling"), site.getCallSite());
+            assertEquals(site.getSampledBorrowCount() - site.getOutstandingCount(), Arrays.stream(site.getHoldTimeHistogram()).sum());
+            sampled += site.getSampledBorrowCount();
+            outstanding += site.getOutstandingCount();
+        }
+        assertEquals(5, sampled);
+        assertEquals(1, outstanding);
+        pool.returnObject(held);
+        assertEquals(0, pool.listBorrowSites().stream().mapToLong(BorrowSiteInfo::getOutstandingCount).sum());
+        final Object[] jmxSites = (Object[]) ManagementFactory.getPlatformMBeanServer().invoke(pool.getJmxName(), "listBorrowSites", null, null);
+        assertEquals(3, jmxSites.length);
+    }
+
     /**
      * Tests fix for Bug 28579, a bug in AbandonedObjectPool that causes numActive to go negative
      * in GenericObjectPool
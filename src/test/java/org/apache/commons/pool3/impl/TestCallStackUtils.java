@@ -18,6 +18,7 @@
 package org.apache.commons.pool3.impl;
 
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.PrintWriter;
@@ -43,9 +44,32 @@ class TestCallStackUtils {
         assertTrue(out.toString().isEmpty());
     }
 
+    private String printStackTrace(final CallStack callStack) {
+        callStack.fillInStackTrace();
+        final StringWriter out = new StringWriter();
+        callStack.printStackTrace(new PrintWriter(out));
+        return out.toString();
+    }
+
     @Test
     void testNewCallStack3() {
         assertNewCallStack(CallStackUtils.newCallStack(MESSAGE_FORMAT, false, false));
         assertNewCallStack(CallStackUtils.newCallStack(MESSAGE_FORMAT, false, true));
     }
+
+    @Test
+    void testNewCallStackFullStackTrace() {
+        final String fullStackTrace = printStackTrace(CallStackUtils.newCallStack(MESSAGE_FORMAT, false, true));
+        assertTrue(fullStackTrace.contains(StackWalkerCallStack.class.getName() + ".fillInStackTrace"), fullStackTrace);
+        final String stackTrace = printStackTrace(CallStackUtils.newCallStack(MESSAGE_FORMAT, false, false));
+        assertFalse(stackTrace.contains(StackWalkerCallStack.class.getName()), stackTrace);
+        // Application classes in the same package are not pool frames
+        assertTrue(stackTrace.lines().skip(1).findFirst().get().contains(getClass().getName() + ".printStackTrace"), stackTrace);
+    }
+
+    @Test
+    void testNewCallStackUsesStackWalker() {
+        assertInstanceOf(StackWalkerCallStack.class, CallStackUtils.newCallStack(MESSAGE_FORMAT, true, false));
+        assertInstanceOf(StackWalkerCallStack.class, CallStackUtils.newCallStack(MESSAGE_FORMAT, true, true));
+    }
 }
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool3.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link FrequencySketch}.
+ */
+class TestFrequencySketch {
+
+    private final FrequencySketch<String> sketch = new FrequencySketch<>(16);
+
+    @Test
+    void testFrequency() {
+        assertEquals(0, sketch.frequency("a"));
+        for (int i = 0; i < 5; i++) {
+            sketch.increment("a");
+        }
+        sketch.increment("b");
+        assertEquals(5, sketch.frequency("a"));
+        assertEquals(1, sketch.frequency("b"));
+    }
+
+    @Test
+    void testReset() {
+        for (int i = 0; i < 10; i++) {
+            sketch.increment("hot");
+        }
+        // 10 times the counters of a row halves every counter.
+        for (int i = 0; i < 10 * 4 * 16; i++) {
+            sketch.increment("key" + i);
+        }
+        final int frequency = sketch.frequency("hot");
+        assertTrue(frequency >= 5 && frequency < 10, () -> Integer.toString(frequency));
+    }
+
+    @Test
+    void testSaturates() {
+        for (int i = 0; i < 100; i++) {
+            sketch.increment("a");
+        }
+        assertEquals(FrequencySketch.MAX_FREQUENCY, sketch.frequency("a"));
+    }
+}
@@ -22,6 +22,7 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -31,15 +32,22 @@ import java.lang.management.ManagementFactory;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Random;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -55,6 +63,7 @@ import javax.management.ObjectName;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.commons.lang3.function.Suppliers;
 import org.apache.commons.pool3.AbstractTestKeyedObjectPool;
+import org.apache.commons.pool3.AsyncKeyedPooledObjectFactory;
 import org.apache.commons.pool3.BaseKeyedPooledObjectFactory;
 import org.apache.commons.pool3.DestroyMode;
 import org.apache.commons.pool3.KeyedObjectPool;
@@ -509,6 +518,11 @@ class TestGenericKeyedObjectPool extends AbstractTestKeyedObjectPool {
     /** SetUp(): {@code new SimpleFactory<String>()} */
     private SimpleFactory<String> simpleFactory;
 
+    @SuppressWarnings("unchecked")
+    private static <X extends Throwable> void sneakyThrow(final Throwable t) throws X {
+        throw (X) t;
+    }
+
     private void checkEvictionOrder(final boolean lifo) throws InterruptedException, TestException {
         final SimpleFactory<Integer> intFactory = new SimpleFactory<>();
         try (GenericKeyedObjectPool<Integer, String, TestException> intPool = new GenericKeyedObjectPool<>(intFactory)) {
@@ -903,6 +917,62 @@ class TestGenericKeyedObjectPool extends AbstractTestKeyedObjectPool {
         }
     }
 
+    @Test
+    @Timeout(value = 60_000, unit = TimeUnit.MILLISECONDS)
+    void testAsyncFactoryEvictor() throws Exception {
+        final Queue<CompletableFuture<Boolean>> validations = new ConcurrentLinkedQueue<>();
+        final Queue<CompletableFuture<Void>> destructions = new ConcurrentLinkedQueue<>();
+        final AsyncKeyedPooledObjectFactory<String, String, TestException> factory = new AsyncKeyedPooledObjectFactory<String, String, TestException>() {
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public CompletionStage<Void> activateObjectAsync(final String key, final PooledObject<String> p) {
+                return CompletableFuture.completedFuture(null);
+            }
+
+            @Override
+            public CompletionStage<Void> destroyObjectAsync(final String key, final PooledObject<String> p, final DestroyMode destroyMode) {
+                final CompletableFuture<Void> destruction = new CompletableFuture<>();
+                destructions.add(destruction);
+                return destruction;
+            }
+
+            @Override
+            public CompletionStage<PooledObject<String>> makeObjectAsync(final String key) {
+                return CompletableFuture.completedFuture(new DefaultPooledObject<>(key + counter.getAndIncrement()));
+            }
+
+            @Override
+            public CompletionStage<Void> passivateObjectAsync(final String key, final PooledObject<String> p) {
+                return CompletableFuture.completedFuture(null);
+            }
+
+            @Override
+            public CompletionStage<Boolean> validateObjectAsync(final String key, final PooledObject<String> p) {
+                final CompletableFuture<Boolean> validation = new CompletableFuture<>();
+                validations.add(validation);
+                return validation;
+            }
+        };
+        try (GenericKeyedObjectPool<String, String, TestException> pool = new GenericKeyedObjectPool<>(factory)) {
+            pool.setTestWhileIdle(true);
+            pool.addObject("a");
+            pool.addObject("b");
+            // Validations do not block the evictor, the objects stay under test meanwhile.
+            pool.evict();
+            assertEquals(2, validations.size());
+            pool.evict();
+            assertEquals(2, validations.size());
+            validations.remove().complete(Boolean.FALSE);
+            validations.remove().complete(Boolean.TRUE);
+            assertEquals(1, pool.getNumIdle());
+            assertEquals(1, pool.getDestroyedByEvictorCount());
+            // Nor do destructions.
+            assertEquals(1, destructions.size());
+            assertFalse(destructions.peek().isDone());
+        }
+    }
+
     @Test
     @Timeout(value = 60_000, unit = TimeUnit.MILLISECONDS)
     void testBlockedKeyDoesNotBlockPool() throws Exception {
@@ -929,6 +999,83 @@ class TestGenericKeyedObjectPool extends AbstractTestKeyedObjectPool {
 
     }
 
+    @Test
+    @Timeout(value = 60_000, unit = TimeUnit.MILLISECONDS)
+    void testBorrowAny() throws Exception {
+        gkoPool.setBlockWhenExhausted(true);
+        gkoPool.setMaxTotalPerKey(1);
+        final List<String> keys = Arrays.asList("a", "b", "a");
+        // Created under the key with the fewest active objects.
+        final Map.Entry<String, String> a = gkoPool.borrowAny(keys, Duration.ofMillis(50));
+        assertEquals("a", a.getKey());
+        assertEquals("a0", a.getValue());
+        final Map.Entry<String, String> b = gkoPool.borrowAny(keys, Duration.ofMillis(50));
+        assertEquals("b", b.getKey());
+        assertEquals("b1", b.getValue());
+        assertThrows(NoSuchElementException.class, () -> gkoPool.borrowAny(keys, Duration.ofMillis(50)));
+        // Waits on every key at once.
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<Map.Entry<String, String>> waiter = executor.submit(() -> gkoPool.borrowAny(keys, Duration.ofSeconds(10)));
+            Thread.sleep(100);
+            assertFalse(waiter.isDone());
+            gkoPool.returnObject(b.getKey(), b.getValue());
+            final Map.Entry<String, String> taken = waiter.get();
+            assertEquals("b", taken.getKey());
+            assertEquals("b1", taken.getValue());
+            gkoPool.returnObject(taken.getKey(), taken.getValue());
+        } finally {
+            executor.shutdownNow();
+        }
+        // Idle objects come first, even under a key with more active objects.
+        gkoPool.setMaxTotalPerKey(2);
+        assertEquals(Map.entry("b", "b1"), gkoPool.borrowAny(keys, Duration.ofMillis(50)));
+        assertThrows(IllegalArgumentException.class, () -> gkoPool.borrowAny(Arrays.asList(), Duration.ZERO));
+        gkoPool.setBlockWhenExhausted(false);
+        gkoPool.setMaxTotal(3);
+        assertEquals(Map.entry("a", "a2"), gkoPool.borrowAny(keys, Duration.ZERO));
+        assertThrows(NoSuchElementException.class, () -> gkoPool.borrowAny(keys, Duration.ZERO));
+    }
+
+    @Test
+    @Timeout(value = 60_000, unit = TimeUnit.MILLISECONDS)
+    void testBorrowAnyDuringEvictionTest() throws Exception {
+        gkoPool.setMaxTotalPerKey(1);
+        gkoPool.setTestWhileIdle(true);
+        simpleFactory.setValidateLatency(500);
+        gkoPool.addObject("a");
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Future<?> evictor = executor.submit(() -> {
+                gkoPool.evict();
+                return null;
+            });
+            Thread.sleep(100);
+            // The only object is under test, so the borrower waits for it.
+            final Future<Map.Entry<String, String>> waiter = executor.submit(() -> gkoPool.borrowAny(Arrays.asList("a"), Duration.ofSeconds(30)));
+            evictor.get();
+            assertEquals(Map.entry("a", "a0"), waiter.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @Timeout(value = 60_000, unit = TimeUnit.MILLISECONDS)
+    void testBorrowAnyRoundRobin() throws Exception {
+        gkoPool.setKeyPreference(KeyPreference.roundRobin());
+        final List<String> keys = Arrays.asList("a", "b", "c");
+        for (final String key : keys) {
+            gkoPool.addObject(key);
+        }
+        for (final String key : Arrays.asList("a", "b", "c", "a")) {
+            final Map.Entry<String, String> entry = gkoPool.borrowAny(keys, Duration.ZERO);
+            assertEquals(key, entry.getKey());
+            gkoPool.returnObject(entry.getKey(), entry.getValue());
+        }
+        assertThrows(NullPointerException.class, () -> gkoPool.setKeyPreference(null));
+    }
+
     /*
      * Note: This test relies on timing for correct execution. There *should* be enough margin for this to work correctly on most (all?) systems but be aware of
      * this if you see a failure of this test.
@@ -1339,6 +1486,43 @@ class TestGenericKeyedObjectPool extends AbstractTestKeyedObjectPool {
         assertEquals(nIterations, gkoPool.getDestroyedCount());
     }
 
+    @Test
+    void testConcurrentKeyRegistration() throws Exception {
+        // Nothing stays idle, so each key is dropped and registered again all the time.
+        gkoPool.setMaxIdlePerKey(0);
+        final String[] keys = { "one", "two", "three" };
+        final int nThreads = 8;
+        final int nIterations = 2_000;
+        final ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < nThreads; t++) {
+                final int offset = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < nIterations; i++) {
+                        final String key = keys[(i + offset) % keys.length];
+                        gkoPool.returnObject(key, gkoPool.borrowObject(key));
+                    }
+                    return null;
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(0, gkoPool.getNumActive());
+        assertEquals(0, gkoPool.getNumIdle());
+        assertEquals(gkoPool.getCreatedCount(), gkoPool.getDestroyedCount());
+        assertTrue(gkoPool.getKeys().isEmpty());
+        // Keys can be registered again once dropped.
+        gkoPool.setMaxIdlePerKey(8);
+        gkoPool.returnObject("one", gkoPool.borrowObject("one"));
+        gkoPool.returnObject("two", gkoPool.borrowObject("two"));
+        assertEquals(Arrays.asList("one", "two"), gkoPool.getKeys());
+    }
+
     @Test
     void testConstructorNullFactory() {
         // add dummy assert (won't be invoked because of IAE) to avoid "unused" warning
@@ -1565,6 +1749,67 @@ class TestGenericKeyedObjectPool extends AbstractTestKeyedObjectPool {
         checkEvictionOrder(true);
     }
 
+    @Test
+    @Timeout(value = 60_000, unit = TimeUnit.MILLISECONDS)
+    void testEvictionValidateObjects() throws Exception {
+        final List<String> batches = Collections.synchronizedList(new ArrayList<>());
+        final SimpleFactory<String> factory = new SimpleFactory<String>() {
+            @Override
+            public boolean[] validateObjects(final String key, final List<PooledObject<String>> list) {
+                batches.add(key + list.size());
+                final boolean[] valid = new boolean[list.size()];
+                // The first object of each key is not valid.
+                for (int i = 1; i < valid.length; i++) {
+                    valid[i] = true;
+                }
+                return valid;
+            }
+        };
+        try (GenericKeyedObjectPool<String, String, TestException> pool = new GenericKeyedObjectPool<>(factory)) {
+            pool.addObjects("A", 3);
+            pool.addObjects("B", 2);
+            pool.setTestWhileIdle(true);
+            pool.setNumTestsPerEvictionRun(10);
+            pool.evict();
+            // One call per key, each object validated once.
+            assertEquals(Arrays.asList("A3", "B2"), batches);
+            assertEquals(2, pool.getDestroyedByEvictorCount());
+            assertEquals(2, pool.getNumIdle("A"));
+            assertEquals(1, pool.getNumIdle("B"));
+        }
+    }
+
+    @Test
+    @Timeout(value = 60_000, unit = TimeUnit.MILLISECONDS)
+    void testEvictionValidateObjectsFailure() throws Exception {
+        final List<String> batches = Collections.synchronizedList(new ArrayList<>());
+        final SimpleFactory<String> factory = new SimpleFactory<String>() {
+            @Override
+            public boolean[] validateObjects(final String key, final List<PooledObject<String>> list) {
+                batches.add(key + list.size());
+                if (key.equals("A")) {
+                    sneakyThrow(new TestException("validation failed"));
+                }
+                final boolean[] valid = new boolean[list.size()];
+                Arrays.fill(valid, true);
+                return valid;
+            }
+        };
+        try (GenericKeyedObjectPool<String, String, TestException> pool = new GenericKeyedObjectPool<>(factory)) {
+            pool.addObjects("A", 3);
+            pool.addObjects("B", 2);
+            pool.setTestWhileIdle(true);
+            pool.setNumTestsPerEvictionRun(10);
+            // The checked exception is rethrown as is, once every key is validated.
+            final TestException e = assertThrows(TestException.class, pool::evict);
+            assertEquals("validation failed", e.getMessage());
+            assertEquals(Arrays.asList("A3", "B2"), batches);
+            assertEquals(3, pool.getDestroyedByEvictorCount());
+            assertEquals(0, pool.getNumIdle("A"));
+            assertEquals(2, pool.getNumIdle("B"));
+        }
+    }
+
     // POOL-326
     @Test
     void testEvictorClearOldestRace() throws Exception {
@@ -1610,6 +1855,43 @@ class TestGenericKeyedObjectPool extends AbstractTestKeyedObjectPool {
         checkEvictorVisiting(false);
     }
 
+    @Test
+    @Timeout(value = 60_000, unit = TimeUnit.MILLISECONDS)
+    void testEvictorVisitsOnlyKeysWithIdleObjects() throws Exception {
+        gkoPool.setMaxTotalPerKey(-1);
+        gkoPool.setMinEvictableIdleDuration(Duration.ofMillis(1));
+        gkoPool.setNumTestsPerEvictionRun(1);
+        // Many keys with only active objects around a few keys with idle objects.
+        for (int i = 0; i < 100; i++) {
+            gkoPool.borrowObject("active" + i);
+        }
+        for (final String key : new String[] { "one", "two", "three" }) {
+            final String obj1 = gkoPool.borrowObject(key);
+            final String obj2 = gkoPool.borrowObject(key);
+            gkoPool.returnObject(key, obj1);
+            gkoPool.returnObject(key, obj2);
+        }
+        Thread.sleep(10);
+        gkoPool.evict();
+        assertEquals(1, gkoPool.getNumIdle("one"));
+        // A key whose idle objects are gone is dropped from the rotation, and the next run resumes after the previous key.
+        gkoPool.evict();
+        gkoPool.evict();
+        assertEquals(0, gkoPool.getNumIdle("one"));
+        assertEquals(1, gkoPool.getNumIdle("two"));
+        gkoPool.returnObject("one", gkoPool.borrowObject("one"));
+        Thread.sleep(10);
+        gkoPool.evict();
+        gkoPool.evict();
+        gkoPool.evict();
+        assertEquals(0, gkoPool.getNumIdle("two"));
+        assertEquals(0, gkoPool.getNumIdle("three"));
+        assertEquals(1, gkoPool.getNumIdle("one"));
+        gkoPool.evict();
+        assertEquals(0, gkoPool.getNumIdle());
+        assertEquals(100, gkoPool.getNumActive());
+    }
+
     @Test
     @Timeout(value = 60_000, unit = TimeUnit.MILLISECONDS)
     void testExceptionInValidationDuringEviction() throws Exception {
@@ -1713,6 +1995,36 @@ class TestGenericKeyedObjectPool extends AbstractTestKeyedObjectPool {
         assertEquals("key4", gkoPool.borrowObject(key), "new-4");
     }
 
+    @Test
+    @Timeout(value = 60_000, unit = TimeUnit.MILLISECONDS)
+    void testFrequencyAwareRetention() throws Exception {
+        final GenericKeyedObjectPoolConfig<String> config = new GenericKeyedObjectPoolConfig<>();
+        config.setFrequencyAwareRetention(true);
+        gkoPool.setConfig(config);
+        assertTrue(gkoPool.getFrequencyAwareRetention());
+        gkoPool.setMaxTotal(2);
+        gkoPool.setBlockWhenExhausted(false);
+        for (int i = 0; i < 5; i++) {
+            gkoPool.returnObject("hot", gkoPool.borrowObject("hot"));
+        }
+        Thread.sleep(10);
+        gkoPool.returnObject("cold", gkoPool.borrowObject("cold"));
+        // The idle object of the hot key is the oldest, but the cold key gives up its idle object.
+        final String rare = gkoPool.borrowObject("rare");
+        assertEquals(1, gkoPool.getNumIdle("hot"));
+        assertEquals(0, gkoPool.getNumIdle("cold"));
+        assertEquals(1, gkoPool.getDestroyedCount());
+        // No idle object of the hot key is destroyed for another rare key.
+        assertThrows(NoSuchElementException.class, () -> gkoPool.borrowObject("other"));
+        assertEquals(1, gkoPool.getNumIdle("hot"));
+        // Without retention, the oldest idle object is destroyed.
+        gkoPool.setFrequencyAwareRetention(false);
+        assertFalse(gkoPool.getFrequencyAwareRetention());
+        gkoPool.returnObject("other", gkoPool.borrowObject("other"));
+        assertEquals(0, gkoPool.getNumIdle("hot"));
+        gkoPool.returnObject("rare", rare);
+    }
+
     @Test
     @Timeout(value = 60, unit = TimeUnit.SECONDS)
     void testGetKeys() throws Exception {
@@ -1731,6 +2043,59 @@ class TestGenericKeyedObjectPool extends AbstractTestKeyedObjectPool {
         assertNotNull(gkoPool.getStatsString());
     }
 
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    void testIndexedEviction() throws Exception {
+        gkoPool.setIndexedEviction(true);
+        gkoPool.setMaxTotalPerKey(10);
+        gkoPool.setMaxIdlePerKey(10);
+        gkoPool.setNumTestsPerEvictionRun(1);
+        gkoPool.setMinEvictableIdleDuration(Duration.ofMillis(100));
+        for (final String key : new String[] { "one", "two" }) {
+            final String[] active = new String[10];
+            for (int i = 0; i < active.length; i++) {
+                active[i] = gkoPool.borrowObject(key);
+            }
+            for (final String obj : active) {
+                gkoPool.returnObject(key, obj);
+            }
+        }
+        gkoPool.evict();
+        assertEquals(20, gkoPool.getNumIdle());
+
+        Thread.sleep(150L);
+        gkoPool.returnObject("two", gkoPool.borrowObject("two"));
+        gkoPool.evict();
+        assertEquals(0, gkoPool.getNumIdle("one"));
+        assertEquals(1, gkoPool.getNumIdle("two"));
+        assertEquals(19, gkoPool.getDestroyedByEvictorCount());
+    }
+
+    @Test
+    @Timeout(value = 60_000, unit = TimeUnit.MILLISECONDS)
+    void testIndexedEvictionResumesAcrossKeys() throws Exception {
+        final Set<String> examined = new HashSet<>();
+        gkoPool.setEvictionPolicy((config, underTest, idleCount) -> {
+            // Keep every object so that it is examined again by the next run.
+            examined.add(underTest.getObject());
+            return false;
+        });
+        gkoPool.setIndexedEviction(true);
+        gkoPool.setMinEvictableIdleDuration(Duration.ofMillis(1));
+        // Each run examines a single object.
+        gkoPool.setMaxEvictionRunDuration(Duration.ofNanos(1));
+        final String[] keys = { "one", "two", "three" };
+        for (final String key : keys) {
+            gkoPool.addObject(key);
+        }
+        Thread.sleep(10);
+        for (int run = 0; run < keys.length; run++) {
+            gkoPool.evict();
+        }
+        // The runs resume from the key where the previous run stopped.
+        assertEquals(keys.length, examined.size(), examined::toString);
+    }
+
     /**
      * Verify that threads waiting on a depleted pool get served when a checked out object is
      * invalidated.
@@ -1860,6 +2225,99 @@ class TestGenericKeyedObjectPool extends AbstractTestKeyedObjectPool {
         assertEquals(1, result.size());
     }
 
+    @Test
+    @Timeout(value = 60_000, unit = TimeUnit.MILLISECONDS)
+    void testKeepAliveInterval() throws Exception {
+        gkoPool.setKeepAliveInterval(Duration.ofMillis(100));
+        gkoPool.addObject("one");
+        gkoPool.addObject("two");
+        gkoPool.evict();
+        assertEquals(0, gkoPool.getKeepAliveCount());
+
+        // Keepalives do nothing by default, idle objects are not validated.
+        Thread.sleep(150);
+        simpleFactory.setValidationEnabled(true);
+        simpleFactory.setValid(false);
+        gkoPool.evict();
+        assertEquals(2, gkoPool.getKeepAliveCount());
+        assertEquals(2, gkoPool.getNumIdle());
+        assertEquals(0, gkoPool.getDestroyedCount());
+    }
+
+    @Test
+    @Timeout(value = 60_000, unit = TimeUnit.MILLISECONDS)
+    void testKeepAliveIntervalMaxEvictionRunDuration() throws Exception {
+        gkoPool.close();
+        simpleFactory = new SimpleFactory<>() {
+            @Override
+            public boolean keepAliveObject(final String key, final PooledObject<String> p) {
+                return false;
+            }
+        };
+        gkoPool = new GenericKeyedObjectPool<>(simpleFactory);
+        gkoPool.setKeepAliveInterval(Duration.ofMillis(100));
+        gkoPool.setMaxEvictionRunDuration(Duration.ofNanos(1));
+        final String[] keys = { "one", "two", "three" };
+        for (final String key : keys) {
+            gkoPool.addObject(key);
+        }
+        Thread.sleep(150);
+
+        // Each run is out of time after one keepalive, dead objects are destroyed.
+        for (int run = 1; run <= keys.length; run++) {
+            // Keepalives are scheduled to the millisecond.
+            Thread.sleep(2);
+            gkoPool.evict();
+            assertEquals(run, gkoPool.getKeepAliveCount());
+            assertEquals(keys.length - run, gkoPool.getNumIdle());
+        }
+        assertEquals(keys.length, gkoPool.getDestroyedCount());
+    }
+
+    @Test
+    @Timeout(value = 60_000, unit = TimeUnit.MILLISECONDS)
+    void testKeyLimits() throws Exception {
+        gkoPool.setMaxTotalPerKey(2);
+        gkoPool.setBlockWhenExhausted(false);
+        gkoPool.setKeyLimits(key -> "hot".equals(key) ? new KeyLimits(4, 3, 2) : null);
+        assertNotNull(gkoPool.getKeyLimits());
+        final List<String> hot = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            hot.add(gkoPool.borrowObject("hot"));
+        }
+        assertThrows(NoSuchElementException.class, () -> gkoPool.borrowObject("hot"));
+        final String cold1 = gkoPool.borrowObject("cold");
+        final String cold2 = gkoPool.borrowObject("cold");
+        assertThrows(NoSuchElementException.class, () -> gkoPool.borrowObject("cold"));
+        hot.forEach(obj -> gkoPool.returnObject("hot", obj));
+        assertEquals(3, gkoPool.getNumIdle("hot"));
+        gkoPool.returnObject("cold", cold1);
+        gkoPool.returnObject("cold", cold2);
+        assertEquals(2, gkoPool.getNumIdle("cold"));
+        // minIdlePerKey of the pool is 0, only the hot key is kept warm
+        gkoPool.clear();
+        gkoPool.preparePool("cold");
+        gkoPool.preparePool("hot");
+        assertEquals(0, gkoPool.getNumIdle("cold"));
+        assertEquals(2, gkoPool.getNumIdle("hot"));
+        // Limits can be changed at runtime
+        gkoPool.setKeyLimits(key -> new KeyLimits(1, 1, 1));
+        gkoPool.preparePool("cold");
+        assertEquals(1, gkoPool.getNumIdle("cold"));
+        final String hot1 = gkoPool.borrowObject("hot");
+        final String hot2 = gkoPool.borrowObject("hot");
+        gkoPool.returnObject("hot", hot1);
+        gkoPool.returnObject("hot", hot2);
+        assertEquals(1, gkoPool.getNumIdle("hot"));
+        final String hot3 = gkoPool.borrowObject("hot");
+        assertThrows(NoSuchElementException.class, () -> gkoPool.borrowObject("hot"));
+        gkoPool.setKeyLimits(null);
+        assertNull(gkoPool.getKeyLimits());
+        gkoPool.returnObject("hot", gkoPool.borrowObject("hot"));
+        gkoPool.returnObject("hot", hot3);
+        assertEquals(2, gkoPool.getNumIdle("hot"));
+    }
+
     @Test
     @Timeout(value = 60_000, unit = TimeUnit.MILLISECONDS)
     void testLIFO() throws Exception {
@@ -1944,6 +2402,130 @@ class TestGenericKeyedObjectPool extends AbstractTestKeyedObjectPool {
         }
     }
 
+    @Test
+    @Timeout(value = 60_000, unit = TimeUnit.MILLISECONDS)
+    void testMaxEvictionRunDuration() throws Exception {
+        gkoPool.setNumTestsPerEvictionRun(Integer.MAX_VALUE);
+        gkoPool.setTestWhileIdle(true);
+        gkoPool.setMaxEvictionRunDuration(Duration.ofMillis(100));
+        assertEquals(Duration.ofMillis(100), gkoPool.getMaxEvictionRunDuration());
+        for (final String key : new String[] { "one", "two" }) {
+            final String[] active = new String[3];
+            for (int i = 0; i < active.length; i++) {
+                active[i] = gkoPool.borrowObject(key);
+            }
+            for (final String obj : active) {
+                gkoPool.returnObject(key, obj);
+            }
+        }
+        simpleFactory.setValidateLatency(40);
+        simpleFactory.setValidationEnabled(true);
+        simpleFactory.setValid(false);
+
+        // The budget runs out after a few validations of 40 ms each.
+        gkoPool.evict();
+        final long destroyed = gkoPool.getDestroyedByEvictorCount();
+        assertTrue(destroyed >= 1 && destroyed < 6, () -> "destroyed " + destroyed);
+        assertEquals(1, gkoPool.getTimeLimitedEvictionRunCount());
+        assertTrue(gkoPool.getMeanEvictionRunCoverage() < 1);
+
+        // Later runs resume with the objects and keys left over.
+        for (int run = 0; run < 10 && gkoPool.getNumIdle() > 0; run++) {
+            gkoPool.evict();
+        }
+        assertEquals(0, gkoPool.getNumIdle());
+        assertEquals(6, gkoPool.getDestroyedByEvictorCount());
+    }
+
+    @Test
+    @Timeout(value = 60_000, unit = TimeUnit.MILLISECONDS)
+    void testMaxKeys() throws Exception {
+        // Without the evictor, keys are retired when a new key takes the pool over the cap.
+        assertTrue(gkoPool.getDurationBetweenEvictionRuns().isNegative());
+        gkoPool.setMaxKeys(2);
+        gkoPool.addObject("a");
+        Thread.sleep(10);
+        gkoPool.addObject("b");
+        Thread.sleep(10);
+        gkoPool.returnObject("a", gkoPool.borrowObject("a"));
+        Thread.sleep(10);
+        // b is the least recently used key.
+        gkoPool.addObject("c");
+        for (int i = 0; i < 100 && gkoPool.getKeys().size() > 2; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(Arrays.asList("a", "c"), gkoPool.getKeys());
+        assertEquals(1, gkoPool.getRetiredKeyCount());
+        assertEquals(1, gkoPool.getDestroyedCount());
+        // Keys with active objects are not retired, the evictor retires the others.
+        final String c = gkoPool.borrowObject("c");
+        gkoPool.setMaxKeys(1);
+        gkoPool.evict();
+        assertEquals(Arrays.asList("c"), gkoPool.getKeys());
+        assertEquals(2, gkoPool.getRetiredKeyCount());
+        final String d = gkoPool.borrowObject("d");
+        assertEquals(Arrays.asList("c", "d"), gkoPool.getKeys());
+        final Map<String, Long> footprints = gkoPool.getFootprintPerKey();
+        assertEquals(new HashSet<>(Arrays.asList("c", "d")), footprints.keySet());
+        assertTrue(footprints.get("c") > 0);
+        assertEquals(footprints.get("c"), footprints.get("d"));
+        assertEquals(2, gkoPool.getRetiredKeyCount());
+        gkoPool.setMaxKeys(-1);
+        gkoPool.returnObject("c", c);
+        gkoPool.returnObject("d", d);
+        gkoPool.addObject("e");
+        assertEquals(3, gkoPool.getKeys().size());
+    }
+
+    @Test
+    @Timeout(value = 60_000, unit = TimeUnit.MILLISECONDS)
+    void testMaxLifetime() throws Exception {
+        gkoPool.setMaxLifetime(Duration.ofMillis(100));
+        gkoPool.setMaxLifetimeJitter(Duration.ofMillis(50));
+        assertEquals(Duration.ofMillis(100), gkoPool.getMaxLifetime());
+        gkoPool.addObject("one");
+        Thread.sleep(150);
+
+        // Expired idle objects are destroyed instead of being borrowed.
+        final String obj = gkoPool.borrowObject("one");
+        assertEquals("one1", obj);
+        assertEquals(1, gkoPool.getDestroyedByMaxLifetimeCount());
+
+        // An object that expired while borrowed is destroyed when returned.
+        Thread.sleep(150);
+        gkoPool.returnObject("one", obj);
+        assertEquals(2, gkoPool.getDestroyedByMaxLifetimeCount());
+        assertEquals(0, gkoPool.getNumIdle("one"));
+
+        // The evictor replaces expiring objects before destroying them to keep minIdlePerKey.
+        gkoPool.setMinIdlePerKey(2);
+        gkoPool.addObject("two");
+        gkoPool.addObject("two");
+        Thread.sleep(150);
+        gkoPool.evict();
+        assertEquals(4, gkoPool.getDestroyedByMaxLifetimeCount());
+        assertEquals(2, gkoPool.getNumIdle("two"));
+    }
+
+    @Test
+    @Timeout(value = 60_000, unit = TimeUnit.MILLISECONDS)
+    void testMaxLifetimeMaxEvictionRunDuration() throws Exception {
+        gkoPool.setMaxLifetime(Duration.ofMillis(100));
+        gkoPool.setMaxEvictionRunDuration(Duration.ofNanos(1));
+        final String[] keys = { "one", "two", "three" };
+        for (final String key : keys) {
+            gkoPool.addObject(key);
+        }
+        Thread.sleep(150);
+
+        // Each run is out of time after one expired object, the next run resumes with the next key.
+        for (int run = 1; run <= keys.length; run++) {
+            gkoPool.evict();
+            assertEquals(run, gkoPool.getDestroyedByMaxLifetimeCount());
+            assertEquals(keys.length - run, gkoPool.getNumIdle());
+        }
+    }
+
     @Test
     @Timeout(value = 60_000, unit = TimeUnit.MILLISECONDS)
     void testMaxIdle() throws Exception {
@@ -2468,6 +3050,121 @@ class TestGenericKeyedObjectPool extends AbstractTestKeyedObjectPool {
         assertEquals(2, gkoPool.getNumIdle("B"));
     }
 
+    @Test
+    @Timeout(value = 60_000, unit = TimeUnit.MILLISECONDS)
+    void testPreparePools() throws Exception {
+        final CountDownLatch slow = new CountDownLatch(1);
+        final SimpleFactory<String> factory = new SimpleFactory<String>() {
+            @Override
+            public PooledObject<String> makeObject(final String key) throws TestException {
+                if (key.equals("slow")) {
+                    try {
+                        slow.await();
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.makeObject(key);
+            }
+        };
+        final GenericKeyedObjectPool<String, String, TestException> pool = new GenericKeyedObjectPool<>(factory);
+        try {
+            pool.setMinIdlePerKey(3);
+            final List<String> keys = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                keys.add("key" + i);
+            }
+            keys.add(5, "slow");
+            // The slow key does not hold up the other keys.
+            assertEquals(Arrays.asList("slow"), pool.preparePools(keys, 4, Duration.ofSeconds(1)));
+            for (int i = 0; i < 10; i++) {
+                assertEquals(3, pool.getNumIdle("key" + i));
+            }
+            assertEquals(0, pool.getNumIdle("slow"));
+            // Nor does it hold up the evictor past its budget.
+            pool.setMinIdleParallelism(4);
+            pool.setMaxEvictionRunDuration(Duration.ofMillis(200));
+            final String key0 = pool.borrowObject("key0");
+            final String key9 = pool.borrowObject("key9");
+            pool.ensureMinIdle();
+            assertEquals(3, pool.getNumIdle("key0"));
+            assertEquals(3, pool.getNumIdle("key9"));
+            pool.returnObject("key0", key0);
+            pool.returnObject("key9", key9);
+        } finally {
+            slow.countDown();
+            pool.close();
+        }
+    }
+
+    @Test
+    @Timeout(value = 60_000, unit = TimeUnit.MILLISECONDS)
+    void testPreparePoolMakeObjects() throws Exception {
+        final List<String> batches = Collections.synchronizedList(new ArrayList<>());
+        final SimpleFactory<String> factory = new SimpleFactory<String>() {
+            @Override
+            public List<PooledObject<String>> makeObjects(final String key, final int count) throws TestException {
+                batches.add(key + count);
+                final List<PooledObject<String>> list = new ArrayList<>();
+                // One more than asked for, which the pool destroys.
+                for (int i = 0; i <= count; i++) {
+                    list.add(makeObject(key));
+                }
+                return list;
+            }
+        };
+        try (GenericKeyedObjectPool<String, String, TestException> pool = new GenericKeyedObjectPool<>(factory)) {
+            pool.setMaxTotal(5);
+            pool.setMinIdlePerKey(3);
+            pool.preparePool("A");
+            pool.preparePool("B");
+            // The batch of B is cut down to the capacity left below maxTotal.
+            assertEquals(Arrays.asList("A3", "B2"), batches);
+            assertEquals(3, pool.getNumIdle("A"));
+            assertEquals(2, pool.getNumIdle("B"));
+            assertEquals(5, pool.getCreatedCount());
+            assertEquals(5, factory.activeCount);
+            pool.setMaxTotal(-1);
+            pool.setMaxTotalPerKey(6);
+            pool.addObjects("A", 4);
+            // The batch is cut down to the capacity left below maxTotalPerKey.
+            assertEquals(Arrays.asList("A3", "B2", "A3"), batches);
+            assertEquals(6, pool.getNumIdle("A"));
+        }
+    }
+
+    @Test
+    @Timeout(value = 60_000, unit = TimeUnit.MILLISECONDS)
+    void testRekeyIdleObject() throws Exception {
+        final SimpleFactory<String> factory = new SimpleFactory<String>() {
+            @Override
+            public boolean rekeyObject(final String fromKey, final String toKey, final PooledObject<String> p) {
+                return !toKey.equals("fixed");
+            }
+        };
+        try (GenericKeyedObjectPool<String, String, TestException> pool = new GenericKeyedObjectPool<>(factory)) {
+            pool.setMaxTotal(2);
+            pool.addObject("a");
+            pool.addObject("b");
+            // The oldest idle object moves to the key that needs one.
+            final String rekeyed = pool.borrowObject("c");
+            assertEquals("a0", rekeyed);
+            assertEquals(1, pool.getRekeyedCount());
+            assertEquals(2, pool.getCreatedCount());
+            assertEquals(0, pool.getDestroyedCount());
+            assertEquals(1, pool.getNumActive("c"));
+            assertFalse(pool.getKeys().contains("a"));
+            pool.returnObject("c", rekeyed);
+            assertEquals(1, pool.getNumIdle("c"));
+            // Objects the factory cannot convert are destroyed and made again.
+            assertEquals("fixed2", pool.borrowObject("fixed"));
+            assertEquals(1, pool.getRekeyedCount());
+            assertEquals(1, pool.getDestroyedCount());
+            assertEquals(0, pool.getNumIdle("b"));
+            assertEquals(1, pool.getNumIdle("c"));
+        }
+    }
+
     @Test
     void testReturnObjectThrowsIllegalStateException() {
         try (GenericKeyedObjectPool<String, String, TestException> pool = new GenericKeyedObjectPool<>(new SimpleFactory<>())) {
@@ -2543,6 +3240,47 @@ class TestGenericKeyedObjectPool extends AbstractTestKeyedObjectPool {
         }
     }
 
+    @Test
+    @Timeout(value = 60_000, unit = TimeUnit.MILLISECONDS)
+    void testReuseCapacityMovesOneOldestIdleObject() throws Exception {
+        gkoPool.setMaxTotal(4);
+        gkoPool.setMaxWait(Duration.ofSeconds(10));
+        final String a1 = gkoPool.borrowObject("a");
+        final String b1 = gkoPool.borrowObject("b");
+        final String a2 = gkoPool.borrowObject("a");
+        final String c1 = gkoPool.borrowObject("c");
+        gkoPool.returnObject("b", b1);
+        Thread.sleep(10);
+        gkoPool.returnObject("a", a1);
+        Thread.sleep(10);
+        // A waiter on d, the pool is full
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<String> waiter = executor.submit(() -> gkoPool.borrowObject("d"));
+            // The oldest idle object, b1, was destroyed to create one for d
+            assertEquals("d4", waiter.get());
+            assertEquals(1, gkoPool.getDestroyedCount());
+            assertEquals(0, gkoPool.getNumIdle("b"));
+            assertEquals(1, gkoPool.getNumIdle("a"));
+            // No idle objects left, a waiter on e blocks
+            assertEquals(a1, gkoPool.borrowObject("a"));
+            final Future<String> waiter2 = executor.submit(() -> gkoPool.borrowObject("e"));
+            while (gkoPool.getNumWaiters() == 0) {
+                Thread.sleep(5);
+            }
+            // Returning with a waiter moves exactly one idle object, c1, to e
+            gkoPool.returnObject("c", c1);
+            assertEquals("e5", waiter2.get());
+            assertEquals(2, gkoPool.getDestroyedCount());
+            assertEquals(0, gkoPool.getNumIdle());
+            assertEquals(0, gkoPool.getNumWaiters());
+        } finally {
+            executor.shutdown();
+        }
+        gkoPool.returnObject("a", a1);
+        gkoPool.returnObject("a", a2);
+    }
+
     @Test
     @Timeout(value = 60_000, unit = TimeUnit.MILLISECONDS)
     void testSettersAndGetters() {
@@ -2596,6 +3334,31 @@ class TestGenericKeyedObjectPool extends AbstractTestKeyedObjectPool {
         }
     }
 
+    @Test
+    @Timeout(value = 60_000, unit = TimeUnit.MILLISECONDS)
+    void testTestWhileIdleParallelism() throws Exception {
+        gkoPool.setNumTestsPerEvictionRun(6);
+        gkoPool.setTestWhileIdle(true);
+        gkoPool.setTestWhileIdleParallelism(6);
+        for (final String key : new String[] { "one", "two" }) {
+            final String[] active = new String[3];
+            for (int i = 0; i < active.length; i++) {
+                active[i] = gkoPool.borrowObject(key);
+            }
+            for (final String obj : active) {
+                gkoPool.returnObject(key, obj);
+            }
+        }
+        simpleFactory.setValidateLatency(300);
+        simpleFactory.setValidationEnabled(true);
+        simpleFactory.setValid(false);
+        final long startNanos = System.nanoTime();
+        gkoPool.evict();
+        assertTrue(System.nanoTime() - startNanos < TimeUnit.MILLISECONDS.toNanos(1200));
+        assertEquals(0, gkoPool.getNumIdle());
+        assertEquals(6, gkoPool.getDestroyedByEvictorCount());
+    }
+
     @Test
     @Timeout(value = 60_000, unit = TimeUnit.MILLISECONDS)
     void testThreaded1() {
@@ -34,6 +34,7 @@ import java.nio.charset.UnsupportedCharsetException;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -43,6 +44,13 @@ import java.util.Random;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -54,7 +62,9 @@ import javax.management.ObjectName;
 import org.apache.commons.lang3.ThreadUtils;
 import org.apache.commons.lang3.function.Suppliers;
 import org.apache.commons.lang3.time.DurationUtils;
+import org.apache.commons.pool3.AsyncPooledObjectFactory;
 import org.apache.commons.pool3.BasePooledObjectFactory;
+import org.apache.commons.pool3.DestroyMode;
 import org.apache.commons.pool3.ObjectPool;
 import org.apache.commons.pool3.PoolUtils;
 import org.apache.commons.pool3.PooledObject;
@@ -75,6 +85,52 @@ import org.junit.jupiter.api.Timeout;
  */
 class TestGenericObjectPool extends TestBaseObjectPool {
 
+    /**
+     * Asynchronous factory whose creations, validations and destructions complete when the test says so.
+     */
+    private static final class AsyncFactory implements AsyncPooledObjectFactory<String, TestException> {
+
+        private final Queue<CompletableFuture<PooledObject<String>>> makes = new ConcurrentLinkedQueue<>();
+        private final Queue<CompletableFuture<Boolean>> validations = new ConcurrentLinkedQueue<>();
+        private final Queue<CompletableFuture<Void>> destructions = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public CompletionStage<Void> activateObjectAsync(final PooledObject<String> p) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        void completeMake() {
+            makes.remove().complete(new DefaultPooledObject<>(String.valueOf(counter.getAndIncrement())));
+        }
+
+        @Override
+        public CompletionStage<Void> destroyObjectAsync(final PooledObject<String> p, final DestroyMode destroyMode) {
+            final CompletableFuture<Void> destruction = new CompletableFuture<>();
+            destructions.add(destruction);
+            return destruction;
+        }
+
+        @Override
+        public CompletionStage<PooledObject<String>> makeObjectAsync() {
+            final CompletableFuture<PooledObject<String>> make = new CompletableFuture<>();
+            makes.add(make);
+            return make;
+        }
+
+        @Override
+        public CompletionStage<Void> passivateObjectAsync(final PooledObject<String> p) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletionStage<Boolean> validateObjectAsync(final PooledObject<String> p) {
+            final CompletableFuture<Boolean> validation = new CompletableFuture<>();
+            validations.add(validation);
+            return validation;
+        }
+    }
+
     private final class ConcurrentBorrowAndEvictThread extends Thread {
         private final boolean borrow;
         private String obj;
@@ -1024,6 +1080,35 @@ class TestGenericObjectPool extends TestBaseObjectPool {
         }
     }
 
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    void testAsyncFactoryEvictor() throws Exception {
+        final AsyncFactory factory = new AsyncFactory();
+        try (GenericObjectPool<String, TestException> pool = new GenericObjectPool<>(factory)) {
+            pool.setMinIdle(2);
+            pool.setTestWhileIdle(true);
+            // The top-up does not wait for the creations.
+            pool.ensureMinIdle();
+            assertEquals(2, factory.makes.size());
+            assertEquals(0, pool.getNumIdle());
+            pool.ensureMinIdle();
+            assertEquals(2, factory.makes.size());
+            factory.completeMake();
+            factory.completeMake();
+            assertEquals(2, pool.getNumIdle());
+            // Nor do validations, the objects stay under test meanwhile.
+            pool.evict();
+            assertEquals(2, factory.validations.size());
+            pool.evict();
+            assertEquals(2, factory.validations.size());
+            factory.validations.remove().complete(Boolean.TRUE);
+            factory.validations.remove().complete(Boolean.FALSE);
+            assertEquals(1, pool.getNumIdle());
+            assertEquals(1, pool.getDestroyedByEvictorCount());
+            assertEquals(1, factory.destructions.size());
+        }
+    }
+
     /*
      * Note: This test relies on timing for correct execution. There *should* be
      * enough margin for this to work correctly on most (all?) systems but be
@@ -1079,6 +1164,122 @@ class TestGenericObjectPool extends TestBaseObjectPool {
         }
     }
 
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    void testBorrowObjectAsync() throws Exception {
+        final AsyncFactory factory = new AsyncFactory();
+        try (GenericObjectPool<String, TestException> pool = new GenericObjectPool<>(factory)) {
+            pool.setMaxTotal(1);
+            // Creation does not block the borrower.
+            final CompletableFuture<String> first = pool.borrowObjectAsync().toCompletableFuture();
+            assertFalse(first.isDone());
+            assertEquals(1, factory.makes.size());
+            factory.completeMake();
+            assertEquals("0", first.getNow(null));
+            // Exhausted, the next borrower waits without a thread.
+            final CompletableFuture<String> second = pool.borrowObjectAsync().toCompletableFuture();
+            assertFalse(second.isDone());
+            assertEquals(1, pool.getNumWaiters());
+            pool.returnObject(first.join());
+            assertEquals("0", second.getNow(null));
+            assertEquals(0, pool.getNumWaiters());
+            // Waiting borrowers time out.
+            final CompletableFuture<String> third = pool.borrowObjectAsync(Duration.ofMillis(50)).toCompletableFuture();
+            final CompletionException e = assertThrows(CompletionException.class, third::join);
+            assertInstanceOf(NoSuchElementException.class, e.getCause());
+            // A withdrawn borrower does not get the returned object.
+            final CompletableFuture<String> fourth = pool.borrowObjectAsync().toCompletableFuture();
+            fourth.cancel(false);
+            pool.returnObject(second.join());
+            assertEquals(1, pool.getNumIdle());
+            assertEquals(0, pool.getNumWaiters());
+            // Destruction does not block either.
+            pool.invalidateObject(pool.borrowObject());
+            assertEquals(1, factory.destructions.size());
+            assertEquals(0, pool.getNumActive() + pool.getNumIdle());
+        }
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    void testBorrowObjectAsyncCancelledWaiters() throws Exception {
+        final AsyncFactory factory = new AsyncFactory();
+        try (GenericObjectPool<String, TestException> pool = new GenericObjectPool<>(factory)) {
+            pool.setMaxTotal(1);
+            final CompletableFuture<String> first = pool.borrowObjectAsync().toCompletableFuture();
+            factory.completeMake();
+            final List<CompletableFuture<String>> waiters = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                waiters.add(pool.borrowObjectAsync().toCompletableFuture());
+            }
+            assertEquals(3, pool.getNumWaiters());
+            // Withdrawn borrowers stop counting as waiters and are skipped when an object is returned.
+            waiters.get(0).cancel(false);
+            waiters.get(1).cancel(false);
+            assertEquals(1, pool.getNumWaiters());
+            pool.returnObject(first.join());
+            assertEquals("0", waiters.get(2).getNow(null));
+            assertEquals(0, pool.getNumWaiters());
+            // A withdrawn borrower at the head of the queue does not hold up the next one.
+            final CompletableFuture<String> withdrawn = pool.borrowObjectAsync().toCompletableFuture();
+            final CompletableFuture<String> next = pool.borrowObjectAsync().toCompletableFuture();
+            withdrawn.cancel(false);
+            assertEquals(1, pool.getNumWaiters());
+            pool.returnObject(waiters.get(2).join());
+            assertEquals("0", next.getNow(null));
+            assertEquals(0, pool.getNumWaiters());
+        }
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    void testBorrowObjectAsyncDuringEvictionTest() throws Exception {
+        final AsyncFactory factory = new AsyncFactory();
+        try (GenericObjectPool<String, TestException> pool = new GenericObjectPool<>(factory)) {
+            pool.setMaxTotal(1);
+            pool.setTestWhileIdle(true);
+            final CompletableFuture<String> created = pool.borrowObjectAsync().toCompletableFuture();
+            factory.completeMake();
+            pool.returnObject(created.join());
+            pool.evict();
+            assertEquals(1, factory.validations.size());
+            // The only object is under test, so the borrower waits for it.
+            final CompletableFuture<String> borrowed = pool.borrowObjectAsync(Duration.ofSeconds(60)).toCompletableFuture();
+            assertFalse(borrowed.isDone());
+            assertEquals(1, pool.getNumWaiters());
+            factory.validations.remove().complete(Boolean.TRUE);
+            assertEquals("0", borrowed.getNow(null));
+            assertEquals(0, pool.getNumWaiters());
+        }
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    void testBorrowObjectAsyncTestOnCreate() throws Exception {
+        final List<String> destroyed = Collections.synchronizedList(new ArrayList<>());
+        genericObjectPool.close();
+        simpleFactory = new SimpleFactory() {
+            @Override
+            public void destroyObject(final PooledObject<String> obj) throws TestException {
+                destroyed.add(obj.getObject());
+                super.destroyObject(obj);
+            }
+        };
+        genericObjectPool = new GenericObjectPool<>(simpleFactory);
+        genericObjectPool.setTestOnCreate(true);
+        // With a blocking factory, an object failing validation on creation is destroyed and the borrower gets the next one.
+        simpleFactory.setEvenValid(false);
+        assertEquals("1", genericObjectPool.borrowObjectAsync().toCompletableFuture().join());
+        assertEquals(Arrays.asList("0"), destroyed);
+        // An object that cannot be validated is destroyed as well, failing the borrower.
+        simpleFactory.setThrowExceptionOnValidate(true);
+        final CompletionException e = assertThrows(CompletionException.class, () -> genericObjectPool.borrowObjectAsync().toCompletableFuture().join());
+        assertEquals("validation failed", e.getCause().getMessage());
+        assertEquals(Arrays.asList("0", "2"), destroyed);
+        assertEquals(1, genericObjectPool.getNumActive());
+        assertEquals(0, genericObjectPool.getNumIdle());
+    }
+
     @Test/* maxWaitMillis x2 + padding */
     @Timeout(value = 1200, unit = TimeUnit.MILLISECONDS)
     void testBorrowObjectOverrideMaxWaitLarge() throws Exception {
@@ -1770,6 +1971,48 @@ class TestGenericObjectPool extends TestBaseObjectPool {
         }
     }
 
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    void testEvictionValidateObjects() throws Exception {
+        final List<Integer> batches = Collections.synchronizedList(new ArrayList<>());
+        genericObjectPool.close();
+        simpleFactory = new SimpleFactory() {
+            @Override
+            public boolean[] validateObjects(final List<PooledObject<String>> list) {
+                batches.add(list.size());
+                final boolean[] valid = new boolean[list.size()];
+                for (int i = 0; i < valid.length; i++) {
+                    valid[i] = !list.get(i).getObject().equals("1");
+                }
+                return valid;
+            }
+        };
+        genericObjectPool = new GenericObjectPool<>(simpleFactory);
+        genericObjectPool.setMinIdle(4);
+        genericObjectPool.setTestOnCreate(true);
+        genericObjectPool.preparePool();
+        // Validated together on creation, "1" is destroyed and replaced.
+        assertEquals(Arrays.asList(4), batches);
+        assertEquals(4, genericObjectPool.getNumIdle());
+        assertEquals(1, simpleFactory.getMakeCounter() - genericObjectPool.getCreatedCount());
+
+        genericObjectPool.setTestOnCreate(false);
+        genericObjectPool.setTestWhileIdle(true);
+        genericObjectPool.setNumTestsPerEvictionRun(10);
+        genericObjectPool.evict();
+        // The whole run is validated together, each object once.
+        assertEquals(Arrays.asList(4, 4), batches);
+        assertEquals(4, genericObjectPool.getNumIdle());
+        assertEquals(0, genericObjectPool.getDestroyedByEvictorCount());
+
+        // A run with a time budget validates objects one at a time.
+        genericObjectPool.setMaxEvictionRunDuration(Duration.ofMinutes(1));
+        final int before = simpleFactory.validateCounter;
+        genericObjectPool.evict();
+        assertEquals(Arrays.asList(4, 4), batches);
+        assertEquals(before + 4, simpleFactory.validateCounter);
+    }
+
     @Test
     @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
     void testEvictionWithNegativeNumTests() throws Exception {
@@ -1802,6 +2045,42 @@ class TestGenericObjectPool extends TestBaseObjectPool {
         assertEquals(0, genericObjectPool.getNumIdle(), "Should be zero idle, found " + genericObjectPool.getNumIdle());
     }
 
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    void testEvictorExecutor() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            genericObjectPool.setEvictorExecutor(executor);
+            genericObjectPool.setEvictorJitter(Duration.ofMillis(50));
+            genericObjectPool.setMinIdle(2);
+            genericObjectPool.setDurationBetweenEvictionRuns(Duration.ofMillis(50));
+            Waiter.sleepQuietly(500L);
+            assertEquals(2, genericObjectPool.getNumIdle());
+            assertTrue(genericObjectPool.getEvictionRunCount() > 0);
+            assertTrue(genericObjectPool.getMeanEvictionRunTimeMillis() >= 0);
+            assertTrue(genericObjectPool.getMeanEvictionRunDelayMillis() >= 0);
+            assertEquals(0, genericObjectPool.getSkippedEvictionRunCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    void testEvictorExecutorSkipsRunsInProgress() throws Exception {
+        final List<Runnable> tasks = Collections.synchronizedList(new ArrayList<>());
+        // Never runs anything, so the first run is in progress forever.
+        genericObjectPool.setEvictorExecutor(tasks::add);
+        genericObjectPool.setDurationBetweenEvictionRuns(Duration.ofMillis(50));
+        Waiter.sleepQuietly(500L);
+        assertEquals(1, tasks.size());
+        assertEquals(0, genericObjectPool.getEvictionRunCount());
+        assertTrue(genericObjectPool.getSkippedEvictionRunCount() > 0);
+        genericObjectPool.setDurationBetweenEvictionRuns(Duration.ofMillis(-1));
+        tasks.get(0).run();
+        assertEquals(1, genericObjectPool.getEvictionRunCount());
+    }
+
     @Test
     @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
     void testEvictLIFO() throws Exception {
@@ -2026,6 +2305,44 @@ class TestGenericObjectPool extends TestBaseObjectPool {
         }
     }
 
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    void testIndexedEviction() throws Exception {
+        genericObjectPool.setMaxTotal(10);
+        genericObjectPool.setMaxIdle(10);
+        genericObjectPool.setNumTestsPerEvictionRun(1);
+        genericObjectPool.setMinEvictableIdleDuration(Duration.ofMillis(200));
+        genericObjectPool.setSoftMinEvictableIdleDuration(Duration.ofMillis(100));
+        genericObjectPool.setMinIdle(3);
+        final String[] active = new String[10];
+        for (int i = 0; i < active.length; i++) {
+            active[i] = genericObjectPool.borrowObject();
+        }
+        for (final String obj : active) {
+            genericObjectPool.returnObject(obj);
+        }
+        // Enabled with objects already idle, the index is filled on the next run.
+        genericObjectPool.setIndexedEviction(true);
+        assertTrue(genericObjectPool.getIndexedEviction());
+        genericObjectPool.evict();
+        assertEquals(10, genericObjectPool.getNumIdle());
+
+        // Every expired object is examined in one run, whatever numTestsPerEvictionRun.
+        Thread.sleep(150L);
+        genericObjectPool.returnObject(genericObjectPool.borrowObject());
+        genericObjectPool.evict();
+        assertEquals(3, genericObjectPool.getNumIdle());
+        assertEquals(7, genericObjectPool.getDestroyedByEvictorCount());
+        genericObjectPool.evict();
+        assertEquals(3, genericObjectPool.getNumIdle());
+
+        // Past minEvictableIdleDuration, minIdle no longer protects them.
+        Thread.sleep(250L);
+        genericObjectPool.evict();
+        assertEquals(0, genericObjectPool.getNumIdle());
+        assertEquals(10, genericObjectPool.getDestroyedByEvictorCount());
+    }
+
     /**
      * Verify that threads waiting on a depleted pool get served when a checked out
      * object is
@@ -2088,6 +2405,69 @@ class TestGenericObjectPool extends TestBaseObjectPool {
         }
     }
 
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    void testKeepAliveInterval() throws Exception {
+        final List<String> keptAlive = Collections.synchronizedList(new ArrayList<>());
+        final AtomicBoolean alive = new AtomicBoolean(true);
+        genericObjectPool.close();
+        simpleFactory = new SimpleFactory() {
+            @Override
+            public boolean keepAliveObject(final PooledObject<String> obj) {
+                keptAlive.add(obj.getObject());
+                return alive.get();
+            }
+        };
+        genericObjectPool = new GenericObjectPool<>(simpleFactory);
+        genericObjectPool.setKeepAliveInterval(Duration.ofMillis(200));
+        assertEquals(Duration.ofMillis(200), genericObjectPool.getKeepAliveInterval());
+        for (int i = 0; i < 4; i++) {
+            genericObjectPool.addObject();
+        }
+        genericObjectPool.evict();
+        assertTrue(keptAlive.isEmpty());
+
+        // Recently used objects are skipped.
+        Thread.sleep(170);
+        genericObjectPool.returnObject(genericObjectPool.borrowObject());
+        Thread.sleep(50);
+        genericObjectPool.evict();
+        assertEquals(3, keptAlive.size());
+        assertEquals(Set.of("0", "1", "2"), new HashSet<>(keptAlive));
+        assertEquals(3, genericObjectPool.getKeepAliveCount());
+        genericObjectPool.evict();
+        assertEquals(3, keptAlive.size());
+
+        // Dead objects are destroyed.
+        alive.set(false);
+        Thread.sleep(250);
+        genericObjectPool.evict();
+        assertEquals(7, genericObjectPool.getKeepAliveCount());
+        assertEquals(0, genericObjectPool.getNumIdle());
+        assertEquals(4, genericObjectPool.getDestroyedCount());
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    void testKeepAliveIntervalMaxEvictionRunDuration() throws Exception {
+        genericObjectPool.setKeepAliveInterval(Duration.ofMillis(100));
+        genericObjectPool.setMaxEvictionRunDuration(Duration.ofNanos(1));
+        for (int i = 0; i < 3; i++) {
+            genericObjectPool.addObject();
+        }
+        Thread.sleep(150);
+
+        // Each run is out of time after one keepalive, the next run keeps the others alive.
+        for (int run = 1; run <= 3; run++) {
+            // Keepalives are scheduled to the millisecond.
+            Thread.sleep(2);
+            genericObjectPool.evict();
+            assertEquals(run, genericObjectPool.getKeepAliveCount());
+        }
+        assertEquals(3, genericObjectPool.getNumIdle());
+        assertEquals(0, simpleFactory.validateCounter);
+    }
+
     @Test
     @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
     void testLIFO() throws Exception {
@@ -2183,6 +2563,109 @@ class TestGenericObjectPool extends TestBaseObjectPool {
         assertEquals(simpleFactory.getMakeCounter(), genericObjectPool.getNumIdle());
     }
 
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    void testMaxEvictionRunDuration() throws Exception {
+        final Set<String> validated = Collections.synchronizedSet(new HashSet<>());
+        genericObjectPool.close();
+        simpleFactory = new SimpleFactory() {
+            @Override
+            public boolean validateObject(final PooledObject<String> obj) {
+                validated.add(obj.getObject());
+                return super.validateObject(obj);
+            }
+        };
+        genericObjectPool = new GenericObjectPool<>(simpleFactory);
+        genericObjectPool.setMaxTotal(10);
+        genericObjectPool.setMaxIdle(10);
+        genericObjectPool.setNumTestsPerEvictionRun(Integer.MAX_VALUE);
+        genericObjectPool.setTestWhileIdle(true);
+        genericObjectPool.setMaxEvictionRunDuration(Duration.ofMillis(100));
+        assertEquals(Duration.ofMillis(100), genericObjectPool.getMaxEvictionRunDuration());
+        final String[] active = new String[10];
+        for (int i = 0; i < active.length; i++) {
+            active[i] = genericObjectPool.borrowObject();
+        }
+        for (final String obj : active) {
+            genericObjectPool.returnObject(obj);
+        }
+        simpleFactory.setValidateLatency(40);
+
+        // The budget runs out after a few validations of 40 ms each.
+        genericObjectPool.evict();
+        final int examined = simpleFactory.validateCounter;
+        assertTrue(examined >= 1 && examined < 10, () -> "examined " + examined);
+        assertEquals(1, genericObjectPool.getTimeLimitedEvictionRunCount());
+        assertTrue(genericObjectPool.getMeanEvictionRunCoverage() < 1);
+
+        // Later runs resume where the previous one stopped.
+        for (int run = 0; run < 10 && validated.size() < 10; run++) {
+            genericObjectPool.evict();
+        }
+        assertEquals(10, validated.size());
+        assertEquals(10, genericObjectPool.getNumIdle());
+
+        // Without a budget a run covers every idle object.
+        genericObjectPool.setMaxEvictionRunDuration(null);
+        simpleFactory.setValidateLatency(0);
+        final long timeLimited = genericObjectPool.getTimeLimitedEvictionRunCount();
+        final int before = simpleFactory.validateCounter;
+        genericObjectPool.evict();
+        assertEquals(before + 10, simpleFactory.validateCounter);
+        assertEquals(timeLimited, genericObjectPool.getTimeLimitedEvictionRunCount());
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    void testMaxLifetime() throws Exception {
+        genericObjectPool.setMaxLifetime(Duration.ofMillis(100));
+        genericObjectPool.setMaxLifetimeJitter(Duration.ofMillis(50));
+        assertEquals(Duration.ofMillis(100), genericObjectPool.getMaxLifetime());
+        genericObjectPool.addObject();
+        genericObjectPool.addObject();
+        Thread.sleep(150);
+
+        // Expired idle objects are destroyed instead of being borrowed.
+        final String obj = genericObjectPool.borrowObject();
+        assertEquals("2", obj);
+        assertEquals(2, genericObjectPool.getDestroyedByMaxLifetimeCount());
+        assertEquals(0, genericObjectPool.getNumIdle());
+
+        // An object that expired while borrowed is destroyed when returned.
+        Thread.sleep(150);
+        genericObjectPool.returnObject(obj);
+        assertEquals(3, genericObjectPool.getDestroyedByMaxLifetimeCount());
+        assertEquals(0, genericObjectPool.getNumIdle());
+
+        // The evictor replaces expiring objects before destroying them to keep minIdle.
+        genericObjectPool.setMinIdle(2);
+        genericObjectPool.addObject();
+        genericObjectPool.addObject();
+        Thread.sleep(150);
+        genericObjectPool.evict();
+        assertEquals(5, genericObjectPool.getDestroyedByMaxLifetimeCount());
+        assertEquals(2, genericObjectPool.getNumIdle());
+        assertEquals(7, simpleFactory.makeCounter);
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    void testMaxLifetimeMaxEvictionRunDuration() throws Exception {
+        genericObjectPool.setMaxLifetime(Duration.ofMillis(100));
+        genericObjectPool.setMaxEvictionRunDuration(Duration.ofNanos(1));
+        for (int i = 0; i < 3; i++) {
+            genericObjectPool.addObject();
+        }
+        Thread.sleep(150);
+
+        // Each run is out of time after one expired object, the next run resumes after it.
+        for (int run = 1; run <= 3; run++) {
+            genericObjectPool.evict();
+            assertEquals(run, genericObjectPool.getDestroyedByMaxLifetimeCount());
+            assertEquals(3 - run, genericObjectPool.getNumIdle());
+        }
+    }
+
     @Test
     @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
     void testMaxIdle() throws Exception {
@@ -2696,6 +3179,65 @@ class TestGenericObjectPool extends TestBaseObjectPool {
         assertEquals(1, genericObjectPool.getNumIdle());
     }
 
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    void testPreparePoolMakeObjects() throws Exception {
+        final List<Integer> batches = Collections.synchronizedList(new ArrayList<>());
+        genericObjectPool.close();
+        simpleFactory = new SimpleFactory() {
+            @Override
+            public List<PooledObject<String>> makeObjects(final int count) {
+                batches.add(count);
+                final List<PooledObject<String>> list = new ArrayList<>();
+                // One more than asked for, which the pool destroys.
+                for (int i = 0; i <= count; i++) {
+                    list.add(makeObject());
+                }
+                return list;
+            }
+        };
+        genericObjectPool = new GenericObjectPool<>(simpleFactory);
+        genericObjectPool.setMaxTotal(3);
+        genericObjectPool.setMinIdle(5);
+        genericObjectPool.preparePool();
+        // The batch is cut down to the capacity left below maxTotal.
+        assertEquals(Arrays.asList(3), batches);
+        assertEquals(3, genericObjectPool.getNumIdle());
+        assertEquals(3, genericObjectPool.getCreatedCount());
+        assertEquals(3, simpleFactory.activeCount);
+        genericObjectPool.setMaxTotal(10);
+        genericObjectPool.addObjects(4);
+        assertEquals(Arrays.asList(3, 4), batches);
+        assertEquals(7, genericObjectPool.getNumIdle());
+        // A single missing object is made on its own.
+        final String obj = genericObjectPool.borrowObject();
+        genericObjectPool.invalidateObject(obj);
+        genericObjectPool.setMinIdle(7);
+        genericObjectPool.ensureMinIdle();
+        assertEquals(Arrays.asList(3, 4), batches);
+        assertEquals(7, genericObjectPool.getNumIdle());
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    void testRates() throws Exception {
+        assertEquals(0d, genericObjectPool.getBorrowedRates().get("5m"));
+        genericObjectPool.setMaxTotal(1);
+        genericObjectPool.setMaxWait(Duration.ofMillis(10));
+        genericObjectPool.setTestOnReturn(true);
+        final String obj = genericObjectPool.borrowObject();
+        assertThrows(NoSuchElementException.class, () -> genericObjectPool.borrowObject());
+        simpleFactory.setValid(false);
+        genericObjectPool.returnObject(obj);
+        assertEquals(1d / 300, genericObjectPool.getBorrowedRates().get("5m"));
+        assertEquals(1d / 300, genericObjectPool.getReturnedRates().get("5m"));
+        assertEquals(1d / 300, genericObjectPool.getCreatedRates().get("5m"));
+        assertEquals(1d / 300, genericObjectPool.getDestroyedRates().get("5m"));
+        assertEquals(1d / 300, genericObjectPool.getTimeoutRates().get("5m"));
+        assertEquals(1d / 300, genericObjectPool.getValidationFailureRates().get("5m"));
+        assertEquals(3, genericObjectPool.getBorrowedRates().size());
+    }
+
     @Test /* maxWaitMillis x2 + padding */
     @Timeout(value = 1200, unit = TimeUnit.MILLISECONDS)
     void testReturnBorrowObjectWithingMaxWaitDuration() throws Exception {
@@ -2947,6 +3489,64 @@ class TestGenericObjectPool extends TestBaseObjectPool {
         assertEquals(2, swallowedExceptions.size());
     }
 
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    void testTestWhileIdleParallelism() throws Exception {
+        genericObjectPool.setMaxTotal(10);
+        genericObjectPool.setMaxIdle(10);
+        genericObjectPool.setNumTestsPerEvictionRun(5);
+        genericObjectPool.setTestWhileIdle(true);
+        genericObjectPool.setTestWhileIdleParallelism(5);
+        assertEquals(5, genericObjectPool.getTestWhileIdleParallelism());
+        final String[] active = new String[10];
+        for (int i = 0; i < active.length; i++) {
+            active[i] = genericObjectPool.borrowObject();
+        }
+        for (final String obj : active) {
+            genericObjectPool.returnObject(obj);
+        }
+        simpleFactory.setValidateLatency(300);
+
+        // Five validations of 300 ms each in one 300 ms run.
+        long startNanos = System.nanoTime();
+        genericObjectPool.evict();
+        assertTrue(System.nanoTime() - startNanos < TimeUnit.MILLISECONDS.toNanos(1200));
+        assertEquals(10, genericObjectPool.getNumIdle());
+
+        // The run gives up waiting at the timeout, objects not under test can still be borrowed.
+        genericObjectPool.setTestWhileIdleTimeout(Duration.ofMillis(50));
+        startNanos = System.nanoTime();
+        genericObjectPool.evict();
+        assertTrue(System.nanoTime() - startNanos < TimeUnit.MILLISECONDS.toNanos(250));
+        genericObjectPool.setTestOnBorrow(false);
+        simpleFactory.setValidateLatency(0);
+        final String obj = genericObjectPool.borrowObject(Duration.ofMillis(100));
+        genericObjectPool.returnObject(obj);
+        Thread.sleep(500);
+        assertEquals(10, genericObjectPool.getNumIdle());
+        assertEquals(0, genericObjectPool.getDestroyedByEvictorCount());
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    void testTestWhileIdleParallelismClose() throws Exception {
+        genericObjectPool.setMaxTotal(1);
+        genericObjectPool.setTestWhileIdle(true);
+        genericObjectPool.setTestWhileIdleParallelism(2);
+        genericObjectPool.setTestWhileIdleTimeout(Duration.ofMillis(50));
+        genericObjectPool.addObject();
+        simpleFactory.setValidateLatency(300);
+        // The run gives up waiting while the validation goes on.
+        genericObjectPool.evict();
+        // A borrower takes the object under test out of the idle objects, so that closing does not destroy it.
+        assertThrows(NoSuchElementException.class, () -> genericObjectPool.borrowObject(Duration.ofMillis(10)));
+        genericObjectPool.close();
+        Thread.sleep(500);
+        // Destroyed once the validation completes, instead of returned to the closed pool.
+        assertEquals(0, genericObjectPool.getNumIdle());
+        assertEquals(1, genericObjectPool.getDestroyedCount());
+    }
+
     @Test
     @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
     void testThreaded1() throws Exception {
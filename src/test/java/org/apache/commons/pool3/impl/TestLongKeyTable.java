@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool3.impl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link LongKeyTable}.
+ */
+class TestLongKeyTable {
+
+    private final LongKeyTable<String> table = new LongKeyTable<>(4);
+
+    @Test
+    void testComputeIfAbsent() {
+        final String value = table.computeIfAbsent(2, Long::toString);
+        assertEquals("2", value);
+        assertSame(value, table.computeIfAbsent(2, key -> "other"));
+        assertSame(value, table.get(2));
+        assertEquals("-7", table.computeIfAbsent(-7, Long::toString));
+        assertEquals("-7", table.computeIfAbsent(-7, key -> "other"));
+        assertNull(table.get(3));
+        assertNull(table.get(Long.MAX_VALUE));
+        assertEquals(2, table.size());
+    }
+
+    @Test
+    void testKeys() {
+        table.computeIfAbsent(Long.MIN_VALUE, Long::toString);
+        table.computeIfAbsent(3, Long::toString);
+        table.computeIfAbsent(0, Long::toString);
+        final long[] keys = table.keys();
+        // Dense keys first in key order.
+        assertEquals(0, keys[0]);
+        assertEquals(3, keys[1]);
+        assertEquals(Long.MIN_VALUE, keys[2]);
+        final StringBuilder visited = new StringBuilder();
+        table.forEach((value, key) -> visited.append(value).append(':').append(key).append(' '));
+        assertEquals("0:0 3:3 " + Long.MIN_VALUE + ":" + Long.MIN_VALUE + " ", visited.toString());
+    }
+
+    @Test
+    void testResize() {
+        for (long key = 0; key < 1000; key++) {
+            table.computeIfAbsent(key * 1_000_003, Long::toString);
+        }
+        assertEquals(1000, table.size());
+        for (long key = 0; key < 1000; key++) {
+            assertEquals(Long.toString(key * 1_000_003), table.get(key * 1_000_003));
+        }
+        final long[] keys = table.keys();
+        Arrays.sort(keys);
+        final long[] expected = new long[1000];
+        Arrays.setAll(expected, i -> i * 1_000_003L);
+        assertArrayEquals(expected, keys);
+    }
+}
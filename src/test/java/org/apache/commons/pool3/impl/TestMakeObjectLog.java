@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool3.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.pool3.impl.ResilientPooledObjectFactory.MakeEvent;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link MakeObjectLog}.
+ */
+class TestMakeObjectLog {
+
+    private final MakeObjectLog log = new MakeObjectLog(5, Duration.ofMillis(1600));
+
+    @Test
+    void testCount() {
+        // Buckets of 100 ms
+        log.add(0, 1_000, MakeObjectLog.SUCCESS, null);
+        log.add(0, 1_050, MakeObjectLog.SUCCESS, null);
+        log.add(0, 1_500, MakeObjectLog.EXCEPTION, new Exception());
+        log.add(0, 2_000, MakeObjectLog.NULL_OBJECT, null);
+        assertEquals(2, log.count(2_000, MakeObjectLog.SUCCESS));
+        assertEquals(1, log.count(2_000, MakeObjectLog.EXCEPTION));
+        assertEquals(1, log.count(2_000, MakeObjectLog.NULL_OBJECT));
+        // The first bucket falls out of the look back duration
+        assertEquals(0, log.count(2_650, MakeObjectLog.SUCCESS));
+        assertEquals(1, log.count(2_650, MakeObjectLog.EXCEPTION));
+        // A bucket is reused for a later time
+        log.add(0, 2_650, MakeObjectLog.SUCCESS, null);
+        assertEquals(1, log.count(2_650, MakeObjectLog.SUCCESS));
+    }
+
+    @Test
+    void testEvents() {
+        assertEquals(8, log.capacity());
+        final Exception exception = new Exception();
+        log.add(1, 2, MakeObjectLog.EXCEPTION, exception);
+        for (int i = 0; i < 9; i++) {
+            log.add(10 + i, 20 + i, MakeObjectLog.SUCCESS, null);
+        }
+        assertEquals(10, log.size());
+        List<MakeEvent> events = log.getEvents(5);
+        assertEquals(5, events.size());
+        assertEquals(14, events.get(0).getStartTime().toEpochMilli());
+        assertEquals(28, events.get(4).getEndTime().toEpochMilli());
+        // The ring only keeps the last 8 events
+        assertEquals(8, log.getEvents(20).size());
+        log.resize(20);
+        assertEquals(32, log.capacity());
+        events = log.getEvents(20);
+        assertEquals(8, events.size());
+        assertEquals(11, events.get(0).getStartTime().toEpochMilli());
+        log.add(3, 4, MakeObjectLog.EXCEPTION, exception);
+        events = log.getEvents(20);
+        assertEquals(9, events.size());
+        assertFalse(events.get(8).isSuccess());
+        assertSame(exception, events.get(8).getException());
+    }
+
+    @Test
+    void testConcurrentWrites() throws InterruptedException {
+        // A single slot, written by every call.
+        final MakeObjectLog log = new MakeObjectLog(1, Duration.ofMillis(1600));
+        final Thread[] writers = new Thread[4];
+        for (int w = 0; w < writers.length; w++) {
+            writers[w] = new Thread(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    // The fields of an event are tied together so that a torn read shows.
+                    log.add(i, i + 1, i % 2 == 0 ? MakeObjectLog.SUCCESS : MakeObjectLog.NULL_OBJECT, null);
+                }
+            });
+            writers[w].start();
+        }
+        while (Arrays.stream(writers).anyMatch(Thread::isAlive)) {
+            for (final MakeEvent event : log.getEvents(1)) {
+                final long start = event.getStartTime().toEpochMilli();
+                assertEquals(start + 1, event.getEndTime().toEpochMilli());
+                assertEquals(start % 2 == 0, event.isSuccess());
+            }
+        }
+        for (final Thread writer : writers) {
+            writer.join();
+        }
+        assertEquals(80_000, log.size());
+        // No call overwrote a later one.
+        assertEquals(1, log.getEvents(1).size());
+    }
+
+    @Test
+    void testHasFailure() {
+        assertFalse(log.hasFailure(5));
+        log.add(0, 0, MakeObjectLog.NULL_OBJECT, null);
+        assertTrue(log.hasFailure(5));
+        for (int i = 0; i < 4; i++) {
+            log.add(0, 0, MakeObjectLog.SUCCESS, null);
+        }
+        assertTrue(log.hasFailure(5));
+        log.add(0, 0, MakeObjectLog.SUCCESS, null);
+        assertFalse(log.hasFailure(5));
+        assertTrue(log.hasFailure(6));
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool3.impl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import org.apache.commons.pool3.TestException;
+import org.apache.commons.pool3.impl.TestGenericKeyedObjectPool.SimpleFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Tests for {@link IntKeyedObjectPool} and {@link LongKeyedObjectPool}, through their keys widened to {@code long}.
+ */
+class TestPrimitiveKeyedObjectPool {
+
+    /**
+     * The methods of a pool with primitive keys, keys widened to {@code long}.
+     */
+    private interface KeyAdapter {
+
+        void addObject(long key) throws TestException;
+
+        String borrowObject(long key) throws TestException;
+
+        String borrowObject(long key, Duration maxWaitDuration) throws TestException;
+
+        void clear(long key);
+
+        long[] getKeys();
+
+        int getNumActive(long key);
+
+        int getNumIdle(long key);
+
+        void invalidateObject(long key, String obj) throws TestException;
+
+        void returnObject(long key, String obj);
+    }
+
+    private BasePrimitiveKeyedObjectPool<?, String, TestException> pool;
+
+    private KeyAdapter keys;
+
+    private void setUp(final String keyType) {
+        final GenericObjectPoolConfig<String> config = new GenericObjectPoolConfig<>();
+        config.setMaxTotal(2);
+        config.setMaxWait(Duration.ofMillis(10));
+        if (keyType.equals("int")) {
+            final IntKeyedObjectPool<String, TestException> intPool = new IntKeyedObjectPool<>(new SimpleFactory<>(), config, 4);
+            pool = intPool;
+            keys = new KeyAdapter() {
+
+                @Override
+                public void addObject(final long key) throws TestException {
+                    intPool.addObject((int) key);
+                }
+
+                @Override
+                public String borrowObject(final long key) throws TestException {
+                    return intPool.borrowObject((int) key);
+                }
+
+                @Override
+                public String borrowObject(final long key, final Duration maxWaitDuration) throws TestException {
+                    return intPool.borrowObject((int) key, maxWaitDuration);
+                }
+
+                @Override
+                public void clear(final long key) {
+                    intPool.clear((int) key);
+                }
+
+                @Override
+                public long[] getKeys() {
+                    return Arrays.stream(intPool.getKeys()).asLongStream().toArray();
+                }
+
+                @Override
+                public int getNumActive(final long key) {
+                    return intPool.getNumActive((int) key);
+                }
+
+                @Override
+                public int getNumIdle(final long key) {
+                    return intPool.getNumIdle((int) key);
+                }
+
+                @Override
+                public void invalidateObject(final long key, final String obj) throws TestException {
+                    intPool.invalidateObject((int) key, obj);
+                }
+
+                @Override
+                public void returnObject(final long key, final String obj) {
+                    intPool.returnObject((int) key, obj);
+                }
+            };
+        } else {
+            final LongKeyedObjectPool<String, TestException> longPool = new LongKeyedObjectPool<>(new SimpleFactory<>(), config, 4);
+            pool = longPool;
+            keys = new KeyAdapter() {
+
+                @Override
+                public void addObject(final long key) throws TestException {
+                    longPool.addObject(key);
+                }
+
+                @Override
+                public String borrowObject(final long key) throws TestException {
+                    return longPool.borrowObject(key);
+                }
+
+                @Override
+                public String borrowObject(final long key, final Duration maxWaitDuration) throws TestException {
+                    return longPool.borrowObject(key, maxWaitDuration);
+                }
+
+                @Override
+                public void clear(final long key) {
+                    longPool.clear(key);
+                }
+
+                @Override
+                public long[] getKeys() {
+                    return longPool.getKeys();
+                }
+
+                @Override
+                public int getNumActive(final long key) {
+                    return longPool.getNumActive(key);
+                }
+
+                @Override
+                public int getNumIdle(final long key) {
+                    return longPool.getNumIdle(key);
+                }
+
+                @Override
+                public void invalidateObject(final long key, final String obj) throws TestException {
+                    longPool.invalidateObject(key, obj);
+                }
+
+                @Override
+                public void returnObject(final long key, final String obj) {
+                    longPool.returnObject(key, obj);
+                }
+            };
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        pool.close();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "int", "long" })
+    void testBorrowAndReturn(final String keyType) throws Exception {
+        setUp(keyType);
+        final String a = keys.borrowObject(1);
+        final String b = keys.borrowObject(-5);
+        assertEquals("10", a);
+        assertEquals("-51", b);
+        assertEquals(1, keys.getNumActive(1));
+        assertEquals(2, pool.getNumActive());
+        keys.returnObject(1, a);
+        assertEquals(1, keys.getNumIdle(1));
+        assertEquals(a, keys.borrowObject(1));
+        keys.invalidateObject(1, a);
+        assertEquals(0, keys.getNumActive(1));
+        assertThrows(IllegalStateException.class, () -> keys.returnObject(2, b));
+        assertArrayEquals(new long[] { 1, -5 }, keys.getKeys());
+        assertEquals(2, pool.getNumKeys());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "int", "long" })
+    void testClose(final String keyType) throws Exception {
+        setUp(keyType);
+        keys.addObject(100);
+        pool.close();
+        assertTrue(pool.isClosed());
+        assertEquals(0, pool.getNumIdle());
+        assertThrows(IllegalStateException.class, () -> keys.borrowObject(100));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "int", "long" })
+    void testLimitsPerKey(final String keyType) throws Exception {
+        setUp(keyType);
+        keys.borrowObject(3);
+        keys.borrowObject(3);
+        assertThrows(NoSuchElementException.class, () -> keys.borrowObject(3, Duration.ofMillis(10)));
+        keys.borrowObject(7);
+        keys.addObject(8);
+        keys.addObject(8);
+        assertEquals(2, keys.getNumIdle(8));
+        keys.clear(8);
+        assertEquals(0, keys.getNumIdle(8));
+        assertEquals(3, pool.getNumActive());
+    }
+}
@@ -18,10 +18,17 @@ package org.apache.commons.pool3.impl;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.lang3.ThreadUtils;
 import org.apache.commons.pool3.PooledObject;
@@ -44,6 +51,9 @@ class TestResilientPooledObjectFactory {
         /** Whether or not to hang */
         private boolean hang;
 
+        /** Time taken by makeObject */
+        private volatile Duration makeLatency = Duration.ZERO;
+
         @Override
         public void activateObject(final PooledObject<String> p) throws Exception {
         }
@@ -58,6 +68,7 @@ class TestResilientPooledObjectFactory {
 
         @Override
         public PooledObject<String> makeObject() throws Exception {
+            ThreadUtils.sleepQuietly(makeLatency);
             if (up) {
                 return new DefaultPooledObject<>(UUID.randomUUID().toString());
             }
@@ -84,6 +95,10 @@ class TestResilientPooledObjectFactory {
             this.hang = hang;
         }
 
+        public void setMakeLatency(final Duration makeLatency) {
+            this.makeLatency = makeLatency;
+        }
+
         public void setSilentFail(final boolean silentFail) {
             this.silentFail = silentFail;
         }
@@ -155,6 +170,23 @@ class TestResilientPooledObjectFactory {
         assertFalse(rf.isAdderRunning());
     }
 
+    @Test
+    void testBackoff() {
+        final ResilientPooledObjectFactory<String, Exception> rf = new ResilientPooledObjectFactory<>(new FailingFactory(),
+                5, Duration.ofMillis(100), Duration.ofMinutes(10), Duration.ofMillis(20));
+        final long delayNanos = Duration.ofMillis(100).toNanos();
+        // The maximum delay defaults to the delay
+        assertEquals(rf.getDelay(), rf.getMaxDelay());
+        assertEquals(delayNanos, rf.backoffNanos(1));
+        assertEquals(delayNanos, rf.backoffNanos(10));
+        rf.setMaxDelay(Duration.ofMillis(500));
+        for (int failures = 1; failures < 100; failures++) {
+            final long backoffNanos = rf.backoffNanos(failures);
+            final long maxNanos = Math.min(Duration.ofMillis(500).toNanos(), delayNanos << Math.min(failures - 1, 3));
+            assertTrue(backoffNanos >= delayNanos && backoffNanos <= maxNanos, () -> Long.toString(backoffNanos));
+        }
+    }
+
     @Test
     void testConstructorWithDefaults() {
         final FailingFactory ff = new FailingFactory();
@@ -165,12 +197,99 @@ class TestResilientPooledObjectFactory {
         assertEquals(ResilientPooledObjectFactory.getDefaultTimeBetweenChecks(), rf.getTimeBetweenChecks());
         assertEquals(ResilientPooledObjectFactory.getDefaultDelay(), rf.getDelay());
         assertEquals(ResilientPooledObjectFactory.getDefaultLookBack(), rf.getLookBack());
+        assertEquals(ResilientPooledObjectFactory.getDefaultMaxProbes(), rf.getMaxProbes());
         assertEquals(0, rf.getMakeObjectLog().size());
         rf.setLogSize(5);
         assertEquals(5, rf.getLogSize());
         rf.setTimeBetweenChecks(Duration.ofMillis(200));
     }
 
+    @Test
+    void testFailFast() throws Exception {
+        final FailingFactory ff = new FailingFactory();
+        ff.setSilentFail(false);
+        final ResilientPooledObjectFactory<String, Exception> rf = new ResilientPooledObjectFactory<>(ff,
+                5, Duration.ofMillis(200), Duration.ofMinutes(10), Duration.ofMillis(20));
+        final GenericObjectPool<String, Exception> pool = new GenericObjectPool<>(rf);
+        pool.setMaxTotal(2);
+        pool.setMaxWait(Duration.ofSeconds(10));
+        rf.setPool(pool);
+        ff.crash();
+        assertThrows(Exception.class, pool::borrowObject);
+        // Open the breaker
+        rf.runChecks();
+        assertFalse(rf.isUp());
+        // The first probe goes through to the factory
+        final Exception e = assertThrows(Exception.class, pool::borrowObject);
+        assertFalse(e instanceof ResilientPooledObjectFactory.FactoryDownException);
+        // Rejected calls are not logged
+        assertEquals(2, rf.getMakeObjectLog().size());
+        // Then borrowers fail fast until the backoff has elapsed
+        final long startMillis = System.currentTimeMillis();
+        assertThrows(ResilientPooledObjectFactory.FactoryDownException.class, pool::borrowObject);
+        assertThrows(ResilientPooledObjectFactory.FactoryDownException.class, pool::borrowObject);
+        assertTrue(System.currentTimeMillis() - startMillis < 200);
+        assertEquals(2, rf.getMakeObjectLog().size());
+        assertEquals(2, rf.getFailureCount());
+        assertEquals(Long.valueOf(2), rf.getExceptionCounts().get(Exception.class));
+        ff.recover();
+        ThreadUtils.sleepQuietly(Duration.ofMillis(250));
+        // The next probe succeeds and closes the breaker
+        final String s1 = pool.borrowObject();
+        assertTrue(rf.isUp());
+        final String s2 = pool.borrowObject();
+        assertNotNull(s1);
+        assertNotNull(s2);
+        pool.returnObject(s1);
+        pool.returnObject(s2);
+        assertEquals(2, rf.getSuccessCount());
+        final List<ResilientPooledObjectFactory.MakeEvent> log = rf.getMakeObjectLog();
+        assertEquals(4, log.size());
+        assertFalse(log.get(0).isSuccess());
+        assertEquals("makeObject failed", log.get(0).getException().getMessage());
+        assertTrue(log.get(3).isSuccess());
+        // The failures before the probe do not open the breaker again
+        rf.runChecks();
+        assertTrue(rf.isUp());
+        // Idle objects are still served while the factory is down
+        ff.crash();
+        assertNotNull(pool.borrowObject());
+        pool.close();
+    }
+
+    @Test
+    void testConcurrentBorrowersAfterRecovery() throws Exception {
+        final FailingFactory ff = new FailingFactory();
+        ff.setSilentFail(false);
+        final ResilientPooledObjectFactory<String, Exception> rf = new ResilientPooledObjectFactory<>(ff,
+                5, Duration.ofMillis(20), Duration.ofMinutes(10), Duration.ofMinutes(10));
+        final GenericObjectPool<String, Exception> pool = new GenericObjectPool<>(rf);
+        pool.setMaxTotal(5);
+        rf.setPool(pool);
+        ff.crash();
+        assertThrows(Exception.class, pool::borrowObject);
+        rf.runChecks();
+        assertFalse(rf.isUp());
+        ff.recover();
+        // The probe succeeds
+        assertNotNull(pool.borrowObject());
+        // Concurrent creates are no longer limited to the probes
+        ff.setMakeLatency(Duration.ofMillis(200));
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<String>> borrowers = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                borrowers.add(executor.submit(() -> pool.borrowObject()));
+            }
+            for (final Future<String> borrower : borrowers) {
+                assertNotNull(borrower.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        pool.close();
+    }
+
     @Test
     void testIsMonitorRunning() throws Exception {
         final FailingFactory ff = new FailingFactory();
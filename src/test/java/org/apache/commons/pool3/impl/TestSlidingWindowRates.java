@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool3.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link SlidingWindowRates}.
+ */
+class TestSlidingWindowRates {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    private final SlidingWindowRates rates = new SlidingWindowRates(now::get);
+
+    @Test
+    void testEmpty() {
+        assertEquals(0d, rates.getOneSecondRate());
+        assertEquals(0d, rates.getOneMinuteRate());
+        assertEquals(0d, rates.getFiveMinuteRate());
+    }
+
+    @Test
+    void testGetRates() {
+        for (int i = 0; i < 30; i++) {
+            rates.increment();
+        }
+        final Map<String, Double> map = rates.getRates();
+        assertEquals(3, map.size());
+        assertEquals(30d, map.get(SlidingWindowRates.ONE_SECOND));
+        assertEquals(0.5d, map.get(SlidingWindowRates.ONE_MINUTE));
+        assertEquals(0.1d, map.get(SlidingWindowRates.FIVE_MINUTES));
+    }
+
+    @Test
+    void testWindowsExpire() {
+        rates.increment();
+        now.addAndGet(1_000);
+        assertEquals(0d, rates.getOneSecondRate());
+        assertEquals(1d / 60, rates.getOneMinuteRate());
+        now.addAndGet(60_000);
+        assertEquals(0d, rates.getOneMinuteRate());
+        assertEquals(1d / 300, rates.getFiveMinuteRate());
+        now.addAndGet(300_000);
+        assertEquals(0d, rates.getFiveMinuteRate());
+    }
+
+    @Test
+    void testBucketReuse() {
+        rates.increment();
+        // Same slot, next lap of the ring: the old count must not leak in.
+        now.addAndGet(1_000);
+        rates.increment();
+        assertEquals(1d, rates.getOneSecondRate());
+        assertEquals(2d / 60, rates.getOneMinuteRate());
+    }
+}
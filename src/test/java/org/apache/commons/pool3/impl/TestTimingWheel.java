@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool3.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.commons.pool3.PooledObject;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link TimingWheel}.
+ */
+class TestTimingWheel {
+
+    private static final long START = 1_700_000_000_000L;
+
+    private final TimingWheel<String> wheel = new TimingWheel<>();
+
+    private static PooledObject<String> pooledObject(final int i) {
+        return new DefaultPooledObject<>("object" + i);
+    }
+
+    @Test
+    void testCancel() {
+        wheel.reset(1, START);
+        final PooledObject<String> p = pooledObject(0);
+        wheel.schedule(p, START + 10);
+        assertEquals(1, wheel.size());
+        wheel.cancel(p);
+        assertEquals(0, wheel.size());
+        assertTrue(wheel.expire(START + 1_000).isEmpty());
+    }
+
+    @Test
+    void testConcurrentScheduleAndCancel() throws InterruptedException {
+        wheel.reset(1, START);
+        final int threadCount = 4;
+        final int perThread = 1_000;
+        final List<Thread> threads = new ArrayList<>();
+        final List<PooledObject<String>> kept = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            final List<PooledObject<String>> objects = new ArrayList<>();
+            for (int i = 0; i < perThread; i++) {
+                objects.add(pooledObject(t * perThread + i));
+            }
+            kept.addAll(objects.subList(0, perThread / 2));
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    wheel.schedule(objects.get(i), START + 1 + i);
+                }
+                // Cancel the second half
+                for (int i = perThread / 2; i < perThread; i++) {
+                    wheel.cancel(objects.get(i));
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(kept.size(), wheel.size());
+        assertEquals(new HashSet<>(kept), new HashSet<>(wheel.expire(START + perThread)));
+    }
+
+    @Test
+    void testExpireOnlyDueEntries() {
+        wheel.reset(1, START);
+        final PooledObject<String> soon = pooledObject(0);
+        final PooledObject<String> later = pooledObject(1);
+        final PooledObject<String> muchLater = pooledObject(2);
+        wheel.schedule(soon, START + 5);
+        wheel.schedule(later, START + 70_000);
+        // Beyond the span of the wheel
+        wheel.schedule(muchLater, START + 10L * 60 * 60 * 1000);
+        assertTrue(wheel.expire(START + 4).isEmpty());
+        assertEquals(List.of(soon), wheel.expire(START + 5));
+        assertTrue(wheel.expire(START + 69_999).isEmpty());
+        assertEquals(List.of(later), wheel.expire(START + 70_000));
+        assertTrue(wheel.expire(START + 5L * 60 * 60 * 1000).isEmpty());
+        assertEquals(List.of(muchLater), wheel.expire(START + 10L * 60 * 60 * 1000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testExpireAfterCursorStoppedAtSlotStart() {
+        wheel.reset(1, 0);
+        final PooledObject<String> p = pooledObject(0);
+        // On level 1, in the slot starting at 320
+        wheel.schedule(p, 330);
+        // Stops the cursor at 320
+        assertTrue(wheel.expire(319).isEmpty());
+        assertEquals(List.of(p), wheel.expire(400));
+        // On level 2, in the slot starting at 8192
+        wheel.schedule(p, 8200);
+        assertTrue(wheel.expire(8191).isEmpty());
+        assertTrue(wheel.expire(8199).isEmpty());
+        assertEquals(List.of(p), wheel.expire(8200));
+    }
+
+    @Test
+    void testOverdueEntryExpiresImmediately() {
+        wheel.reset(1, START);
+        assertTrue(wheel.expire(START + 100).isEmpty());
+        final PooledObject<String> p = pooledObject(0);
+        wheel.schedule(p, START + 50);
+        assertEquals(List.of(p), wheel.expire(START + 101));
+    }
+
+    @Test
+    void testRandomAgainstModel() {
+        final Random random = new Random(42);
+        wheel.reset(1, START);
+        final Map<PooledObject<String>, Long> model = new HashMap<>();
+        final List<PooledObject<String>> objects = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            objects.add(pooledObject(i));
+        }
+        long cutoff = START;
+        for (int step = 0; step < 20_000; step++) {
+            final PooledObject<String> p = objects.get(random.nextInt(objects.size()));
+            switch (random.nextInt(4)) {
+            case 0:
+                wheel.cancel(p);
+                model.remove(p);
+                break;
+            case 1:
+                cutoff += random.nextInt(random.nextBoolean() ? 100 : 100_000);
+                final long now = cutoff;
+                final Set<PooledObject<String>> expected = new HashSet<>();
+                model.forEach((key, time) -> {
+                    if (time.longValue() <= now) {
+                        expected.add(key);
+                    }
+                });
+                expected.forEach(model::remove);
+                assertEquals(expected, new HashSet<>(wheel.expire(cutoff)));
+                break;
+            default:
+                final long time = cutoff + 1 + (long) (random.nextDouble() * random.nextDouble() * 20_000_000L);
+                wheel.schedule(p, time);
+                model.put(p, Long.valueOf(time));
+                break;
+            }
+            assertEquals(model.size(), wheel.size());
+        }
+    }
+}